@@ -113,6 +113,13 @@ public enum SessionVars implements ConfigKey {
       Integer.class, Validators.min("1")),
   TABLE_PARTITION_PER_SHUFFLE_SIZE(ConfVars.$DIST_QUERY_TABLE_PARTITION_VOLUME,
       "shuffle output size for partition table write (mb)", DEFAULT, Integer.class, Validators.min("1")),
+  ADAPTIVE_PARTITION_ENABLED(ConfVars.$DIST_QUERY_ADAPTIVE_PARTITION_ENABLED,
+      "assigning hash-shuffle partitions to tasks according to their actual volumes enabled", DEFAULT),
+  JOIN_SKEW_ENABLED(ConfVars.$DIST_QUERY_JOIN_SKEW_ENABLED,
+      "splitting skewed partitions of a repartition join into several tasks enabled", DEFAULT),
+  JOIN_SKEW_FACTOR(ConfVars.$DIST_QUERY_JOIN_SKEW_FACTOR,
+      "ratio of a partition volume to the median partition volume to be regarded as skewed in a join", DEFAULT,
+      Integer.class, Validators.min("1")),
 
   GROUPBY_MULTI_LEVEL_ENABLED(ConfVars.$GROUPBY_MULTI_LEVEL_ENABLED, "Multiple level groupby enabled", DEFAULT,
       Boolean.class, Validators.bool()),
@@ -125,20 +132,45 @@ public enum SessionVars implements ConfigKey {
       Integer.class, Validators.min("0")),
   HASH_SHUFFLE_BUFFER_SIZE(ConfVars.$EXECUTOR_HASH_SHUFFLE_BUFFER_SIZE, "hash-shuffle buffer size for local disk I/O (mb)"
       , DEFAULT, Integer.class, Validators.min("1")),
+  HASH_SHUFFLE_PUSH_ENABLED(ConfVars.$EXECUTOR_HASH_SHUFFLE_PUSH_ENABLED,
+      "pushing hash-shuffle outputs to a merger worker of each partition enabled", DEFAULT),
+  HASH_SHUFFLE_COMPRESSION_CODEC(ConfVars.$EXECUTOR_HASH_SHUFFLE_COMPRESSION_CODEC,
+      "compression codec class of hash-shuffle outputs. An empty value means no compression", DEFAULT),
+  HASH_SHUFFLE_COMBINER_ENABLED(ConfVars.$EXECUTOR_HASH_SHUFFLE_COMBINER_ENABLED,
+      "combining partial aggregation outputs of tasks in a worker before hash-shuffle enabled", DEFAULT),
+  HASH_SHUFFLE_SORT_ENABLED(ConfVars.$EXECUTOR_HASH_SHUFFLE_SORT_ENABLED,
+      "writing hash-shuffle outputs of a task into a single file sorted by partition enabled", DEFAULT),
   HASH_JOIN_SIZE_LIMIT(ConfVars.$EXECUTOR_HASH_JOIN_SIZE_THRESHOLD, "limited size for hash join (mb)", DEFAULT,
       Long.class, Validators.min("0")),
   INNER_HASH_JOIN_SIZE_LIMIT(ConfVars.$EXECUTOR_INNER_HASH_JOIN_SIZE_THRESHOLD,
       "limited size for hash inner join (mb)", DEFAULT, Long.class, Validators.min("0")),
   OUTER_HASH_JOIN_SIZE_LIMIT(ConfVars.$EXECUTOR_OUTER_HASH_JOIN_SIZE_THRESHOLD, "limited size for hash outer join (mb)",
       DEFAULT, Long.class, Validators.min("0")),
+  HYBRID_HASH_JOIN_ENABLED(ConfVars.$EXECUTOR_HYBRID_HASH_JOIN_ENABLED,
+      "hybrid hash join enabled for inner joins exceeding the in-memory hash join limit", DEFAULT),
+  RUNTIME_JOIN_FILTER_ENABLED(ConfVars.$RUNTIME_JOIN_FILTER_ENABLED,
+      "filtering the shuffle of a repartitioned join with a bloom filter of the other side enabled", DEFAULT),
+  RUNTIME_JOIN_FILTER_SIZE(ConfVars.$RUNTIME_JOIN_FILTER_SIZE, "the size of a bloom filter for a repartitioned join (kb)",
+      DEFAULT, Integer.class, Validators.min("1")),
   HASH_GROUPBY_SIZE_LIMIT(ConfVars.$EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD, "limited size for hash groupby (mb)",
       DEFAULT, Long.class, Validators.min("0")),
+  HASH_GROUPBY_SPILL_THRESHOLD(ConfVars.$EXECUTOR_GROUPBY_SPILL_THRESHOLD,
+      "estimated memory size of hash groupby which triggers spilling partial results (mb)", DEFAULT, Long.class,
+      Validators.min("0")),
   MAX_OUTPUT_FILE_SIZE(ConfVars.$MAX_OUTPUT_FILE_SIZE, "Maximum per-output file size (mb). 0 means infinite.", DEFAULT,
       Long.class, Validators.min("0")),
   NULL_CHAR(ConfVars.$TEXT_NULL, "Null char of text file output. " +
       "This value is used when the table property 'text.null' is not specified.", DEFAULT),
-  CODEGEN(ConfVars.$CODEGEN, "Runtime code generation enabled (experiment)", DEFAULT),
+  CODEGEN(ConfVars.$CODEGEN, "Runtime code generation enabled", DEFAULT),
+  CODEGEN_PIPELINE(ConfVars.$CODEGEN_PIPELINE,
+      "Runtime code generation of the fused filter and projection of a scan enabled (experiment)", DEFAULT),
+  VECTORIZED_EXECUTION_ENABLED(ConfVars.$VECTORIZED_EXECUTION_ENABLED,
+      "Vectorized execution of scan, filter, projection and hash aggregation enabled (experiment)", DEFAULT),
+  VECTORIZED_BATCH_SIZE(ConfVars.$VECTORIZED_BATCH_SIZE, "The number of rows in a batch for vectorized execution",
+      DEFAULT, Integer.class, Validators.min("1")),
   AGG_HASH_TABLE_SIZE(ConfVars.$AGG_HASH_TABLE_SIZE, "The initial size of list for in-memory aggregation", DEFAULT),
+  AGG_OFFHEAP_STATE_ENABLED(ConfVars.$AGG_OFFHEAP_STATE_ENABLED,
+      "Keep the states of built-in aggregation functions in off-heap memory", DEFAULT),
   SORT_LIST_SIZE(ConfVars.$SORT_LIST_SIZE, "The initial size of list for in-memory sort", DEFAULT),
   JOIN_HASH_TABLE_SIZE(ConfVars.$JOIN_HASH_TABLE_SIZE, "The initial size of hash table for in-memory hash join",
       DEFAULT),
@@ -166,6 +198,8 @@ public enum SessionVars implements ConfigKey {
       CLI_SIDE_VAR, Boolean.class, Validators.bool()),
 
   SORT_ALGORITHM(ConfVars.$SORT_ALGORITHM, "sort algorithm", DEFAULT),
+  SORT_NORMALIZED_KEY_ENABLED(ConfVars.$SORT_NORMALIZED_KEY_ENABLED,
+      "Sort with normalized key prefixes of the leading sort keys", DEFAULT),
 
   //-------------------------------------------------------------------------------
   // Only for Unit Testing
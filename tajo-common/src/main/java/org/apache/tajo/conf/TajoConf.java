@@ -208,9 +208,20 @@ public class TajoConf extends Configuration {
     // Shuffle Configuration --------------------------------------------------
     PULLSERVER_PORT("tajo.pullserver.port", 0, Validators.range("0", "65535")),
     PULLSERVER_CACHE_SIZE("tajo.pullserver.index-cache.size", 10000, Validators.min("1")),
+    PULLSERVER_CACHE_MAX_SIZE("tajo.pullserver.index-cache.max-size-mb", 0, Validators.min("0")), // 0 means unbounded
     PULLSERVER_CACHE_TIMEOUT("tajo.pullserver.index-cache.timeout-min", 5, Validators.min("1")),
+    PULLSERVER_INDEX_MMAP_ENABLED("tajo.pullserver.index.mmap.enabled", false, Validators.bool()),
     PULLSERVER_FETCH_URL_MAX_LENGTH("tajo.pullserver.fetch-url.max-length", StorageUnit.KB,
         Validators.min("1")),
+    PULLSERVER_PUSH_REQUEST_MAX_SIZE("tajo.pullserver.push.request.max-size-mb", 64, Validators.min("1")),
+    PULLSERVER_PUSH_THREAD_NUM("tajo.pullserver.push.thread-num", 4, Validators.min("1")),
+    PULLSERVER_DISK_IO_SCHEDULER_ENABLED("tajo.pullserver.disk-io.scheduler.enabled", false, Validators.bool()),
+    PULLSERVER_DISK_IO_ROTATIONAL_CONCURRENCY("tajo.pullserver.disk-io.rotational.max-concurrency", 2,
+        Validators.min("1")),
+    PULLSERVER_DISK_IO_NON_ROTATIONAL_CONCURRENCY("tajo.pullserver.disk-io.non-rotational.max-concurrency", 16,
+        Validators.min("1")),
+    PULLSERVER_DISK_IO_NON_ROTATIONAL_READAHEAD("tajo.pullserver.disk-io.non-rotational.readahead-kb", 512,
+        Validators.min("0")),
     YARN_SHUFFLE_SERVICE_ENABLED("tajo.shuffle.yarn-service.enabled", false, Validators.bool()),
     SHUFFLE_SSL_ENABLED_KEY("tajo.pullserver.ssl.enabled", false, Validators.bool()),
     SHUFFLE_FILE_FORMAT("tajo.shuffle.file-format", BuiltinStorages.RAW, Validators.javaString()),
@@ -220,8 +231,18 @@ public class TajoConf extends Configuration {
     SHUFFLE_FETCHER_CONNECT_TIMEOUT("tajo.shuffle.fetcher.connect.timeout-sec", 60, Validators.min("1")),
     SHUFFLE_FETCHER_READ_TIMEOUT("tajo.shuffle.fetcher.read.timeout-sec", 60, Validators.min("1")),
     SHUFFLE_FETCHER_READ_RETRY_MAX_NUM("tajo.shuffle.fetcher.read.retry.max-num", 2, Validators.min("0")),
+    SHUFFLE_FETCHER_CONNECTIONS_PER_HOST("tajo.shuffle.fetcher.connections-per-host", 2, Validators.min("1")),
+    SHUFFLE_FETCHER_PIPELINING_MAX_NUM("tajo.shuffle.fetcher.pipelining.max-num", 4, Validators.min("1")),
+    SHUFFLE_FETCHER_HOST_IN_FLIGHT_MAX_SIZE("tajo.shuffle.fetcher.host.in-flight.max-size-mb", 64,
+        Validators.min("1")),
+    SHUFFLE_FETCHER_STREAMING_ENABLED("tajo.shuffle.fetcher.streaming.enabled", false, Validators.bool()),
+    SHUFFLE_FETCHER_STREAMING_MEMORY_MAX_SIZE("tajo.shuffle.fetcher.streaming.memory.max-size-mb", 256,
+        Validators.min("0")),
     SHUFFLE_HASH_APPENDER_PAGE_VOLUME("tajo.shuffle.hash.appender.page.volume-mb", 30),
     SHUFFLE_HASH_PARENT_DIRS("tajo.shuffle.hash.parent.dirs.count", 64),
+    SHUFFLE_HASH_PUSH_PAGE_MAX_SIZE("tajo.shuffle.hash.push.page.max-size-mb", 4, Validators.min("1")),
+    SHUFFLE_HASH_PUSH_PARALLEL_NUM("tajo.shuffle.hash.push.parallel-num", 4, Validators.min("1")),
+    SHUFFLE_HASH_COMBINER_MAX_SIZE("tajo.shuffle.hash.combiner.max-size-mb", 64, Validators.min("1")),
 
     // Query output Configuration --------------------------------------------------
     QUERY_OUTPUT_DEFAULT_FILE_FORMAT("tajo.query.output.file-format", BuiltinStorages.DRAW, Validators.javaString()),
@@ -279,6 +300,9 @@ public class TajoConf extends Configuration {
         "org.apache.tajo.engine.planner.global.rewriter.BaseGlobalPlanRewriteRuleProvider"),
     EXECUTOR_EXTERNAL_SORT_THREAD_NUM("tajo.executor.external-sort.thread-num", 1),
     EXECUTOR_EXTERNAL_SORT_FANOUT("tajo.executor.external-sort.fanout-num", 8),
+    EXECUTOR_HYBRID_HASH_JOIN_FANOUT("tajo.executor.join.hybrid-hash.fanout-num", 16, Validators.min("2")),
+    EXECUTOR_GROUPBY_SPILL_FANOUT("tajo.executor.groupby.spill.fanout-num", 16, Validators.min("2")),
+    EXECUTOR_CODEGEN_CACHE_SIZE("tajo.executor.codegen.cache-size", 1024, Validators.min("0")),
 
     // Metrics ----------------------------------------------------------------
     METRICS_PROPERTY_FILENAME("tajo.metrics.property.file", "tajo-metrics.properties"),
@@ -344,6 +368,9 @@ public class TajoConf extends Configuration {
     $DIST_QUERY_JOIN_PARTITION_VOLUME("tajo.dist-query.join.partition-volume-mb", 128, Validators.min("1")),
     $DIST_QUERY_GROUPBY_PARTITION_VOLUME("tajo.dist-query.groupby.partition-volume-mb", 256, Validators.min("1")),
     $DIST_QUERY_TABLE_PARTITION_VOLUME("tajo.dist-query.table-partition.task-volume-mb", 256, Validators.min("1")),
+    $DIST_QUERY_ADAPTIVE_PARTITION_ENABLED("tajo.dist-query.adaptive-partition.enabled", false),
+    $DIST_QUERY_JOIN_SKEW_ENABLED("tajo.dist-query.join.skew.enabled", false),
+    $DIST_QUERY_JOIN_SKEW_FACTOR("tajo.dist-query.join.skew.factor", 5, Validators.min("1")),
 
     $GROUPBY_MULTI_LEVEL_ENABLED("tajo.dist-query.groupby.multi-level-aggr", true),
 
@@ -356,15 +383,28 @@ public class TajoConf extends Configuration {
         Validators.min("0")),
     $EXECUTOR_OUTER_HASH_JOIN_SIZE_THRESHOLD("tajo.executor.join.outer.in-memory-hash-threshold-mb", 64l,
         Validators.min("0")),
+    $EXECUTOR_HYBRID_HASH_JOIN_ENABLED("tajo.executor.join.hybrid-hash.enabled", false),
+    $RUNTIME_JOIN_FILTER_ENABLED("tajo.executor.join.runtime-filter.enabled", false),
+    $RUNTIME_JOIN_FILTER_SIZE("tajo.executor.join.runtime-filter.size-kb", 128, Validators.min("1")),
     $EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD("tajo.executor.groupby.in-memory-hash-threshold-mb", 64l,
         Validators.min("0")),
+    $EXECUTOR_GROUPBY_SPILL_THRESHOLD("tajo.executor.groupby.spill-threshold-mb", 512l, Validators.min("0")),
     $EXECUTOR_HASH_SHUFFLE_BUFFER_SIZE("tajo.executor.hash-shuffle.buffer-mb", 100, Validators.min("1")),
+    $EXECUTOR_HASH_SHUFFLE_PUSH_ENABLED("tajo.executor.hash-shuffle.push.enabled", false),
+    $EXECUTOR_HASH_SHUFFLE_COMPRESSION_CODEC("tajo.executor.hash-shuffle.compression.codec", ""),
+    $EXECUTOR_HASH_SHUFFLE_COMBINER_ENABLED("tajo.executor.hash-shuffle.combiner.enabled", false),
+    $EXECUTOR_HASH_SHUFFLE_SORT_ENABLED("tajo.executor.hash-shuffle.sort.enabled", false),
     $MAX_OUTPUT_FILE_SIZE("tajo.query.max-outfile-size-mb", 0), // zero means infinite
-    $CODEGEN("tajo.executor.codegen.enabled", false), // Runtime code generation (todo this is broken)
+    $CODEGEN("tajo.executor.codegen.enabled", false), // Runtime code generation
+    $CODEGEN_PIPELINE("tajo.executor.codegen.pipeline.enabled", false),
+    $VECTORIZED_EXECUTION_ENABLED("tajo.executor.vectorized.enabled", false),
+    $VECTORIZED_BATCH_SIZE("tajo.executor.vectorized.batch-size", 1024, Validators.min("1")),
     $AGG_HASH_TABLE_SIZE("tajo.executor.aggregate.hash-table.size", 10000),
+    $AGG_OFFHEAP_STATE_ENABLED("tajo.executor.aggregate.offheap-state.enabled", false),
     $SORT_LIST_SIZE("tajo.executor.sort.list.size", 100000),
     $JOIN_HASH_TABLE_SIZE("tajo.executor.join.hash-table.size", 100000),
     $SORT_ALGORITHM("tajo.executor.sort.algorithm", "TIM"),
+    $SORT_NORMALIZED_KEY_ENABLED("tajo.executor.sort.normalized-key.enabled", false),
 
     // for index
     $INDEX_ENABLED("tajo.query.index.enabled", false),
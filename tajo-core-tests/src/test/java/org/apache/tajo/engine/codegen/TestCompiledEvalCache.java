@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaBuilder;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.plan.expr.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCompiledEvalCache {
+  private static final Schema schema = SchemaBuilder.builder()
+      .add("t1.col1", Type.INT4)
+      .add("t1.col2", Type.INT8)
+      .add("t1.col3", Type.INT4)
+      .build();
+
+  private static EvalNode greaterThan(int constant) {
+    return greaterThan("t1.col1", constant);
+  }
+
+  private static EvalNode greaterThan(String column, int constant) {
+    return new BinaryEval(EvalType.GTH, new FieldEval(column, CatalogUtil.newSimpleDataType(Type.INT4)),
+        new ConstEval(DatumFactory.createInt4(constant)));
+  }
+
+  @Test
+  public void testReuseCompiledClass() {
+    CompiledEvalCache cache = new CompiledEvalCache(16);
+
+    EvalNode first = cache.compile(schema, greaterThan(10));
+    EvalNode second = cache.compile(schema, greaterThan(10));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.stats().hitCount());
+    assertSame(first.getClass(), second.getClass());
+    assertNotSame(first, second);
+    assertNotSame(getClass().getClassLoader(), first.getClass().getClassLoader());
+
+    // a different constant, column or schema yields a different class
+    assertNotSame(first.getClass(), cache.compile(schema, greaterThan(20)).getClass());
+    assertNotSame(first.getClass(), cache.compile(schema, greaterThan("t1.col3", 10)).getClass());
+
+    Schema other = SchemaBuilder.builder().add("t1.col0", Type.INT4).add("t1.col1", Type.INT4).build();
+    assertNotSame(first.getClass(), cache.compile(other, greaterThan(10)).getClass());
+    assertEquals(4, cache.size());
+  }
+
+  @Test
+  public void testEviction() {
+    CompiledEvalCache cache = new CompiledEvalCache(1);
+
+    Class<?> first = cache.compile(schema, greaterThan(10)).getClass();
+    cache.compile(schema, greaterThan(20));
+    assertEquals(1, cache.size());
+    assertEquals(1, cache.stats().evictionCount());
+
+    // an evicted expression is compiled again into a new class
+    assertNotSame(first, cache.compile(schema, greaterThan(10)).getClass());
+
+    cache.invalidateAll();
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void testFallback() {
+    CompiledEvalCache cache = new CompiledEvalCache(16);
+    EvalNode row = new RowConstantEval(new Datum[] {DatumFactory.createInt4(1), DatumFactory.createInt4(2)});
+
+    for (int i = 0; i < 3; i++) {
+      try {
+        cache.compile(schema, row);
+        fail("a row constant cannot be compiled");
+      } catch (CompilationError e) {
+        // expected
+      }
+    }
+
+    // a failed expression is generated only once, but every request is counted
+    assertEquals(0, cache.size());
+    assertEquals(3, cache.getFallbackNum());
+    assertEquals(Long.valueOf(3), cache.getFallbackNums().get(row.toString()));
+
+    cache.compile(schema, greaterThan(10));
+    assertEquals(3, cache.getFallbackNum());
+  }
+}
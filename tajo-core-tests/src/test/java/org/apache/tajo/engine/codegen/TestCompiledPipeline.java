@@ -0,0 +1,117 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaBuilder;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestCompiledPipeline {
+  private static final Schema schema = SchemaBuilder.builder()
+      .add("t1.col1", Type.INT4)
+      .add("t1.col2", Type.INT8)
+      .add("t1.col3", Type.TEXT)
+      .build();
+
+  private static FieldEval field(String name, Type type) {
+    return new FieldEval(name, CatalogUtil.newSimpleDataType(type));
+  }
+
+  private static Tuple tuple(Datum... values) {
+    return new VTuple(values);
+  }
+
+  @Test
+  public void testFilterAndProject() {
+    // col1 > 10 AND col2 < 100
+    EvalNode qual = new BinaryEval(EvalType.AND,
+        new BinaryEval(EvalType.GTH, field("t1.col1", Type.INT4), new ConstEval(DatumFactory.createInt4(10))),
+        new BinaryEval(EvalType.LTH, field("t1.col2", Type.INT8), new ConstEval(DatumFactory.createInt8(100))));
+    // col3, col2 + col1
+    EvalNode [] targets = new EvalNode[] {
+        field("t1.col3", Type.TEXT),
+        new BinaryEval(EvalType.PLUS, field("t1.col2", Type.INT8),
+            new CastEval(null, field("t1.col1", Type.INT4), org.apache.tajo.type.Type.Int8))
+    };
+
+    CompiledPipeline pipeline = new EvalCodeGenerator(new TajoClassLoader()).compilePipeline(schema, qual, targets);
+    pipeline.bind(new EvalContext());
+    Tuple out = new VTuple(targets.length);
+
+    Tuple in = tuple(DatumFactory.createInt4(11), DatumFactory.createInt8(5), DatumFactory.createText("abc"));
+    assertTrue(pipeline.process(in, out));
+    assertEquals(DatumFactory.createText("abc"), out.asDatum(0));
+    assertEquals(DatumFactory.createInt8(16), out.asDatum(1));
+
+    assertFalse(pipeline.process(
+        tuple(DatumFactory.createInt4(10), DatumFactory.createInt8(5), DatumFactory.createText("abc")), out));
+    assertFalse(pipeline.process(
+        tuple(DatumFactory.createInt4(11), DatumFactory.createInt8(100), DatumFactory.createText("abc")), out));
+
+    // UNKNOWN of three valued logic does not satisfy the filter
+    assertFalse(pipeline.process(
+        tuple(NullDatum.get(), DatumFactory.createInt8(5), DatumFactory.createText("abc")), out));
+  }
+
+  @Test
+  public void testProjectWithoutFilter() {
+    EvalNode [] targets = new EvalNode[] {
+        new BinaryEval(EvalType.MULTIPLY, field("t1.col1", Type.INT4), new ConstEval(DatumFactory.createInt4(2))),
+        field("t1.col3", Type.TEXT)
+    };
+
+    CompiledPipeline pipeline = new EvalCodeGenerator(new TajoClassLoader()).compilePipeline(schema, null, targets);
+    pipeline.bind(new EvalContext());
+    Tuple out = new VTuple(targets.length);
+
+    assertTrue(pipeline.process(
+        tuple(DatumFactory.createInt4(21), DatumFactory.createInt8(5), NullDatum.get()), out));
+    assertEquals(DatumFactory.createInt4(42), out.asDatum(0));
+    assertTrue(out.isBlankOrNull(1));
+
+    assertTrue(pipeline.process(
+        tuple(NullDatum.get(), DatumFactory.createInt8(5), DatumFactory.createText("x")), out));
+    assertTrue(out.isBlankOrNull(0));
+    assertEquals(DatumFactory.createText("x"), out.asDatum(1));
+  }
+
+  @Test
+  public void testCachedPipeline() {
+    CompiledEvalCache cache = new CompiledEvalCache(16);
+    EvalNode qual = new BinaryEval(EvalType.EQUAL, field("t1.col1", Type.INT4),
+        new ConstEval(DatumFactory.createInt4(1)));
+    EvalNode [] targets = new EvalNode[] {field("t1.col2", Type.INT8)};
+
+    CompiledPipeline first = cache.compilePipeline(schema, qual, targets);
+    CompiledPipeline second = cache.compilePipeline(schema, qual, targets);
+    assertSame(first.getClass(), second.getClass());
+    assertNotSame(first, second);
+    assertNotSame(first.getClass(), cache.compilePipeline(schema, null, targets).getClass());
+    assertEquals(2, cache.size());
+  }
+}
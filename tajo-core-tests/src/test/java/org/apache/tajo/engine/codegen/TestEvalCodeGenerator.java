@@ -308,4 +308,61 @@ public class TestEvalCodeGenerator extends ExprTestBase {
     testEval(schema, "table1", " trim, abc", "select ltrim(col1) || ltrim(col2) from table1",
         new String[]{"trimabc"});
   }
+
+  @Test
+  public void testCaseWhen() throws TajoException {
+    Schema schema = SchemaBuilder.builder()
+        .add("col1", TajoDataTypes.Type.INT4)
+        .add("col2", TajoDataTypes.Type.TEXT)
+        .build();
+
+    testEval(schema, "table1", "2,abc",
+        "select case when col1 = 1 then 'one' when col1 = 2 then 'two' when col1 = 3 then 'three' " +
+            "else 'other' end from table1", new String[]{"two"});
+    testEval(schema, "table1", "5,abc",
+        "select case when col1 = 1 then 'one' when col1 = 2 then 'two' when col1 = 3 then 'three' " +
+            "else 'other' end from table1", new String[]{"other"});
+    testEval(schema, "table1", "5,abc",
+        "select case when col1 = 1 then 'one' when col1 = 2 then 'two' end from table1",
+        new String[]{NullDatum.get().toString()});
+
+    testEval(schema, "table1", "3,abc",
+        "select case col1 when 1 then 'one' when 2 then 'two' when 3 then 'three' end from table1",
+        new String[]{"three"});
+    testEval(schema, "table1", "5,abc",
+        "select case col1 when 1 then 'one' when 2 then 'two' when 3 then 'three' end from table1",
+        new String[]{NullDatum.get().toString()});
+  }
+
+  @Test
+  public void testCast() throws TajoException {
+    Schema schema = SchemaBuilder.builder()
+        .add("col1", TajoDataTypes.Type.INT4)
+        .add("col2", TajoDataTypes.Type.TEXT)
+        .add("col3", TajoDataTypes.Type.TEXT)
+        .build();
+
+    testEval(schema, "table1", "2,12,2014-10-18", "select cast(col1 as float8) from table1",
+        new String[]{"2.0"});
+    testEval(schema, "table1", "2,12,2014-10-18", "select cast(col2 as int4) + col1 from table1",
+        new String[]{"14"});
+    testEval(schema, "table1", "2,12,2014-10-18", "select cast(col3 as date) from table1",
+        new String[]{"2014-10-18"});
+    testEval(schema, "table1", "2,t,2014-10-18", "select cast(col2 as boolean) from table1",
+        new String[]{"t"});
+  }
+
+  @Test
+  public void testPredicates() throws TajoException {
+    Schema schema = SchemaBuilder.builder()
+        .add("col1", TajoDataTypes.Type.INT4)
+        .add("col2", TajoDataTypes.Type.TEXT)
+        .build();
+
+    testEval(schema, "table1", "2,abc", "select col1 in (1, 2, 3) from table1", new String[]{"t"});
+    testEval(schema, "table1", "2,abc", "select col2 not in ('a', 'b') from table1", new String[]{"t"});
+    testEval(schema, "table1", "2,abc", "select col2 like 'ab%' from table1", new String[]{"t"});
+    testEval(schema, "table1", "2,abc", "select col2 similar to 'a_d' from table1", new String[]{"f"});
+    testEval(schema, "table1", "2,abc", "select col2 ~ 'a.c' from table1", new String[]{"t"});
+  }
 }
@@ -30,6 +30,7 @@ import org.apache.tajo.cli.tsql.SimpleParser;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.datum.*;
+import org.apache.tajo.engine.codegen.CompilationError;
 import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.codegen.TajoClassLoader;
 import org.apache.tajo.engine.function.FunctionLoader;
@@ -44,8 +45,13 @@ import org.apache.tajo.plan.LogicalOptimizer;
 import org.apache.tajo.plan.LogicalPlan;
 import org.apache.tajo.plan.LogicalPlanner;
 import org.apache.tajo.plan.Target;
+import org.apache.tajo.plan.expr.BinaryEval;
+import org.apache.tajo.plan.expr.CaseWhenEval;
 import org.apache.tajo.plan.expr.EvalContext;
 import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.plan.expr.FunctionEval;
+import org.apache.tajo.plan.expr.InEval;
 import org.apache.tajo.plan.function.python.PythonScriptEngine;
 import org.apache.tajo.plan.serder.EvalNodeDeserializer;
 import org.apache.tajo.plan.serder.EvalNodeSerializer;
@@ -69,8 +75,10 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.TimeZone;
 
 import static org.apache.tajo.TajoConstants.DEFAULT_DATABASE_NAME;
@@ -78,6 +86,13 @@ import static org.apache.tajo.TajoConstants.DEFAULT_TABLESPACE_NAME;
 import static org.junit.Assert.*;
 
 public class ExprTestBase {
+  /** the types of EvalNodes which the code generator rejects */
+  private static final Set<EvalType> UNCOMPILABLE_EVAL_TYPES =
+      EnumSet.of(EvalType.AGG_FUNCTION, EvalType.WINDOW_FUNCTION, EvalType.SUBQUERY);
+  /** the types of values which the generated code can keep on the operand stack */
+  private static final Set<Type> COMPILABLE_VALUE_TYPES = EnumSet.of(Type.NULL_TYPE, Type.BOOLEAN, Type.CHAR,
+      Type.INT1, Type.INT2, Type.INT4, Type.INT8, Type.FLOAT4, Type.FLOAT8, Type.TEXT);
+
   private static TajoTestingCluster cluster;
   private static TajoConf conf;
   private static CatalogService cat;
@@ -287,24 +302,37 @@ public class ExprTestBase {
       }
       targets = getRawTargets(queryContext, query, condition);
 
-      EvalCodeGenerator codegen = null;
-      if (queryContext.getBool(SessionVars.CODEGEN)) {
-        codegen = new EvalCodeGenerator(classLoader);
-      }
-
       QueryExecutor.startScriptExecutors(queryContext, evalContext, targets);
       Tuple outTuple = new VTuple(targets.size());
       for (int i = 0; i < targets.size(); i++) {
         EvalNode eval = targets.get(i).getEvalTree();
-
-        if (queryContext.getBool(SessionVars.CODEGEN)) {
-          eval = codegen.compile(inputSchema, eval);
-        }
         eval.bind(evalContext, inputSchema);
 
         outTuple.put(i, eval.eval(vtuple));
       }
 
+      // Every expression is also evaluated by its compiled code, which must give the same result as the interpreter.
+      EvalCodeGenerator codegen = new EvalCodeGenerator(classLoader);
+      Tuple compiledOutTuple = new VTuple(targets.size());
+      for (int i = 0; i < targets.size(); i++) {
+        EvalNode eval = targets.get(i).getEvalTree();
+        EvalNode compiled;
+        try {
+          compiled = codegen.compile(inputSchema, eval);
+        } catch (CompilationError e) {
+          // Only the expressions which the generator does not support are interpreted at runtime.
+          // An invalid bytecode is always a bug of the generator.
+          if (isCompilable(eval, null) || e.getCause() instanceof LinkageError) {
+            throw e;
+          }
+          continue;
+        }
+        compiled.bind(evalContext, inputSchema);
+
+        compiledOutTuple.put(i, compiled.eval(vtuple));
+        assertEquals("compiled " + query, asChars(outTuple, i, timeZone), asChars(compiledOutTuple, i, timeZone));
+      }
+
       try {
         classLoader.clean();
       } catch (Throwable throwable) {
@@ -312,13 +340,7 @@ public class ExprTestBase {
       }
 
       for (int i = 0; i < expected.length; i++) {
-        String outTupleAsChars;
-        if (outTuple.type(i) == Type.TIMESTAMP) {
-          outTupleAsChars = TimestampDatum.asChars(outTuple.getTimeDate(i), timeZone, false);
-        } else {
-          outTupleAsChars = outTuple.asDatum(i).toString();
-        }
-        assertEquals(query, expected[i], outTupleAsChars);
+        assertEquals(query, expected[i], asChars(outTuple, i, timeZone));
       }
     } catch (IOException e) {
       throw new TajoInternalError(e);
@@ -340,6 +362,52 @@ public class ExprTestBase {
     }
   }
 
+  /**
+   * Returns false if the given expression contains a node which the code generator does not support.
+   * Such an expression is interpreted at runtime.
+   */
+  private static boolean isCompilable(EvalNode eval, EvalNode parent) {
+    if (EvalCodeGenerator.isDelegated(eval)) {
+      return true; // evaluated by the interpreted EvalNode itself
+    }
+    if (UNCOMPILABLE_EVAL_TYPES.contains(eval.getType())) {
+      return false;
+    }
+    if (eval.getType() == EvalType.ROW_CONSTANT) {
+      return false; // a row constant is compiled only as the value list of an IN predicate
+    }
+    if (eval.getType() == EvalType.FUNCTION && ((FunctionEval) eval).getFuncDesc().getInvocation().hasPython()) {
+      return false;
+    }
+    if (!COMPILABLE_VALUE_TYPES.contains(eval.getValueType().kind())) {
+      return false;
+    }
+    // the type of a NULL constant is found from its parent
+    if (eval.getType() == EvalType.CONST && eval.getValueType().isNull() && parent != null
+        && !(parent instanceof BinaryEval || parent instanceof CaseWhenEval
+        || parent instanceof CaseWhenEval.IfThenEval)) {
+      return false;
+    }
+
+    if (eval.getType() == EvalType.IN) {
+      return isCompilable(((InEval) eval).getLeftExpr(), eval);
+    }
+    for (int i = 0; i < eval.childNum(); i++) {
+      if (!isCompilable(eval.getChild(i), eval)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String asChars(Tuple tuple, int fieldId, TimeZone timeZone) {
+    if (tuple.type(fieldId) == Type.TIMESTAMP) {
+      return TimestampDatum.asChars(tuple.getTimeDate(fieldId), timeZone, false);
+    } else {
+      return tuple.asDatum(fieldId).toString();
+    }
+  }
+
   private static boolean needPythonFileCopy() {
     File contoller = new File(PythonScriptEngine.getControllerPath());
     return !contoller.exists();
@@ -333,6 +333,84 @@ public class TestPredicates extends ExprTestBase {
         new String[]{"t","t"});
   }
 
+  @Test
+  public void testInPredicateWithLongList() throws TajoException {
+    Schema schema2 = SchemaBuilder.builder()
+        .add("col1", TEXT)
+        .add("col2", INT4)
+        .add("col3", INT8)
+        .build();
+
+    // long lists are kept in hash tables instead of sorted arrays
+    StringBuilder ints = new StringBuilder("0");
+    StringBuilder texts = new StringBuilder("''");
+    for (int i = 1; i < 100; i++) {
+      ints.append(",").append(i * 7).append(",").append(-i);
+      texts.append(",'id").append(i * 7).append("'");
+    }
+
+    testEval(schema2, "table1", "id21,21,-99",
+        "select col1 in (" + texts + "), col2 in (" + ints + "), col3 in (" + ints + ") from table1",
+        new String[]{"t", "t", "t"});
+    testEval(schema2, "table1", "id22,22,-100",
+        "select col1 in (" + texts + "), col2 in (" + ints + "), col3 in (" + ints + ") from table1",
+        new String[]{"f", "f", "f"});
+    testEval(schema2, "table1", "id22,0,-100",
+        "select col1 not in (" + texts + "), col2 not in (" + ints + "), col3 not in (" + ints + ") from table1",
+        new String[]{"t", "f", "t"});
+    testEval(schema2, "table1", ",,",
+        "select (col2 in (" + ints + ")) is null, (col3 not in (" + ints + ")) is null from table1",
+        new String[]{"t", "t"});
+  }
+
+  //////////////////////////////////////////////////////////////////
+  // Pattern Match Predicate
+  //////////////////////////////////////////////////////////////////
+
+  @Test
+  public void testLikePredicate() throws TajoException {
+    Schema schema2 = SchemaBuilder.builder()
+        .add("col1", TEXT)
+        .add("col2", TEXT)
+        .build();
+
+    // literal patterns
+    testEval(schema2, "table1", "log-2016.txt,abc",
+        "select col1 like 'log-2016.txt', col1 like 'log%', col1 like '%.txt', col1 like '%2016%', " +
+            "col1 like '%2017%', col1 like '%', col1 not like 'log%' from table1",
+        new String[]{"t", "t", "t", "t", "f", "t", "f"});
+    testEval(schema2, "table1", "log-2016.txt,abc",
+        "select col1 like 'log-2016xtxt', col1 like '%2016', col1 like 'x%' from table1",
+        new String[]{"f", "f", "f"});
+
+    // general patterns
+    testEval(schema2, "table1", "log-2016.txt,abc",
+        "select col1 like 'log-2016_txt', col1 like 'log%.txt', col1 ilike 'LOG%' from table1",
+        new String[]{"t", "t", "t"});
+
+    // multi-byte characters
+    testEval(schema2, "table1", "log-2016.txt,서울시 강남구",
+        "select col2 like '서울%', col2 like '%강남%', col2 like '서울_ 강남구', col2 like '서울' from table1",
+        new String[]{"t", "t", "t", "f"});
+
+    testEval(schema2, "table1", "\\NULL,abc", "select (col1 like 'log%') is null from table1", new String[]{"t"});
+  }
+
+  @Test
+  public void testRegexAndSimilarToPredicate() throws TajoException {
+    Schema schema2 = SchemaBuilder.builder()
+        .add("col1", TEXT)
+        .build();
+
+    testEval(schema2, "table1", "log-2016.txt",
+        "select col1 ~ 'log.*', col1 ~ 'log', col1 !~ 'log.*', col1 ~ 'log-[0-9]+.txt', col1 ~* 'LOG.*' from table1",
+        new String[]{"t", "f", "f", "t", "t"});
+    testEval(schema2, "table1", "log-2016.txt",
+        "select col1 similar to 'log%', col1 similar to '%.txt', col1 similar to '(log|txt)%', " +
+            "col1 similar to 'log' from table1",
+        new String[]{"t", "t", "t", "f"});
+  }
+
   //////////////////////////////////////////////////////////////////
   // Null Predicate
   //////////////////////////////////////////////////////////////////
@@ -194,6 +194,28 @@ public class TestExternalSortExec {
     queryContext.set(SessionVars.SORT_ALGORITHM.keyname(), sortAlgorithmString);
     queryContext.setInt(SessionVars.EXTSORT_BUFFER_SIZE, 4);
 
+    testSort(queryContext);
+  }
+
+  @Test
+  public final void testMultiLevelMergeWithPrefetch() throws IOException, TajoException {
+    // every row becomes a sorted run, and the runs are merged in multiple levels by two threads.
+    // the runs of the final merge are read ahead by the threads.
+    conf.setIntVar(ConfVars.EXECUTOR_EXTERNAL_SORT_FANOUT, 16);
+    conf.setIntVar(ConfVars.EXECUTOR_EXTERNAL_SORT_THREAD_NUM, 2);
+    QueryContext queryContext = LocalTajoTestingUtility.createDummyContext(conf);
+    queryContext.set(SessionVars.SORT_ALGORITHM.keyname(), sortAlgorithmString);
+    queryContext.setInt(SessionVars.EXTSORT_BUFFER_SIZE, 0);
+
+    try {
+      testSort(queryContext);
+    } finally {
+      conf.setIntVar(ConfVars.EXECUTOR_EXTERNAL_SORT_THREAD_NUM,
+          ConfVars.EXECUTOR_EXTERNAL_SORT_THREAD_NUM.defaultIntVal);
+    }
+  }
+
+  private void testSort(QueryContext queryContext) throws IOException, TajoException {
     FileFragment[] frags = FileTablespace.splitNG(conf, "default.employee", employee.getMeta(),
         new Path(employee.getUri()), Integer.MAX_VALUE);
     Path workDir = new Path(testDir, TestExternalSortExec.class.getName());
@@ -244,7 +266,7 @@ public class TestExternalSortExec {
       if (preVal != null) {
         assertTrue("prev: " + preVal + ", but cur: " + curVal, comparator.compare(preVal, curVal) <= 0);
       }
-      preVal = curVal;
+      preVal = new VTuple(curVal);
       cnt++;
     }
     assertEquals(numTuple, cnt);
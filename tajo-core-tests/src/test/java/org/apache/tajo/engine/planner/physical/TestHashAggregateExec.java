@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TajoTestingCluster;
+import org.apache.tajo.algebra.Expr;
+import org.apache.tajo.catalog.*;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.function.FunctionLoader;
+import org.apache.tajo.engine.planner.PhysicalPlanner;
+import org.apache.tajo.engine.planner.PhysicalPlannerImpl;
+import org.apache.tajo.engine.planner.enforce.Enforcer;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.exception.TajoException;
+import org.apache.tajo.parser.sql.SQLAnalyzer;
+import org.apache.tajo.plan.LogicalOptimizer;
+import org.apache.tajo.plan.LogicalPlan;
+import org.apache.tajo.plan.LogicalPlanner;
+import org.apache.tajo.plan.logical.LogicalNode;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.tajo.TajoConstants.DEFAULT_DATABASE_NAME;
+import static org.apache.tajo.TajoConstants.DEFAULT_TABLESPACE_NAME;
+import static org.junit.Assert.*;
+
+public class TestHashAggregateExec {
+  private TajoConf conf;
+  private final String TEST_PATH = TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/TestHashAggregateExec";
+  private TajoTestingCluster util;
+  private CatalogService catalog;
+  private SQLAnalyzer analyzer;
+  private LogicalPlanner planner;
+  private LogicalOptimizer optimizer;
+  private Path testDir;
+
+  private TableDesc employee;
+
+  @Before
+  public void setUp() throws Exception {
+    util = new TajoTestingCluster();
+    util.initTestDir();
+    util.startCatalogCluster();
+    catalog = util.getCatalogService();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    catalog.createTablespace(DEFAULT_TABLESPACE_NAME, testDir.toUri().toString());
+    catalog.createDatabase(DEFAULT_DATABASE_NAME, DEFAULT_TABLESPACE_NAME);
+    conf = util.getConfiguration();
+    conf.setIntVar(ConfVars.EXECUTOR_GROUPBY_SPILL_FANOUT, 4);
+    for (FunctionDesc funcDesc : FunctionLoader.findLegacyFunctions()) {
+      catalog.createFunction(funcDesc);
+    }
+
+    Schema employeeSchema = SchemaBuilder.builder()
+        .add("empid", Type.INT4)
+        .add("salary", Type.INT8)
+        .add("score", Type.FLOAT8)
+        .add("deptname", Type.TEXT)
+        .build();
+
+    TableMeta employeeMeta = CatalogUtil.newTableMeta(BuiltinStorages.TEXT, conf);
+    Path employeePath = new Path(testDir, "employee.csv");
+    Appender appender = ((FileTablespace) TablespaceManager.getLocalFs())
+        .getAppender(employeeMeta, employeeSchema, employeePath);
+    appender.init();
+    VTuple tuple = new VTuple(employeeSchema.size());
+
+    for (int i = 0; i < 1000; i++) {
+      tuple.put(new Datum[] {
+          DatumFactory.createInt4(i),
+          i % 7 == 0 ? NullDatum.get() : DatumFactory.createInt8(i * 100L),
+          DatumFactory.createFloat8(i / 4.0),
+          i % 11 == 0 ? NullDatum.get() : DatumFactory.createText("dept_" + (i % 13)) });
+      appender.addTuple(tuple);
+    }
+
+    appender.flush();
+    appender.close();
+    employee = CatalogUtil.newTableDesc("default.employee", employeeSchema, employeeMeta, employeePath);
+    catalog.createTable(employee);
+
+    analyzer = new SQLAnalyzer();
+    planner = new LogicalPlanner(catalog, TablespaceManager.getInstance());
+    optimizer = new LogicalOptimizer(conf, catalog, TablespaceManager.getInstance());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    util.shutdownCatalogCluster();
+  }
+
+  // relation descriptions
+  // employee (empid, salary, score, deptname)
+
+  String[] QUERIES = {
+      "select deptname, count(*), count(salary), sum(salary), avg(score), min(empid), max(deptname) " +
+          "from employee group by deptname", // 0
+      "select empid % 300 as g, deptname, sum(salary), avg(salary), max(score) " +
+          "from employee group by empid % 300, deptname", // 1
+      "select count(*), sum(salary), max(empid) from employee", // 2
+  };
+
+  // queries of which all aggregation functions keep their states in BinaryAggregationBuffer
+  String[] OFFHEAP_QUERIES = {
+      "select deptname, count(*), count(salary), sum(salary), sum(score), avg(salary), avg(score), " +
+          "min(empid), max(empid), min(salary), max(salary), min(score), max(score) " +
+          "from employee group by deptname", // 0
+      "select empid % 300 as g, sum(empid), avg(empid), max(score) from employee group by empid % 300", // 1
+      "select count(*), count(deptname), sum(salary), avg(score), min(score) from employee", // 2
+      "select count(*), sum(salary), avg(salary), max(score) from employee where empid < 0", // 3
+  };
+
+  @Test
+  public final void testSpillPartialResults() throws IOException, TajoException {
+    for (String query : QUERIES) {
+      // a zero threshold spills the hash table whenever a new group is added
+      assertEquals(execute(query, null, false), execute(query, 0L, false));
+    }
+  }
+
+  @Test
+  public final void testOffHeapStates() throws IOException, TajoException {
+    for (String query : OFFHEAP_QUERIES) {
+      List<String> expected = execute(query, null, false, false);
+      assertEquals(expected, execute(query, null, false, true));
+      assertEquals(expected, execute(query, 0L, false, true));
+    }
+    assertEquals(execute(OFFHEAP_QUERIES[1], null, false, false), execute(OFFHEAP_QUERIES[1], 0L, true, true));
+  }
+
+  @Test
+  public final void testRescanSpilledPartialResults() throws IOException, TajoException {
+    List<String> expected = execute(QUERIES[1], null, false);
+    assertEquals(expected, execute(QUERIES[1], 0L, true));
+  }
+
+  private List<String> execute(String query, Long spillThreshold, boolean rescan)
+      throws IOException, TajoException {
+    return execute(query, spillThreshold, rescan, null);
+  }
+
+  private List<String> execute(String query, Long spillThreshold, boolean rescan, Boolean offHeapStates)
+      throws IOException, TajoException {
+    QueryContext queryContext = new QueryContext(conf);
+    if (offHeapStates != null) {
+      queryContext.setBool(SessionVars.AGG_OFFHEAP_STATE_ENABLED, offHeapStates);
+    }
+    if (spillThreshold != null) {
+      queryContext.setLong(SessionVars.HASH_GROUPBY_SPILL_THRESHOLD, spillThreshold);
+    }
+
+    FileFragment[] frags = FileTablespace.splitNG(conf, "default.employee", employee.getMeta(),
+        new Path(employee.getUri()), Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir(TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/testHashAggregateExec");
+    TaskAttemptContext ctx = new TaskAttemptContext(queryContext,
+        LocalTajoTestingUtility.newTaskAttemptId(), frags, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr expr = analyzer.parse(query);
+    LogicalPlan plan = planner.createPlan(LocalTajoTestingUtility.createDummyContext(conf), expr);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    HashAggregateExec aggExec = PhysicalPlanUtil.findExecutor(exec, HashAggregateExec.class);
+    assertNotNull(aggExec);
+    if (offHeapStates != null) {
+      assertEquals(offHeapStates, aggExec.usesOffHeapStates());
+    }
+
+    List<String> results = new ArrayList<>();
+    Tuple tuple;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      results.add(tuple.toString());
+    }
+    if (rescan) {
+      exec.rescan();
+      List<String> rescanned = new ArrayList<>();
+      while ((tuple = exec.next()) != null) {
+        rescanned.add(tuple.toString());
+      }
+      assertEquals(results, rescanned);
+    }
+    exec.close();
+
+    Collections.sort(results);
+    return results;
+  }
+}
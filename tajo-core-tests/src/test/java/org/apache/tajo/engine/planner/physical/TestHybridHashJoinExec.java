@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.*;
+import org.apache.tajo.algebra.Expr;
+import org.apache.tajo.catalog.*;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.engine.planner.PhysicalPlanner;
+import org.apache.tajo.engine.planner.PhysicalPlannerImpl;
+import org.apache.tajo.engine.planner.enforce.Enforcer;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.exception.TajoException;
+import org.apache.tajo.parser.sql.SQLAnalyzer;
+import org.apache.tajo.plan.LogicalPlanner;
+import org.apache.tajo.plan.logical.JoinNode;
+import org.apache.tajo.plan.logical.LogicalNode;
+import org.apache.tajo.plan.logical.NodeType;
+import org.apache.tajo.plan.util.PlannerUtil;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.util.TUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.apache.tajo.TajoConstants.DEFAULT_TABLESPACE_NAME;
+import static org.apache.tajo.plan.serder.PlanProto.JoinEnforce.JoinAlgorithm;
+import static org.junit.Assert.*;
+
+public class TestHybridHashJoinExec {
+  private TajoConf conf;
+  private final String TEST_PATH = TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/TestHybridHashJoinExec";
+  private TajoTestingCluster util;
+  private CatalogService catalog;
+  private SQLAnalyzer analyzer;
+  private LogicalPlanner planner;
+  private Path testDir;
+  private QueryContext defaultContext;
+
+  private TableDesc employee;
+  private TableDesc people;
+
+  private static final int EMPLOYEE_NUM = 300;
+  private static final int SKEWED_NUM = 100;
+
+  @Before
+  public void setUp() throws Exception {
+    util = new TajoTestingCluster();
+    util.initTestDir();
+    util.startCatalogCluster();
+    catalog = util.getCatalogService();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    catalog.createTablespace(DEFAULT_TABLESPACE_NAME, testDir.toUri().toString());
+    catalog.createDatabase(TajoConstants.DEFAULT_DATABASE_NAME, DEFAULT_TABLESPACE_NAME);
+    conf = util.getConfiguration();
+    conf.setIntVar(ConfVars.EXECUTOR_HYBRID_HASH_JOIN_FANOUT, 4);
+
+    Schema employeeSchema = SchemaBuilder.builder()
+        .add("managerid", Type.INT4)
+        .add("empid", Type.INT4)
+        .add("memid", Type.INT4)
+        .add("deptname", Type.TEXT)
+        .build();
+
+    TableMeta employeeMeta = CatalogUtil.newTableMeta(BuiltinStorages.TEXT, util.getConfiguration());
+    Path employeePath = new Path(testDir, "employee.csv");
+    Appender appender = ((FileTablespace) TablespaceManager.getLocalFs())
+        .getAppender(employeeMeta, employeeSchema, employeePath);
+    appender.init();
+    VTuple tuple = new VTuple(employeeSchema.size());
+    for (int i = 0; i < EMPLOYEE_NUM; i++) {
+      tuple.put(new Datum[] { DatumFactory.createInt4(i),
+          DatumFactory.createInt4(i), DatumFactory.createInt4(10 + i),
+          DatumFactory.createText("dept_" + i) });
+      appender.addTuple(tuple);
+    }
+    // null keys never match
+    tuple.put(new Datum[] { DatumFactory.createInt4(-1),
+        DatumFactory.createNullDatum(), DatumFactory.createInt4(9),
+        DatumFactory.createText("dept_null") });
+    appender.addTuple(tuple);
+
+    appender.flush();
+    appender.close();
+    employee = CatalogUtil.newTableDesc("default.employee", employeeSchema, employeeMeta, employeePath);
+    catalog.createTable(employee);
+
+    Schema peopleSchema = SchemaBuilder.builder()
+        .add("empid", Type.INT4)
+        .add("fk_memid", Type.INT4)
+        .add("name", Type.TEXT)
+        .add("age", Type.INT4)
+        .build();
+
+    TableMeta peopleMeta = CatalogUtil.newTableMeta(BuiltinStorages.TEXT, util.getConfiguration());
+    Path peoplePath = new Path(testDir, "people.csv");
+    appender = ((FileTablespace) TablespaceManager.getLocalFs())
+        .getAppender(peopleMeta, peopleSchema, peoplePath);
+    appender.init();
+    tuple = new VTuple(peopleSchema.size());
+    for (int i = 1; i < EMPLOYEE_NUM; i += 2) {
+      tuple.put(new Datum[] { DatumFactory.createInt4(i),
+          DatumFactory.createInt4(10 + i),
+          DatumFactory.createText("name_" + i),
+          DatumFactory.createInt4(30 + i) });
+      appender.addTuple(tuple);
+    }
+    // a skewed join key
+    for (int i = 0; i < SKEWED_NUM; i++) {
+      tuple.put(new Datum[] { DatumFactory.createInt4(7),
+          DatumFactory.createInt4(17),
+          DatumFactory.createText("skewed_" + i),
+          DatumFactory.createInt4(i) });
+      appender.addTuple(tuple);
+    }
+    tuple.put(new Datum[] { DatumFactory.createNullDatum(),
+        DatumFactory.createInt4(9),
+        DatumFactory.createText("name_null"),
+        DatumFactory.createInt4(0) });
+    appender.addTuple(tuple);
+
+    appender.flush();
+    appender.close();
+
+    people = CatalogUtil.newTableDesc("default.people", peopleSchema, peopleMeta, peoplePath);
+    catalog.createTable(people);
+    analyzer = new SQLAnalyzer();
+    planner = new LogicalPlanner(catalog, TablespaceManager.getInstance());
+    defaultContext = LocalTajoTestingUtility.createDummyContext(conf);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    util.shutdownCatalogCluster();
+  }
+
+  String[] QUERIES = {
+      "select managerId, e.empId, deptName, e.memId from employee as e inner join " +
+          "people as p on e.empId = p.empId and e.memId = p.fk_memId"
+  };
+
+  private PhysicalExec createPlan(String testName, long hashJoinLimitMb, boolean enforce)
+      throws IOException, TajoException {
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalNode plan = planner.createPlan(defaultContext, expr).getRootBlock().getRoot();
+
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    Enforcer enforcer = new Enforcer();
+    if (enforce) {
+      enforcer.enforceJoinAlgorithm(joinNode.getPID(), JoinAlgorithm.HYBRID_HASH_JOIN);
+    }
+
+    FileFragment[] empFrags = FileTablespace.splitNG(conf, "default.e", employee.getMeta(),
+        new Path(employee.getUri()), Integer.MAX_VALUE);
+    FileFragment[] peopleFrags = FileTablespace.splitNG(conf, "default.p", people.getMeta(),
+        new Path(people.getUri()), Integer.MAX_VALUE);
+    FileFragment[] merged = TUtil.concat(empFrags, peopleFrags);
+
+    Path workDir = CommonTestingUtil.getTestDir(TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/" + testName);
+    TaskAttemptContext ctx = new TaskAttemptContext(new QueryContext(conf),
+        LocalTajoTestingUtility.newTaskAttemptId(), merged, workDir);
+    ctx.setEnforcer(enforcer);
+    ctx.getQueryContext().setLong(SessionVars.HASH_JOIN_SIZE_LIMIT.keyname(), hashJoinLimitMb);
+    ctx.getQueryContext().setBool(SessionVars.HYBRID_HASH_JOIN_ENABLED.keyname(), true);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, plan);
+
+    ProjectionExec proj = (ProjectionExec) exec;
+    assertTrue(proj.getChild() instanceof HybridHashJoinExec);
+    return exec;
+  }
+
+  private static void assertJoinResult(PhysicalExec exec) throws IOException {
+    int [] counts = new int[EMPLOYEE_NUM];
+    Tuple tuple;
+    int count = 0;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      count++;
+      int i = tuple.getInt4(1);
+      assertEquals(i, tuple.getInt4(0));
+      assertEquals("dept_" + i, tuple.getText(2));
+      assertEquals(10 + i, tuple.getInt4(3));
+      counts[i]++;
+    }
+    exec.close();
+
+    assertEquals(EMPLOYEE_NUM / 2 + SKEWED_NUM, count);
+    for (int i = 0; i < EMPLOYEE_NUM; i++) {
+      if (i == 7) {
+        assertEquals(SKEWED_NUM + 1, counts[i]);
+      } else {
+        assertEquals(i % 2, counts[i]);
+      }
+    }
+  }
+
+  @Test
+  public final void testInMemory() throws IOException, TajoException {
+    assertJoinResult(createPlan("testInMemory", 1, true));
+  }
+
+  @Test
+  public final void testSpillAllPartitions() throws IOException, TajoException {
+    // a zero budget spills every partition and recursively repartitions them up to the maximum level,
+    // and then the skewed key is joined in a block nested loop manner.
+    assertJoinResult(createPlan("testSpillAllPartitions", 0, true));
+  }
+
+  @Test
+  public final void testChooseHybridHashJoin() throws IOException, TajoException {
+    assertJoinResult(createPlan("testChooseHybridHashJoin", 0, false));
+  }
+
+  @Test
+  public final void testRescan() throws IOException, TajoException {
+    PhysicalExec exec = createPlan("testRescan", 0, true);
+    exec.init();
+    int count = 0;
+    while (exec.next() != null) {
+      count++;
+    }
+    exec.rescan();
+    int rescanned = 0;
+    while (exec.next() != null) {
+      rescanned++;
+    }
+    exec.close();
+    assertEquals(EMPLOYEE_NUM / 2 + SKEWED_NUM, count);
+    assertEquals(count, rescanned);
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaBuilder;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestJoinHashTable {
+  private static final Schema schema = SchemaBuilder.builder()
+      .add("id", Type.INT4)
+      .add("ts", Type.TIMESTAMP)
+      .add("name", Type.TEXT)
+      .build();
+
+  private static Tuple row(int id, long ts, String name) {
+    return new VTuple(new Datum[] {
+        DatumFactory.createInt4(id), DatumFactory.createTimestamp(ts), DatumFactory.createText(name)});
+  }
+
+  @Test
+  public void testIsSupported() {
+    Column int4 = new Column("a", Type.INT4);
+    Column int8 = new Column("b", Type.INT8);
+    Column text = new Column("c", Type.TEXT);
+
+    assertTrue(JoinHashTable.isSupported(new Column[] {int4}, new Column[] {int4}));
+    assertTrue(JoinHashTable.isSupported(new Column[] {int4, int8}, new Column[] {int4, int8}));
+    assertFalse(JoinHashTable.isSupported(new Column[] {int4}, new Column[] {int8}));
+    assertFalse(JoinHashTable.isSupported(new Column[] {text}, new Column[] {text}));
+    assertFalse(JoinHashTable.isSupported(new Column[0], new Column[0]));
+  }
+
+  @Test
+  public void testSingleKey() {
+    JoinHashTable table = new JoinHashTable(schema, new Column[] {schema.getColumn("id")}, 1);
+    try {
+      int rowNum = 10000;
+      for (int i = 0; i < rowNum; i++) {
+        assertTrue(table.put(row(i % 1000, i, "name_" + i)));
+      }
+      assertEquals(rowNum, table.size());
+      assertEquals(1000, table.keySize());
+
+      JoinHashTable.Matches matches = new JoinHashTable.Matches(table, new int[] {0});
+      for (int key = 0; key < 1000; key++) {
+        int expected = key;
+        for (Tuple matched : matches.find(row(key, 0, "probe"))) {
+          // rows having the same key are kept in their insertion order
+          assertEquals(key, matched.getInt4(0));
+          assertEquals(expected, matched.getInt8(1));
+          assertEquals("name_" + expected, matched.getText(2));
+          expected += 1000;
+        }
+        assertEquals(rowNum + key, expected);
+      }
+      assertNull(matches.find(row(1000, 0, "probe")));
+      assertNull(matches.find(row(-1, 0, "probe")));
+    } finally {
+      table.release();
+    }
+  }
+
+  @Test
+  public void testMultipleKeys() {
+    JoinHashTable table = new JoinHashTable(schema,
+        new Column[] {schema.getColumn("id"), schema.getColumn("ts")}, 16);
+    try {
+      for (int i = 0; i < 100; i++) {
+        table.put(row(i % 10, i % 7, "name_" + i));
+      }
+      assertEquals(70, table.keySize());
+
+      // the probe side has the keys in a different order
+      JoinHashTable.Matches matches = new JoinHashTable.Matches(table, new int[] {1, 0});
+      Tuple probe = new VTuple(new Datum[] {
+          DatumFactory.createTimestamp(3), DatumFactory.createInt4(3)});
+
+      int count = 0;
+      for (Tuple matched : matches.find(probe)) {
+        assertEquals(3, matched.getInt4(0));
+        assertEquals(3, matched.getInt8(1));
+        count++;
+      }
+      assertEquals(2, count); // 3 and 73
+    } finally {
+      table.release();
+    }
+  }
+
+  @Test
+  public void testNullKeys() {
+    JoinHashTable table = new JoinHashTable(schema, new Column[] {schema.getColumn("id")}, 16);
+    try {
+      Tuple nullKey = new VTuple(new Datum[] {
+          NullDatum.get(), DatumFactory.createTimestamp(0), DatumFactory.createText("null")});
+      assertFalse(table.put(nullKey));
+      assertTrue(table.put(row(0, 0, "zero")));
+      assertEquals(1, table.size());
+
+      JoinHashTable.Matches matches = new JoinHashTable.Matches(table, new int[] {0});
+      assertNull(matches.find(nullKey));
+      assertNotNull(matches.find(row(0, 0, "probe")));
+    } finally {
+      table.release();
+    }
+  }
+}
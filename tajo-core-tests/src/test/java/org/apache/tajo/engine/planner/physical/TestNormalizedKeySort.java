@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaBuilder;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.planner.physical.ExternalSortExec.UnSafeComparator;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.tuple.memory.UnSafeTuple;
+import org.apache.tajo.tuple.memory.UnSafeTupleList;
+import org.apache.tajo.util.StringUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+public class TestNormalizedKeySort {
+  private static UnSafeTupleList tuples;
+  private static Schema schema;
+  private static final int tupleNum = 1000;
+  private static final Random random = new Random(System.currentTimeMillis());
+  private static final String[] TEXT_PREFIXES = {"", "a", "abcdefg", "abcdefgh", "abcdefghij", "íé"};
+  private final SortSpec[] sortSpecs;
+  private final boolean radix;
+
+  static {
+    schema = SchemaBuilder.builder().addAll(new Column[]{
+        new Column("col0", Type.BOOLEAN),
+        new Column("col1", Type.INT2),
+        new Column("col2", Type.INT4),
+        new Column("col3", Type.INT8),
+        new Column("col4", Type.DATE),
+        new Column("col5", Type.FLOAT4),
+        new Column("col6", Type.FLOAT8),
+        new Column("col7", Type.TEXT)
+    }).build();
+  }
+
+  private static class Param {
+    final SortSpec[] sortSpecs;
+
+    public Param(SortSpec[] param) {
+      this.sortSpecs = param;
+    }
+
+    @Override
+    public String toString() {
+      return StringUtils.join(sortSpecs);
+    }
+  }
+
+  public TestNormalizedKeySort(Param param, boolean radix) {
+    this.sortSpecs = param.sortSpecs;
+    this.radix = radix;
+  }
+
+  @Parameters(name = "{index}: {0}, radix: {1}")
+  public static Collection<Object[]> generateParameters() {
+    List<Param> sortSpecsList = new ArrayList<>();
+
+    // Test every single column sort
+    for (int i = 0; i < schema.size(); i++) {
+      sortSpecsList.add(new Param(new SortSpec[] {
+          new SortSpec(schema.getColumn(i), random.nextBoolean(), random.nextBoolean())
+      }));
+    }
+
+    // Randomly choose columns
+    for (int colNum = 2; colNum < 5; colNum++) {
+      for (int i = 0; i < 4; i++) {
+        SortSpec[] sortSpecs = new SortSpec[colNum];
+        for (int j = 0; j < colNum; j++) {
+          sortSpecs[j] = new SortSpec(schema.getColumn(random.nextInt(schema.size())),
+              random.nextBoolean(), random.nextBoolean());
+        }
+        sortSpecsList.add(new Param(sortSpecs));
+      }
+    }
+
+    List<Object[]> params = new ArrayList<>();
+    for (Param param : sortSpecsList) {
+      params.add(new Object[] {param, false});
+      params.add(new Object[] {param, true});
+    }
+    return params;
+  }
+
+  @Before
+  public void setup() {
+    List<DataType> dataTypeList = schema.getRootColumns().stream().map(Column::getDataType).collect(Collectors.toList());
+    tuples = new UnSafeTupleList(dataTypeList.toArray(new DataType[dataTypeList.size()]), tupleNum);
+
+    VTuple tuple = new VTuple(schema.size());
+    IntStream.range(0, tupleNum).forEach(i -> {
+      for (int j = 0; j < schema.size(); j++) {
+        // Each column is null in 10 % of the total tuples.
+        tuple.put(j, random.nextInt(10) == 0 ? NullDatum.get() : randomDatum(schema.getColumn(j).getDataType()));
+      }
+      tuples.addTuple(tuple);
+    });
+  }
+
+  @After
+  public void teardown() {
+    tuples.release();
+  }
+
+  private static Datum randomDatum(DataType type) {
+    // small domains make ties in the leading keys
+    switch (type.getType()) {
+    case BOOLEAN:
+      return DatumFactory.createBool(random.nextBoolean());
+    case INT2:
+      return DatumFactory.createInt2((short) (random.nextInt(20) - 10));
+    case INT4:
+      return DatumFactory.createInt4(random.nextBoolean() ? random.nextInt() : random.nextInt(20) - 10);
+    case INT8:
+      return DatumFactory.createInt8(random.nextBoolean() ? random.nextLong() : random.nextInt(20) - 10);
+    case DATE:
+      return DatumFactory.createDate(random.nextInt(100));
+    case FLOAT4:
+      return DatumFactory.createFloat4(random.nextBoolean() ? random.nextFloat() - 0.5f : random.nextInt(5) - 2.0f);
+    case FLOAT8:
+      return DatumFactory.createFloat8(random.nextBoolean() ? random.nextDouble() - 0.5 : random.nextInt(5) - 2.0);
+    case TEXT:
+      return DatumFactory.createText(TEXT_PREFIXES[random.nextInt(TEXT_PREFIXES.length)] +
+          (random.nextBoolean() ? "" : String.valueOf(random.nextInt(100))));
+    default:
+      throw new IllegalArgumentException(type.getType().name());
+    }
+  }
+
+  @Test
+  public void testSort() {
+    Comparator<UnSafeTuple> comparator = new UnSafeComparator(schema, sortSpecs);
+
+    new NormalizedKeySort(schema, sortSpecs).sort(tuples, comparator, radix);
+
+    assertEquals(tupleNum, tuples.size());
+    IntStream.range(0, tuples.size() - 1)
+        .forEach(i -> {
+          assertTrue(tuples.get(i) + " precedes " + tuples.get(i + 1) + " at " + i,
+              comparator.compare(tuples.get(i), tuples.get(i + 1)) <= 0);
+        });
+  }
+
+  @Test
+  public void testNormalizedKeyOrder() {
+    Comparator<UnSafeTuple> comparator = new UnSafeComparator(schema, sortSpecs);
+    NormalizedKeySort sort = new NormalizedKeySort(schema, sortSpecs);
+
+    // a smaller normalized key must always precede a larger one
+    for (int i = 0; i < tuples.size() - 1; i++) {
+      int keyCompare = Long.compareUnsigned(sort.normalizedKey(tuples.get(i)), sort.normalizedKey(tuples.get(i + 1)));
+      if (keyCompare != 0) {
+        assertEquals(tuples.get(i) + " and " + tuples.get(i + 1),
+            keyCompare, Integer.signum(comparator.compare(tuples.get(i), tuples.get(i + 1))));
+      }
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestRuntimeJoinFilter {
+
+  private static Tuple createTuple(int key, String name) {
+    VTuple tuple = new VTuple(3);
+    tuple.put(0, DatumFactory.createText("value_" + key));
+    tuple.put(1, DatumFactory.createInt4(key));
+    tuple.put(2, name == null ? NullDatum.get() : DatumFactory.createText(name));
+    return tuple;
+  }
+
+  @Test
+  public final void testMightContain() {
+    RuntimeJoinFilter filter = new RuntimeJoinFilter(1024);
+    filter.bind(new int[] {1, 2});
+    for (int i = 0; i < 100; i++) {
+      filter.add(createTuple(i * 2, "name"));
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100; i++) {
+      // no false negative
+      assertTrue(filter.mightContain(createTuple(i * 2, "name")));
+      if (filter.mightContain(createTuple(i * 2 + 1, "name"))) {
+        falsePositives++;
+      }
+    }
+    // the false positive rate is below 1% for this size
+    assertTrue(falsePositives < 5);
+    assertFalse(filter.mightContain(createTuple(0, "other")));
+    // the values of non-key columns are ignored
+    Tuple tuple = createTuple(0, "name");
+    tuple.put(0, DatumFactory.createText("ignored"));
+    assertTrue(filter.mightContain(tuple));
+  }
+
+  @Test
+  public final void testMerge() {
+    RuntimeJoinFilter filter1 = new RuntimeJoinFilter(1024);
+    filter1.bind(new int[] {1});
+    RuntimeJoinFilter filter2 = new RuntimeJoinFilter(1024);
+    filter2.bind(new int[] {1});
+    for (int i = 0; i < 100; i++) {
+      (i % 2 == 0 ? filter1 : filter2).add(createTuple(i, null));
+    }
+
+    filter1.merge(filter2);
+    for (int i = 0; i < 100; i++) {
+      assertTrue(filter1.mightContain(createTuple(i, null)));
+    }
+
+    try {
+      filter1.merge(new RuntimeJoinFilter(2048));
+      fail("Filters of different sizes cannot be merged");
+    } catch (IllegalArgumentException e) {
+    }
+  }
+
+  @Test
+  public final void testSerialization() {
+    RuntimeJoinFilter filter = new RuntimeJoinFilter(100);
+    filter.bind(new int[] {1});
+    for (int i = 0; i < 50; i++) {
+      filter.add(createTuple(i, null));
+    }
+    assertEquals(104, filter.getNumBytes());
+
+    RuntimeJoinFilter deserialized = new RuntimeJoinFilter(filter.getProto());
+    deserialized.bind(new int[] {1});
+    assertEquals(filter.getNumBytes(), deserialized.getNumBytes());
+    assertEquals(filter.getFillRatio(), deserialized.getFillRatio(), 0.0);
+    assertTrue(filter.getFillRatio() > 0);
+    for (int i = 0; i < 50; i++) {
+      assertTrue(deserialized.mightContain(createTuple(i, null)));
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TajoTestingCluster;
+import org.apache.tajo.algebra.Expr;
+import org.apache.tajo.catalog.*;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.function.FunctionLoader;
+import org.apache.tajo.engine.planner.PhysicalPlanner;
+import org.apache.tajo.engine.planner.PhysicalPlannerImpl;
+import org.apache.tajo.engine.planner.enforce.Enforcer;
+import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.exception.TajoException;
+import org.apache.tajo.parser.sql.SQLAnalyzer;
+import org.apache.tajo.plan.LogicalOptimizer;
+import org.apache.tajo.plan.LogicalPlan;
+import org.apache.tajo.plan.LogicalPlanner;
+import org.apache.tajo.plan.logical.LogicalNode;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.apache.tajo.TajoConstants.DEFAULT_DATABASE_NAME;
+import static org.apache.tajo.TajoConstants.DEFAULT_TABLESPACE_NAME;
+import static org.junit.Assert.*;
+
+public class TestVectorizedExec {
+  private TajoConf conf;
+  private final String TEST_PATH = TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/TestVectorizedExec";
+  private TajoTestingCluster util;
+  private CatalogService catalog;
+  private SQLAnalyzer analyzer;
+  private LogicalPlanner planner;
+  private LogicalOptimizer optimizer;
+  private Path testDir;
+
+  private TableDesc employee;
+  private TableDesc employeeOrc;
+
+  @Before
+  public void setUp() throws Exception {
+    util = new TajoTestingCluster();
+    util.initTestDir();
+    util.startCatalogCluster();
+    catalog = util.getCatalogService();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    catalog.createTablespace(DEFAULT_TABLESPACE_NAME, testDir.toUri().toString());
+    catalog.createDatabase(DEFAULT_DATABASE_NAME, DEFAULT_TABLESPACE_NAME);
+    conf = util.getConfiguration();
+    for (FunctionDesc funcDesc : FunctionLoader.findLegacyFunctions()) {
+      catalog.createFunction(funcDesc);
+    }
+
+    Schema employeeSchema = SchemaBuilder.builder()
+        .add("empid", Type.INT4)
+        .add("salary", Type.INT8)
+        .add("score", Type.FLOAT8)
+        .add("deptname", Type.TEXT)
+        .build();
+
+    employee = createEmployee("default.employee", employeeSchema,
+        CatalogUtil.newTableMeta(BuiltinStorages.TEXT, conf), new Path(testDir, "employee.csv"));
+    employeeOrc = createEmployee("default.employee_orc", employeeSchema,
+        CatalogUtil.newTableMeta(BuiltinStorages.ORC, conf), new Path(testDir, "employee.orc"));
+
+    analyzer = new SQLAnalyzer();
+    planner = new LogicalPlanner(catalog, TablespaceManager.getInstance());
+    optimizer = new LogicalOptimizer(conf, catalog, TablespaceManager.getInstance());
+  }
+
+  private TableDesc createEmployee(String tableName, Schema schema, TableMeta meta, Path path) throws Exception {
+    Appender appender = ((FileTablespace) TablespaceManager.getLocalFs()).getAppender(meta, schema, path);
+    appender.init();
+    VTuple tuple = new VTuple(schema.size());
+
+    for (int i = 0; i < 100; i++) {
+      tuple.put(new Datum[] {
+          DatumFactory.createInt4(i),
+          i % 7 == 0 ? NullDatum.get() : DatumFactory.createInt8(i * 100L),
+          DatumFactory.createFloat8(i / 4.0),
+          i % 11 == 0 ? NullDatum.get() : DatumFactory.createText("dept_" + (i % 5)) });
+      appender.addTuple(tuple);
+    }
+
+    appender.flush();
+    appender.close();
+    TableDesc desc = CatalogUtil.newTableDesc(tableName, schema, meta, path);
+    catalog.createTable(desc);
+    return desc;
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    util.shutdownCatalogCluster();
+  }
+
+  // relation descriptions
+  // employee (empid, salary, score, deptname)
+
+  String[] QUERIES = {
+      "select empid, salary + 1, score * 2.0 from employee where empid > 30 and deptname is not null", // 0
+      "select empid, deptname from employee where salary >= 5000 or score < 3.0", // 1
+      "select deptname, count(*), count(salary), sum(salary), sum(score), min(empid), max(score) " +
+          "from employee group by deptname", // 2
+      "select count(*), sum(salary), max(empid) from employee where empid < 0", // 3
+      "select empid % 3 as g, count(*) from employee group by empid % 3", // 4
+  };
+
+  @Test
+  public final void testSelectionAndProjection() throws IOException, TajoException {
+    assertSameResults(QUERIES[0], VectorizedScanExec.class);
+    assertSameResults(QUERIES[1], VectorizedScanExec.class);
+  }
+
+  @Test
+  public final void testHashAggregation() throws IOException, TajoException {
+    assertSameResults(QUERIES[2], VectorizedHashAggregateExec.class);
+    assertSameResults(QUERIES[3], VectorizedHashAggregateExec.class);
+  }
+
+  @Test
+  public final void testFallbackForUnsupportedExpression() throws IOException, TajoException {
+    // modular arithmetic is not vectorized, so the planner should fall back to row-at-a-time execution.
+    List<String> results = execute(QUERIES[4], true, null);
+    assertEquals(3, results.size());
+  }
+
+  @Test
+  public final void testBatchScanner() throws IOException, TajoException {
+    // the ORC scanner decodes rows straight into column vectors, and the columns which are not used
+    // by the search condition are decoded only for the rows which satisfy it.
+    for (int i = 0; i < 4; i++) {
+      List<String> expected = execute(QUERIES[i], false, null);
+      List<String> actual = execute(QUERIES[i].replace("from employee", "from employee_orc"), true,
+          VectorizedScanExec.class, employeeOrc);
+      assertEquals(expected, actual);
+    }
+  }
+
+  private void assertSameResults(String query, Class<? extends PhysicalExec> vectorizedExec)
+      throws IOException, TajoException {
+    List<String> expected = execute(query, false, null);
+    List<String> actual = execute(query, true, vectorizedExec);
+    assertEquals(expected, actual);
+  }
+
+  private List<String> execute(String query, boolean vectorized, Class<? extends PhysicalExec> expectedExec)
+      throws IOException, TajoException {
+    return execute(query, vectorized, expectedExec, employee);
+  }
+
+  private List<String> execute(String query, boolean vectorized, Class<? extends PhysicalExec> expectedExec,
+                               TableDesc table) throws IOException, TajoException {
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setBool(SessionVars.VECTORIZED_EXECUTION_ENABLED, vectorized);
+    // a small batch size makes each query span multiple batches
+    queryContext.setInt(SessionVars.VECTORIZED_BATCH_SIZE, 8);
+
+    FileFragment[] frags = FileTablespace.splitNG(conf, table.getName(), table.getMeta(),
+        new Path(table.getUri()), Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir(TajoTestingCluster.DEFAULT_TEST_DIRECTORY + "/testVectorizedExec");
+    TaskAttemptContext ctx = new TaskAttemptContext(queryContext,
+        LocalTajoTestingUtility.newTaskAttemptId(), frags, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr expr = analyzer.parse(query);
+    LogicalPlan plan = planner.createPlan(LocalTajoTestingUtility.createDummyContext(conf), expr);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    if (expectedExec != null) {
+      assertNotNull(PhysicalPlanUtil.findExecutor(exec, expectedExec));
+    }
+
+    List<String> results = new ArrayList<>();
+    Tuple tuple;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      results.add(tuple.toString());
+    }
+    exec.close();
+
+    Collections.sort(results);
+    return results;
+  }
+}
@@ -18,6 +18,7 @@
 
 package org.apache.tajo.engine.query;
 
+import org.apache.hadoop.io.compress.DefaultCodec;
 import org.apache.tajo.*;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.SchemaBuilder;
@@ -32,10 +33,12 @@ import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameters;
 
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.util.*;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @Category(IntegrationTest.class)
 @RunWith(Parameterized.class)
@@ -107,6 +110,99 @@ public class TestGroupByQuery extends QueryTestCaseBase {
     cleanupQuery(res);
   }
 
+  @Test
+  public final void testGroupByWithPushedHashShuffle() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.HASH_SHUFFLE_PUSH_ENABLED.keyname(), "true");
+    client.updateSessionVariables(variables);
+    try {
+      // the result should be the same as that of the pulled hash shuffle
+      ResultSet res = executeFile("testGroupBy4.sql");
+      assertResultSet(res, "testGroupBy4.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.HASH_SHUFFLE_PUSH_ENABLED.keyname()));
+    }
+  }
+
+  @Test
+  public final void testGroupByWithCompressedHashShuffle() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.HASH_SHUFFLE_COMPRESSION_CODEC.keyname(), DefaultCodec.class.getName());
+    client.updateSessionVariables(variables);
+    try {
+      // the result should be the same as that of the uncompressed hash shuffle
+      ResultSet res = executeFile("testGroupBy4.sql");
+      assertResultSet(res, "testGroupBy4.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.HASH_SHUFFLE_COMPRESSION_CODEC.keyname()));
+    }
+  }
+
+  @Test
+  public final void testGroupByWithShuffleCombiner() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.HASH_SHUFFLE_COMBINER_ENABLED.keyname(), "true");
+    client.updateSessionVariables(variables);
+    try {
+      // the partial results of avg() and sum() are combined, and the result should be the same as that of
+      // the hash shuffle without the combiner
+      ResultSet res = executeFile("testHavingWithAggFunction.sql");
+      assertResultSet(res, "testHavingWithAggFunction.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.HASH_SHUFFLE_COMBINER_ENABLED.keyname()));
+    }
+  }
+
+  @Test
+  public final void testGroupByWithAdaptivePartition() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    // many tiny partitions to be coalesced
+    variables.put(SessionVars.TEST_MIN_TASK_NUM.keyname(), "8");
+    client.updateSessionVariables(variables);
+    testingCluster.setAllTajoDaemonConfValue(ConfVars.$TEST_MIN_TASK_NUM.varname, "8");
+    try {
+      ResultSet res = executeFile("testGroupBy4.sql");
+      int taskNum = getTaskNum(getQueryId(res));
+      cleanupQuery(res);
+
+      variables.put(SessionVars.ADAPTIVE_PARTITION_ENABLED.keyname(), "true");
+      client.updateSessionVariables(variables);
+
+      // the result should be the same as that of the hash shuffle without coalescing partitions
+      res = executeFile("testGroupBy4.sql");
+      assertResultSet(res, "testGroupBy4.result");
+      int coalescedTaskNum = getTaskNum(getQueryId(res));
+      cleanupQuery(res);
+
+      // the tiny partitions are aggregated by a single task instead of a task per partition
+      assertTrue(coalescedTaskNum + " should be less than " + taskNum, coalescedTaskNum < taskNum);
+    } finally {
+      testingCluster.setAllTajoDaemonConfValue(ConfVars.$TEST_MIN_TASK_NUM.varname, "0");
+      client.unsetSessionVariables(Arrays.asList(SessionVars.ADAPTIVE_PARTITION_ENABLED.keyname(),
+          SessionVars.TEST_MIN_TASK_NUM.keyname()));
+    }
+  }
+
+  @Test
+  public final void testGroupByWithSortedHashShuffle() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.HASH_SHUFFLE_SORT_ENABLED.keyname(), "true");
+    variables.put(SessionVars.TEST_MIN_TASK_NUM.keyname(), "8");
+    client.updateSessionVariables(variables);
+    try {
+      // the result should be the same as that of the hash shuffle writing a file of each partition
+      ResultSet res = executeFile("testGroupBy4.sql");
+      assertResultSet(res, "testGroupBy4.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.HASH_SHUFFLE_SORT_ENABLED.keyname(),
+          SessionVars.TEST_MIN_TASK_NUM.keyname()));
+    }
+  }
+
   @Test
   public final void testGroupByNested1() throws Exception {
     // select l_orderkey + l_partkey as unique_key from lineitem group by l_orderkey + l_partkey;
@@ -823,4 +919,13 @@ public class TestGroupByQuery extends QueryTestCaseBase {
     assertResultSet(res);
     cleanupQuery(res);
   }
+
+  private static int getTaskNum(QueryId queryId) throws IOException {
+    QueryHistory queryHistory = testingCluster.getQueryHistory(queryId);
+    int taskNum = 0;
+    for (StageHistory stage : queryHistory.getStageHistories()) {
+      taskNum += stage.getTotalScheduledObjectsCount();
+    }
+    return taskNum;
+  }
 }
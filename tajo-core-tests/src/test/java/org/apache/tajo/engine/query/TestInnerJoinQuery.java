@@ -20,6 +20,10 @@ package org.apache.tajo.engine.query;
 
 import org.apache.tajo.IntegrationTest;
 import org.apache.tajo.NamedTest;
+import org.apache.tajo.QueryId;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.util.history.QueryHistory;
+import org.apache.tajo.util.history.StageHistory;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -27,8 +31,15 @@ import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.io.IOException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @Category(IntegrationTest.class)
 @RunWith(Parameterized.class)
@@ -280,4 +291,87 @@ public class TestInnerJoinQuery extends TestJoinQuery {
       executeString("DROP TABLE nation_parquet");
     }
   }
+
+  @Test
+  public final void testRuntimeJoinFilter() throws Exception {
+    String query = "select n_name, c_name from nation, customer where n_nationkey = c_nationkey";
+
+    ResultSet res = executeString(query);
+    String expected = resultSetToString(res, true);
+    long shuffledRows = getShuffledRowsOfLeafStages(getQueryId(res));
+    cleanupQuery(res);
+
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.RUNTIME_JOIN_FILTER_ENABLED.keyname(), "true");
+    client.updateSessionVariables(variables);
+    try {
+      res = executeString(query);
+      assertEquals(expected, resultSetToString(res, true));
+      long filteredRows = getShuffledRowsOfLeafStages(getQueryId(res));
+      cleanupQuery(res);
+
+      if (shuffledRows > 0) { // if the join is a repartitioned join
+        // 20 nations which have no customer are filtered out before the shuffle
+        assertTrue(filteredRows + " should be less than " + shuffledRows, filteredRows < shuffledRows);
+      }
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.RUNTIME_JOIN_FILTER_ENABLED.keyname()));
+    }
+  }
+
+  @Test
+  public final void testJoinWithAdaptivePartition() throws Exception {
+    String query = "select n_name, c_name from nation, customer where n_nationkey = c_nationkey order by c_name";
+
+    Map<String, String> variables = new HashMap<>();
+    // many tiny partitions to be coalesced
+    variables.put(SessionVars.TEST_MIN_TASK_NUM.keyname(), "8");
+    client.updateSessionVariables(variables);
+    try {
+      ResultSet res = executeString(query);
+      String expected = resultSetToString(res, true);
+      long shuffledRows = getShuffledRowsOfLeafStages(getQueryId(res));
+      int taskNum = getTaskNum(getQueryId(res));
+      cleanupQuery(res);
+
+      variables.put(SessionVars.ADAPTIVE_PARTITION_ENABLED.keyname(), "true");
+      client.updateSessionVariables(variables);
+
+      // coalescing partitions into tasks should not change the result
+      res = executeString(query);
+      assertEquals(expected, resultSetToString(res, true));
+      int coalescedTaskNum = getTaskNum(getQueryId(res));
+      cleanupQuery(res);
+
+      if (shuffledRows > 0) { // if the join is a repartitioned join
+        // the tiny partitions are joined by a single task instead of a task per partition
+        assertTrue(coalescedTaskNum + " should be less than " + taskNum, coalescedTaskNum < taskNum);
+      }
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.ADAPTIVE_PARTITION_ENABLED.keyname(),
+          SessionVars.TEST_MIN_TASK_NUM.keyname()));
+    }
+  }
+
+  private static long getShuffledRowsOfLeafStages(QueryId queryId) throws IOException {
+    QueryHistory queryHistory = testingCluster.getQueryHistory(queryId);
+    long rows = 0;
+    for (StageHistory stage : queryHistory.getStageHistories()) {
+      if (stage.getExecutionBlockId().endsWith("_000001") || stage.getExecutionBlockId().endsWith("_000002")) {
+        if (stage.getNumShuffles() > 0) {
+          rows += stage.getTotalWriteRows();
+        }
+      }
+    }
+    return rows;
+  }
+
+  private static int getTaskNum(QueryId queryId) throws IOException {
+    QueryHistory queryHistory = testingCluster.getQueryHistory(queryId);
+    int taskNum = 0;
+    for (StageHistory stage : queryHistory.getStageHistories()) {
+      taskNum += stage.getTotalScheduledObjectsCount();
+    }
+    return taskNum;
+  }
 }
@@ -347,6 +347,37 @@ public class TestSelectQuery extends QueryTestCaseBase {
     cleanupQuery(res);
   }
 
+  @Test
+  public final void testSelectWithCompiledPipeline() throws Exception {
+    Map<String, String> variables = new HashMap<>();
+    variables.put(SessionVars.CODEGEN_PIPELINE.keyname(), "true");
+    client.updateSessionVariables(variables);
+    try {
+      // the results should be the same as those of the interpreted filter and projection
+      ResultSet res = executeFile("testSelect3.sql");
+      assertResultSet(res, "testSelect3.result");
+      cleanupQuery(res);
+
+      res = executeFile("testWhereCond1.sql");
+      assertResultSet(res, "testWhereCond1.result");
+      cleanupQuery(res);
+
+      res = executeFile("testRealValueCompare.sql");
+      assertResultSet(res, "testRealValueCompare.result");
+      cleanupQuery(res);
+
+      res = executeFile("testInClause.sql");
+      assertResultSet(res, "testInClause.result");
+      cleanupQuery(res);
+
+      res = executeFile("testLikeClause.sql");
+      assertResultSet(res, "testLikeClause.result");
+      cleanupQuery(res);
+    } finally {
+      client.unsetSessionVariables(Arrays.asList(SessionVars.CODEGEN_PIPELINE.keyname()));
+    }
+  }
+
   @Test
   public final void testInStrClause() throws Exception {
     ResultSet res = executeQuery();
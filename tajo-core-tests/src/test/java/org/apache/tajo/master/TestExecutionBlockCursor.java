@@ -17,6 +17,7 @@ package org.apache.tajo.master;
 import org.apache.hadoop.yarn.event.AsyncDispatcher;
 import org.apache.tajo.BuiltinStorages;
 import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.SessionVars;
 import org.apache.tajo.TajoTestingCluster;
 import org.apache.tajo.algebra.Expr;
 import org.apache.tajo.benchmark.TPCH;
@@ -28,6 +29,7 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.ExecutionBlockCursor;
+import org.apache.tajo.engine.planner.global.ExecutionQueue;
 import org.apache.tajo.engine.planner.global.GlobalPlanner;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.query.QueryContext;
@@ -134,4 +136,34 @@ public class TestExecutionBlockCursor {
      */
     assertEquals(10, count);
   }
+
+  @Test
+  public void testParallelSiblingsWithRuntimeJoinFilter() throws Exception {
+    String sql = "select * from orders join lineitem on o_orderkey = l_orderkey";
+
+    // without a runtime join filter, both scans of the join are executed in parallel
+    MasterPlan plan = buildParallelPlan(sql, false);
+    assertEquals(2, new ExecutionBlockCursor(plan).newCursor().first().length);
+
+    // the scan filtered by a runtime join filter is executed after the scan which builds the filter
+    plan = buildParallelPlan(sql, true);
+    ExecutionQueue queue = new ExecutionBlockCursor(plan).newCursor();
+    ExecutionBlock[] first = queue.first();
+    assertEquals(1, first.length);
+    ExecutionBlock[] next = queue.next(first[0].getId());
+    assertEquals(1, next.length);
+    assertEquals(plan.getParent(first[0]), plan.getParent(next[0]));
+  }
+
+  private MasterPlan buildParallelPlan(String sql, boolean runtimeJoinFilter) throws Exception {
+    Expr context = analyzer.parse(sql);
+    LogicalPlan logicalPlan = logicalPlanner.createPlan(LocalTajoTestingUtility.createDummyContext(conf), context);
+    optimizer.optimize(logicalPlan);
+    QueryContext queryContext = new QueryContext(conf);
+    queryContext.setInt(SessionVars.QUERY_EXECUTE_PARALLEL, 2);
+    queryContext.setBool(SessionVars.RUNTIME_JOIN_FILTER_ENABLED, runtimeJoinFilter);
+    MasterPlan plan = new MasterPlan(LocalTajoTestingUtility.newQueryId(), queryContext, logicalPlan);
+    planner.build(queryContext, plan);
+    return plan;
+  }
 }
@@ -25,6 +25,7 @@ import org.apache.tajo.LocalTajoTestingUtility;
 import org.apache.tajo.QueryId;
 import org.apache.tajo.ResourceProtos.FetchProto;
 import org.apache.tajo.TestTajoIds;
+import org.apache.tajo.algebra.JoinType;
 import org.apache.tajo.pullserver.PullServerConstants;
 import org.apache.tajo.pullserver.PullServerUtil.PullServerParams;
 import org.apache.tajo.querymaster.Repartitioner;
@@ -164,6 +165,170 @@ public class TestRepartitioner {
     assertFetchProto(expectedProtos, results.getSecond());
   }
 
+  @Test
+  public void testCoalescePartitions() {
+    long [] VOLUMES = {1000, 100, 80, 70, 30, 10, 5, 0, 0, 0};
+    Map<Integer, Long> partitionVolumes = Maps.newHashMap();
+    for (int i = 0; i < VOLUMES.length; i++) {
+      partitionVolumes.put(i, VOLUMES[i]);
+    }
+
+    List<List<Integer>> groups = Repartitioner.coalescePartitions(partitionVolumes, 150);
+    assertEquals(3, groups.size());
+    // the oversized partition occupies a task alone
+    assertEquals(Arrays.asList(0), groups.get(0));
+    // tiny partitions are coalesced into the least loaded task
+    assertEquals(Sets.newHashSet(1, 4, 5, 6, 7, 8, 9), Sets.newHashSet(groups.get(1)));
+    assertEquals(Sets.newHashSet(2, 3), Sets.newHashSet(groups.get(2)));
+
+    // every partition fits in a single task
+    groups = Repartitioner.coalescePartitions(partitionVolumes, 10000);
+    assertEquals(1, groups.size());
+    assertEquals(VOLUMES.length, groups.get(0).size());
+
+    // no partition
+    assertTrue(Repartitioner.coalescePartitions(Maps.newHashMap(), 150).isEmpty());
+  }
+
+  @Test
+  public void testFindSkewedPartitions() {
+    long [] VOLUMES = {10, 12, 8, 200, 11, 60};
+    Map<Integer, Long> partitionVolumes = Maps.newHashMap();
+    for (int i = 0; i < VOLUMES.length; i++) {
+      partitionVolumes.put(i, VOLUMES[i]);
+    }
+
+    // the median is 11
+    assertEquals(Sets.newHashSet(3, 5), Repartitioner.findSkewedPartitions(partitionVolumes, 50, 5));
+    assertEquals(Sets.newHashSet(3), Repartitioner.findSkewedPartitions(partitionVolumes, 50, 10));
+    // a partition smaller than the task volume is not skewed
+    assertTrue(Repartitioner.findSkewedPartitions(partitionVolumes, 300, 5).isEmpty());
+
+    // a single partition cannot be skewed
+    Map<Integer, Long> singlePartition = Maps.newHashMap();
+    singlePartition.put(0, 1000L);
+    assertTrue(Repartitioner.findSkewedPartitions(singlePartition, 50, 5).isEmpty());
+  }
+
+  @Test
+  public void testSplitSkewedJoinPartitions() {
+    ExecutionBlockId left = new ExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+    ExecutionBlockId right = new ExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 2);
+    long pageSize = 10 * 1024 * 1024;
+    long taskVolume = 30 * 1024 * 1024;
+
+    // the left partition 2 is 100MB, which is split into five tasks of 20MB
+    Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries = createJoinEntries(left, right, left);
+    List<Map<String, List<FetchProto>>> tasks = Repartitioner.splitSkewedJoinPartitions(JoinType.INNER, left, right,
+        hashEntries, taskVolume, pageSize, 5);
+    assertSkewedJoinTasks(5, left, right, tasks);
+    assertEquals(Sets.newHashSet(0, 1, 3, 4), hashEntries.keySet());
+
+    hashEntries = createJoinEntries(left, right, left);
+    tasks = Repartitioner.splitSkewedJoinPartitions(JoinType.LEFT_OUTER, left, right, hashEntries, taskVolume,
+        pageSize, 5);
+    assertSkewedJoinTasks(5, left, right, tasks);
+
+    // the preserved side of an outer join cannot be split
+    hashEntries = createJoinEntries(left, right, left);
+    assertTrue(Repartitioner.splitSkewedJoinPartitions(JoinType.RIGHT_OUTER, left, right, hashEntries, taskVolume,
+        pageSize, 5).isEmpty());
+    assertEquals(5, hashEntries.size());
+
+    hashEntries = createJoinEntries(left, right, left);
+    assertTrue(Repartitioner.splitSkewedJoinPartitions(JoinType.FULL_OUTER, left, right, hashEntries, taskVolume,
+        pageSize, 5).isEmpty());
+    assertEquals(5, hashEntries.size());
+
+    // the right partition 2 is skewed
+    hashEntries = createJoinEntries(left, right, right);
+    tasks = Repartitioner.splitSkewedJoinPartitions(JoinType.INNER, left, right, hashEntries, taskVolume,
+        pageSize, 5);
+    assertSkewedJoinTasks(5, right, left, tasks);
+
+    hashEntries = createJoinEntries(left, right, right);
+    tasks = Repartitioner.splitSkewedJoinPartitions(JoinType.RIGHT_OUTER, left, right, hashEntries, taskVolume,
+        pageSize, 5);
+    assertSkewedJoinTasks(5, right, left, tasks);
+
+    hashEntries = createJoinEntries(left, right, right);
+    assertTrue(Repartitioner.splitSkewedJoinPartitions(JoinType.LEFT_OUTER, left, right, hashEntries, taskVolume,
+        pageSize, 5).isEmpty());
+    assertEquals(5, hashEntries.size());
+
+    // a partition is not skewed if it is not larger than the task volume
+    hashEntries = createJoinEntries(left, right, left);
+    assertTrue(Repartitioner.splitSkewedJoinPartitions(JoinType.INNER, left, right, hashEntries, 200 * 1024 * 1024,
+        pageSize, 5).isEmpty());
+  }
+
+  /**
+   * Creates five hash partitions of a join, where each partition has 1MB for each relation except that
+   * the partition 2 of the skewed relation has 10 pages of 10MB.
+   */
+  private static Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> createJoinEntries(
+      ExecutionBlockId left, ExecutionBlockId right, ExecutionBlockId skewed) {
+    Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries = new HashMap<>();
+    for (int partId = 0; partId < 5; partId++) {
+      Map<ExecutionBlockId, List<IntermediateEntry>> partition = new HashMap<>();
+      for (ExecutionBlockId ebId : new ExecutionBlockId[] {left, right}) {
+        List<IntermediateEntry> entries = new ArrayList<>();
+        if (partId == 2 && ebId.equals(skewed)) {
+          entries.add(createIntermediate(ebId, 0, partId, 10, 10 * 1024 * 1024));
+        } else {
+          entries.add(createIntermediate(ebId, 0, partId, 1, 1024 * 1024));
+        }
+        partition.put(ebId, entries);
+      }
+      hashEntries.put(partId, partition);
+    }
+    return hashEntries;
+  }
+
+  private static IntermediateEntry createIntermediate(ExecutionBlockId ebId, int taskId, int partId, int pageNum,
+                                                      int pageLength) {
+    List<Pair<Long, Integer>> pages = new ArrayList<>();
+    long offset = 0;
+    for (int i = 0; i < pageNum; i++) {
+      pages.add(new Pair<>(offset, pageLength));
+      offset += pageLength;
+    }
+    IntermediateEntry interm = new IntermediateEntry(taskId, -1, partId, new Task.PullHost("localhost", 1234));
+    interm.setEbId(ebId);
+    interm.setPages(pages);
+    interm.setVolume(offset);
+    return interm;
+  }
+
+  private static void assertSkewedJoinTasks(int expectedTaskNum, ExecutionBlockId split, ExecutionBlockId replicated,
+                                            List<Map<String, List<FetchProto>>> tasks) {
+    assertEquals(expectedTaskNum, tasks.size());
+
+    long splitVolume = 0;
+    Set<Long> offsets = new HashSet<>();
+    List<FetchProto> replicatedFetches = tasks.get(0).get(replicated.toString());
+    for (Map<String, List<FetchProto>> eachTask : tasks) {
+      assertEquals(Sets.newHashSet(split.toString(), replicated.toString()), eachTask.keySet());
+
+      for (FetchProto eachFetch : eachTask.get(split.toString())) {
+        assertEquals(2, eachFetch.getPartitionId());
+        assertTrue(eachFetch.getLength() > 0);
+        assertTrue(offsets.add(eachFetch.getOffset()));
+        splitVolume += eachFetch.getLength();
+      }
+
+      // every task fetches the whole partition of the other relation
+      assertEquals(replicatedFetches, eachTask.get(replicated.toString()));
+      for (FetchProto eachFetch : eachTask.get(replicated.toString())) {
+        assertEquals(2, eachFetch.getPartitionId());
+        assertEquals(-1, eachFetch.getOffset());
+        assertEquals(-1, eachFetch.getLength());
+      }
+    }
+    assertEquals(1, replicatedFetches.size());
+    assertEquals(100 * 1024 * 1024, splitVolume);
+  }
+
   private static void assertFetchVolumes(long [] expected, Long [] results) {
     assertEquals("the lengths of volumes are mismatch", expected.length, results.length);
 
@@ -0,0 +1,109 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.pullserver;
+
+import org.apache.tajo.storage.DiskDeviceInfo;
+import org.apache.tajo.storage.DiskMountInfo;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class TestDiskIOScheduler {
+  private DiskIOScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    DiskDeviceInfo hdd = new DiskDeviceInfo(0);
+    hdd.setName("sda");
+    hdd.addMountPath(new DiskMountInfo(0, "/"));
+    hdd.addMountPath(new DiskMountInfo(0, "/data1"));
+
+    DiskDeviceInfo ssd = new DiskDeviceInfo(1);
+    ssd.setName("nvme0n1");
+    ssd.setRotational(false);
+    ssd.addMountPath(new DiskMountInfo(1, "/data10"));
+
+    scheduler = new DiskIOScheduler(Arrays.asList(hdd, ssd), 1, 4, 4096, 512 * 1024);
+  }
+
+  @Test
+  public void testDeviceId() {
+    assertEquals(0, scheduler.getDeviceId(new File("/data1/tajo/output/0")));
+    assertEquals(1, scheduler.getDeviceId(new File("/data10/tajo/output/0")));
+    assertEquals(0, scheduler.getDeviceId(new File("/data100/tajo/output/0")));
+    assertEquals(1, scheduler.getDeviceId(new File("/data10")));
+
+    assertEquals(4096, scheduler.getReadaheadLength(0));
+    assertEquals(512 * 1024, scheduler.getReadaheadLength(1));
+    assertEquals(4096, scheduler.getReadaheadLength(DiskIOScheduler.UNKNOWN_DEVICE_ID));
+  }
+
+  @Test
+  public void testConcurrency() {
+    final List<Integer> finished = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      final int id = i;
+      scheduler.submit(1, "/data10/file", i, () -> finished.add(id));
+    }
+    assertEquals(4, scheduler.getRunningNum(1));
+    assertEquals(2, scheduler.getQueuedNum(1));
+    assertEquals(Arrays.asList(0, 1, 2, 3), finished);
+
+    scheduler.release(1);
+    scheduler.release(1);
+    assertEquals(4, scheduler.getRunningNum(1));
+    assertEquals(0, scheduler.getQueuedNum(1));
+
+    for (int i = 0; i < 4; i++) {
+      scheduler.release(1);
+    }
+    assertEquals(0, scheduler.getRunningNum(1));
+    assertEquals(6, finished.size());
+
+    // other devices are not affected
+    assertEquals(0, scheduler.getRunningNum(0));
+  }
+
+  @Test
+  public void testElevatorOrder() {
+    final List<String> finished = new ArrayList<>();
+    scheduler.submit(0, "/data1/b", 100, () -> finished.add("b:100"));
+    scheduler.submit(0, "/data1/c", 0, () -> finished.add("c:0"));
+    scheduler.submit(0, "/data1/a", 50, () -> finished.add("a:50"));
+    scheduler.submit(0, "/data1/b", 300, () -> finished.add("b:300"));
+    scheduler.submit(0, "/data1/b", 200, () -> finished.add("b:200"));
+    scheduler.submit(0, "/data1/b", 50, () -> finished.add("b:50"));
+    assertEquals(5, scheduler.getQueuedNum(0));
+
+    for (int i = 0; i < 6; i++) {
+      scheduler.release(0);
+    }
+
+    // reads ahead of the last position first, and then wraps around to the lowest position
+    assertEquals(Arrays.asList("b:100", "b:200", "b:300", "c:0", "a:50", "b:50"), finished);
+    assertEquals(0, scheduler.getRunningNum(0));
+    assertEquals(0, scheduler.getQueuedNum(0));
+  }
+}
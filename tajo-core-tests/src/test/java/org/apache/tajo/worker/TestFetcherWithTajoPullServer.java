@@ -24,12 +24,17 @@ import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.DefaultCodec;
 import org.apache.hadoop.service.Service;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.QueryId;
 import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.TajoConstants;
 import org.apache.tajo.TajoProtos;
 import org.apache.tajo.TajoProtos.FetcherState;
 import org.apache.tajo.TajoTestingCluster;
+import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.*;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.conf.TajoConf;
@@ -42,8 +47,10 @@ import org.apache.tajo.pullserver.PullServerUtil.PullServerRequestURIBuilder;
 import org.apache.tajo.pullserver.TajoPullServerService;
 import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.index.bst.BSTIndex;
 import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexWriter;
+import org.apache.tajo.tuple.memory.MemoryRowBlock;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.apache.tajo.worker.FetchImpl.RangeParam;
 import org.junit.After;
@@ -56,10 +63,15 @@ import org.junit.runners.Parameterized.Parameters;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
 
 @RunWith(Parameterized.class)
 public class TestFetcherWithTajoPullServer {
@@ -97,7 +109,10 @@ public class TestFetcherWithTajoPullServer {
     conf.setVar(TajoConf.ConfVars.WORKER_TEMPORAL_DIR, INPUT_DIR);
     conf.setIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_READ_TIMEOUT, 1);
     conf.setIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_CHUNK_MAX_SIZE, 127);
+    startPullServer();
+  }
 
+  private void startPullServer() {
     if (pullServerType.equals(PullServerType.TAJO)) {
       pullServerService = new TajoPullServerService();
     } else {
@@ -183,6 +198,403 @@ public class TestFetcherWithTajoPullServer {
     assertEquals(FetcherState.FETCH_DATA_FINISHED, fetcher.getState());
   }
 
+  @Test
+  public void testConcurrentFetchesShareConnections() throws Exception {
+    assumeTrue(fetchType.equals(FetchType.REMOTE));
+
+    Random rnd = new Random();
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    String sid = "1";
+    String partId = "1";
+
+    Path queryBaseDir = PullServerUtil.getBaseOutputDir(queryId.toString(), sid);
+    final int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), conf);
+    final Path dataPath = StorageUtil.concatPath(queryBaseDir, "hash-shuffle", String.valueOf(partParentId), partId);
+
+    PullServerRequestURIBuilder builder = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort,
+        maxUrlLength);
+    builder.setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+        .setQueryId(queryId.toString())
+        .setEbId(sid)
+        .setPartId(partId)
+        .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING);
+
+    Path inputPath = new Path(INPUT_DIR, dataPath);
+    FSDataOutputStream stream = FileSystem.getLocal(conf).create(inputPath, true);
+    for (int i = 0; i < 10000; i++) {
+      String data = "" + rnd.nextInt();
+      stream.write(data.getBytes());
+    }
+    stream.flush();
+    stream.close();
+    final URI uri = builder.build(false).get(0);
+
+    // fetches are pipelined through a few persistent connections
+    int fetchNum = 32;
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<AbstractFetcher>> futures = new ArrayList<>();
+    for (int i = 0; i < fetchNum; i++) {
+      final File data = new File(OUTPUT_DIR + "data_" + i);
+      futures.add(executor.submit(() -> {
+        AbstractFetcher fetcher = getFetcher(uri, data);
+        fetcher.get();
+        return fetcher;
+      }));
+    }
+
+    long inputLength = FileSystem.getLocal(conf).getFileStatus(inputPath).getLen();
+    try {
+      for (Future<AbstractFetcher> future : futures) {
+        AbstractFetcher fetcher = future.get();
+        assertEquals(FetcherState.FETCH_DATA_FINISHED, fetcher.getState());
+        assertEquals(inputLength, fetcher.getFileLen());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    int connectionNum = FetchClient.getInstance(conf).getConnectionNum(new InetSocketAddress("127.0.0.1", pullserverPort));
+    assertTrue(connectionNum > 0);
+    assertTrue(connectionNum <= conf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECTIONS_PER_HOST));
+  }
+
+  @Test
+  public void testPipelinedFetchesWithDiskIOScheduler() throws Exception {
+    assumeTrue(fetchType.equals(FetchType.REMOTE));
+
+    // every read waits for the previous one, and the waiting reads are dispatched in the order of their files
+    pullServerService.stop();
+    conf.setBoolVar(ConfVars.PULLSERVER_DISK_IO_SCHEDULER_ENABLED, true);
+    conf.setIntVar(ConfVars.PULLSERVER_DISK_IO_ROTATIONAL_CONCURRENCY, 1);
+    conf.setIntVar(ConfVars.PULLSERVER_DISK_IO_NON_ROTATIONAL_CONCURRENCY, 1);
+    startPullServer();
+
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    String sid = "1";
+    Path queryBaseDir = PullServerUtil.getBaseOutputDir(queryId.toString(), sid);
+
+    // each partition has a different length
+    int partNum = 8;
+    Map<Integer, Long> inputLengths = new HashMap<>();
+    for (int partId = 1; partId <= partNum; partId++) {
+      int partParentId = HashShuffleAppenderManager.getPartParentId(partId, conf);
+      Path inputPath = new Path(INPUT_DIR, StorageUtil.concatPath(queryBaseDir, "hash-shuffle",
+          String.valueOf(partParentId), String.valueOf(partId)));
+      FSDataOutputStream stream = FileSystem.getLocal(conf).create(inputPath, true);
+      stream.write(new byte[partId * 1000]);
+      stream.close();
+      inputLengths.put(partId, FileSystem.getLocal(conf).getFileStatus(inputPath).getLen());
+    }
+
+    // the requests are sent back-to-back through the pipelined connections in the reverse order of the files
+    ExecutorService executor = Executors.newFixedThreadPool(partNum);
+    Map<Integer, Future<AbstractFetcher>> futures = new HashMap<>();
+    try {
+      for (int partId = partNum; partId > 0; partId--) {
+        URI uri = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort, maxUrlLength)
+            .setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+            .setQueryId(queryId.toString())
+            .setEbId(sid)
+            .setPartId(partId)
+            .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+            .build(false).get(0);
+        File data = new File(OUTPUT_DIR + "data_" + partId);
+        futures.put(partId, executor.submit(() -> {
+          AbstractFetcher fetcher = getFetcher(uri, data);
+          fetcher.get();
+          return fetcher;
+        }));
+      }
+
+      // each fetch receives the response of its own request
+      for (Map.Entry<Integer, Future<AbstractFetcher>> entry : futures.entrySet()) {
+        AbstractFetcher fetcher = entry.getValue().get();
+        assertEquals(FetcherState.FETCH_DATA_FINISHED, fetcher.getState());
+        assertEquals(inputLengths.get(entry.getKey()).longValue(), fetcher.getFileLen());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testStreamingFetch() throws Exception {
+    assumeTrue(fetchType.equals(FetchType.REMOTE));
+
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    String sid = "1";
+    String partId = "1";
+
+    Path queryBaseDir = PullServerUtil.getBaseOutputDir(queryId.toString(), sid);
+    final int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), conf);
+    final Path dataPath = StorageUtil.concatPath(queryBaseDir, "hash-shuffle", String.valueOf(partParentId), partId);
+
+    PullServerRequestURIBuilder builder = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort,
+        maxUrlLength);
+    builder.setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+        .setQueryId(queryId.toString())
+        .setEbId(sid)
+        .setPartId(partId)
+        .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING);
+
+    final Schema schema = SchemaBuilder.builder()
+        .add("id", Type.INT4)
+        .add("name", Type.TEXT)
+        .build();
+    final TableMeta meta = CatalogUtil.newTableMeta(BuiltinStorages.RAW, conf);
+    Path inputPath = new Path(INPUT_DIR, dataPath);
+    FileSystem.getLocal(conf).mkdirs(inputPath.getParent());
+    Appender appender = ((FileTablespace) TablespaceManager.getLocalFs()).getAppender(meta, schema, inputPath);
+    appender.init();
+    final int tupleNum = 20000;
+    VTuple tuple = new VTuple(schema.size());
+    for (int i = 0; i < tupleNum; i++) {
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, DatumFactory.createText("name_" + i));
+      appender.addTuple(tuple);
+    }
+    appender.close();
+
+    URI uri = builder.build(false).get(0);
+    final File data = new File(OUTPUT_DIR + "data");
+    FileChunk storeChunk = new FileChunk(data, 0, -1);
+    storeChunk.setFromRemote(true);
+
+    // the most of data are spilled into the file
+    long memoryUsage = FetchedShuffleData.getMemoryUsage();
+    FetchedShuffleData fetchedData = new FetchedShuffleData(data, memoryUsage + 64 * 1024);
+    FetchedShuffleData.register(fetchedData);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      // the scan is started before the fetch, and reads the data while they are being fetched
+      Future<Integer> scanned = executor.submit(() -> {
+        FileFragment fragment = new FileFragment(TEST_TABLE_NAME, new Path(data.getAbsolutePath()), 0,
+            TajoConstants.UNKNOWN_LENGTH);
+        RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(conf, schema, meta, fragment);
+        scanner.init();
+        int num = 0;
+        Tuple t;
+        while ((t = scanner.next()) != null) {
+          assertEquals(num, t.getInt4(0));
+          assertEquals("name_" + num, t.getText(1));
+          num++;
+        }
+        scanner.close();
+        return num;
+      });
+
+      RemoteFetcher fetcher = new RemoteFetcher(conf, uri, storeChunk, fetchedData);
+      FileChunk chunk = fetcher.get().get(0);
+      assertEquals(FetcherState.FETCH_DATA_FINISHED, fetcher.getState());
+
+      long inputLength = FileSystem.getLocal(conf).getFileStatus(inputPath).getLen();
+      assertEquals(inputLength, chunk.length());
+      assertEquals(inputLength, fetchedData.size());
+      assertTrue(fetchedData.getMemorySize() <= 64 * 1024);
+      assertEquals(tupleNum, scanned.get().intValue());
+    } finally {
+      executor.shutdown();
+      FetchedShuffleData.unregister(data);
+    }
+    assertEquals(memoryUsage, FetchedShuffleData.getMemoryUsage());
+  }
+
+  @Test
+  public void testPushHashShuffle() throws Exception {
+    assumeTrue(pullServerType.equals(PullServerType.TAJO));
+    testPushHashShuffle(false);
+  }
+
+  @Test
+  public void testPushCompressedHashShuffle() throws Exception {
+    assumeTrue(pullServerType.equals(PullServerType.TAJO));
+    testPushHashShuffle(true);
+  }
+
+  private void testPushHashShuffle(boolean compressed) throws Exception {
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(queryId, 1);
+    TaskAttemptId task1 = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(ebId, 1), 0);
+    TaskAttemptId task2 = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(ebId, 2), 0);
+    int partId = 1;
+
+    final Schema schema = SchemaBuilder.builder()
+        .add("id", Type.INT4)
+        .add("name", Type.TEXT)
+        .build();
+    final TableMeta meta = CatalogUtil.newTableMeta(BuiltinStorages.RAW, conf);
+    if (compressed) {
+      meta.putProperty(StorageConstants.COMPRESSION_CODEC, DefaultCodec.class.getName());
+    }
+
+    URI pushUri = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort, maxUrlLength)
+        .setRequestType(PullServerConstants.PUSH_REQUEST_PARAM_STRING)
+        .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+        .setQueryId(queryId.toString())
+        .setEbId(ebId.getId())
+        .setPartId(partId)
+        .build(false).get(0);
+
+    // two tasks push their rows to the pull server in turn
+    HashShuffleAppenderManager manager = new HashShuffleAppenderManager(conf);
+    final int rowsPerPush = 1000;
+    final int pushNum = 6;
+    long rawBytes = 0;
+    try {
+      VTuple tuple = new VTuple(schema.size());
+      for (int i = 0; i < pushNum; i++) {
+        MemoryRowBlock rowBlock = new MemoryRowBlock(SchemaUtil.toDataTypes(schema), 4096, true, BuiltinStorages.RAW);
+        for (int j = 0; j < rowsPerPush; j++) {
+          int id = i * rowsPerPush + j;
+          tuple.put(0, DatumFactory.createInt4(id));
+          tuple.put(1, DatumFactory.createText("name_" + id));
+          rowBlock.getWriter().addTuple(tuple);
+        }
+        rawBytes += rowBlock.getMemory().readableBytes();
+        manager.pushPartitions(meta, i % 2 == 0 ? task1 : task2, partId, pushUri, rowBlock, true).get();
+      }
+      manager.finalizeTask(task1);
+
+      List<HashShuffleAppenderManager.HashShuffleIntermediate> intermediates = manager.close(ebId);
+      assertEquals(1, intermediates.size());
+      HashShuffleAppenderManager.HashShuffleIntermediate intermediate = intermediates.get(0);
+      assertEquals(partId, intermediate.getPartId());
+      assertEquals("127.0.0.1:" + pullserverPort, intermediate.getPullHost());
+      // the contiguous pushes are merged into a page
+      assertEquals(1, intermediate.getPages().size());
+      assertEquals(intermediate.getVolume(), intermediate.getPages().get(0).getSecond().longValue());
+      if (compressed) {
+        assertTrue(intermediate.getVolume() < rawBytes);
+      } else {
+        assertEquals(rawBytes, intermediate.getVolume());
+      }
+      // only the pushes of the unfinished task remain
+      assertEquals(pushNum / 2, intermediate.getFailureTskTupleIndexes().size());
+
+      // the merged partition is fetched as a local hash shuffle output
+      URI uri = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort, maxUrlLength)
+          .setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+          .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+          .setQueryId(queryId.toString())
+          .setEbId(ebId.getId())
+          .setPartId(partId)
+          .build(false).get(0);
+      File data = new File(OUTPUT_DIR + "data");
+      FileChunk chunk = getFetcher(uri, data).get().get(0);
+      assertEquals(intermediate.getVolume(), chunk.length());
+
+      FileFragment fragment = new FileFragment(TEST_TABLE_NAME, new Path(chunk.getFile().getAbsolutePath()),
+          chunk.startOffset(), chunk.length());
+      RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(conf, schema, meta, fragment);
+      scanner.init();
+      int num = 0;
+      Tuple t;
+      while ((t = scanner.next()) != null) {
+        assertEquals(num, t.getInt4(0));
+        assertEquals("name_" + num, t.getText(1));
+        num++;
+      }
+      scanner.close();
+      assertEquals(rowsPerPush * pushNum, num);
+    } finally {
+      manager.shutdown();
+    }
+  }
+
+  @Test
+  public void testGetSortedHashShuffle() throws Exception {
+    QueryId queryId = QueryIdFactory.NULL_QUERY_ID;
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(queryId, 1);
+    TaskAttemptId taskAttemptId = QueryIdFactory.newTaskAttemptId(QueryIdFactory.newTaskId(ebId, 1), 0);
+    final int numPartitions = 4;
+    final int partId = 1;
+
+    final Schema schema = SchemaBuilder.builder()
+        .add("id", Type.INT4)
+        .add("name", Type.TEXT)
+        .build();
+    final TableMeta meta = CatalogUtil.newTableMeta(BuiltinStorages.RAW, conf);
+
+    Path dir = new Path(INPUT_DIR, StorageUtil.concatPath(PullServerUtil.getBaseOutputDir(queryId.toString(),
+        String.valueOf(ebId.getId())), "1_0", SortedHashShuffleWriter.DIR_NAME));
+
+    // two sorted runs are merged into a data file
+    final int rowsPerRun = 1000;
+    final int runNum = 2;
+    List<HashShuffleAppenderManager.HashShuffleIntermediate> intermediates;
+    try (SortedHashShuffleWriter writer =
+             new SortedHashShuffleWriter(conf, taskAttemptId, meta, schema, dir, numPartitions, 4096)) {
+      for (int i = 0; i < runNum; i++) {
+        List<Tuple> tuples = new ArrayList<>();
+        int[] partIds = new int[rowsPerRun];
+        for (int j = 0; j < rowsPerRun; j++) {
+          int id = i * rowsPerRun + j;
+          tuples.add(new VTuple(new Datum[]{DatumFactory.createInt4(id), DatumFactory.createText("name_" + id)}));
+          partIds[j] = id % numPartitions;
+        }
+        writer.spill(partIds, tuples);
+      }
+      intermediates = writer.finish();
+    }
+    assertEquals(numPartitions, intermediates.size());
+
+    HashShuffleAppenderManager.HashShuffleIntermediate intermediate = intermediates.get(partId);
+    assertEquals(partId, intermediate.getPartId());
+    assertEquals(taskAttemptId.getTaskId().getId(), intermediate.getTaskId());
+    assertEquals(taskAttemptId.getId(), intermediate.getAttemptId());
+    // the contiguous row blocks of a partition are merged into a page
+    assertEquals(1, intermediate.getPages().size());
+    assertEquals(intermediate.getVolume(), intermediate.getPages().get(0).getSecond().longValue());
+
+    // the partition is fetched from the range in the index
+    URI uri = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort, maxUrlLength)
+        .setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+        .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+        .setQueryId(queryId.toString())
+        .setEbId(ebId.getId())
+        .setPartId(partId)
+        .setTaskIds(Lists.newArrayList(taskAttemptId.getTaskId().getId()))
+        .setAttemptIds(Lists.newArrayList(taskAttemptId.getId()))
+        .build(true).get(0);
+    File data = new File(OUTPUT_DIR + "data");
+    List<FileChunk> chunks = getFetcher(uri, data).get();
+    assertEquals(1, chunks.size());
+    FileChunk chunk = chunks.get(0);
+    assertEquals(intermediate.getVolume(), chunk.length());
+
+    FileFragment fragment = new FileFragment(TEST_TABLE_NAME, new Path(chunk.getFile().getAbsolutePath()),
+        chunk.startOffset(), chunk.length());
+    RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(conf, schema, meta, fragment);
+    scanner.init();
+    int num = 0;
+    Tuple t;
+    while ((t = scanner.next()) != null) {
+      // the rows of a partition keep their order
+      int id = num * numPartitions + partId;
+      assertEquals(id, t.getInt4(0));
+      assertEquals("name_" + id, t.getText(1));
+      num++;
+    }
+    scanner.close();
+    assertEquals(rowsPerRun * runNum / numPartitions, num);
+
+    // a page of the partition is fetched with its offset and length
+    uri = new PullServerRequestURIBuilder("127.0.0.1", pullserverPort, maxUrlLength)
+        .setRequestType(PullServerConstants.CHUNK_REQUEST_PARAM_STRING)
+        .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+        .setQueryId(queryId.toString())
+        .setEbId(ebId.getId())
+        .setPartId(partId)
+        .setTaskIds(Lists.newArrayList(taskAttemptId.getTaskId().getId()))
+        .setAttemptIds(Lists.newArrayList(taskAttemptId.getId()))
+        .setOffset(intermediate.getPages().get(0).getFirst())
+        .setLength(intermediate.getPages().get(0).getSecond())
+        .build(true).get(0);
+    chunks = getFetcher(uri, new File(OUTPUT_DIR + "data2")).get();
+    assertEquals(1, chunks.size());
+    assertEquals(intermediate.getPages().get(0).getSecond().longValue(), chunks.get(0).length());
+  }
+
   @Test
   public void testGetRangeShuffle() throws IOException {
     Random rnd = new Random();
@@ -51,7 +51,7 @@ class CaseWhenEmitter {
         EvalNode result = ifThenList.get(i).getResult();
         cases[i] = new TajoGeneratorAdapter.SwitchCase(key, result);
       }
-      CaseWhenSwitchGenerator gen = new CaseWhenSwitchGenerator(codeGen, context, stack, cases, caseWhen.getElse());
+      CaseWhenSwitchGenerator gen = new CaseWhenSwitchGenerator(codeGen, context, stack, cases, caseWhen);
 
       stack.push(caseWhen);
 
@@ -64,9 +64,10 @@ class CaseWhenEmitter {
       context.generatorAdapter.tableSwitch(gen.keys(), gen);
       context.gotoLabel(endIf);
 
+      // A null term does not match any case.
       codeGen.emitLabel(context, ifNull);
       context.pop(commonTerm.getValueType());
-      codeGen.visit(context, caseWhen.getElse(), stack);
+      gen.generateDefault();
 
       codeGen.emitLabel(context, endIf);
 
@@ -104,12 +105,14 @@ class CaseWhenEmitter {
         int NULL_FLAG = context.istore();
         int CHILD = context.store(ifThenEval.getCondition().getValueType());
 
+        // If a condition is false or null, the next condition is checked.
+        Label nextCase = i < casesNum - 1 ? labels[i] : defaultLabel;
         context.iload(NULL_FLAG);
-        context.emitNullityCheck(ifNull);
+        context.emitNullityCheck(nextCase);
 
         context.pushBooleanOfThreeValuedLogic(true);
         context.load(ifThenEval.getCondition().getValueType(), CHILD);
-        context.methodvisitor.visitJumpInsn(Opcodes.IF_ICMPNE, (casesNum - 1) < i ? labels[i] : defaultLabel);  // false
+        context.methodvisitor.visitJumpInsn(Opcodes.IF_ICMPNE, nextCase);  // false
 
         codeGen.visit(context, ifThenEval.getResult(), stack);
         context.gotoLabel(afterAll);
@@ -20,6 +20,7 @@ package org.apache.tajo.engine.codegen;
 
 import com.google.common.collect.Maps;
 import org.apache.tajo.org.objectweb.asm.Label;
+import org.apache.tajo.plan.expr.CaseWhenEval;
 import org.apache.tajo.plan.expr.EvalNode;
 
 import java.util.NavigableMap;
@@ -31,18 +32,19 @@ class CaseWhenSwitchGenerator implements TajoGeneratorAdapter.SwitchCaseGenerato
   final private Stack<EvalNode> stack;
 
   final NavigableMap<Integer, TajoGeneratorAdapter.SwitchCase> casesMap;
-  final EvalNode defaultEval;
+  final CaseWhenEval caseWhen;
 
   public CaseWhenSwitchGenerator(EvalCodeGenerator generator, EvalCodeGenContext context, Stack<EvalNode> stack,
-                                 TajoGeneratorAdapter.SwitchCase[] cases, EvalNode defaultEval) {
+                                 TajoGeneratorAdapter.SwitchCase[] cases, CaseWhenEval caseWhen) {
     this.generator = generator;
     this.context = context;
     this.stack = stack;
     this.casesMap = Maps.newTreeMap();
     for (TajoGeneratorAdapter.SwitchCase switchCase : cases) {
-      this.casesMap.put(switchCase.key(), switchCase);
+      // If the same value is given to many cases, the first one is taken.
+      this.casesMap.putIfAbsent(switchCase.key(), switchCase);
     }
-    this.defaultEval = defaultEval;
+    this.caseWhen = caseWhen;
   }
 
   @Override
@@ -82,10 +84,10 @@ class CaseWhenSwitchGenerator implements TajoGeneratorAdapter.SwitchCaseGenerato
   }
 
   public void generateDefault() {
-    if (defaultEval != null) {
-      generator.visit(context, defaultEval, stack);
+    if (caseWhen.hasElse()) {
+      generator.visit(context, caseWhen.getElse(), stack);
     } else {
-      context.pushNullOfThreeValuedLogic();
+      context.pushDummyValue(caseWhen.getValueType());
       context.pushNullFlag(false);
     }
   }
@@ -0,0 +1,193 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.engine.codegen;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.protobuf.ByteString;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.annotation.Nullable;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.util.Pair;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide cache of the classes generated by {@link EvalCodeGenerator}.
+ *
+ * A cache entry is keyed by the JSON form of an input schema and the protobuf form of an EvalNode (or the EvalNodes
+ * of a pipeline), so the same expression of repeated queries is generated only once and every later ExecutionBlock
+ * reuses the class the JIT has already warmed.
+ * Each class is defined in its own {@link TajoClassLoader}. When an entry is evicted, the class and its class loader
+ * become unreachable once the running instances are released, so the JVM can unload them.
+ *
+ * An expression which cannot be compiled is also remembered, so it is not generated again. Every request for it
+ * is counted as a fallback to the interpreted EvalNode.
+ */
+public class CompiledEvalCache {
+  private static final Log LOG = LogFactory.getLog(CompiledEvalCache.class);
+
+  private static CompiledEvalCache instance;
+
+  private final Cache<Pair<String, ByteString>, Class<?>> cache;
+  private final Cache<Pair<String, ByteString>, Fallback> fallbacks;
+  private final AtomicLong fallbackNum = new AtomicLong();
+
+  /**
+   * An expression which cannot be compiled, and the number of times it has been requested.
+   */
+  private static class Fallback {
+    final String expr;
+    final CompilationError error;
+    final AtomicLong count = new AtomicLong();
+
+    Fallback(String expr, CompilationError error) {
+      this.expr = expr;
+      this.error = error;
+    }
+  }
+
+  CompiledEvalCache(int maxSize) {
+    this.fallbacks = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    this.cache = CacheBuilder.newBuilder()
+        .maximumSize(maxSize)
+        .removalListener((RemovalListener<Pair<String, ByteString>, Class<?>>) notification -> {
+          if (LOG.isDebugEnabled()) {
+            LOG.debug("Evicted " + notification.getValue().getName() + " (" + notification.getCause() + ")");
+          }
+        })
+        .build();
+  }
+
+  public static synchronized CompiledEvalCache getInstance(TajoConf conf) {
+    if (instance == null) {
+      instance = new CompiledEvalCache(conf.getIntVar(TajoConf.ConfVars.EXECUTOR_CODEGEN_CACHE_SIZE));
+    }
+    return instance;
+  }
+
+  /**
+   * Returns a new instance of the compiled class for the given expression. The expression is compiled
+   * only if the cache does not have a class for the same schema and expression.
+   */
+  public EvalNode compile(final Schema schema, final EvalNode eval) throws CompilationError {
+    Pair<String, ByteString> key = new Pair<>(schema.toJson(), eval.getProto().toByteString());
+    return (EvalNode) newInstance(key, eval,
+        () -> new EvalCodeGenerator(new TajoClassLoader()).compile(schema, eval).getClass());
+  }
+
+  /**
+   * Returns a new instance of the compiled pipeline for the given filter and projected expressions.
+   *
+   * @see EvalCodeGenerator#compilePipeline
+   */
+  public CompiledPipeline compilePipeline(final Schema schema, @Nullable final EvalNode qual,
+                                          final EvalNode [] targets) throws CompilationError {
+    ByteString.Output evals = ByteString.newOutput();
+    try {
+      // each EvalNode is prefixed by its length, and a pipeline without a filter starts with a zero length.
+      if (qual != null) {
+        qual.getProto().writeDelimitedTo(evals);
+      } else {
+        evals.write(0);
+      }
+      for (EvalNode target : targets) {
+        target.getProto().writeDelimitedTo(evals);
+      }
+    } catch (IOException e) {
+      throw new TajoInternalError(e);
+    }
+    Pair<String, ByteString> key = new Pair<>(schema.toJson(), evals.toByteString());
+    return (CompiledPipeline) newInstance(key, qual != null ? qual : targets[0],
+        () -> new EvalCodeGenerator(new TajoClassLoader()).compilePipeline(schema, qual, targets).getClass());
+  }
+
+  private Object newInstance(Pair<String, ByteString> key, EvalNode eval, Callable<Class<?>> compiler)
+      throws CompilationError {
+    Fallback fallback = fallbacks.getIfPresent(key);
+    if (fallback != null) {
+      fallback.count.incrementAndGet();
+      fallbackNum.incrementAndGet();
+      throw fallback.error;
+    }
+
+    try {
+      return cache.get(key, compiler).newInstance();
+    } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+      throw addFallback(key, eval, e.getCause());
+    } catch (Throwable t) {
+      throw addFallback(key, eval, t);
+    }
+  }
+
+  private CompilationError addFallback(Pair<String, ByteString> key, EvalNode eval, Throwable cause) {
+    CompilationError error = cause instanceof CompilationError ? (CompilationError) cause :
+        new CompilationError(eval, cause);
+    LOG.warn("Cannot compile " + eval + ", so it is interpreted: " + error.getMessage());
+
+    Fallback fallback = new Fallback(eval.toString(), error);
+    fallback.count.incrementAndGet();
+    fallbacks.put(key, fallback);
+    fallbackNum.incrementAndGet();
+    return error;
+  }
+
+  /**
+   * Returns the number of requests which have fallen back to the interpreted EvalNodes.
+   */
+  public long getFallbackNum() {
+    return fallbackNum.get();
+  }
+
+  /**
+   * Returns the number of fallbacks of each expression which cannot be compiled.
+   */
+  public Map<String, Long> getFallbackNums() {
+    Map<String, Long> fallbackNums = new HashMap<>();
+    for (Fallback fallback : fallbacks.asMap().values()) {
+      fallbackNums.merge(fallback.expr, fallback.count.get(), Long::sum);
+    }
+    return fallbackNums;
+  }
+
+  public long size() {
+    return cache.size();
+  }
+
+  public CacheStats stats() {
+    return cache.stats();
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+    fallbacks.invalidateAll();
+  }
+}
@@ -0,0 +1,46 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.plan.expr.EvalContext;
+import org.apache.tajo.storage.Tuple;
+
+/**
+ * A filter and a projection fused into a single generated method.
+ *
+ * @see EvalCodeGenerator#compilePipeline
+ */
+public interface CompiledPipeline {
+
+  /**
+   * Binds the EvalNodes which the generated code delegates to. It must be called before {@link #process}.
+   *
+   * @param evalContext eval context of a task
+   */
+  void bind(EvalContext evalContext);
+
+  /**
+   * Evaluates the filter against an input tuple. Only if the input tuple satisfies the filter,
+   * it evaluates all projected expressions and writes them into the output tuple.
+   *
+   * @param in input tuple
+   * @param out output tuple
+   * @return true if the input tuple satisfies the filter
+   */
+  boolean process(Tuple in, Tuple out);
+}
@@ -19,10 +19,12 @@
 package org.apache.tajo.engine.codegen;
 
 import com.google.common.collect.Maps;
+import org.apache.commons.codec.binary.Base64;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.common.TajoDataTypes;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.IntervalDatum;
+import org.apache.tajo.engine.json.CoreGsonHelper;
 import org.apache.tajo.org.objectweb.asm.ClassWriter;
 import org.apache.tajo.org.objectweb.asm.MethodVisitor;
 import org.apache.tajo.org.objectweb.asm.Opcodes;
@@ -37,24 +39,37 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
   final String owner;
   final Schema schema;
   final ClassWriter classWriter;
-  final EvalNode evalNode;
+  final Class superClass;
+  final Class [] interfaces;
+  final EvalNode [] evalNodes;
   final Map<EvalNode, String> symbols;
   int seqId = 0;
 
   public EvalCodeGenContext(String className, Schema schema, ClassWriter classWriter, EvalNode evalNode) {
+    this(className, EvalNode.class, null, schema, classWriter, new EvalNode[] {evalNode}, "eval",
+        TajoGeneratorAdapter.getMethodDescription(Datum.class, new Class[]{Tuple.class}));
+  }
+
+  /**
+   * Starts a class which extends <code>superClass</code>, implements <code>interfaces</code>, and evaluates all
+   * <code>evalNodes</code> in a single method. The first parameter of the method must be an input tuple.
+   */
+  public EvalCodeGenContext(String className, Class superClass, Class [] interfaces, Schema schema,
+                            ClassWriter classWriter, EvalNode [] evalNodes, String methodName, String methodDesc) {
     this.owner = className;
     this.classWriter = classWriter;
+    this.superClass = superClass;
+    this.interfaces = interfaces;
     this.schema = schema;
-    this.evalNode = evalNode;
+    this.evalNodes = evalNodes;
     this.symbols = Maps.newHashMap();
 
     emitClassDefinition();
     emitMemberFields();
     classWriter.visitEnd();
     emitConstructor();
+    emitBindMethod();
 
-    String methodName = "eval";
-    String methodDesc = TajoGeneratorAdapter.getMethodDescription(Datum.class, new Class[]{Tuple.class});
     MethodVisitor evalMethod = classWriter.visitMethod(Opcodes.ACC_PUBLIC, methodName, methodDesc, null, null);
     evalMethod.visitCode();
     this.methodvisitor = evalMethod;
@@ -62,8 +77,15 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
   }
 
   public void emitClassDefinition() {
+    String [] interfaceNames = null;
+    if (interfaces != null) {
+      interfaceNames = new String[interfaces.length];
+      for (int i = 0; i < interfaces.length; i++) {
+        interfaceNames[i] = TajoGeneratorAdapter.getInternalName(interfaces[i]);
+      }
+    }
     classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC, this.owner, null,
-        TajoGeneratorAdapter.getInternalName(EvalNode.class), null);
+        TajoGeneratorAdapter.getInternalName(superClass), interfaceNames);
   }
 
   public void emitMemberFields() {
@@ -71,16 +93,19 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
         "L" + TajoGeneratorAdapter.getInternalName(Schema.class) + ";", null, null);
 
     VariablesPreBuilder builder = new VariablesPreBuilder();
-    builder.visit(this, evalNode, new Stack<>());
+    for (EvalNode evalNode : evalNodes) {
+      builder.visit(this, evalNode, new Stack<>());
+    }
   }
 
   public static void emitCreateSchema(TajoGeneratorAdapter adapter, MethodVisitor mv, Schema schema) {
-    mv.visitLdcInsn(schema.toJson());
+    mv.visitLdcInsn(CoreGsonHelper.toJson(schema, Schema.class));
     adapter.invokeStatic(EvalCodeGenerator.class, "createSchema", Schema.class, new Class[] {String.class});
   }
 
   public static void emitCreateEval(TajoGeneratorAdapter adapter, MethodVisitor mv, EvalNode evalNode) {
-    mv.visitLdcInsn(evalNode.toJson());
+    // the JSON form of EvalNode loses the column of FieldEval, so the protobuf form is embedded instead.
+    mv.visitLdcInsn(Base64.encodeBase64String(evalNode.getProto().toByteArray()));
     adapter.invokeStatic(EvalCodeGenerator.class, "createEval", EvalNode.class, new Class[] {String.class});
   }
 
@@ -100,7 +125,7 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
     MethodVisitor initMethod = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
     initMethod.visitCode();
     initMethod.visitVarInsn(Opcodes.ALOAD, 0);
-    initMethod.visitMethodInsn(Opcodes.INVOKESPECIAL, TajoGeneratorAdapter.getInternalName(EvalNode.class), "<init>",
+    initMethod.visitMethodInsn(Opcodes.INVOKESPECIAL, TajoGeneratorAdapter.getInternalName(superClass), "<init>",
         "()V");
 
     TajoGeneratorAdapter consAdapter = new TajoGeneratorAdapter(Opcodes.ACC_PUBLIC, initMethod, "<init>", "()V");
@@ -113,7 +138,15 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
     }
 
     for (Map.Entry<EvalNode, String> entry : symbols.entrySet()) {
-      if (entry.getKey().getType() == EvalType.CONST) {
+      if (EvalCodeGenerator.isDelegated(entry.getKey())) {
+        emitCreateEval(consAdapter, initMethod, entry.getKey());
+        int DELEGATED_EVAL = consAdapter.astore();
+
+        consAdapter.aload(0);
+        consAdapter.aload(DELEGATED_EVAL);
+        initMethod.visitFieldInsn(Opcodes.PUTFIELD, this.owner, entry.getValue(), getDescription(EvalNode.class));
+
+      } else if (entry.getKey().getType() == EvalType.CONST) {
         ConstEval constEval = (ConstEval) entry.getKey();
 
         if (constEval.getValueType().kind() == TajoDataTypes.Type.INTERVAL) {
@@ -144,7 +177,7 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
         emitRowConstantEval(consAdapter, initMethod, inEval.getRightExpr());
         consAdapter.push(inEval.isNot());
         consAdapter.invokeSpecial(InEval.class, "<init>", void.class,
-            new Class [] {EvalNode.class, RowConstantEval.class, boolean.class});
+            new Class [] {EvalNode.class, ValueSetEval.class, boolean.class});
         int IN_PREDICATE_EVAL = consAdapter.astore();
 
         consAdapter.aload(0);
@@ -172,49 +205,90 @@ public class EvalCodeGenContext extends TajoGeneratorAdapter {
         consAdapter.aload(PatternEval);
         initMethod.visitFieldInsn(Opcodes.PUTFIELD, this.owner, entry.getValue(), getDescription(clazz));
 
-      } else if (entry.getKey().getType() == EvalType.FUNCTION) {
-        GeneralFunctionEval function = (GeneralFunctionEval) entry.getKey();
-        final String internalName = TajoGeneratorAdapter.getInternalName(function.getFuncDesc().getLegacyFuncClass());
+      }
+    }
 
-        // new and initialization of function
-        initMethod.visitTypeInsn(Opcodes.NEW, internalName);
-        consAdapter.dup();
-        initMethod.visitMethodInsn(Opcodes.INVOKESPECIAL, internalName, "<init>", "()V");
-        int FUNCTION = consAdapter.astore();
-
-        // commParam
-        int paramNum = function.getArgs().length;
-        initMethod.visitLdcInsn(paramNum);
-        consAdapter.newArray(FunctionEval.ParamType.class);
-        final int PARAM_TYPE_ARRAY = consAdapter.astore();
-        FunctionEval.ParamType[] paramTypes = EvalCodeGenerator.getParamTypes(function.getArgs());
-        for (int paramIdx = 0; paramIdx < paramTypes.length; paramIdx++) {
-          consAdapter.aload(PARAM_TYPE_ARRAY);
-          consAdapter.methodvisitor.visitLdcInsn(paramIdx);
-          consAdapter.methodvisitor.visitFieldInsn(Opcodes.GETSTATIC, TajoGeneratorAdapter.getInternalName(FunctionEval.ParamType.class),
-              paramTypes[paramIdx].name(), TajoGeneratorAdapter.getDescription(FunctionEval.ParamType.class));
-          consAdapter.methodvisitor.visitInsn(Opcodes.AASTORE);
-        }
+    initMethod.visitInsn(Opcodes.RETURN);
+    initMethod.visitMaxs(1, 1);
+    initMethod.visitEnd();
+  }
 
-        initMethod.visitVarInsn(Opcodes.ALOAD, FUNCTION);
-        consAdapter.aload(PARAM_TYPE_ARRAY);
-        consAdapter.invokeVirtual(function.getFuncDesc().getLegacyFuncClass(), "init", void.class, new Class[] {FunctionEval.ParamType[].class});
+  /**
+   * Emits the method binding the EvalNode members, which the generated code delegates to.
+   * A compiled EvalNode overrides <code>bind(EvalContext, Schema)</code>, and a compiled pipeline implements
+   * <code>bind(EvalContext)</code> with the schema of this class.
+   */
+  private void emitBindMethod() {
+    boolean evalNode = EvalNode.class.isAssignableFrom(superClass);
+    String methodDesc = evalNode ?
+        getMethodDescription(EvalNode.class, new Class[] {EvalContext.class, Schema.class}) :
+        getMethodDescription(void.class, new Class[] {EvalContext.class});
+
+    MethodVisitor bindMethod = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "bind", methodDesc, null, null);
+    bindMethod.visitCode();
+    TajoGeneratorAdapter bindAdapter = new TajoGeneratorAdapter(Opcodes.ACC_PUBLIC, bindMethod, "bind", methodDesc);
 
-        initMethod.visitVarInsn(Opcodes.ALOAD, 0);
-        initMethod.visitVarInsn(Opcodes.ALOAD, FUNCTION);
-        initMethod.visitFieldInsn(Opcodes.PUTFIELD, this.owner, entry.getValue(),
-            "L" + TajoGeneratorAdapter.getInternalName(function.getFuncDesc().getLegacyFuncClass()) + ";");
+    for (Map.Entry<EvalNode, String> entry : symbols.entrySet()) {
+      Class memberClass = getMemberEvalClass(entry.getKey());
+      if (memberClass == null) {
+        continue;
+      }
 
+      bindAdapter.aload(0);
+      bindMethod.visitFieldInsn(Opcodes.GETFIELD, this.owner, entry.getValue(), getDescription(memberClass));
+      bindAdapter.aload(1); // eval context
+      if (evalNode) {
+        bindAdapter.aload(2); // schema
+      } else {
+        bindAdapter.aload(0);
+        bindMethod.visitFieldInsn(Opcodes.GETFIELD, this.owner, "schema", getDescription(Schema.class));
       }
+      bindAdapter.invokeVirtual(EvalNode.class, "bind", EvalNode.class, new Class[] {EvalContext.class, Schema.class});
+      bindAdapter.pop();
     }
 
-    initMethod.visitInsn(Opcodes.RETURN);
-    initMethod.visitMaxs(1, 1);
-    initMethod.visitEnd();
+    if (evalNode) {
+      // this.isBound = true; return this;
+      bindAdapter.aload(0);
+      bindAdapter.push(true);
+      bindMethod.visitFieldInsn(Opcodes.PUTFIELD, this.owner, "isBound", "Z");
+      bindAdapter.aload(0);
+      bindMethod.visitInsn(Opcodes.ARETURN);
+    } else {
+      bindMethod.visitInsn(Opcodes.RETURN);
+    }
+    bindMethod.visitMaxs(0, 0);
+    bindMethod.visitEnd();
+
+    if (evalNode) {
+      // A compiled EvalNode has no child because the whole tree is compiled into it.
+      MethodVisitor childNumMethod = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "childNum",
+          getMethodDescription(int.class, new Class[] {}), null, null);
+      childNumMethod.visitCode();
+      childNumMethod.visitInsn(Opcodes.ICONST_0);
+      childNumMethod.visitInsn(Opcodes.IRETURN);
+      childNumMethod.visitMaxs(0, 0);
+      childNumMethod.visitEnd();
+    }
+  }
+
+  /**
+   * Returns the class of an EvalNode member for the given symbol, or null if the member is not an EvalNode.
+   */
+  private static Class getMemberEvalClass(EvalNode symbol) {
+    if (EvalCodeGenerator.isDelegated(symbol)) {
+      return EvalNode.class;
+    } else if (symbol.getType() == EvalType.IN) {
+      return InEval.class;
+    } else if (EvalType.isStringPatternMatchOperator(symbol.getType())) {
+      return EvalCodeGenerator.getStringPatternEvalClass(symbol.getType());
+    } else {
+      return null;
+    }
   }
 
   public void emitReturn() {
-    convertToDatum(evalNode.getValueType(), true);
+    convertToDatum(evalNodes[0].getValueType(), true);
     methodvisitor.visitInsn(Opcodes.ARETURN);
     methodvisitor.visitMaxs(0, 0);
     methodvisitor.visitEnd();
@@ -18,21 +18,30 @@
 
 package org.apache.tajo.engine.codegen;
 
+import com.google.protobuf.InvalidProtocolBufferException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.tajo.annotation.Nullable;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.IntervalDatum;
 import org.apache.tajo.datum.ProtobufDatum;
+import org.apache.tajo.function.FunctionInvocation;
 import org.apache.tajo.engine.json.CoreGsonHelper;
 import org.apache.tajo.org.objectweb.asm.ClassWriter;
 import org.apache.tajo.org.objectweb.asm.Label;
 import org.apache.tajo.org.objectweb.asm.Opcodes;
 import org.apache.tajo.org.objectweb.asm.Type;
 import org.apache.tajo.plan.expr.*;
+import org.apache.tajo.plan.serder.EvalNodeDeserializer;
+import org.apache.tajo.plan.serder.PlanProto;
 import org.apache.tajo.storage.Tuple;
 
 import java.io.PrintStream;
 import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Stack;
 
 import static org.apache.tajo.engine.codegen.TajoGeneratorAdapter.getDescription;
@@ -80,10 +89,16 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
     ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
 
     String className = EvalCodeGenerator.class.getPackage().getName() + ".CompiledEval" + getAndIncrementClassSeq();
-    EvalCodeGenContext context = new EvalCodeGenContext(TajoGeneratorAdapter.getInternalName(className),
-        schema, classWriter, expr);
-    visit(context, expr, new Stack<>());
-    context.emitReturn();
+    try {
+      EvalCodeGenContext context = new EvalCodeGenContext(TajoGeneratorAdapter.getInternalName(className),
+          schema, classWriter, expr);
+      visit(context, expr, new Stack<>());
+      context.emitReturn();
+    } catch (CompilationError e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new CompilationError(expr, e);
+    }
 
     Class aClass = classLoader.defineClass(className, classWriter.toByteArray());
 
@@ -99,6 +114,132 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
     return compiledEval;
   }
 
+  /**
+   * Generates a single method which evaluates a filter and all projected expressions over an input tuple.
+   * Projected fields are copied as datums without being decoded to primitive values.
+   *
+   * @param schema input schema
+   * @param qual filter, or null if all tuples pass
+   * @param targets projected expressions
+   */
+  public CompiledPipeline compilePipeline(Schema schema, @Nullable EvalNode qual, EvalNode [] targets)
+      throws CompilationError {
+
+    ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+
+    List<EvalNode> evalNodes = new ArrayList<>();
+    if (qual != null) {
+      evalNodes.add(qual);
+    }
+    Collections.addAll(evalNodes, targets);
+
+    String className = EvalCodeGenerator.class.getPackage().getName() + ".CompiledPipeline" + getAndIncrementClassSeq();
+    try {
+      emitPipeline(className, classWriter, schema, qual, targets, evalNodes);
+    } catch (CompilationError e) {
+      throw e;
+    } catch (RuntimeException e) {
+      throw new CompilationError(evalNodes.get(0), e);
+    }
+
+    Class aClass = classLoader.defineClass(className, classWriter.toByteArray());
+    try {
+      return (CompiledPipeline) aClass.getConstructor().newInstance();
+    } catch (Throwable t) {
+      throw new CompilationError(evalNodes.get(0), t, classWriter.toByteArray());
+    }
+  }
+
+  private void emitPipeline(String className, ClassWriter classWriter, Schema schema, @Nullable EvalNode qual,
+                            EvalNode [] targets, List<EvalNode> evalNodes) {
+    EvalCodeGenContext context = new EvalCodeGenContext(TajoGeneratorAdapter.getInternalName(className),
+        Object.class, new Class[] {CompiledPipeline.class}, schema, classWriter,
+        evalNodes.toArray(new EvalNode[evalNodes.size()]), "process",
+        TajoGeneratorAdapter.getMethodDescription(boolean.class, new Class[] {Tuple.class, Tuple.class}));
+
+    Label ifNotMatched = new Label();
+    if (qual != null) {
+      visit(context, qual, new Stack<>());
+      context.pop(); // null flag. The result of a null is UNKNOWN of three valued logic.
+      context.pushBooleanOfThreeValuedLogic(true);
+      context.methodvisitor.visitJumpInsn(Opcodes.IF_ICMPNE, ifNotMatched);
+    }
+
+    for (int i = 0; i < targets.length; i++) {
+      context.aload(2); // output tuple
+      context.push(i);
+
+      if (targets[i].getType() == EvalType.FIELD && !targets[i].getValueType().isNull()) {
+        context.aload(1); // input tuple
+        context.push(getFieldIndex(context, (FieldEval) targets[i]));
+        context.invokeInterface(Tuple.class, "asDatum", Datum.class, new Class[] {int.class});
+      } else {
+        visit(context, targets[i], new Stack<>());
+        context.convertToDatum(targets[i].getValueType(), true);
+      }
+
+      context.invokeInterface(Tuple.class, "put", void.class, new Class[] {int.class, Datum.class});
+    }
+
+    context.push(true);
+    context.methodvisitor.visitInsn(Opcodes.IRETURN);
+
+    emitLabel(context, ifNotMatched);
+    context.push(false);
+    context.methodvisitor.visitInsn(Opcodes.IRETURN);
+
+    context.methodvisitor.visitMaxs(0, 0);
+    context.methodvisitor.visitEnd();
+    classWriter.visitEnd();
+  }
+
+  private static int getFieldIndex(EvalCodeGenContext context, FieldEval field) {
+    Column columnRef = field.getColumnRef();
+    if (columnRef.hasQualifier()) {
+      return context.schema.getColumnId(columnRef.getQualifiedName());
+    } else {
+      return context.schema.getColumnIdByName(columnRef.getSimpleName());
+    }
+  }
+
+  /**
+   * Returns true if the given EvalNode is not compiled but evaluated by an interpreted EvalNode member of
+   * the generated class. The generated code calls its eval() and continues with the primitive result.
+   */
+  public static boolean isDelegated(EvalNode eval) {
+    if (eval.getType() == EvalType.CAST) {
+      CastEval cast = (CastEval) eval;
+      org.apache.tajo.type.Type srcType = cast.getOperand().getValueType();
+      return !srcType.equals(cast.getValueType()) &&
+          !TajoGeneratorAdapter.isInlinableCast(srcType, cast.getValueType());
+
+    } else if (eval.getType() == EvalType.FUNCTION) {
+      // Scalar functions are directly invoked, and Python functions need their script engines.
+      FunctionInvocation invocation = ((FunctionEval) eval).getFuncDesc().getInvocation();
+      return !invocation.hasScalar() && !invocation.hasPython();
+
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public EvalNode visit(EvalCodeGenContext context, EvalNode evalNode, Stack<EvalNode> stack) {
+    if (isDelegated(evalNode)) {
+      return visitDelegatedEval(context, evalNode);
+    }
+    return super.visit(context, evalNode, stack);
+  }
+
+  private EvalNode visitDelegatedEval(EvalCodeGenContext context, EvalNode evalNode) {
+    emitGetField(context, context.owner, context.symbols.get(evalNode), EvalNode.class);
+    context.aload(1); // tuple
+    context.invokeVirtual(EvalNode.class, "eval", Datum.class, new Class[]{Tuple.class});
+    context.convertToPrimitive(evalNode.getValueType());
+
+    return evalNode;
+  }
+
   private void printOut(EvalCodeGenContext context, String message) {
     context.methodvisitor.visitFieldInsn(Opcodes.GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
     context.push(message);
@@ -354,17 +495,11 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
       context.pushNullFlag(false);
     } else {
 
-      Column columnRef = field.getColumnRef();
-      int fieldIdx;
-      if (columnRef.hasQualifier()) {
-        fieldIdx = context.schema.getColumnId(columnRef.getQualifiedName());
-      } else {
-        fieldIdx = context.schema.getColumnIdByName(columnRef.getSimpleName());
-      }
+      int fieldIdx = getFieldIndex(context, field);
 
       context.methodvisitor.visitVarInsn(Opcodes.ALOAD, 1);
       context.push(fieldIdx);
-      context.invokeInterface(Tuple.class, "isNull", boolean.class, new Class [] {int.class});
+      context.invokeInterface(Tuple.class, "isBlankOrNull", boolean.class, new Class [] {int.class});
 
       context.push(true);
 
@@ -375,6 +510,7 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
       String methodName = null;
       Class returnType = null;
       Class [] paramTypes = null;
+      Class datumClass = null;
       switch (field.getValueType().kind()) {
       case BOOLEAN:
         methodName = "getByte";
@@ -419,12 +555,14 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
         break;
       case INTERVAL:
         methodName = "getInterval";
-        returnType = IntervalDatum.class;
+        returnType = Datum.class;
+        datumClass = IntervalDatum.class;
         paramTypes = new Class [] {int.class};
         break;
       case PROTOBUF:
         methodName = "getProtobufDatum";
-        returnType = ProtobufDatum.class;
+        returnType = Datum.class;
+        datumClass = ProtobufDatum.class;
         paramTypes = new Class [] {int.class};
         break;
       default:
@@ -434,6 +572,9 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
       context.methodvisitor.visitVarInsn(Opcodes.ALOAD, 1);
       context.push(fieldIdx);
       context.invokeInterface(Tuple.class, methodName, returnType, paramTypes);
+      if (datumClass != null) {
+        context.methodvisitor.visitTypeInsn(Opcodes.CHECKCAST, TajoGeneratorAdapter.getInternalName(datumClass));
+      }
 
       context.pushNullFlag(true); // not null
       context.methodvisitor.visitJumpInsn(Opcodes.GOTO, afterAll);
@@ -720,25 +861,78 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
   @Override
   public EvalNode visitFuncCall(EvalCodeGenContext context, FunctionEval func, Stack<EvalNode> stack) {
 
-    if (func.getFuncDesc().getInvocation().hasScalar()) {
+    if (func.getType() == EvalType.FUNCTION && func.getFuncDesc().getInvocation().hasScalar()) {
       ScalarFunctionBindingEmitter.emit(this, context, func, stack);
       return func;
     }
 
-    if (func.getFuncDesc().getInvocation().hasLegacy()) {
-      LegacyFunctionBindingEmitter.emit(this, context, func, stack);
-      return func;
-    }
+    // Aggregation and window functions are only evaluated by their physical operators,
+    // and Python functions are bound to the script engines of the interpreted EvalNodes.
+    throw new CompilationError(func.getType() + " " + func.getName() + " cannot be compiled");
+  }
 
-    return func;
+  @Override
+  protected EvalNode visitSubquery(EvalCodeGenContext context, SubqueryEval subquery, Stack<EvalNode> stack) {
+    throw new CompilationError("A subquery cannot be compiled: " + subquery);
+  }
+
+  @Override
+  protected EvalNode visitRowConstant(EvalCodeGenContext context, RowConstantEval row, Stack<EvalNode> stack) {
+    throw new CompilationError("A row constant cannot be compiled out of an IN predicate: " + row);
   }
 
   public EvalNode visitInPredicate(EvalCodeGenContext context, EvalNode patternEval, Stack<EvalNode> stack) {
+    InEval inEval = (InEval) patternEval;
     String fieldName = context.symbols.get(patternEval);
+    InValueSet valueSet = inEval.getValueSet();
+    org.apache.tajo.type.Type lhsType = inEval.getLeftExpr().getValueType();
+
+    if (!(valueSet instanceof InValueSet.LongValueSet) || lhsType.kind() != valueSet.kind()) {
+      emitGetField(context, context.owner, fieldName, InEval.class);
+      context.aload(1); // tuple
+      context.invokeVirtual(InEval.class, "eval", Datum.class, new Class[]{Tuple.class});
+      context.convertToPrimitive(patternEval.getValueType());
+      return patternEval;
+    }
+
+    // The left operand is probed as a primitive long without being boxed into a Datum.
+    stack.push(inEval);
+    visit(context, inEval.getLeftExpr(), stack);
+    stack.pop();
+
+    Label ifNull = new Label();
+    Label notContained = new Label();
+    Label endIf = new Label();
+
+    context.emitNullityCheck(ifNull);
+    int LHS = context.store(lhsType);
+
     emitGetField(context, context.owner, fieldName, InEval.class);
-    context.aload(1); // tuple
-    context.invokeVirtual(InEval.class, "eval", Datum.class, new Class[]{Tuple.class});
-    context.convertToPrimitive(patternEval.getValueType());
+    context.invokeVirtual(InEval.class, "getValueSet", InValueSet.class, new Class[]{});
+    context.methodvisitor.visitTypeInsn(Opcodes.CHECKCAST,
+        TajoGeneratorAdapter.getInternalName(InValueSet.LongValueSet.class));
+    context.load(lhsType, LHS);
+    if (TajoGeneratorAdapter.getWordSize(lhsType) == 1) {
+      context.methodvisitor.visitInsn(Opcodes.I2L);
+    }
+    context.invokeVirtual(InValueSet.LongValueSet.class, "contains", boolean.class, new Class[]{long.class});
+
+    context.methodvisitor.visitJumpInsn(Opcodes.IFEQ, notContained);
+    context.pushBooleanOfThreeValuedLogic(!inEval.isNot());
+    context.pushNullFlag(true);
+    emitGotoLabel(context, endIf);
+
+    emitLabel(context, notContained);
+    context.pushBooleanOfThreeValuedLogic(inEval.isNot());
+    context.pushNullFlag(true);
+    emitGotoLabel(context, endIf);
+
+    emitLabel(context, ifNull);
+    context.pop(lhsType);
+    context.pushNullOfThreeValuedLogic();
+    context.pushNullFlag(false);
+
+    emitLabel(context, endIf);
 
     return patternEval;
   }
@@ -770,8 +964,8 @@ public class EvalCodeGenerator extends SimpleEvalNodeVisitor<EvalCodeGenContext>
   }
 
   @SuppressWarnings("unused")
-  public static EvalNode createEval(String json) {
-    return CoreGsonHelper.fromJson(json, EvalNode.class);
+  public static EvalNode createEval(String base64) throws InvalidProtocolBufferException {
+    return EvalNodeDeserializer.deserialize(null, null, PlanProto.EvalNodeTree.parseFrom(Base64.decodeBase64(base64)));
   }
 
   @SuppressWarnings("unused")
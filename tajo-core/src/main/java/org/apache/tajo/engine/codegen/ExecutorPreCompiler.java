@@ -26,6 +26,8 @@ import org.apache.tajo.exception.TajoException;
 import org.apache.tajo.plan.LogicalPlan;
 import org.apache.tajo.plan.Target;
 import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.expr.EvalTreeUtil;
+import org.apache.tajo.plan.expr.EvalType;
 import org.apache.tajo.plan.logical.*;
 import org.apache.tajo.plan.util.PlannerUtil;
 import org.apache.tajo.plan.visitor.BasicLogicalPlanVisitor;
@@ -59,10 +61,21 @@ public class ExecutorPreCompiler extends BasicLogicalPlanVisitor<ExecutorPreComp
 
   public static class CompilationContext {
     private final EvalCodeGenerator compiler;
+    private final CompiledEvalCache cache;
     private Map<Pair<Schema,EvalNode>, EvalNode> compiledEval;
 
     public CompilationContext(TajoClassLoader classLoader) {
       this.compiler = new EvalCodeGenerator(classLoader);
+      this.cache = null;
+      this.compiledEval = Maps.newHashMap();
+    }
+
+    /**
+     * Compiled classes are taken from and added to the given worker-wide cache.
+     */
+    public CompilationContext(CompiledEvalCache cache) {
+      this.compiler = null;
+      this.cache = cache;
       this.compiledEval = Maps.newHashMap();
     }
 
@@ -70,16 +83,35 @@ public class ExecutorPreCompiler extends BasicLogicalPlanVisitor<ExecutorPreComp
       return compiler;
     }
 
+    public EvalNode compile(Schema schema, EvalNode eval) throws CompilationError {
+      return cache != null ? cache.compile(schema, eval) : compiler.compile(schema, eval);
+    }
+
     public Map<Pair<Schema, EvalNode>, EvalNode> getPrecompiedEvals() {
       return compiledEval;
     }
   }
 
+  /**
+   * Aggregation and window functions are evaluated by their physical operators, and subqueries are replaced
+   * before the execution. Such expressions are never compiled.
+   */
+  private static boolean isCompilable(EvalNode eval) {
+    return EvalTreeUtil.findEvalsByType(eval, EvalType.AGG_FUNCTION).isEmpty()
+        && EvalTreeUtil.findEvalsByType(eval, EvalType.WINDOW_FUNCTION).isEmpty()
+        && EvalTreeUtil.findEvalsByType(eval, EvalType.SUBQUERY).isEmpty();
+  }
+
   private static void compileIfAbsent(CompilationContext context, Schema schema, EvalNode eval) {
     Pair<Schema, EvalNode> key = new Pair<>(schema, eval);
     if (!context.compiledEval.containsKey(key)) {
+      if (!isCompilable(eval)) {
+        context.compiledEval.put(key, eval);
+        return;
+      }
+
       try {
-        EvalNode compiled = context.compiler.compile(schema, eval);
+        EvalNode compiled = context.compile(schema, eval);
         context.compiledEval.put(key, compiled);
 
       } catch (Throwable t) {
@@ -457,6 +457,40 @@ class TajoGeneratorAdapter {
     return TUtil.getFromNestedMap(OpCodesMap, evalType, returnType.kind());
   }
 
+  /**
+   * Returns true if {@link #castInsn} generates the same result as the interpreted cast.
+   * The other casts, such as ones from or to BOOLEAN, CHAR and date/time types, depend on
+   * the timezone or the representation of datums, so they are delegated to CastEval.
+   */
+  public static boolean isInlinableCast(org.apache.tajo.type.Type srcType, org.apache.tajo.type.Type targetType) {
+    TajoDataTypes.Type srcBaseType = srcType.kind();
+    TajoDataTypes.Type targetBaseType = targetType.kind();
+
+    switch (srcBaseType) {
+    case INT1:
+    case INT2:
+    case INT4:
+    case INT8:
+    case FLOAT4:
+    case FLOAT8:
+    case TEXT:
+      switch (targetBaseType) {
+      case INT1:
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+      case TEXT:
+        return true;
+      default:
+        return false;
+      }
+    default:
+      return false;
+    }
+  }
+
   public void castInsn(org.apache.tajo.type.Type srcType, org.apache.tajo.type.Type targetType) {
     TajoDataTypes.Type srcBaseType = srcType.kind();
     TajoDataTypes.Type targetBaseType = targetType.kind();
@@ -588,6 +622,13 @@ class TajoGeneratorAdapter {
 
   public void convertToPrimitive(org.apache.tajo.type.Type type) {
 
+    if (type.isNull()) {
+      pop(); // datum
+      pushNullOfThreeValuedLogic();
+      pushNullFlag(false);
+      return;
+    }
+
     Label ifNull = new Label();
     Label afterAll = new Label();
 
@@ -624,6 +665,10 @@ class TajoGeneratorAdapter {
     case TEXT:
       invokeVirtual(Datum.class, "asChars", String.class, new Class[]{});
       break;
+    case INTERVAL:
+    case PROTOBUF:
+      // the datum itself is the value
+      break;
     default:
       throw new TajoRuntimeException(new UnsupportedException("data type '" + type + "'"));
     }
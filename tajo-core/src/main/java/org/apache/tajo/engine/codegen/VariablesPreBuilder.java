@@ -27,6 +27,22 @@ import java.util.Stack;
 
 class VariablesPreBuilder extends SimpleEvalNodeVisitor<EvalCodeGenContext> {
 
+  @Override
+  public EvalNode visit(EvalCodeGenContext context, EvalNode evalNode, Stack<EvalNode> stack) {
+    if (EvalCodeGenerator.isDelegated(evalNode)) {
+      // the whole subtree is evaluated by the delegated EvalNode, so its children do not need any variable.
+      if (!context.symbols.containsKey(evalNode)) {
+        String fieldName = "DELEGATED_" + evalNode.getType().name() + "_" + context.seqId++;
+        context.symbols.put(evalNode, fieldName);
+
+        context.classWriter.visitField(Opcodes.ACC_PRIVATE, fieldName,
+            "L" + TajoGeneratorAdapter.getInternalName(EvalNode.class) + ";", null, null);
+      }
+      return evalNode;
+    }
+    return super.visit(context, evalNode, stack);
+  }
+
   public EvalNode visitBinaryEval(EvalCodeGenContext context, Stack<EvalNode> stack, BinaryEval binaryEval) {
     super.visitBinaryEval(context, stack, binaryEval);
 
@@ -66,18 +82,4 @@ class VariablesPreBuilder extends SimpleEvalNodeVisitor<EvalCodeGenContext> {
     }
     return constEval;
   }
-
-  @Override
-  public EvalNode visitFuncCall(EvalCodeGenContext context, FunctionEval function, Stack<EvalNode> stack) {
-    super.visitFuncCall(context, function, stack);
-
-    if (!context.symbols.containsKey(function)) {
-      String fieldName = function.getFuncDesc().getFunctionName() + "_" + context.seqId++;
-      context.symbols.put(function, fieldName);
-      context.classWriter.visitField(Opcodes.ACC_PRIVATE, fieldName,
-          "L" + TajoGeneratorAdapter.getInternalName(function.getFuncDesc().getLegacyFuncClass()) + ";", null, null);
-    }
-
-    return function;
-  }
 }
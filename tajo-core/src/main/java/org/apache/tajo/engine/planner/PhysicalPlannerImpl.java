@@ -150,6 +150,9 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         leftExec = createPlanRecursive(ctx, selNode.getChild(), stack);
         stack.pop();
 
+        if (leftExec instanceof VectorizedExec && VectorizedSelectionExec.isVectorizable(selNode)) {
+          return new VectorizedSelectionExec(ctx, selNode, leftExec);
+        }
         return new SelectionExec(ctx, selNode, leftExec);
 
       case PROJECTION:
@@ -158,6 +161,9 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         leftExec = createPlanRecursive(ctx, prjNode.getChild(), stack);
         stack.pop();
 
+        if (leftExec instanceof VectorizedExec && VectorizedProjectionExec.isVectorizable(prjNode)) {
+          return new VectorizedProjectionExec(ctx, prjNode, leftExec);
+        }
         return new ProjectionExec(ctx, prjNode, leftExec);
 
       case TABLE_SUBQUERY: {
@@ -165,6 +171,9 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         stack.push(subQueryNode);
         leftExec = createPlanRecursive(ctx, subQueryNode.getSubQuery(), stack);
         stack.pop();
+        if (leftExec instanceof VectorizedExec && VectorizedProjectionExec.isVectorizable(subQueryNode)) {
+          return new VectorizedProjectionExec(ctx, subQueryNode, leftExec);
+        }
         return new ProjectionExec(ctx, subQueryNode, leftExec);
       }
 
@@ -372,7 +381,7 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
           LOG.info("Join (" + plan.getPID() +") chooses [Sort Merge Join]");
           return createMergeInnerJoin(context, plan, leftExec, rightExec);
         case HYBRID_HASH_JOIN:
-
+          return createHybridHashJoin(context, plan, leftExec, rightExec);
         default:
           LOG.error("Invalid Inner Join Algorithm Enforcer: " + algorithm.name());
           LOG.error("Choose a fallback inner join algorithm: " + JoinAlgorithm.MERGE_JOIN.name());
@@ -434,11 +443,21 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
       // returns two PhysicalExec. smaller one is 0, and larger one is 1.
       PhysicalExec [] orderedChilds = switchJoinSidesIfNecessary(context, plan, leftExec, rightExec);
       return new HashJoinExec(context, plan, orderedChilds[1], orderedChilds[0]);
+    } else if (context.getQueryContext().getBool(SessionVars.HYBRID_HASH_JOIN_ENABLED)) {
+      return createHybridHashJoin(context, plan, leftExec, rightExec);
     } else {
       return createMergeInnerJoin(context, plan, leftExec, rightExec);
     }
   }
 
+  private HybridHashJoinExec createHybridHashJoin(TaskAttemptContext context, JoinNode plan,
+                                                  PhysicalExec leftExec, PhysicalExec rightExec) throws IOException {
+    LOG.info("Join (" + plan.getPID() +") chooses [Hybrid Hash Join]");
+    // returns two PhysicalExec. smaller one is 0, and larger one is 1.
+    PhysicalExec [] orderedChilds = switchJoinSidesIfNecessary(context, plan, leftExec, rightExec);
+    return new HybridHashJoinExec(context, plan, orderedChilds[1], orderedChilds[0]);
+  }
+
   private MergeJoinExec createMergeInnerJoin(TaskAttemptContext context, JoinNode plan,
                                              PhysicalExec leftExec, PhysicalExec rightExec) throws IOException {
     SortSpec[][] sortSpecs = PlannerUtil.getSortKeysFromJoinQual(
@@ -765,7 +784,19 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     switch (plan.getShuffleType()) {
     case HASH_SHUFFLE:
     case SCATTERED_HASH_SHUFFLE:
-      return new HashShuffleFileWriteExec(ctx, plan, subOp);
+      HashShuffleFileWriteExec shuffleExec = new HashShuffleFileWriteExec(ctx, plan, subOp);
+      if (ctx.getRuntimeJoinFilter() != null) {
+        RuntimeJoinFilter filter = ctx.getRuntimeJoinFilter();
+        filter.bind(shuffleExec.getShuffleKeyIds());
+        // If the scan directly feeds the shuffle, its output tuples have the same layout as the shuffle input.
+        // So, the tuples can be filtered out in the scan.
+        if (subOp instanceof SeqScanExec) {
+          ((SeqScanExec) subOp).setRuntimeJoinFilter(filter);
+        } else {
+          shuffleExec.setRuntimeJoinFilter(filter);
+        }
+      }
+      return shuffleExec;
 
     case RANGE_SHUFFLE:
       SortExec sortExec = PhysicalPlanUtil.findExecutor(subOp, SortExec.class);
@@ -940,10 +971,28 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         return new SeqScanExec(ctx, scanNode, null);
       }
       FragmentProto [] fragments = ctx.getTables(scanNode.getCanonicalName());
+      if (checkIfVectorizable(ctx, scanNode, node)) {
+        LOG.info("The planner chooses [Vectorized Scan]");
+        return new VectorizedScanExec(ctx, scanNode, fragments);
+      }
       return new SeqScanExec(ctx, scanNode, fragments);
     }
   }
 
+  private boolean checkIfVectorizable(TaskAttemptContext ctx, ScanNode scanNode, Stack<LogicalNode> stack) {
+    if (!ctx.getQueryContext().getBool(SessionVars.VECTORIZED_EXECUTION_ENABLED)) {
+      return false;
+    }
+
+    // Index creation depends on the offsets of tuples, which are not kept in batches.
+    for (LogicalNode node : stack) {
+      if (node.getType() == NodeType.CREATE_INDEX) {
+        return false;
+      }
+    }
+    return VectorizedScanExec.isVectorizable(scanNode);
+  }
+
   public PhysicalExec createGroupByPlan(TaskAttemptContext context,GroupbyNode groupbyNode, PhysicalExec subOp)
       throws IOException {
 
@@ -962,6 +1011,10 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
 
   private PhysicalExec createInMemoryHashAggregation(TaskAttemptContext ctx,GroupbyNode groupbyNode, PhysicalExec subOp)
       throws IOException {
+    if (subOp instanceof VectorizedExec && VectorizedHashAggregateExec.isVectorizable(groupbyNode)) {
+      LOG.info("The planner chooses [Vectorized Hash Aggregation]");
+      return new VectorizedHashAggregateExec(ctx, groupbyNode, subOp);
+    }
     LOG.info("The planner chooses [Hash Aggregation]");
     return new HashAggregateExec(ctx, groupbyNode, subOp);
   }
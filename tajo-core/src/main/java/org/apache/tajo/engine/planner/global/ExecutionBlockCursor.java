@@ -57,7 +57,11 @@ public class ExecutionBlockCursor implements Iterable<ExecutionBlock> {
   public ExecutionQueue newCursor() {
     int parallel = masterPlan.getContext().getInt(SessionVars.QUERY_EXECUTE_PARALLEL);
     if (parallel > 1) {
-      return new ParallelExecutionQueue(masterPlan, parallel);
+      // a runtime join filter is built by a block and used by its sibling block. So, only such siblings are ordered.
+      Map<ExecutionBlockId, ExecutionBlockId> orderedSiblings =
+          masterPlan.getContext().getBool(SessionVars.RUNTIME_JOIN_FILTER_ENABLED) ?
+              RuntimeJoinFilterUtil.getFilteredBlocks(masterPlan, this) : Collections.emptyMap();
+      return new ParallelExecutionQueue(masterPlan, parallel, orderedSiblings);
     }
     return new SimpleExecutionQueue();
   }
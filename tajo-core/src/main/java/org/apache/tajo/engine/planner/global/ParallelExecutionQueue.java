@@ -21,10 +21,12 @@ import org.apache.tajo.ExecutionBlockId;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
@@ -36,10 +38,18 @@ public class ParallelExecutionQueue implements ExecutionQueue, Iterable<Executio
   private final MasterPlan masterPlan;
   private final List<Deque<ExecutionBlock>> executable;
   private final Set<ExecutionBlockId> executed = new HashSet<>();
+  // a block which must be executed after its sibling block
+  private final Map<ExecutionBlockId, ExecutionBlockId> orderedSiblings;
 
   public ParallelExecutionQueue(MasterPlan masterPlan, int maximum) {
+    this(masterPlan, maximum, Collections.emptyMap());
+  }
+
+  public ParallelExecutionQueue(MasterPlan masterPlan, int maximum,
+                                Map<ExecutionBlockId, ExecutionBlockId> orderedSiblings) {
     this.masterPlan = masterPlan;
     this.maximum = maximum;
+    this.orderedSiblings = orderedSiblings;
     this.executable = toStacks(masterPlan.getRoot());
   }
 
@@ -107,7 +117,8 @@ public class ParallelExecutionQueue implements ExecutionQueue, Iterable<Executio
         return false;   // there's something should be done before this
       }
     }
-    return true;
+    ExecutionBlockId sibling = orderedSiblings.get(current.getId());
+    return sibling == null || executed.contains(sibling);
   }
 
   @Override
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.global;
+
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.algebra.JoinType;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.plan.logical.JoinNode;
+import org.apache.tajo.plan.logical.LogicalNode;
+import org.apache.tajo.plan.logical.NodeType;
+import org.apache.tajo.plan.logical.ScanNode;
+import org.apache.tajo.plan.serder.PlanProto.ShuffleType;
+import org.apache.tajo.plan.util.PlannerUtil;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the sibling blocks which are joined by their parent block after being repartitioned on the join keys.
+ * One of them can build a runtime join filter of its shuffle keys for the other.
+ */
+public class RuntimeJoinFilterUtil {
+
+  /**
+   * Returns the join of the parent block whose left and right children are the scans of the given blocks,
+   * or null if the parent does not join the two blocks on their hash shuffle keys.
+   */
+  public static JoinNode findRepartitionedJoin(MasterPlan masterPlan, ExecutionBlock parent,
+                                               ExecutionBlockId left, ExecutionBlockId right) {
+    if (masterPlan.getChilds(parent).size() != 2 || !parent.getUnionScanMap().isEmpty()
+        || parent.getPlan() == null) {
+      return null;
+    }
+    if (!isJoinKeyShuffle(masterPlan.getChannel(left, parent.getId()),
+        masterPlan.getChannel(right, parent.getId()))) {
+      return null;
+    }
+
+    for (LogicalNode node : PlannerUtil.findAllNodes(parent.getPlan(), NodeType.JOIN)) {
+      JoinNode eachJoin = (JoinNode) node;
+      if (isScanOf(eachJoin.getLeftChild(), left) && isScanOf(eachJoin.getRightChild(), right)) {
+        return eachJoin;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a map from each of the given blocks which can be filtered by a runtime join filter to the sibling block
+   * which builds the filter. The filtered block must be executed after the sibling block.
+   */
+  public static Map<ExecutionBlockId, ExecutionBlockId> getFilteredBlocks(MasterPlan masterPlan,
+                                                                         Iterable<ExecutionBlock> blocks) {
+    Map<ExecutionBlockId, ExecutionBlockId> filtered = new HashMap<>();
+    for (ExecutionBlock block : blocks) {
+      List<ExecutionBlock> children = masterPlan.getChilds(block);
+      if (children.size() != 2) {
+        continue;
+      }
+
+      ExecutionBlockId first = children.get(0).getId();
+      ExecutionBlockId second = children.get(1).getId();
+      JoinNode joinNode = findRepartitionedJoin(masterPlan, block, first, second);
+      boolean firstIsLeft = joinNode != null;
+      if (joinNode == null) {
+        joinNode = findRepartitionedJoin(masterPlan, block, second, first);
+      }
+      if (joinNode == null) {
+        continue;
+      }
+
+      // the second block is filtered if possible, since it is in a separate stack of ParallelExecutionQueue.
+      if (isFilterableJoinSide(joinNode.getJoinType(), !firstIsLeft)) {
+        filtered.put(second, first);
+      } else if (isFilterableJoinSide(joinNode.getJoinType(), firstIsLeft)) {
+        filtered.put(first, second);
+      }
+    }
+    return filtered;
+  }
+
+  private static boolean isJoinKeyShuffle(DataChannel channel, DataChannel siblingChannel) {
+    if (channel == null || siblingChannel == null
+        || channel.getShuffleType() != ShuffleType.HASH_SHUFFLE
+        || siblingChannel.getShuffleType() != ShuffleType.HASH_SHUFFLE
+        || !channel.hasShuffleKeys() || !siblingChannel.hasShuffleKeys()) {
+      return false;
+    }
+
+    Column [] keys = channel.getShuffleKeys();
+    Column [] siblingKeys = siblingChannel.getShuffleKeys();
+    if (keys.length == 0 || keys.length != siblingKeys.length) {
+      return false;
+    }
+    // the hash values of keys are comparable only if they have the same types
+    for (int i = 0; i < keys.length; i++) {
+      if (!keys[i].getDataType().equals(siblingKeys[i].getDataType())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isScanOf(LogicalNode node, ExecutionBlockId ebId) {
+    return node.getType() == NodeType.SCAN && ((ScanNode) node).getTableName().equals(ebId.toString());
+  }
+
+  /**
+   * Check if the tuples of a side of a join, which do not match any tuple of the other side, can be removed
+   * without changing the join result.
+   */
+  public static boolean isFilterableJoinSide(JoinType joinType, boolean left) {
+    switch (joinType) {
+    case INNER:
+    case LEFT_SEMI:
+    case RIGHT_SEMI:
+      return true;
+    case LEFT_OUTER:
+      return !left;
+    case RIGHT_OUTER:
+      return left;
+    default:
+      return false;
+    }
+  }
+}
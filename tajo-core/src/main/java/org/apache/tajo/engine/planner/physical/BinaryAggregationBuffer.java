@@ -0,0 +1,395 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.datum.ProtobufDatum;
+import org.apache.tajo.engine.function.builtin.*;
+import org.apache.tajo.function.Function;
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.tuple.memory.ResizableLimitSpec;
+import org.apache.tajo.tuple.memory.ResizableMemoryBlock;
+import org.apache.tajo.util.UnsafeUtil;
+import org.apache.tajo.util.Deallocatable;
+
+import java.util.List;
+
+import static org.apache.tajo.InternalTypes.AvgDoubleProto;
+import static org.apache.tajo.InternalTypes.AvgLongProto;
+
+/**
+ * BinaryAggregationBuffer keeps the aggregation states of groups in an off-heap memory block instead of
+ * per-group {@link org.apache.tajo.plan.function.FunctionContext} objects. Each group occupies a fixed-width row,
+ * and each aggregation function occupies a 16 bytes slot of the row, which consists of a value and an auxiliary
+ * long value (a count or a flag indicating whether the value is set).
+ *
+ * Only a subset of built-in aggregation functions (count, sum, avg, min and max on numeric values) is supported.
+ * The partial results have the same forms as those of the built-in functions, so they can be mixed with the
+ * results of the other executors.
+ */
+public class BinaryAggregationBuffer implements Deallocatable {
+  static final int SLOT_SIZE = 16;
+  private static final int AUX_OFFSET = 8;
+
+  enum Kind {
+    COUNT_ROWS,
+    COUNT_VALUES,
+    SUM_LONG,
+    SUM_DOUBLE,
+    AVG_LONG,
+    AVG_DOUBLE,
+    MAX_LONG,
+    MIN_LONG,
+    MAX_DOUBLE,
+    MIN_DOUBLE
+  }
+
+  private final int funcNum;
+  private final Kind [] kinds;
+  private final Type [] valueTypes;
+  private final boolean [] firstPhase;
+  private final boolean [] lastPhase;
+  private final EvalNode [] args;
+  private final int rowWidth;
+
+  private final ResizableMemoryBlock memory;
+  private int groupNum;
+
+  public BinaryAggregationBuffer(List<AggregationFunctionCallEval> aggFunctions, int initialGroupNum) {
+    this.funcNum = aggFunctions.size();
+    this.kinds = new Kind[funcNum];
+    this.valueTypes = new Type[funcNum];
+    this.firstPhase = new boolean[funcNum];
+    this.lastPhase = new boolean[funcNum];
+    this.args = new EvalNode[funcNum];
+    for (int i = 0; i < funcNum; i++) {
+      AggregationFunctionCallEval aggFunction = aggFunctions.get(i);
+      kinds[i] = getKind(aggFunction);
+      valueTypes[i] = aggFunction.getFuncDesc().getReturnType().getType();
+      firstPhase[i] = aggFunction.isFirstPhase();
+      lastPhase[i] = aggFunction.isLastPhase();
+      args[i] = aggFunction.getArgs().length > 0 ? aggFunction.getArgs()[0] : null;
+    }
+    this.rowWidth = Math.max(1, funcNum) * SLOT_SIZE;
+    this.memory = new ResizableMemoryBlock(
+        new ResizableLimitSpec((long) Math.max(16, initialGroupNum) * rowWidth), true);
+  }
+
+  /**
+   * Check if all the given aggregation functions can keep their states in BinaryAggregationBuffer.
+   */
+  public static boolean isSupported(List<AggregationFunctionCallEval> aggFunctions) {
+    if (aggFunctions.isEmpty()) {
+      return false;
+    }
+    for (AggregationFunctionCallEval aggFunction : aggFunctions) {
+      if (getKind(aggFunction) == null) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Kind getKind(AggregationFunctionCallEval aggFunction) {
+    if (!aggFunction.getFuncDesc().getInvocation().hasLegacy() || aggFunction.getArgs().length > 1) {
+      return null;
+    }
+
+    Class<? extends Function> funcClass = aggFunction.getFuncDesc().getLegacyFuncClass();
+    Type returnType = aggFunction.getFuncDesc().getReturnType().getType();
+
+    if (funcClass == CountRows.class) {
+      return Kind.COUNT_ROWS;
+    } else if (funcClass == CountValue.class) {
+      return Kind.COUNT_VALUES;
+    } else if (funcClass == SumInt.class || funcClass == SumLong.class) {
+      return Kind.SUM_LONG;
+    } else if (funcClass == SumDouble.class) {
+      return Kind.SUM_DOUBLE;
+    } else if (funcClass == AvgInt.class || funcClass == AvgLong.class) {
+      return Kind.AVG_LONG;
+    } else if (funcClass == AvgFloat.class || funcClass == AvgDouble.class) {
+      return Kind.AVG_DOUBLE;
+    } else if (Max.class.isAssignableFrom(funcClass) || Min.class.isAssignableFrom(funcClass)) {
+      // the built-in functions return the argument values as they are.
+      if (aggFunction.getArgs().length != 1 || aggFunction.getArgs()[0].getValueType().kind() != returnType) {
+        return null;
+      }
+      boolean max = Max.class.isAssignableFrom(funcClass);
+      switch (returnType) {
+      case INT4:
+      case INT8:
+        return max ? Kind.MAX_LONG : Kind.MIN_LONG;
+      case FLOAT4:
+      case FLOAT8:
+        return max ? Kind.MAX_DOUBLE : Kind.MIN_DOUBLE;
+      default:
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Add a new group whose states are initialized.
+   *
+   * @return the id of the new group
+   */
+  public int newGroup() {
+    memory.ensureSize(rowWidth);
+    int offset = memory.writerPosition();
+    UnsafeUtil.unsafe.setMemory(memory.address() + offset, rowWidth, (byte) 0);
+    memory.writerPosition(offset + rowWidth);
+    return groupNum++;
+  }
+
+  public int size() {
+    return groupNum;
+  }
+
+  public long usedMem() {
+    return memory.writerPosition();
+  }
+
+  private long slotAddress(int group, int funcIdx) {
+    return memory.address() + (long) group * rowWidth + (long) funcIdx * SLOT_SIZE;
+  }
+
+  /**
+   * Aggregate an input tuple into the states of a group. Like
+   * {@link AggregationFunctionCallEval#merge(org.apache.tajo.plan.function.FunctionContext, Tuple)}, the arguments
+   * are regarded as partial results if the functions are not in the first phase.
+   */
+  public void update(int group, Tuple tuple) {
+    for (int i = 0; i < funcNum; i++) {
+      Datum arg = args[i] == null ? null : (Datum) args[i].eval(tuple);
+      if (firstPhase[i]) {
+        eval(slotAddress(group, i), i, arg);
+      } else {
+        merge(slotAddress(group, i), i, arg);
+      }
+    }
+  }
+
+  /**
+   * Merge a partial result of a function into the states of a group.
+   */
+  public void mergePartialResult(int group, int funcIdx, Datum partialResult) {
+    merge(slotAddress(group, funcIdx), funcIdx, partialResult);
+  }
+
+  private void eval(long address, int funcIdx, Datum arg) {
+    if (kinds[funcIdx] == Kind.COUNT_ROWS) {
+      PlatformDependent.putLong(address, PlatformDependent.getLong(address) + 1);
+      return;
+    }
+    if (arg.isNull()) {
+      return;
+    }
+
+    switch (kinds[funcIdx]) {
+    case COUNT_VALUES:
+      PlatformDependent.putLong(address, PlatformDependent.getLong(address) + 1);
+      break;
+    case SUM_LONG:
+      addLong(address, arg.asInt8(), 1);
+      break;
+    case SUM_DOUBLE:
+      addDouble(address, arg.asFloat8(), 1);
+      break;
+    case AVG_LONG:
+      addLong(address, arg.asInt8(), PlatformDependent.getLong(address + AUX_OFFSET) + 1);
+      break;
+    case AVG_DOUBLE:
+      addDouble(address, arg.asFloat8(), PlatformDependent.getLong(address + AUX_OFFSET) + 1);
+      break;
+    case MAX_LONG:
+    case MIN_LONG:
+    case MAX_DOUBLE:
+    case MIN_DOUBLE:
+      updateMinMax(address, funcIdx, arg);
+      break;
+    default:
+      throw new IllegalStateException("Unknown aggregation: " + kinds[funcIdx]);
+    }
+  }
+
+  private void merge(long address, int funcIdx, Datum partialResult) {
+    if (partialResult == null || partialResult.isNull()) {
+      return;
+    }
+
+    switch (kinds[funcIdx]) {
+    case COUNT_ROWS:
+    case COUNT_VALUES:
+      PlatformDependent.putLong(address, PlatformDependent.getLong(address) + partialResult.asInt8());
+      break;
+    case SUM_LONG:
+      addLong(address, partialResult.asInt8(), 1);
+      break;
+    case SUM_DOUBLE:
+      addDouble(address, partialResult.asFloat8(), 1);
+      break;
+    case AVG_LONG: {
+      AvgLongProto proto = (AvgLongProto) ((ProtobufDatum) partialResult).get();
+      addLong(address, proto.getSum(), PlatformDependent.getLong(address + AUX_OFFSET) + proto.getCount());
+      break;
+    }
+    case AVG_DOUBLE: {
+      AvgDoubleProto proto = (AvgDoubleProto) ((ProtobufDatum) partialResult).get();
+      addDouble(address, proto.getSum(), PlatformDependent.getLong(address + AUX_OFFSET) + proto.getCount());
+      break;
+    }
+    case MAX_LONG:
+    case MIN_LONG:
+    case MAX_DOUBLE:
+    case MIN_DOUBLE:
+      updateMinMax(address, funcIdx, partialResult);
+      break;
+    default:
+      throw new IllegalStateException("Unknown aggregation: " + kinds[funcIdx]);
+    }
+  }
+
+  private static void addLong(long address, long value, long aux) {
+    PlatformDependent.putLong(address, PlatformDependent.getLong(address) + value);
+    PlatformDependent.putLong(address + AUX_OFFSET, aux);
+  }
+
+  private static void addDouble(long address, double value, long aux) {
+    double sum = Double.longBitsToDouble(PlatformDependent.getLong(address)) + value;
+    PlatformDependent.putLong(address, Double.doubleToRawLongBits(sum));
+    PlatformDependent.putLong(address + AUX_OFFSET, aux);
+  }
+
+  private void updateMinMax(long address, int funcIdx, Datum value) {
+    boolean hasValue = PlatformDependent.getLong(address + AUX_OFFSET) != 0;
+    switch (kinds[funcIdx]) {
+    case MAX_LONG:
+    case MIN_LONG: {
+      long v = value.asInt8();
+      long current = PlatformDependent.getLong(address);
+      if (!hasValue || (kinds[funcIdx] == Kind.MAX_LONG ? v > current : v < current)) {
+        PlatformDependent.putLong(address, v);
+      }
+      break;
+    }
+    default: {
+      double v = value.asFloat8();
+      double current = Double.longBitsToDouble(PlatformDependent.getLong(address));
+      // the same comparison as Float8Datum.compareTo()
+      if (!hasValue || (kinds[funcIdx] == Kind.MAX_DOUBLE ? v > current : v < current)) {
+        PlatformDependent.putLong(address, Double.doubleToRawLongBits(v));
+      }
+    }
+    }
+    PlatformDependent.putLong(address + AUX_OFFSET, 1);
+  }
+
+  /**
+   * Get the partial result of a function, which has the same form as that of the built-in function.
+   */
+  public Datum getPartialResult(int group, int funcIdx) {
+    long address = slotAddress(group, funcIdx);
+    long value = PlatformDependent.getLong(address);
+    long aux = PlatformDependent.getLong(address + AUX_OFFSET);
+
+    switch (kinds[funcIdx]) {
+    case AVG_LONG:
+      if (aux == 0) {
+        return NullDatum.get();
+      }
+      return new ProtobufDatum(AvgLongProto.newBuilder().setSum(value).setCount(aux).build());
+    case AVG_DOUBLE:
+      if (aux == 0) {
+        return NullDatum.get();
+      }
+      return new ProtobufDatum(
+          AvgDoubleProto.newBuilder().setSum(Double.longBitsToDouble(value)).setCount(aux).build());
+    default:
+      return terminate(group, funcIdx);
+    }
+  }
+
+  /**
+   * Get the final result of a function.
+   */
+  public Datum terminate(int group, int funcIdx) {
+    long address = slotAddress(group, funcIdx);
+    long value = PlatformDependent.getLong(address);
+    long aux = PlatformDependent.getLong(address + AUX_OFFSET);
+
+    switch (kinds[funcIdx]) {
+    case COUNT_ROWS:
+    case COUNT_VALUES:
+      return DatumFactory.createInt8(value);
+    case SUM_LONG:
+      return aux == 0 ? NullDatum.get() : DatumFactory.createInt8(value);
+    case SUM_DOUBLE:
+      return aux == 0 ? NullDatum.get() : DatumFactory.createFloat8(Double.longBitsToDouble(value));
+    case AVG_LONG:
+      return aux == 0 ? NullDatum.get() : DatumFactory.createFloat8((double) value / aux);
+    case AVG_DOUBLE:
+      return aux == 0 ? NullDatum.get() : DatumFactory.createFloat8(Double.longBitsToDouble(value) / aux);
+    case MAX_LONG:
+    case MIN_LONG:
+      if (aux == 0) {
+        return NullDatum.get();
+      }
+      return valueTypes[funcIdx] == Type.INT4 ?
+          DatumFactory.createInt4((int) value) : DatumFactory.createInt8(value);
+    case MAX_DOUBLE:
+    case MIN_DOUBLE:
+      if (aux == 0) {
+        return NullDatum.get();
+      }
+      return valueTypes[funcIdx] == Type.FLOAT4 ?
+          DatumFactory.createFloat4((float) Double.longBitsToDouble(value)) :
+          DatumFactory.createFloat8(Double.longBitsToDouble(value));
+    default:
+      throw new IllegalStateException("Unknown aggregation: " + kinds[funcIdx]);
+    }
+  }
+
+  /**
+   * Get the result of a function according to its phase.
+   */
+  public Datum getResult(int group, int funcIdx) {
+    return lastPhase[funcIdx] ? terminate(group, funcIdx) : getPartialResult(group, funcIdx);
+  }
+
+  /**
+   * Remove all groups.
+   */
+  public void clear() {
+    memory.writerPosition(0);
+    groupNum = 0;
+  }
+
+  @Override
+  public void release() {
+    memory.release();
+  }
+}
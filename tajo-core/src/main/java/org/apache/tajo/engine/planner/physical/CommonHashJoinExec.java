@@ -57,7 +57,8 @@ public abstract class CommonHashJoinExec<T> extends CommonJoinExec {
     ScanExec scanExec = PhysicalPlanUtil.findExecutor(rightChild, ScanExec.class);
     if (scanExec.canBroadcast()) {
       /* If this table can broadcast, all tasks in a node will share the same cache */
-      TableCacheKey key = CacheHolder.BroadcastCacheHolder.getCacheKey(context, scanExec);
+      TableCacheKey key = CacheHolder.BroadcastCacheHolder.getCacheKey(context, scanExec,
+          TupleMap.class.getSimpleName(), rightKeyList);
       loadRightFromCache(key);
     } else {
       this.tupleSlots = convert(buildRightToHashTable(), false);
@@ -75,7 +76,7 @@ public abstract class CommonHashJoinExec<T> extends CommonJoinExec {
         holder = sharedResource.getBroadcastCache(key);
       } else {
         TupleMap<TupleList> built = buildRightToHashTable();
-        holder = new CacheHolder.BroadcastCacheHolder(built, rightChild.getInputStats(), null);
+        holder = new CacheHolder.BroadcastCacheHolder<>(built, rightChild.getInputStats(), null);
         sharedResource.addBroadcastCache(key, holder);
       }
     }
@@ -46,6 +46,8 @@ import org.apache.tajo.storage.Scanner;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
 import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
+import org.apache.tajo.tuple.RowBlockReader;
+import org.apache.tajo.tuple.memory.MemoryRowBlock;
 import org.apache.tajo.tuple.memory.OffHeapRowBlockUtils;
 import org.apache.tajo.tuple.memory.UnSafeTuple;
 import org.apache.tajo.tuple.memory.UnSafeTupleList;
@@ -56,10 +58,7 @@ import org.apache.tajo.worker.TaskAttemptContext;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.*;
 
 /**
  * This external sort algorithm can be characterized by the followings:
@@ -68,6 +67,9 @@ import java.util.concurrent.Future;
  *   <li>in-memory sort if input data size fits a sort buffer</li>
  *   <li>k-way merge sort if input data size exceeds the size of sort buffer</li>
  *   <li>parallel merge</li>
+ *   <li>normalized key prefix sort of in-memory tuples (optional)</li>
+ *   <li>loser tree k-way merge</li>
+ *   <li>read-ahead of sorted runs in the final merge</li>
  *   <li>final merge avoidance</li>
  *   <li>Unbalance merge if needed</li>
  * </ul>
@@ -83,6 +85,8 @@ public class ExternalSortExec extends SortExec {
   private static final Log LOG = LogFactory.getLog(ExternalSortExec.class);
   /** The prefix of fragment name for intermediate */
   private static final String INTERMEDIATE_FILE_PREFIX = "@interFile_";
+  /** The size of a row block which is read ahead from a sorted run */
+  private static final int PREFETCH_BLOCK_SIZE = 128 * StorageUnit.KB;
 
   private SortNode plan;
   /** the data format of intermediate file*/
@@ -101,6 +105,10 @@ public class ExternalSortExec extends SortExec {
   private Comparator<UnSafeTuple> unSafeComparator;
   /** for other type tuple comparison */
   private Comparator<Tuple> primitiveComparator;
+  /** for sorting with normalized key prefixes. It is null if normalized keys are not used. */
+  private NormalizedKeySort normalizedKeySort;
+  /** for merging sorted runs. UnSafeTuples are compared without copying. */
+  private Comparator<Tuple> mergeComparator;
   /** temporal dir */
   private Path sortTmpDir;
   /** It enables round-robin disks allocation */
@@ -123,6 +131,7 @@ public class ExternalSortExec extends SortExec {
   private long inputBytes;
 
   private final SortAlgorithm sortAlgorithm;
+  private final boolean normalizedKeyEnabled;
 
   private ExternalSortExec(final TaskAttemptContext context, final SortNode plan)
       throws PhysicalPlanningException {
@@ -140,13 +149,18 @@ public class ExternalSortExec extends SortExec {
     this.localFS = new RawLocalFileSystem();
     this.intermediateMeta = CatalogUtil.newTableMeta(BuiltinStorages.DRAW, context.getConf());
     this.inputStats = new TableStats();
-    this.sortAlgorithm = getSortAlgorithm(context.getQueryContext(), sortSpecs);
-    LOG.info(sortAlgorithm.name() + " sort is selected");
+    this.normalizedKeyEnabled = context.getQueryContext().getBool(SessionVars.SORT_NORMALIZED_KEY_ENABLED) &&
+        Arrays.stream(sortSpecs).allMatch(
+            sortSpec -> NormalizedKeySort.isApplicableType(sortSpec.getSortKey().getDataType().getType()));
+    this.sortAlgorithm = getSortAlgorithm(context.getQueryContext(), sortSpecs, normalizedKeyEnabled);
+    LOG.info(sortAlgorithm.name() + " sort is selected" + (normalizedKeyEnabled ? " with normalized keys" : ""));
   }
 
-  private static SortAlgorithm getSortAlgorithm(QueryContext context, SortSpec[] sortSpecs) {
+  private static SortAlgorithm getSortAlgorithm(QueryContext context, SortSpec[] sortSpecs,
+                                                boolean normalizedKeyEnabled) {
     String sortAlgorithm = context.get(SessionVars.SORT_ALGORITHM, SortAlgorithm.TIM.name());
-    if (Arrays.stream(sortSpecs)
+    // normalized keys can be radix sorted for any type
+    if (!normalizedKeyEnabled && Arrays.stream(sortSpecs)
         .filter(sortSpec -> !RadixSort.isApplicableType(sortSpec)).count() > 0) {
       if (sortAlgorithm.equalsIgnoreCase(SortAlgorithm.MSD_RADIX.name())) {
         LOG.warn("Non-applicable types exist. Falling back to " + SortAlgorithm.TIM.name() + " sort");
@@ -193,6 +207,11 @@ public class ExternalSortExec extends SortExec {
     this.inMemoryTable = new UnSafeTupleList(SchemaUtil.toDataTypes(inSchema), initialArraySize);
     this.unSafeComparator = new UnSafeComparator(inSchema, sortSpecs);
     this.primitiveComparator = new PrimitiveComparator(inSchema, sortSpecs);
+    if (normalizedKeyEnabled) {
+      this.normalizedKeySort = new NormalizedKeySort(inSchema, sortSpecs);
+    }
+    this.mergeComparator = (t1, t2) -> t1 instanceof UnSafeTuple && t2 instanceof UnSafeTuple ?
+        unSafeComparator.compare((UnSafeTuple) t1, (UnSafeTuple) t2) : primitiveComparator.compare(t1, t2);
 
     super.init();
   }
@@ -202,6 +221,10 @@ public class ExternalSortExec extends SortExec {
   }
 
   private List<UnSafeTuple> sort(UnSafeTupleList tupleBlock) {
+    if (normalizedKeySort != null) {
+      return normalizedKeySort.sort(tupleBlock, unSafeComparator, sortAlgorithm == SortAlgorithm.MSD_RADIX);
+    }
+
     switch (sortAlgorithm) {
       case TIM:
         return OffHeapRowBlockUtils.sort(tupleBlock, unSafeComparator);
@@ -522,7 +545,7 @@ public class ExternalSortExec extends SortExec {
       info(LOG, mergeFanout + " files are being merged to an output file " + outputPath.getName());
       long mergeStartTime = System.currentTimeMillis();
 
-      final Scanner merger = createKWayMerger(inputFiles, startIdx, mergeFanout);
+      final Scanner merger = createKWayMerger(inputFiles, startIdx, mergeFanout, false);
       merger.init();
 
       final DirectRawFileWriter output =
@@ -554,12 +577,13 @@ public class ExternalSortExec extends SortExec {
 
   /**
    * Create a merged file scanner or k-way merge scanner.
+   * If multiple threads are allowed, the sorted runs of the final merge are read ahead by the threads.
    */
   private Scanner createFinalMerger(List<Chunk> inputs) throws IOException {
     if (inputs.size() == 1) {
       this.result = getScanner(inputs.get(0));
     } else {
-      this.result = createKWayMerger(inputs, 0, inputs.size());
+      this.result = createKWayMerger(inputs, 0, inputs.size(), executorService != null);
     }
     return result;
   }
@@ -581,24 +605,17 @@ public class ExternalSortExec extends SortExec {
     }
   }
 
-  private Scanner createKWayMerger(List<Chunk> inputs, final int startChunkId, final int num) throws IOException {
+  private Scanner createKWayMerger(List<Chunk> inputs, final int startChunkId, final int num, boolean prefetch)
+      throws IOException {
     final Scanner [] sources = new Scanner[num];
     for (int i = 0; i < num; i++) {
-      sources[i] = getScanner(inputs.get(startChunkId + i));
-    }
-    return createKWayMergerInternal(sources, 0, num);
-  }
-
-  private Scanner createKWayMergerInternal(final Scanner [] sources, final int startIdx, final int num)
-      throws IOException {
-    if (num > 1) {
-      final int mid = (int) Math.ceil((float)num / 2);
-      Scanner left = createKWayMergerInternal(sources, startIdx, mid);
-      Scanner right = createKWayMergerInternal(sources, startIdx + mid, num - mid);
-      return new PairWiseMerger(inSchema, left, right, primitiveComparator);
-    } else {
-      return sources[startIdx];
+      Chunk chunk = inputs.get(startChunkId + i);
+      sources[i] = getScanner(chunk);
+      if (prefetch && !chunk.isMemory() && BuiltinStorages.DRAW.equalsIgnoreCase(chunk.getMeta().getDataFormat())) {
+        sources[i] = new PrefetchScanner(sources[i], SchemaUtil.toDataTypes(inSchema), executorService);
+      }
     }
+    return new LoserTreeMerger(inSchema, sources, mergeComparator);
   }
 
   private static class MemTableScanner<T extends Tuple> extends AbstractScanner {
@@ -676,124 +693,138 @@ public class ExternalSortExec extends SortExec {
   }
 
   /**
-   * Two-way merger scanner that reads two input sources and outputs one output tuples sorted in some order.
+   * K-way merger scanner based on a loser tree. Each output row takes log2(K) comparisons along a single
+   * path of the tree, and rows are passed through from the input sources without being copied.
    */
-  private static class PairWiseMerger extends AbstractScanner {
+  private static class LoserTreeMerger extends AbstractScanner {
 
     protected final Schema schema;
     protected final Comparator<Tuple> comparator;
+    protected final Scanner [] sources;
 
-    protected final Scanner leftScan;
-    protected final Scanner rightScan;
-
-    private Tuple leftTuple;
-    private Tuple rightTuple;
-    private boolean leftEOF;
-    private boolean rightEOF;
-
-    private Tuple outTuple;
+    /** the current row of each source. null means that the source is exhausted. */
+    private final Tuple [] heads;
+    /** tree[0] is the index of the winner source, and tree[1 ~ K-1] are the losers of internal nodes. */
+    private final int [] tree;
+    /** whether the winner source should be advanced before the next output */
+    private boolean advanceWinner;
 
     private float mergerProgress;
     private TableStats mergerInputStats;
 
     private State state = State.NEW;
 
-    public PairWiseMerger(Schema schema, Scanner leftScanner, Scanner rightScanner, Comparator<Tuple> comparator)
-        throws IOException {
+    public LoserTreeMerger(Schema schema, Scanner [] sources, Comparator<Tuple> comparator) {
+      Preconditions.checkArgument(sources.length > 0, "At least one source must be given.");
       this.schema = schema;
-      this.leftScan = leftScanner;
-      this.rightScan = rightScanner;
+      this.sources = sources;
       this.comparator = comparator;
-    }
-
-    private void setState(State state) {
-      this.state = state;
+      this.heads = new Tuple[sources.length];
+      this.tree = new int[sources.length];
     }
 
     @Override
     public void init() throws IOException {
       if (state == State.NEW) {
-        leftScan.init();
-        rightScan.init();
+        for (Scanner source : sources) {
+          source.init();
+        }
 
         mergerInputStats = new TableStats();
         mergerProgress = 0.0f;
+        buildTree();
 
-        setState(State.INITED);
+        state = State.INITED;
       } else {
         throw new IllegalStateException("Illegal State: init() is not allowed in " + state.name());
       }
     }
 
-    protected int compare() {
-      return comparator.compare(leftTuple, rightTuple);
+    private void buildTree() throws IOException {
+      for (int i = 0; i < sources.length; i++) {
+        heads[i] = sources[i].next();
+      }
+      tree[0] = playMatches(1);
+      advanceWinner = false;
     }
 
-    @Override
-    public Tuple next() throws IOException {
-      if(!leftEOF && leftTuple == null) {
-        leftTuple = leftScan.next();
+    /**
+     * Play the matches of a subtree, and record the loser of each node.
+     *
+     * @return the winner of the subtree
+     */
+    private int playMatches(int node) {
+      // the nodes K ~ 2K-1 are the leaves for the sources
+      if (node >= sources.length) {
+        return node - sources.length;
       }
 
-      if(!rightEOF && rightTuple == null) {
-        rightTuple = rightScan.next();
+      int left = playMatches(node * 2);
+      int right = playMatches(node * 2 + 1);
+      if (beats(left, right)) {
+        tree[node] = right;
+        return left;
+      } else {
+        tree[node] = left;
+        return right;
       }
+    }
 
-      if (leftTuple != null && rightTuple != null) {
-        if (compare() < 0) {
-          outTuple = leftTuple;
-          leftTuple = null;
-        } else {
-          outTuple = rightTuple;
-          rightTuple = null;
-        }
-        return outTuple;
+    /**
+     * @return true if the head of the source <code>a</code> precedes the head of the source <code>b</code>.
+     */
+    private boolean beats(int a, int b) {
+      if (heads[a] == null) {
+        return false;
+      } else if (heads[b] == null) {
+        return true;
       }
 
-      if (leftTuple == null) {
-        leftEOF = true;
+      int compare = comparator.compare(heads[a], heads[b]);
+      return compare < 0 || (compare == 0 && a < b);
+    }
 
-        if (rightTuple != null) {
-          outTuple = rightTuple;
-          rightTuple = null;
-        } else {
-          rightEOF = true;
-          outTuple = null;
+    @Override
+    public Tuple next() throws IOException {
+      int winner = tree[0];
+      if (advanceWinner) {
+        heads[winner] = sources[winner].next();
+
+        // replay the matches from the leaf of the winner to the root
+        for (int node = (winner + sources.length) / 2; node > 0; node /= 2) {
+          if (beats(tree[node], winner)) {
+            int loser = winner;
+            winner = tree[node];
+            tree[node] = loser;
+          }
         }
-      } else {
-        rightEOF = true;
-        outTuple = leftTuple;
-        leftTuple = null;
+        tree[0] = winner;
       }
-      return outTuple;
+
+      // the output row is valid until the winner source is advanced
+      advanceWinner = true;
+      return heads[winner];
     }
 
     @Override
     public void reset() throws IOException {
       if (state == State.INITED) {
-        leftScan.reset();
-        rightScan.reset();
-
-        leftTuple = null;
-        rightTuple = null;
-        outTuple = null;
-
-        leftEOF = false;
-        rightEOF = false;
-
+        for (Scanner source : sources) {
+          source.reset();
+        }
+        buildTree();
       } else {
-        throw new IllegalStateException("Illegal State: init() is not allowed in " + state.name());
+        throw new IllegalStateException("Illegal State: reset() is not allowed in " + state.name());
       }
     }
 
     @Override
     public void close() throws IOException {
-      IOUtils.cleanup(LOG, leftScan, rightScan);
+      IOUtils.cleanup(LOG, sources);
       getInputStats();
       mergerProgress = 1.0f;
-      leftTuple = null;
-      rightTuple = null;
-      setState(State.CLOSED);
+      Arrays.fill(heads, null);
+      state = State.CLOSED;
     }
 
     @Override
@@ -803,18 +834,22 @@ public class ExternalSortExec extends SortExec {
 
     @Override
     public float getProgress() {
-      if (leftScan == null) {
+      if (state == State.CLOSED) {
         return mergerProgress;
       }
-      return leftScan.getProgress() * 0.5f + rightScan.getProgress() * 0.5f;
+
+      float progress = 0.0f;
+      for (Scanner source : sources) {
+        progress += source.getProgress();
+      }
+      return progress / sources.length;
     }
 
     @Override
     public TableStats getInputStats() {
-      if (leftScan == null) {
+      if (state == State.CLOSED) {
         return mergerInputStats;
       }
-      TableStats leftInputStats = leftScan.getInputStats();
       if (mergerInputStats == null) {
         mergerInputStats = new TableStats();
       }
@@ -822,20 +857,196 @@ public class ExternalSortExec extends SortExec {
       mergerInputStats.setReadBytes(0);
       mergerInputStats.setNumRows(0);
 
-      if (leftInputStats != null) {
-        mergerInputStats.setNumBytes(leftInputStats.getNumBytes());
-        mergerInputStats.setReadBytes(leftInputStats.getReadBytes());
-        mergerInputStats.setNumRows(leftInputStats.getNumRows());
+      for (Scanner source : sources) {
+        TableStats sourceStats = source.getInputStats();
+        if (sourceStats != null) {
+          mergerInputStats.setNumBytes(mergerInputStats.getNumBytes() + sourceStats.getNumBytes());
+          mergerInputStats.setReadBytes(mergerInputStats.getReadBytes() + sourceStats.getReadBytes());
+          mergerInputStats.setNumRows(mergerInputStats.getNumRows() + sourceStats.getNumRows());
+        }
       }
 
-      TableStats rightInputStats = rightScan.getInputStats();
-      if (rightInputStats != null) {
-        mergerInputStats.setNumBytes(mergerInputStats.getNumBytes() + rightInputStats.getNumBytes());
-        mergerInputStats.setReadBytes(mergerInputStats.getReadBytes() + rightInputStats.getReadBytes());
-        mergerInputStats.setNumRows(mergerInputStats.getNumRows() + rightInputStats.getNumRows());
+      return mergerInputStats;
+    }
+  }
+
+  /**
+   * A scanner which reads ahead the rows of a sorted run with the merge threads, so that the disk reads
+   * of runs overlap with the merge. Rows are copied into row blocks, and up to two blocks are kept ahead
+   * of the merger. Each read-ahead task fills only the free blocks and then returns its thread, so that
+   * the runs of a merge can share fewer threads. An empty block is passed at the end of rows.
+   */
+  private static class PrefetchScanner extends AbstractScanner {
+    private static final int PREFETCH_BLOCK_NUM = 3;
+
+    private final Scanner scanner;
+    private final ExecutorService executor;
+    private final List<MemoryRowBlock> blocks = new ArrayList<>();
+    private final BlockingQueue<MemoryRowBlock> freeBlocks = new LinkedBlockingQueue<>();
+    private final BlockingQueue<MemoryRowBlock> prefetchedBlocks = new LinkedBlockingQueue<>();
+    private final UnSafeTuple tuple = new UnSafeTuple();
+
+    private MemoryRowBlock current;
+    private RowBlockReader reader;
+    private boolean eof;
+
+    // the states below are guarded by this
+    private Future<?> prefetcher;
+    private boolean prefetching;
+    private boolean stopped;
+    private boolean exhausted;
+    private boolean endPassed;
+    private IOException error;
+
+    public PrefetchScanner(Scanner scanner, TajoDataTypes.DataType[] dataTypes, ExecutorService executor) {
+      this.scanner = scanner;
+      this.executor = executor;
+      for (int i = 0; i < PREFETCH_BLOCK_NUM; i++) {
+        blocks.add(new MemoryRowBlock(dataTypes, PREFETCH_BLOCK_SIZE));
       }
+    }
 
-      return mergerInputStats;
+    @Override
+    public void init() throws IOException {
+      scanner.init();
+      startPrefetch();
+    }
+
+    private synchronized void startPrefetch() {
+      freeBlocks.clear();
+      prefetchedBlocks.clear();
+      freeBlocks.addAll(blocks);
+      current = null;
+      reader = null;
+      eof = false;
+      stopped = false;
+      exhausted = false;
+      endPassed = false;
+      error = null;
+      schedulePrefetch();
+    }
+
+    private synchronized void schedulePrefetch() {
+      if (!prefetching && !stopped && !endPassed && !freeBlocks.isEmpty()) {
+        prefetching = true;
+        prefetcher = executor.submit(this::prefetch);
+      }
+    }
+
+    private void prefetch() {
+      MemoryRowBlock block = null;
+      try {
+        while (!isStopped() && (block = freeBlocks.poll()) != null) {
+          block.clear();
+          if (!exhausted) {
+            Tuple next = null;
+            while (block.usedMem() < PREFETCH_BLOCK_SIZE && (next = scanner.next()) != null) {
+              block.getWriter().addTuple(next);
+            }
+            exhausted = next == null;
+          }
+
+          if (block.rows() == 0) {
+            synchronized (this) {
+              endPassed = true;
+            }
+          }
+          prefetchedBlocks.add(block);
+          block = null;
+        }
+      } catch (Throwable t) {
+        synchronized (this) {
+          error = t instanceof IOException ? (IOException) t : new IOException(t);
+          endPassed = true;
+        }
+        if (block != null) {
+          block.clear();
+          prefetchedBlocks.add(block);
+        }
+      } finally {
+        synchronized (this) {
+          prefetching = false;
+        }
+      }
+      // a block may be freed while this task is finishing
+      schedulePrefetch();
+    }
+
+    private synchronized boolean isStopped() {
+      return stopped;
+    }
+
+    private void stopPrefetch() throws IOException {
+      Future<?> running;
+      synchronized (this) {
+        stopped = true;
+        running = prefetcher;
+        prefetcher = null;
+      }
+
+      if (running != null) {
+        try {
+          // wait for the running task, which fills at most all blocks
+          running.get();
+        } catch (InterruptedException | ExecutionException e) {
+          throw new IOException(e);
+        }
+      }
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+      while (!eof) {
+        if (reader != null && reader.next(tuple)) {
+          return tuple;
+        }
+
+        if (current != null) {
+          freeBlocks.add(current);
+          schedulePrefetch();
+        }
+        try {
+          current = prefetchedBlocks.take();
+        } catch (InterruptedException e) {
+          throw new IOException(e);
+        }
+        synchronized (this) {
+          if (error != null) {
+            throw error;
+          }
+        }
+
+        reader = current.getReader();
+        eof = current.rows() == 0;
+      }
+      return null;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      stopPrefetch();
+      scanner.reset();
+      startPrefetch();
+    }
+
+    @Override
+    public void close() throws IOException {
+      stopPrefetch();
+      IOUtils.cleanup(LOG, scanner);
+      for (MemoryRowBlock block : blocks) {
+        block.release();
+      }
+      blocks.clear();
+    }
+
+    @Override
+    public float getProgress() {
+      return scanner.getProgress();
+    }
+
+    @Override
+    public TableStats getInputStats() {
+      return scanner.getInputStats();
     }
   }
 
@@ -18,33 +18,204 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.BuiltinStorages;
 import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaBuilder;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.datum.Datum;
 import org.apache.tajo.engine.planner.KeyProjector;
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
 import org.apache.tajo.plan.function.FunctionContext;
 import org.apache.tajo.plan.logical.GroupbyNode;
+import org.apache.tajo.storage.Scanner;
+import org.apache.tajo.storage.TablespaceManager;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.worker.TaskAttemptContext;
 
+import java.io.File;
 import java.io.IOException;
-import java.util.Iterator;
+import java.util.*;
 import java.util.Map.Entry;
 
 /**
  * This is the hash-based GroupBy Operator.
+ *
+ * If the estimated memory size of the hash table exceeds {@link SessionVars#HASH_GROUPBY_SPILL_THRESHOLD},
+ * the partial results of all groups are flushed to hash partitioned files in the worker temporal dirs, and
+ * the hash table is cleared. After the input is consumed, the partial results in each partition file are merged
+ * into the hash table again. A partition which still does not fit in memory is recursively repartitioned with
+ * a different hash function.
+ *
+ * If all aggregation functions are supported by {@link BinaryAggregationBuffer}, the aggregation states of groups
+ * are kept in off-heap memory instead of {@link FunctionContext} objects.
  */
 public class HashAggregateExec extends AggregationExec {
+  private static final Log LOG = LogFactory.getLog(HashAggregateExec.class);
+
+  /** rough memory size of a hash table entry except its key datums */
+  private static final int ENTRY_OVERHEAD = 64;
+  /** rough memory size of an aggregation context */
+  private static final int CONTEXT_OVERHEAD = 32;
+
   private Tuple tuple = null;
-  private TupleMap<FunctionContext[]> hashTable;
+  /** the map from a group key to a group id */
+  private TupleMap<Integer> hashTable;
   private KeyProjector hashKeyProjector;
   private boolean computed = false;
-  private Iterator<Entry<KeyTuple, FunctionContext []>> iterator = null;
+  private Iterator<Entry<KeyTuple, Integer>> iterator = null;
+
+  // the aggregation states of groups. Only one of them is used.
+  private final boolean useBinaryStates;
+  private BinaryAggregationBuffer binaryStates;
+  private List<FunctionContext[]> contextStates;
+
+  // for spilling partial results
+  private final boolean spillable;
+  private final long spillThreshold;
+  private final int fanout;
+  private final Column[] groupingColumns;
+  private long estimatedMem;
+  private int level;
+  private Schema spillSchema;
+  private KeyProjector spillKeyProjector;
+  private TableMeta intermediateMeta;
+  private HashSpillContext spillContext;
+  private Path[] spillPaths;
+  private DirectRawFileWriter[] spillWriters;
+  private final Deque<SpilledPartition> pendingPartitions = new ArrayDeque<>();
+  /** spilled partitions which are already merged. They are kept for rescan. */
+  private final List<SpilledPartition> mergedPartitions = new ArrayList<>();
+  private final VTuple partialResult = new VTuple(1);
+  private long spilledGroupNum;
 
   public HashAggregateExec(TaskAttemptContext ctx, GroupbyNode plan, PhysicalExec subOp) throws IOException {
     super(ctx, plan, subOp);
     hashKeyProjector = new KeyProjector(inSchema, plan.getGroupingColumns());
     hashTable = new TupleMap<>(ctx.getQueryContext().getInt(SessionVars.AGG_HASH_TABLE_SIZE));
     this.tuple = new VTuple(plan.getOutSchema().size());
+
+    this.groupingColumns = plan.getGroupingColumns();
+    this.spillThreshold = ctx.getQueryContext().getLong(SessionVars.HASH_GROUPBY_SPILL_THRESHOLD) * StorageUnit.MB;
+    this.fanout = Math.max(2, ctx.getConf().getIntVar(ConfVars.EXECUTOR_GROUPBY_SPILL_FANOUT));
+    this.spillable = groupingKeyNum > 0 && isMergeable(aggFunctions);
+    this.useBinaryStates = ctx.getQueryContext().getBool(SessionVars.AGG_OFFHEAP_STATE_ENABLED)
+        && BinaryAggregationBuffer.isSupported(aggFunctions);
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+    if (useBinaryStates) {
+      binaryStates = new BinaryAggregationBuffer(aggFunctions,
+          context.getQueryContext().getInt(SessionVars.AGG_HASH_TABLE_SIZE));
+    } else {
+      contextStates = new ArrayList<>();
+    }
+  }
+
+  boolean usesOffHeapStates() {
+    return useBinaryStates;
+  }
+
+  /**
+   * Add a new group whose aggregation states are initialized.
+   *
+   * @return the id of the new group
+   */
+  private int newGroup() {
+    if (useBinaryStates) {
+      return binaryStates.newGroup();
+    }
+
+    FunctionContext [] contexts = new FunctionContext[aggFunctionsNum];
+    for(int i = 0; i < aggFunctionsNum; i++) {
+      contexts[i] = aggFunctions.get(i).newContext();
+    }
+    contextStates.add(contexts);
+    return contextStates.size() - 1;
+  }
+
+  private void aggregate(int group, Tuple tuple) {
+    if (useBinaryStates) {
+      binaryStates.update(group, tuple);
+    } else {
+      FunctionContext [] contexts = contextStates.get(group);
+      for(int i = 0; i < aggFunctionsNum; i++) {
+        aggFunctions.get(i).merge(contexts[i], tuple);
+      }
+    }
+  }
+
+  private Datum getPartialResult(int group, int funcIdx) {
+    if (useBinaryStates) {
+      return binaryStates.getPartialResult(group, funcIdx);
+    }
+    return aggFunctions.get(funcIdx).getPartialResult(contextStates.get(group)[funcIdx]);
+  }
+
+  private void mergePartialResult(int group, int funcIdx, Datum partial) {
+    if (useBinaryStates) {
+      binaryStates.mergePartialResult(group, funcIdx, partial);
+    } else {
+      partialResult.put(0, partial);
+      aggFunctions.get(funcIdx).mergePartialResult(contextStates.get(group)[funcIdx], partialResult);
+    }
+  }
+
+  private Datum terminate(int group, int funcIdx) {
+    if (useBinaryStates) {
+      return binaryStates.getResult(group, funcIdx);
+    }
+    return aggFunctions.get(funcIdx).terminate(contextStates.get(group)[funcIdx]);
+  }
+
+  private void clearGroups() {
+    hashTable.clear();
+    if (binaryStates != null) {
+      binaryStates.clear();
+    }
+    if (contextStates != null) {
+      contextStates.clear();
+    }
+  }
+
+  /**
+   * Python aggregation functions decide whether to merge partial results by their phases at initialization.
+   * So, the partial results of them cannot be merged in the first phase.
+   */
+  static boolean isMergeable(List<AggregationFunctionCallEval> aggFunctions) {
+    for (AggregationFunctionCallEval aggFunction : aggFunctions) {
+      if (aggFunction.getFuncDesc().getInvocation().hasPythonAggregation()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * A spilled partition which has the partial results of groups
+   */
+  private static class SpilledPartition {
+    final Path path;
+    final int level;
+
+    SpilledPartition(Path path, int level) {
+      this.path = path;
+      this.level = level;
+    }
   }
 
   private void compute() throws IOException {
@@ -53,30 +224,170 @@ public class HashAggregateExec extends AggregationExec {
     while(!context.isStopped() && (tuple = child.next()) != null) {
       keyTuple = hashKeyProjector.project(tuple);
 
-      FunctionContext [] contexts = hashTable.get(keyTuple);
-      if(contexts != null) {
-        for(int i = 0; i < aggFunctions.size(); i++) {
-          aggFunctions.get(i).merge(contexts[i], tuple);
-        }
+      Integer group = hashTable.get(keyTuple);
+      if(group != null) {
+        aggregate(group, tuple);
       } else { // if the key occurs firstly
-        contexts = new FunctionContext[aggFunctionsNum];
-        for(int i = 0; i < aggFunctionsNum; i++) {
-          contexts[i] = aggFunctions.get(i).newContext();
-          aggFunctions.get(i).merge(contexts[i], tuple);
+        group = newGroup();
+        aggregate(group, tuple);
+        hashTable.put(keyTuple, group);
+
+        if (spillable) {
+          estimatedMem += estimateEntrySize(keyTuple);
+          if (estimatedMem > spillThreshold) {
+            spill();
+          }
         }
-        hashTable.put(keyTuple, contexts);
       }
     }
 
     // If HashAggregateExec received NullDatum and didn't has any grouping keys,
     // it should return primitive values for NullLDatum.
     if (groupingKeyNum == 0 && aggFunctionsNum > 0 && hashTable.entrySet().size() == 0) {
-      FunctionContext[] contexts = new FunctionContext[aggFunctionsNum];
-      for(int i = 0; i < aggFunctionsNum; i++) {
-        contexts[i] = aggFunctions.get(i).newContext();
+      hashTable.put(null, newGroup());
+    }
+
+    if (spillWriters != null) {
+      finishSpill();
+    }
+  }
+
+  private long estimateEntrySize(KeyTuple keyTuple) {
+    long size = ENTRY_OVERHEAD + aggFunctionsNum * (useBinaryStates ?
+        BinaryAggregationBuffer.SLOT_SIZE : CONTEXT_OVERHEAD);
+    for (int i = 0; i < groupingKeyNum; i++) {
+      size += keyTuple.asDatum(i).size();
+    }
+    return size;
+  }
+
+  private void initSpill() throws IOException {
+    SchemaBuilder builder = SchemaBuilder.builder().addAll(groupingColumns);
+    for (int i = 0; i < aggFunctionsNum; i++) {
+      builder.add("?partial_" + i, aggFunctions.get(i).getPartialResultType());
+    }
+    spillSchema = builder.build();
+    spillKeyProjector = new KeyProjector(spillSchema, groupingColumns);
+    intermediateMeta = CatalogUtil.newTableMeta(BuiltinStorages.DRAW, context.getConf());
+    spillContext = new HashSpillContext(context.getConf(), getExecutorTmpDir(), "hash_aggregate", fanout);
+  }
+
+  /**
+   * Flush the partial results of all groups in the hash table to the partition files of the current level.
+   */
+  private void spill() throws IOException {
+    if (spillSchema == null) {
+      initSpill();
+    }
+    if (spillWriters == null) {
+      spillPaths = new Path[fanout];
+      spillWriters = new DirectRawFileWriter[fanout];
+    }
+
+    debug(LOG, "Spill " + hashTable.size() + " groups (estimated " +
+        FileUtil.humanReadableByteCount(estimatedMem, false) + ") at level " + level);
+
+    VTuple outTuple = new VTuple(spillSchema.size());
+    for (Entry<KeyTuple, Integer> entry : hashTable.entrySet()) {
+      KeyTuple keyTuple = entry.getKey();
+      int partId = spillContext.partitionOf(keyTuple, level);
+      if (spillWriters[partId] == null) {
+        spillPaths[partId] = spillContext.getPathForWrite();
+        spillWriters[partId] = new DirectRawFileWriter(context.getConf(), null, spillSchema, intermediateMeta,
+            spillPaths[partId]);
+        spillWriters[partId].init();
+      }
+
+      int tupleIdx = 0;
+      for (; tupleIdx < groupingKeyNum; tupleIdx++) {
+        outTuple.put(tupleIdx, keyTuple.asDatum(tupleIdx));
+      }
+      for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+        outTuple.put(tupleIdx, getPartialResult(entry.getValue(), funcIdx));
+      }
+      spillWriters[partId].addTuple(outTuple);
+    }
+
+    spilledGroupNum += hashTable.size();
+    clearGroups();
+    estimatedMem = 0;
+  }
+
+  /**
+   * Flush the remaining groups, and queue the partition files of the current level.
+   */
+  private void finishSpill() throws IOException {
+    spill();
+    for (int i = 0; i < fanout; i++) {
+      if (spillWriters[i] != null) {
+        spillWriters[i].close();
+        pendingPartitions.push(new SpilledPartition(spillPaths[i], level + 1));
+      }
+    }
+    spillWriters = null;
+    spillPaths = null;
+  }
+
+  private void mergePartialResults(Tuple partialTuple) throws IOException {
+    KeyTuple keyTuple = spillKeyProjector.project(partialTuple);
+
+    Integer group = hashTable.get(keyTuple);
+    boolean newGroup = group == null;
+    if (newGroup) {
+      group = newGroup();
+      hashTable.put(keyTuple, group);
+    }
+
+    for(int i = 0; i < aggFunctionsNum; i++) {
+      mergePartialResult(group, i, partialTuple.asDatum(groupingKeyNum + i));
+    }
+
+    if (newGroup) {
+      estimatedMem += estimateEntrySize(keyTuple);
+      if (estimatedMem > spillThreshold && level <= HashSpillContext.MAX_LEVEL) {
+        spill();
+      }
+    }
+  }
+
+  /**
+   * Load the partial results of the next spilled partition into the hash table.
+   *
+   * @return false if there is no more partition
+   */
+  private boolean loadNextPartition() throws IOException {
+    if (pendingPartitions.isEmpty()) {
+      return false;
+    }
+    clearGroups();
+
+    while (!context.isStopped() && !pendingPartitions.isEmpty()) {
+      SpilledPartition partition = pendingPartitions.pop();
+      level = partition.level;
+      estimatedMem = 0;
+
+      FileFragment fragment = new FileFragment("", partition.path, 0, new File(partition.path.toUri()).length());
+      Scanner scanner = TablespaceManager.getLocalFs().getScanner(intermediateMeta, spillSchema, fragment,
+          spillSchema);
+      scanner.init();
+      try {
+        Tuple partialTuple;
+        while (!context.isStopped() && (partialTuple = scanner.next()) != null) {
+          mergePartialResults(partialTuple);
+        }
+      } finally {
+        scanner.close();
+      }
+
+      if (spillWriters != null) { // repartitioned
+        finishSpill();
+        spillContext.deleteFile(partition.path);
+      } else {
+        mergedPartitions.add(partition);
+        return true;
       }
-      hashTable.put(null, contexts);
     }
+    return false;
   }
 
   @Override
@@ -87,37 +398,70 @@ public class HashAggregateExec extends AggregationExec {
       computed = true;
     }
 
-    FunctionContext [] contexts;
-
-    if (iterator.hasNext()) {
-      Entry<KeyTuple, FunctionContext []> entry = iterator.next();
-      Tuple keyTuple = entry.getKey();
-      contexts =  entry.getValue();
-
-      int tupleIdx = 0;
-      for (; tupleIdx < groupingKeyNum; tupleIdx++) {
-        tuple.put(tupleIdx, keyTuple.asDatum(tupleIdx));
-      }
-      for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
-        tuple.put(tupleIdx, aggFunctions.get(funcIdx).terminate(contexts[funcIdx]));
+    while (!iterator.hasNext()) {
+      if (!loadNextPartition()) {
+        return null;
       }
+      iterator = hashTable.entrySet().iterator();
+    }
 
-      return tuple;
-    } else {
-      return null;
+    Entry<KeyTuple, Integer> entry = iterator.next();
+    Tuple keyTuple = entry.getKey();
+    int group = entry.getValue();
+
+    int tupleIdx = 0;
+    for (; tupleIdx < groupingKeyNum; tupleIdx++) {
+      tuple.put(tupleIdx, keyTuple.asDatum(tupleIdx));
+    }
+    for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+      tuple.put(tupleIdx, terminate(group, funcIdx));
     }
+
+    return tuple;
   }
 
   @Override
   public void rescan() throws IOException {
+    if (!mergedPartitions.isEmpty()) {
+      // all groups are in the spilled partitions. They are loaded again in the same order.
+      for (int i = mergedPartitions.size() - 1; i >= 0; i--) {
+        pendingPartitions.push(mergedPartitions.get(i));
+      }
+      mergedPartitions.clear();
+      clearGroups();
+    }
     iterator = hashTable.entrySet().iterator();
   }
 
   @Override
   public void close() throws IOException {
+    if (spilledGroupNum > 0) {
+      info(LOG, spilledGroupNum + " partial results of groups were spilled");
+    }
+    if (spillWriters != null) {
+      for (int i = 0; i < fanout; i++) {
+        IOUtils.cleanup(LOG, spillWriters[i]);
+        spillContext.deleteFile(spillPaths[i]);
+      }
+      spillWriters = null;
+    }
+    for (SpilledPartition partition : pendingPartitions) {
+      spillContext.deleteFile(partition.path);
+    }
+    for (SpilledPartition partition : mergedPartitions) {
+      spillContext.deleteFile(partition.path);
+    }
+    pendingPartitions.clear();
+    mergedPartitions.clear();
+
     super.close();
     hashTable.clear();
     hashTable = null;
     iterator = null;
+    if (binaryStates != null) {
+      binaryStates.release();
+      binaryStates = null;
+    }
+    contextStates = null;
   }
 }
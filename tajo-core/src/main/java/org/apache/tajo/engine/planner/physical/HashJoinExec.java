@@ -18,9 +18,13 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.SessionVars;
 import org.apache.tajo.algebra.JoinType;
+import org.apache.tajo.engine.utils.CacheHolder;
+import org.apache.tajo.engine.utils.TableCacheKey;
 import org.apache.tajo.plan.logical.JoinNode;
 import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.worker.ExecutionBlockSharedResource;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
@@ -30,10 +34,83 @@ public class HashJoinExec extends CommonHashJoinExec<TupleList> {
 
   private final boolean isCrossJoin;
 
+  // JoinHashTable is used instead of TupleMap if all join keys are fixed-width integral values.
+  private final boolean useJoinHashTable;
+  private JoinHashTable joinHashTable;
+  private JoinHashTable.Matches matches;
+  private boolean joinHashTableFromCache;
+
   public HashJoinExec(TaskAttemptContext context, JoinNode plan, PhysicalExec leftExec,
       PhysicalExec rightExec) {
     super(context, plan, leftExec, rightExec);
     isCrossJoin = plan.getJoinType().equals(JoinType.CROSS);
+    useJoinHashTable = !isCrossJoin && JoinHashTable.isSupported(leftKeyList, rightKeyList);
+  }
+
+  @Override
+  protected void loadRightToHashTable() throws IOException {
+    if (!useJoinHashTable) {
+      super.loadRightToHashTable();
+      return;
+    }
+
+    ScanExec scanExec = PhysicalPlanUtil.findExecutor(rightChild, ScanExec.class);
+    if (scanExec.canBroadcast()) {
+      /* If this table can broadcast, all tasks in a node will share the same cache */
+      TableCacheKey key = CacheHolder.BroadcastCacheHolder.getCacheKey(context, scanExec,
+          JoinHashTable.class.getSimpleName(), rightKeyList);
+      ExecutionBlockSharedResource sharedResource = context.getSharedResource();
+
+      CacheHolder<JoinHashTable> holder;
+      synchronized (sharedResource.getLock()) {
+        if (sharedResource.hasBroadcastCache(key)) {
+          holder = sharedResource.getBroadcastCache(key);
+        } else {
+          JoinHashTable built = buildRightToJoinHashTable();
+          holder = new CacheHolder.BroadcastCacheHolder<>(built, rightChild.getInputStats(), built);
+          sharedResource.addBroadcastCache(key, holder);
+        }
+      }
+      this.tableStatsOfCachedRightChild = holder.getTableStats();
+      this.joinHashTable = holder.getData();
+      this.joinHashTableFromCache = true;
+    } else {
+      this.joinHashTable = buildRightToJoinHashTable();
+      this.joinHashTableFromCache = false;
+    }
+
+    int [] leftKeyIds = new int[leftKeyList.length];
+    for (int i = 0; i < leftKeyList.length; i++) {
+      leftKeyIds[i] = leftSchema.getColumnId(leftKeyList[i].getQualifiedName());
+    }
+    this.matches = new JoinHashTable.Matches(joinHashTable, leftKeyIds);
+    first = false;
+  }
+
+  protected JoinHashTable buildRightToJoinHashTable() throws IOException {
+    Tuple tuple;
+    JoinHashTable table = new JoinHashTable(rightSchema, rightKeyList,
+        context.getQueryContext().getInt(SessionVars.JOIN_HASH_TABLE_SIZE));
+
+    while (!context.isStopped() && (tuple = rightChild.next()) != null) {
+      table.put(tuple); // rows having null join keys are filtered out
+    }
+    return table;
+  }
+
+  /**
+   * Find right tuples matched to the join keys of the given left tuple.
+   *
+   * @return matched right tuples, or null if there is no matched tuple
+   */
+  protected Iterable<Tuple> getMatchedRight(Tuple leftTuple) {
+    if (useJoinHashTable) {
+      return matches.find(leftTuple);
+    } else if (isCrossJoin) {
+      return tupleSlots.get(null);
+    } else {
+      return tupleSlots.get(leftKeyExtractor.project(leftTuple));
+    }
   }
 
   @Override
@@ -63,12 +140,7 @@ public class HashJoinExec extends CommonHashJoinExec<TupleList> {
       frameTuple.setLeft(leftTuple);
 
       // getting corresponding right
-      Iterable<Tuple> hashed;
-      if (!isCrossJoin) {
-        hashed = tupleSlots.get(leftKeyExtractor.project(leftTuple));
-      } else {
-        hashed = tupleSlots.get(null);
-      }
+      Iterable<Tuple> hashed = getMatchedRight(leftTuple);
       Iterator<Tuple> rightTuples = rightFiltered(hashed);
       if (rightTuples.hasNext()) {
         iterator = rightTuples;
@@ -77,4 +149,16 @@ public class HashJoinExec extends CommonHashJoinExec<TupleList> {
 
     return null;
   }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    if (joinHashTable != null) {
+      if (!joinHashTableFromCache) {
+        joinHashTable.release();
+      }
+      joinHashTable = null;
+      matches = null;
+    }
+  }
 }
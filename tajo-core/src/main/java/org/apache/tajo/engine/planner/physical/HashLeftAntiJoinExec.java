@@ -71,7 +71,7 @@ public class HashLeftAntiJoinExec extends HashJoinExec {
       frameTuple.setLeft(leftTuple);
 
       // Try to find a hash bucket in in-memory hash table
-      TupleList hashed = tupleSlots.get(leftKeyExtractor.project(leftTuple));
+      Iterable<Tuple> hashed = getMatchedRight(leftTuple);
       if (hashed == null || !rightFiltered(hashed).hasNext()) {
         iterator = nullTupleList.iterator();
       }
@@ -23,6 +23,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.SessionVars;
 import org.apache.tajo.catalog.CatalogUtil;
 import org.apache.tajo.catalog.Column;
@@ -30,20 +32,31 @@ import org.apache.tajo.catalog.SchemaUtil;
 import org.apache.tajo.catalog.TableMeta;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.exception.TajoRuntimeException;
 import org.apache.tajo.exception.UnsupportedException;
 import org.apache.tajo.plan.logical.ShuffleFileWriteNode;
+import org.apache.tajo.pullserver.PullServerConstants;
+import org.apache.tajo.pullserver.PullServerUtil.PullServerRequestURIBuilder;
 import org.apache.tajo.storage.HashShuffleAppenderManager;
+import org.apache.tajo.storage.ShuffleCombiner;
+import org.apache.tajo.storage.SortedHashShuffleWriter;
+import org.apache.tajo.storage.StorageConstants;
+import org.apache.tajo.storage.StorageUtil;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.tuple.memory.MemoryRowBlock;
 import org.apache.tajo.tuple.memory.RowBlock;
 import org.apache.tajo.tuple.memory.RowWriter;
+import org.apache.tajo.tuple.memory.UnSafeTupleList;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -72,6 +85,25 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
   private final DataType[] dataTypes;
 
   private final Map<Integer, MemoryRowBlock> partitionMemoryMap;
+  // the push request uris of partitions, which are pushed to their mergers instead of being written to local disks
+  private final Map<Integer, URI> pushUris;
+  private final List<String> pushMergers;
+  private final int maxPushPageSize;
+  // a filter of shuffle keys to be applied before the shuffle
+  private RuntimeJoinFilter runtimeJoinFilter;
+  // a filter of shuffle keys to be built from all the shuffled tuples
+  private RuntimeJoinFilter collectedJoinFilter;
+  // combines the output rows of this task with those of the other tasks in the worker
+  private final ShuffleCombiner combiner;
+  // the output rows to be combined when this task is finished
+  private UnSafeTupleList combineBuffer;
+  private int[] combinePartIds;
+  // writes the output rows of this task into a single file sorted by partition
+  private final boolean sortEnabled;
+  private SortedHashShuffleWriter sortedWriter;
+  // the output rows to be sorted by partition when the buffer is full or this task is finished
+  private UnSafeTupleList sortBuffer;
+  private int[] sortPartIds;
   private long writtenBytes = 0;
   private long usedBufferSize = 0;
   private long totalBufferCapacity = 0;
@@ -86,6 +118,11 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
     } else {
       this.meta = CatalogUtil.newTableMeta(plan.getStorageType(), context.getConf());
     }
+    // the pages of raw files can be compressed, and they are decompressed by the scanners of the next stage
+    String codec = context.getQueryContext().get(SessionVars.HASH_SHUFFLE_COMPRESSION_CODEC);
+    if (!codec.isEmpty() && BuiltinStorages.RAW.equalsIgnoreCase(plan.getStorageType())) {
+      this.meta.putProperty(StorageConstants.COMPRESSION_CODEC, codec);
+    }
     // about the shuffle
     this.numShuffleOutputs = this.plan.getNumOutputs();
     int i = 0;
@@ -109,11 +146,62 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
     }
 
     this.partitionMemoryMap = Maps.newHashMap();
+
+    if (context.getQueryContext().getBool(SessionVars.HASH_SHUFFLE_PUSH_ENABLED)) {
+      this.pushMergers = context.getQueryContext().getHashShufflePushMergers();
+    } else {
+      this.pushMergers = Collections.emptyList();
+    }
+    this.pushUris = Maps.newHashMap();
+    this.maxPushPageSize = context.getConf().getIntVar(ConfVars.SHUFFLE_HASH_PUSH_PAGE_MAX_SIZE) * StorageUnit.MB;
+
+    if (context.getQueryContext().getBool(SessionVars.HASH_SHUFFLE_COMBINER_ENABLED) && !isPushed()
+        && PartialAggregationCombiner.isCombinable(child, shuffleKeyIds)) {
+      this.combiner = new PartialAggregationCombiner((AggregationExec) child);
+    } else {
+      this.combiner = null;
+    }
+
+    this.sortEnabled = context.getQueryContext().getBool(SessionVars.HASH_SHUFFLE_SORT_ENABLED) && !isPushed()
+        && combiner == null;
+
+    if (context.isCollectingRuntimeJoinFilter()) {
+      this.collectedJoinFilter = new RuntimeJoinFilter(
+          context.getQueryContext().getInt(SessionVars.RUNTIME_JOIN_FILTER_SIZE) * StorageUnit.KB);
+      this.collectedJoinFilter.bind(shuffleKeyIds);
+    }
+  }
+
+  public int [] getShuffleKeyIds() {
+    return shuffleKeyIds;
+  }
+
+  /**
+   * Set a filter to remove the tuples of which shuffle keys do not match any tuple of the other side of a join.
+   * The filter should be bound to the shuffle key ids.
+   */
+  public void setRuntimeJoinFilter(RuntimeJoinFilter runtimeJoinFilter) {
+    this.runtimeJoinFilter = runtimeJoinFilter;
   }
 
   @Override
   public void init() throws IOException {
     super.init();
+    if (combiner != null) {
+      combineBuffer = new UnSafeTupleList(dataTypes, initialBufferSize);
+      combinePartIds = new int[initialBufferSize];
+    }
+    if (sortEnabled) {
+      sortBuffer = new UnSafeTupleList(dataTypes, initialBufferSize);
+      sortPartIds = new int[initialBufferSize];
+      sortedWriter = new SortedHashShuffleWriter(context.getConf(), context.getTaskId(), meta, outSchema,
+          StorageUtil.concatPath(context.getWorkDir(), SortedHashShuffleWriter.DIR_NAME), numShuffleOutputs,
+          MAXIMUM_INITIAL_BUFFER_SIZE);
+    }
+  }
+
+  boolean isCombined() {
+    return combiner != null;
   }
 
   @Override
@@ -123,46 +211,36 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
       int partId;
       long numRows = 0;
       while (!context.isStopped() && (tuple = child.next()) != null) {
+        if (runtimeJoinFilter != null && !runtimeJoinFilter.mightContain(tuple)) {
+          continue;
+        }
+        if (collectedJoinFilter != null) {
+          collectedJoinFilter.add(tuple);
+        }
 
         partId = partitioner.getPartition(tuple);
-        MemoryRowBlock rowBlock = partitionMemoryMap.get(partId);
-        if (rowBlock == null) {
-          rowBlock = new MemoryRowBlock(dataTypes, initialBufferSize, true, plan.getStorageType());
-          partitionMemoryMap.put(partId, rowBlock);
-          totalBufferCapacity += rowBlock.capacity();
+        numRows++;
+        if (combiner != null) {
+          addToCombineBuffer(partId, tuple);
+        } else if (sortEnabled) {
+          addToSortBuffer(partId, tuple);
+        } else {
+          addToPartition(partId, tuple);
         }
+      }
 
-        RowWriter writer = rowBlock.getWriter();
-        long prevUsedMem = rowBlock.usedMem();
-        totalBufferCapacity -= rowBlock.capacity();
-
-        writer.addTuple(tuple);
-        numRows++;
+      // the rows of a stopped task should not be combined with the rows of the other tasks
+      if (combiner != null && !context.isStopped()) {
+        writtenBytes += combineBuffer.usedMem();
+        hashShuffleAppenderManager.combinePartitions(context.getTaskId().getTaskId().getExecutionBlockId(), meta,
+            outSchema, combiner, combinePartIds, combineBuffer);
+        combineBuffer.clear();
+      }
 
-        totalBufferCapacity += rowBlock.capacity(); // calculate resizeable buffer capacity
-        usedBufferSize += (rowBlock.usedMem() - prevUsedMem);
-
-        // if total buffer capacity are required more than maxBufferSize,
-        // all partitions are flushed and the buffers are released
-        if (totalBufferCapacity > maxBufferSize) {
-          if (LOG.isDebugEnabled()) {
-            LOG.debug(String.format("Too low buffer usage. threshold: %s, total capacity: %s, used: %s",
-                FileUtil.humanReadableByteCount(maxBufferSize, false),
-                FileUtil.humanReadableByteCount(totalBufferCapacity, false),
-                FileUtil.humanReadableByteCount(usedBufferSize, false)));
-          }
-
-          //flush and release buffer
-          flushBuffer(partitionMemoryMap, true);
-          writtenBytes += usedBufferSize;
-          totalBufferCapacity = usedBufferSize = 0;
-
-        } else if (usedBufferSize > bufferThreshold) {
-          //flush and reuse buffer
-          flushBuffer(partitionMemoryMap, false);
-          writtenBytes += usedBufferSize;
-          usedBufferSize = 0;
-        }
+      if (sortEnabled && !context.isStopped()) {
+        spillSortBuffer();
+        hashShuffleAppenderManager.addSortedPartitions(context.getTaskId().getTaskId().getExecutionBlockId(),
+            sortedWriter.finish());
       }
 
       // flush remaining buffers
@@ -174,6 +252,9 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
       aggregated.setNumBytes(writtenBytes);
       aggregated.setNumRows(numRows);
       context.setResultStats(aggregated);
+      if (collectedJoinFilter != null) {
+        context.setCollectedRuntimeJoinFilter(collectedJoinFilter);
+      }
 
       return null;
     } catch (RuntimeException e) {
@@ -185,6 +266,99 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
     }
   }
 
+  /**
+   * Buffer a row in the memory of its partition, and flush the buffers to the storage if they are full
+   */
+  private void addToPartition(int partId, Tuple tuple)
+      throws IOException, ExecutionException, InterruptedException {
+    MemoryRowBlock rowBlock = partitionMemoryMap.get(partId);
+    if (rowBlock == null) {
+      rowBlock = new MemoryRowBlock(dataTypes, initialBufferSize, true, plan.getStorageType());
+      partitionMemoryMap.put(partId, rowBlock);
+      totalBufferCapacity += rowBlock.capacity();
+    }
+
+    RowWriter writer = rowBlock.getWriter();
+    long prevUsedMem = rowBlock.usedMem();
+    totalBufferCapacity -= rowBlock.capacity();
+
+    writer.addTuple(tuple);
+
+    totalBufferCapacity += rowBlock.capacity(); // calculate resizeable buffer capacity
+    usedBufferSize += (rowBlock.usedMem() - prevUsedMem);
+
+    // a pushed page should not exceed the request size limit of the merger
+    if (isPushed() && rowBlock.usedMem() >= maxPushPageSize) {
+      long pushedSize = rowBlock.usedMem();
+      writePartition(partId, rowBlock, false).get();
+      writtenBytes += pushedSize;
+      usedBufferSize -= pushedSize;
+    }
+
+    // if total buffer capacity are required more than maxBufferSize,
+    // all partitions are flushed and the buffers are released
+    if (totalBufferCapacity > maxBufferSize) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(String.format("Too low buffer usage. threshold: %s, total capacity: %s, used: %s",
+            FileUtil.humanReadableByteCount(maxBufferSize, false),
+            FileUtil.humanReadableByteCount(totalBufferCapacity, false),
+            FileUtil.humanReadableByteCount(usedBufferSize, false)));
+      }
+
+      //flush and release buffer
+      flushBuffer(partitionMemoryMap, true);
+      writtenBytes += usedBufferSize;
+      totalBufferCapacity = usedBufferSize = 0;
+
+    } else if (usedBufferSize > bufferThreshold) {
+      //flush and reuse buffer
+      flushBuffer(partitionMemoryMap, false);
+      writtenBytes += usedBufferSize;
+      usedBufferSize = 0;
+    }
+  }
+
+  /**
+   * Buffer a row to be combined. If the buffer is full, the buffered rows are written as rows of this task
+   * so that they can be excluded if this task fails.
+   */
+  private void addToCombineBuffer(int partId, Tuple tuple)
+      throws IOException, ExecutionException, InterruptedException {
+    if (combineBuffer.size() == combinePartIds.length) {
+      combinePartIds = Arrays.copyOf(combinePartIds, combinePartIds.length * 2);
+    }
+    combinePartIds[combineBuffer.size()] = partId;
+    combineBuffer.addTuple(tuple);
+
+    if (combineBuffer.usedMem() > maxBufferSize) {
+      for (int i = 0; i < combineBuffer.size(); i++) {
+        addToPartition(combinePartIds[i], combineBuffer.get(i));
+      }
+      combineBuffer.clear();
+    }
+  }
+
+  /**
+   * Buffer a row to be sorted by partition. If the buffer is full, the buffered rows are spilled as a sorted run.
+   */
+  private void addToSortBuffer(int partId, Tuple tuple) throws IOException {
+    if (sortBuffer.size() == sortPartIds.length) {
+      sortPartIds = Arrays.copyOf(sortPartIds, sortPartIds.length * 2);
+    }
+    sortPartIds[sortBuffer.size()] = partId;
+    sortBuffer.addTuple(tuple);
+
+    if (sortBuffer.usedMem() > maxBufferSize) {
+      spillSortBuffer();
+    }
+  }
+
+  private void spillSortBuffer() throws IOException {
+    writtenBytes += sortBuffer.usedMem();
+    sortedWriter.spill(sortPartIds, sortBuffer);
+    sortBuffer.clear();
+  }
+
   /**
    * flush all buffer to local storage
    */
@@ -199,8 +373,7 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
       MemoryRowBlock memoryRowBlock = entry.getValue();
       if (memoryRowBlock.getMemory().isReadable()) {
         //flush and release buffer
-        resultList.add(hashShuffleAppenderManager.
-            writePartitions(meta, outSchema, context.getTaskId(), appendPartId, memoryRowBlock, releaseBuffer));
+        resultList.add(writePartition(appendPartId, memoryRowBlock, releaseBuffer));
       } else {
         if (releaseBuffer) {
           memoryRowBlock.release();
@@ -226,6 +399,40 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
     }
   }
 
+  private boolean isPushed() {
+    return !pushMergers.isEmpty();
+  }
+
+  private Future<MemoryRowBlock> writePartition(int partId, MemoryRowBlock rowBlock, boolean releaseBuffer)
+      throws IOException {
+    if (isPushed()) {
+      return hashShuffleAppenderManager.pushPartitions(meta, context.getTaskId(), partId, getPushUri(partId),
+          rowBlock, releaseBuffer);
+    } else {
+      return hashShuffleAppenderManager.
+          writePartitions(meta, outSchema, context.getTaskId(), partId, rowBlock, releaseBuffer);
+    }
+  }
+
+  private URI getPushUri(int partId) {
+    URI uri = pushUris.get(partId);
+    if (uri == null) {
+      String merger = pushMergers.get(partId % pushMergers.size());
+      int delimiter = merger.lastIndexOf(':');
+      ExecutionBlockId ebId = context.getTaskId().getTaskId().getExecutionBlockId();
+      uri = new PullServerRequestURIBuilder(merger.substring(0, delimiter), merger.substring(delimiter + 1),
+          context.getConf().getIntVar(ConfVars.PULLSERVER_FETCH_URL_MAX_LENGTH))
+          .setRequestType(PullServerConstants.PUSH_REQUEST_PARAM_STRING)
+          .setShuffleType(PullServerConstants.HASH_SHUFFLE_PARAM_STRING)
+          .setQueryId(ebId.getQueryId().toString())
+          .setEbId(ebId.getId())
+          .setPartId(partId)
+          .build(false).get(0);
+      pushUris.put(partId, uri);
+    }
+    return uri;
+  }
+
   @Override
   public void rescan() throws IOException {
     throw new TajoRuntimeException(new UnsupportedException());
@@ -233,6 +440,18 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
 
   @Override
   public void close() throws IOException{
+    if (combineBuffer != null) {
+      combineBuffer.release();
+      combineBuffer = null;
+    }
+    if (sortBuffer != null) {
+      sortBuffer.release();
+      sortBuffer = null;
+    }
+    if (sortedWriter != null) {
+      sortedWriter.close();
+      sortedWriter = null;
+    }
     if (partitionMemoryMap.size() > 0) {
       for (RowBlock rowBlock : partitionMemoryMap.values()) {
         rowBlock.release();
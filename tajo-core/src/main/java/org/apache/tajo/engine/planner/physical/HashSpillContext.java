@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.hadoop.fs.LocalDirAllocator;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+
+import java.io.IOException;
+
+/**
+ * Hash partitions the keys of an operator which spills to the worker temporal dirs, and manages its spill files.
+ * A spilled partition is partitioned again with the hash function of the next level until {@link #MAX_LEVEL}.
+ */
+class HashSpillContext {
+  /** the maximum level of recursive partitioning */
+  static final int MAX_LEVEL = 3;
+
+  private final TajoConf conf;
+  private final int fanout;
+  private final String filePrefix;
+  private final LocalDirAllocator localDirAllocator;
+  private final RawLocalFileSystem localFS;
+  private int fileSeq;
+
+  HashSpillContext(TajoConf conf, Path tmpDir, String fileName, int fanout) {
+    this.conf = conf;
+    this.fanout = fanout;
+    this.filePrefix = tmpDir + "/" + fileName + "_";
+    this.localDirAllocator = new LocalDirAllocator(ConfVars.WORKER_TEMPORAL_DIR.varname);
+    this.localFS = new RawLocalFileSystem();
+  }
+
+  /**
+   * A different hash function is used for each level so that a spilled partition can be split recursively.
+   */
+  int partitionOf(KeyTuple key, int level) {
+    int h = key.hashCode() + level * 0x9E3779B9;
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return (h & Integer.MAX_VALUE) % fanout;
+  }
+
+  /**
+   * Returns the path of a new spill file in one of the worker temporal dirs.
+   */
+  Path getPathForWrite() throws IOException {
+    return localFS.makeQualified(localDirAllocator.getLocalPathForWrite(filePrefix + fileSeq++, conf));
+  }
+
+  void deleteFile(Path path) throws IOException {
+    if (path != null) {
+      localFS.delete(path, false);
+    }
+  }
+}
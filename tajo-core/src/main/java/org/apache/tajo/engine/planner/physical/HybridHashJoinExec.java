@@ -0,0 +1,504 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaUtil;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.plan.logical.JoinNode;
+import org.apache.tajo.storage.Scanner;
+import org.apache.tajo.storage.TablespaceManager;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
+import org.apache.tajo.tuple.memory.UnSafeTupleList;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.FileUtil;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * HybridHashJoinExec is an inner hash join which does not require the right (build) relation to fit in memory.
+ *
+ * Build tuples are divided into partitions by the hash values of their join keys. The partitions are kept in memory
+ * as long as the memory budget allows. Whenever the budget is exceeded, the largest in-memory partition is spilled
+ * to the worker temporal dirs. Left (probe) tuples which belong to in-memory partitions are joined immediately, and
+ * the others are spilled to the files paired with the spilled build partitions.
+ *
+ * After the left relation is consumed, each pair of spilled partitions is joined in the same way, but with a
+ * different hash function so that a pair which still does not fit in memory is split recursively. When the
+ * recursion reaches the maximum level, which means that the pair is skewed to a few join keys, it is joined in a
+ * block nested loop manner; the build partition is loaded block by block and the probe partition is rescanned
+ * for each block.
+ */
+public class HybridHashJoinExec extends CommonJoinExec {
+  private static final Log LOG = LogFactory.getLog(HybridHashJoinExec.class);
+
+  private final long memoryBudget;
+  private final int fanout;
+  private final DataType[] rightTypes;
+  private final TableMeta intermediateMeta;
+  private final HashSpillContext spillContext;
+
+  /** the current partitions. It is null while a skewed pair is joined in a block nested loop manner. */
+  private Partition[] partitions;
+  /** the current level of partitioning */
+  private int level;
+  /** hash table on the in-memory build tuples */
+  private final TupleMap<List<Tuple>> hashTable = new TupleMap<>();
+  /** the source of probe tuples. If it is null, probe tuples are read from the left child. */
+  private Scanner probeScanner;
+  /** the spilled probe file being read by probeScanner */
+  private Path probePath;
+  /** pairs of spilled partitions to be joined later */
+  private final Deque<SpilledPair> pendingPairs = new ArrayDeque<>();
+
+  /** a skewed pair being joined in a block nested loop manner */
+  private SpilledPair blockPair;
+  private Scanner blockScanner;
+  private UnSafeTupleList blockRows;
+
+  private boolean first = true;
+  private boolean finished;
+  private Iterator<Tuple> iterator;
+
+  // for stats
+  private long spilledPartitionNum;
+
+  public HybridHashJoinExec(TaskAttemptContext context, JoinNode plan, PhysicalExec leftExec,
+                            PhysicalExec rightExec) {
+    super(context, plan, leftExec, rightExec);
+
+    SessionVars limitVar = context.getQueryContext().containsKey(SessionVars.INNER_HASH_JOIN_SIZE_LIMIT) ?
+        SessionVars.INNER_HASH_JOIN_SIZE_LIMIT : SessionVars.HASH_JOIN_SIZE_LIMIT;
+    // a zero budget keeps at most a single build tuple in memory, which is useful for testing.
+    this.memoryBudget = context.getQueryContext().getLong(limitVar) * StorageUnit.MB;
+    this.fanout = Math.max(2, context.getConf().getIntVar(ConfVars.EXECUTOR_HYBRID_HASH_JOIN_FANOUT));
+    this.rightTypes = SchemaUtil.toDataTypes(rightSchema);
+    this.intermediateMeta = CatalogUtil.newTableMeta(BuiltinStorages.DRAW, context.getConf());
+    this.spillContext = new HashSpillContext(context.getConf(), getExecutorTmpDir(), "hybrid_hash_join", fanout);
+  }
+
+  /**
+   * A partition keeps its build tuples in memory until it is spilled.
+   */
+  private class Partition {
+    /** in-memory build tuples. It is allocated lazily because each memory page is large. */
+    UnSafeTupleList rows;
+    Path buildPath;
+    DirectRawFileWriter buildWriter;
+    Path probePath;
+    DirectRawFileWriter probeWriter;
+
+    boolean isSpilled() {
+      return buildPath != null;
+    }
+
+    long usedMem() {
+      return rows == null ? 0 : rows.usedMem();
+    }
+
+    void addBuild(Tuple tuple) throws IOException {
+      if (isSpilled()) {
+        buildWriter.addTuple(tuple);
+      } else {
+        if (rows == null) {
+          rows = new UnSafeTupleList(rightTypes, 16);
+        }
+        rows.addTuple(tuple);
+      }
+    }
+
+    void addProbe(Tuple tuple) throws IOException {
+      if (probeWriter == null) {
+        probePath = spillContext.getPathForWrite();
+        probeWriter = new DirectRawFileWriter(context.getConf(), null, leftSchema, intermediateMeta, probePath);
+        probeWriter.init();
+      }
+      probeWriter.addTuple(tuple);
+    }
+
+    void spill() throws IOException {
+      buildPath = spillContext.getPathForWrite();
+      buildWriter = new DirectRawFileWriter(context.getConf(), null, rightSchema, intermediateMeta, buildPath);
+      buildWriter.init();
+      if (rows != null) {
+        for (Tuple tuple : rows) {
+          buildWriter.addTuple(tuple);
+        }
+      }
+      release();
+      spilledPartitionNum++;
+    }
+
+    void release() {
+      if (rows != null) {
+        rows.release();
+        rows = null;
+      }
+    }
+
+    void cleanup() throws IOException {
+      release();
+      IOUtils.cleanup(LOG, buildWriter, probeWriter);
+      buildWriter = probeWriter = null;
+      spillContext.deleteFile(buildPath);
+      spillContext.deleteFile(probePath);
+    }
+  }
+
+  /**
+   * A pair of spilled build and probe partitions
+   */
+  private static class SpilledPair {
+    final Path buildPath;
+    final Path probePath;
+    final int level;
+
+    SpilledPair(Path buildPath, Path probePath, int level) {
+      this.buildPath = buildPath;
+      this.probePath = probePath;
+      this.level = level;
+    }
+  }
+
+  private Scanner openScanner(Schema schema, Path path) throws IOException {
+    FileFragment fragment = new FileFragment("", path, 0, new File(path.toUri()).length());
+    Scanner scanner = TablespaceManager.getLocalFs().getScanner(intermediateMeta, schema, fragment, schema);
+    scanner.init();
+    return scanner;
+  }
+
+  private static boolean hasNullKey(KeyTuple key) {
+    for (int i = 0; i < key.size(); i++) {
+      if (key.isBlankOrNull(i)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private long totalUsedMem() {
+    long total = 0;
+    for (Partition partition : partitions) {
+      total += partition.usedMem();
+    }
+    return total;
+  }
+
+  private void spillLargestPartition() throws IOException {
+    Partition largest = null;
+    for (Partition partition : partitions) {
+      if (!partition.isSpilled() && (largest == null || partition.usedMem() > largest.usedMem())) {
+        largest = partition;
+      }
+    }
+    if (largest != null) {
+      debug(LOG, "Spill a hash join partition (" + FileUtil.humanReadableByteCount(largest.usedMem(), false) +
+          ") at level " + level);
+      largest.spill();
+    }
+  }
+
+  private Tuple nextBuildTuple(Scanner buildScanner) throws IOException {
+    if (buildScanner != null) {
+      return buildScanner.next();
+    }
+
+    Tuple tuple;
+    while ((tuple = rightChild.next()) != null) {
+      if (!rightFiltered(tuple)) {
+        return tuple;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Partition build tuples and build the hash table on the partitions which remain in memory.
+   *
+   * @param buildScanner the scanner of a spilled build partition. If it is null, the right child is used.
+   */
+  private void buildPartitions(Scanner buildScanner) throws IOException {
+    partitions = new Partition[fanout];
+    for (int i = 0; i < fanout; i++) {
+      partitions[i] = new Partition();
+    }
+
+    Tuple tuple;
+    while (!context.isStopped() && (tuple = nextBuildTuple(buildScanner)) != null) {
+      KeyTuple key = rightKeyExtractor.project(tuple);
+      if (hasNullKey(key)) { // null keys never match in inner join
+        continue;
+      }
+
+      Partition partition = partitions[spillContext.partitionOf(key, level)];
+      partition.addBuild(tuple);
+      if (!partition.isSpilled() && totalUsedMem() > memoryBudget) {
+        spillLargestPartition();
+      }
+    }
+
+    hashTable.clear();
+    for (Partition partition : partitions) {
+      if (partition.isSpilled()) {
+        partition.buildWriter.close();
+        partition.buildWriter = null;
+      } else if (partition.rows != null) {
+        addToHashTable(partition.rows);
+      }
+    }
+  }
+
+  private void addToHashTable(UnSafeTupleList rows) {
+    for (Tuple tuple : rows) {
+      KeyTuple key = rightKeyExtractor.project(tuple);
+      List<Tuple> bucket = hashTable.get(key);
+      if (bucket == null) {
+        bucket = new ArrayList<>(1);
+        hashTable.put(key, bucket);
+      }
+      bucket.add(tuple);
+    }
+  }
+
+  /**
+   * Close the probe files of the current partitions, and queue the pairs of spilled partitions.
+   */
+  private void finishPartitions() throws IOException {
+    for (Partition partition : partitions) {
+      if (partition.probeWriter != null) {
+        partition.probeWriter.close();
+        partition.probeWriter = null;
+      }
+      if (partition.isSpilled() && partition.probePath != null) {
+        pendingPairs.push(new SpilledPair(partition.buildPath, partition.probePath, level + 1));
+        partition.buildPath = partition.probePath = null;
+      }
+      // inner join has no result if either side of a pair is empty.
+      partition.cleanup();
+    }
+    partitions = null;
+    hashTable.clear();
+  }
+
+  /**
+   * Return the next probe tuple matched against the hash table.
+   * Probe tuples which belong to spilled partitions are written to their probe files.
+   */
+  private Tuple nextProbeTuple() throws IOException {
+    Tuple tuple;
+    while (!context.isStopped()) {
+      if (probeScanner != null) {
+        tuple = probeScanner.next();
+      } else {
+        tuple = leftChild.next();
+        if (tuple != null && leftFiltered(tuple)) {
+          continue;
+        }
+      }
+      if (tuple == null || partitions == null) {
+        return tuple;
+      }
+
+      KeyTuple key = leftKeyExtractor.project(tuple);
+      if (hasNullKey(key)) {
+        continue;
+      }
+      Partition partition = partitions[spillContext.partitionOf(key, level)];
+      if (partition.isSpilled()) {
+        partition.addProbe(tuple);
+      } else {
+        return tuple;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Load the next block of the build partition of a skewed pair into the hash table.
+   *
+   * @return false if the build partition is exhausted
+   */
+  private boolean loadNextBlock() throws IOException {
+    hashTable.clear();
+    blockRows.clear();
+
+    Tuple tuple;
+    while (!context.isStopped() && (blockRows.size() == 0 || blockRows.usedMem() <= memoryBudget)
+        && (tuple = blockScanner.next()) != null) {
+      blockRows.addTuple(tuple);
+    }
+    addToHashTable(blockRows);
+    return blockRows.size() > 0;
+  }
+
+  private void closeBlockPair() throws IOException {
+    IOUtils.cleanup(LOG, blockScanner);
+    blockScanner = null;
+    if (blockRows != null) {
+      blockRows.release();
+      blockRows = null;
+    }
+    spillContext.deleteFile(blockPair.buildPath);
+    spillContext.deleteFile(blockPair.probePath);
+    blockPair = null;
+  }
+
+  /**
+   * Prepare the hash table and the probe source for the next round after all probe tuples of the current round
+   * are consumed.
+   *
+   * @return false if there is no more round
+   */
+  private boolean nextRound() throws IOException {
+    closeProbeScanner();
+
+    if (blockPair != null) {
+      if (loadNextBlock()) {
+        probeScanner = openScanner(leftSchema, blockPair.probePath);
+        return true;
+      }
+      closeBlockPair();
+    } else {
+      finishPartitions();
+    }
+
+    while (!context.isStopped() && !pendingPairs.isEmpty()) {
+      SpilledPair pair = pendingPairs.pop();
+      level = pair.level;
+
+      if (level <= HashSpillContext.MAX_LEVEL) {
+        Scanner buildScanner = openScanner(rightSchema, pair.buildPath);
+        try {
+          buildPartitions(buildScanner);
+        } finally {
+          buildScanner.close();
+        }
+        spillContext.deleteFile(pair.buildPath);
+        probePath = pair.probePath;
+        probeScanner = openScanner(leftSchema, probePath);
+        return true;
+      }
+
+      info(LOG, "Join a skewed hash join partition (" +
+          FileUtil.humanReadableByteCount(new File(pair.buildPath.toUri()).length(), false) +
+          ") in a block nested loop manner");
+      blockPair = pair;
+      blockScanner = openScanner(rightSchema, pair.buildPath);
+      blockRows = new UnSafeTupleList(rightTypes, 16);
+      if (loadNextBlock()) {
+        probeScanner = openScanner(leftSchema, pair.probePath);
+        return true;
+      }
+      closeBlockPair();
+    }
+    return false;
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    if (first) {
+      first = false;
+      level = 0;
+      buildPartitions(null);
+    }
+
+    while (!context.isStopped() && !finished) {
+      if (iterator != null && iterator.hasNext()) {
+        frameTuple.setRight(iterator.next());
+        return projector.eval(frameTuple);
+      }
+
+      Tuple leftTuple = nextProbeTuple();
+      if (leftTuple == null) {
+        finished = !nextRound();
+        continue;
+      }
+
+      List<Tuple> hashed = hashTable.get(leftKeyExtractor.project(leftTuple));
+      if (hashed != null) {
+        frameTuple.setLeft(leftTuple);
+        iterator = hashed.iterator();
+      }
+    }
+
+    return null;
+  }
+
+  private void closeProbeScanner() throws IOException {
+    IOUtils.cleanup(LOG, probeScanner);
+    probeScanner = null;
+    spillContext.deleteFile(probePath);
+    probePath = null;
+  }
+
+  private void cleanup() throws IOException {
+    closeProbeScanner();
+    if (blockPair != null) {
+      closeBlockPair();
+    }
+    if (partitions != null) {
+      for (Partition partition : partitions) {
+        partition.cleanup();
+      }
+      partitions = null;
+    }
+    for (SpilledPair pair : pendingPairs) {
+      spillContext.deleteFile(pair.buildPath);
+      spillContext.deleteFile(pair.probePath);
+    }
+    pendingPairs.clear();
+    hashTable.clear();
+    iterator = null;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    cleanup();
+    super.rescan();
+    first = true;
+    finished = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (spilledPartitionNum > 0) {
+      info(LOG, spilledPartitionNum + " hash join partitions were spilled");
+    }
+    cleanup();
+    super.close();
+  }
+}
@@ -0,0 +1,347 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaUtil;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.tuple.memory.UnSafeTupleList;
+import org.apache.tajo.util.Deallocatable;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * JoinHashTable is a hash table for the build side of hash joins whose join keys are all fixed-width integral
+ * values. Unlike {@link TupleMap}, it does not create any key objects. Join keys are stored in primitive arrays
+ * with open addressing and linear probing, and build rows are copied into off-heap row blocks of
+ * {@link UnSafeTupleList}. Rows with the same join key are chained in their insertion order.
+ *
+ * Rows containing null join keys are never matched, so they are not added.
+ */
+public class JoinHashTable implements Deallocatable {
+  private static final int EMPTY = -1;
+
+  private final int [] keyIds;
+  private final Type [] keyTypes;
+  private final int keyNum;
+  private final UnSafeTupleList rows;
+
+  // open addressing slots, each of which keeps an entry index
+  private int [] slots;
+  private int mask;
+
+  // entries for distinct join keys
+  private long [] entryKeys;
+  private int [] entryHashes;
+  private int [] entryHeads;
+  private int [] entryTails;
+  private int entryNum;
+
+  // the next row having the same join key
+  private int [] nextRows;
+
+  // a working buffer for join keys
+  private final long [] keyBuffer;
+
+  public JoinHashTable(Schema schema, Column [] keyColumns, int initialSize) {
+    this.keyNum = keyColumns.length;
+    this.keyIds = new int[keyNum];
+    this.keyTypes = new Type[keyNum];
+    for (int i = 0; i < keyNum; i++) {
+      keyIds[i] = schema.getColumnId(keyColumns[i].getQualifiedName());
+      keyTypes[i] = keyColumns[i].getDataType().getType();
+    }
+    this.keyBuffer = new long[keyNum];
+
+    int capacity = Math.max(16, initialSize);
+    this.rows = new UnSafeTupleList(SchemaUtil.toDataTypes(schema), capacity);
+
+    int slotNum = Integer.highestOneBit(capacity * 2 - 1) << 1;
+    this.slots = new int[slotNum];
+    Arrays.fill(slots, EMPTY);
+    this.mask = slotNum - 1;
+
+    this.entryKeys = new long[capacity * keyNum];
+    this.entryHashes = new int[capacity];
+    this.entryHeads = new int[capacity];
+    this.entryTails = new int[capacity];
+    this.nextRows = new int[capacity];
+  }
+
+  /**
+   * Check if the given join keys can be stored in JoinHashTable.
+   * Both sides must have the same fixed-width types so that their values are compared as long values.
+   */
+  public static boolean isSupported(Column [] leftKeys, Column [] rightKeys) {
+    if (leftKeys == null || leftKeys.length == 0 || leftKeys.length != rightKeys.length) {
+      return false;
+    }
+    for (int i = 0; i < leftKeys.length; i++) {
+      Type type = leftKeys[i].getDataType().getType();
+      if (type != rightKeys[i].getDataType().getType() || !isSupportedType(type)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isSupportedType(Type type) {
+    switch (type) {
+    case INT2:
+    case INT4:
+    case INT8:
+    case DATE:
+    case TIME:
+    case TIMESTAMP:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static long getKey(Tuple tuple, int fieldId, Type type) {
+    switch (type) {
+    case INT2:
+      return tuple.getInt2(fieldId);
+    case INT4:
+    case DATE:
+      return tuple.getInt4(fieldId);
+    case INT8:
+    case TIME:
+    case TIMESTAMP:
+      return tuple.getInt8(fieldId);
+    default:
+      throw new TajoInternalError("unsupported join key type: " + type.name());
+    }
+  }
+
+  /**
+   * Read join keys into the key buffer.
+   *
+   * @return false if any join key is null
+   */
+  private boolean readKeys(Tuple tuple, int [] fieldIds) {
+    for (int i = 0; i < keyNum; i++) {
+      if (tuple.isBlankOrNull(fieldIds[i])) {
+        return false;
+      }
+      keyBuffer[i] = getKey(tuple, fieldIds[i], keyTypes[i]);
+    }
+    return true;
+  }
+
+  private int hashKeys() {
+    long h = 0;
+    for (int i = 0; i < keyNum; i++) {
+      h = h * 31 + keyBuffer[i];
+    }
+    // murmur3 finalizer
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return (int) h;
+  }
+
+  private boolean keyEquals(int entry) {
+    int offset = entry * keyNum;
+    for (int i = 0; i < keyNum; i++) {
+      if (entryKeys[offset + i] != keyBuffer[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the entry for the join keys in the key buffer.
+   *
+   * @return the slot of the entry, or the empty slot where the entry should be added
+   */
+  private int findSlot(int hash) {
+    int slot = hash & mask;
+    int entry;
+    while ((entry = slots[slot]) != EMPTY) {
+      if (entryHashes[entry] == hash && keyEquals(entry)) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Add a build row. The row is copied into off-heap memory.
+   *
+   * @return false if the row is not added because it has null join keys
+   */
+  public boolean put(Tuple tuple) {
+    if (!readKeys(tuple, keyIds)) {
+      return false;
+    }
+
+    int row = rows.size();
+    rows.addTuple(tuple);
+    if (row == nextRows.length) {
+      nextRows = Arrays.copyOf(nextRows, row * 2);
+    }
+    nextRows[row] = EMPTY;
+
+    int hash = hashKeys();
+    int slot = findSlot(hash);
+    int entry = slots[slot];
+    if (entry == EMPTY) {
+      addEntry(slot, hash, row);
+    } else {
+      nextRows[entryTails[entry]] = row;
+      entryTails[entry] = row;
+    }
+    return true;
+  }
+
+  private void addEntry(int slot, int hash, int row) {
+    if (entryNum == entryHashes.length) {
+      int capacity = entryNum * 2;
+      entryKeys = Arrays.copyOf(entryKeys, capacity * keyNum);
+      entryHashes = Arrays.copyOf(entryHashes, capacity);
+      entryHeads = Arrays.copyOf(entryHeads, capacity);
+      entryTails = Arrays.copyOf(entryTails, capacity);
+    }
+
+    int entry = entryNum++;
+    System.arraycopy(keyBuffer, 0, entryKeys, entry * keyNum, keyNum);
+    entryHashes[entry] = hash;
+    entryHeads[entry] = row;
+    entryTails[entry] = row;
+    slots[slot] = entry;
+
+    if (entryNum * 2 > slots.length) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    Arrays.fill(slots, EMPTY);
+    mask = slots.length - 1;
+    for (int entry = 0; entry < entryNum; entry++) {
+      int slot = entryHashes[entry] & mask;
+      while (slots[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = entry;
+    }
+  }
+
+  /**
+   * Find the first build row matched to the join keys of the given probe tuple.
+   *
+   * @param probe a probe tuple
+   * @param probeKeyIds field ids of join keys in the probe tuple
+   * @return the index of the first matched row, or -1 if there is no matched row
+   */
+  public int find(Tuple probe, int [] probeKeyIds) {
+    if (!readKeys(probe, probeKeyIds)) {
+      return EMPTY;
+    }
+    int entry = slots[findSlot(hashKeys())];
+    return entry == EMPTY ? EMPTY : entryHeads[entry];
+  }
+
+  /**
+   * @return the index of the next row having the same join keys, or -1 if there are no more rows
+   */
+  public int nextRow(int row) {
+    return nextRows[row];
+  }
+
+  public Tuple getRow(int row) {
+    return rows.get(row);
+  }
+
+  /**
+   * @return the number of build rows
+   */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * @return the number of distinct join keys
+   */
+  public int keySize() {
+    return entryNum;
+  }
+
+  @Override
+  public void release() {
+    rows.release();
+  }
+
+  /**
+   * Matches iterates build rows matched to a probe tuple. Since JoinHashTable can be shared by
+   * multiple tasks through the broadcast cache, each operator should have its own Matches.
+   */
+  public static class Matches implements Iterable<Tuple>, Iterator<Tuple> {
+    private final JoinHashTable table;
+    private final int [] probeKeyIds;
+    private int current = EMPTY;
+
+    public Matches(JoinHashTable table, int [] probeKeyIds) {
+      this.table = table;
+      this.probeKeyIds = probeKeyIds;
+    }
+
+    /**
+     * Find build rows matched to the given probe tuple.
+     *
+     * @return this if there are any matched rows, or null
+     */
+    public Matches find(Tuple probe) {
+      current = table.find(probe, probeKeyIds);
+      return current == EMPTY ? null : this;
+    }
+
+    @Override
+    public Iterator<Tuple> iterator() {
+      return this;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return current != EMPTY;
+    }
+
+    @Override
+    public Tuple next() {
+      if (current == EMPTY) {
+        throw new NoSuchElementException();
+      }
+      Tuple tuple = table.getRow(current);
+      current = table.nextRow(current);
+      return tuple;
+    }
+  }
+}
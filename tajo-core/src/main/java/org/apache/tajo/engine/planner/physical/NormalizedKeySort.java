@@ -0,0 +1,366 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.exception.UnsupportedException;
+import org.apache.tajo.tuple.memory.UnSafeTuple;
+import org.apache.tajo.tuple.memory.UnSafeTupleList;
+import org.apache.tajo.util.SizeOf;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Sort with normalized key prefixes.
+ *
+ * The leading sort keys of each tuple are encoded into a 64-bit normalized key whose unsigned order is the same as
+ * the order of the sort keys, including descending orders and the position of nulls. Each key is stored next to
+ * the tuple pointer, so most comparisons become a single long comparison without decoding any field. Because the
+ * keys are plain integers, they can be radix sorted for any column type.
+ *
+ * Text values and the keys which do not fit in 64 bits are truncated. In that case, the tuples having the same
+ * normalized key are sorted again with the given comparator.
+ */
+public class NormalizedKeySort {
+  private static final int KEY_BITS = Long.SIZE;
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final int RADIX_PASSES = KEY_BITS / RADIX_BITS;
+
+  private final int[] sortKeyIds;
+  private final Type[] sortKeyTypes;
+  private final boolean[] asc;
+  private final boolean[] nullFirst;
+  /** the number of sort keys which are fully or partially encoded */
+  private final int encodedKeyNum;
+  /** true if normalized keys decide the order by themselves */
+  private final boolean complete;
+
+  /**
+   * @param schema input schema
+   * @param sortSpecs sort specs
+   */
+  public NormalizedKeySort(Schema schema, SortSpec[] sortSpecs) {
+    this.sortKeyIds = new int[sortSpecs.length];
+    this.sortKeyTypes = new Type[sortSpecs.length];
+    this.asc = new boolean[sortSpecs.length];
+    this.nullFirst = new boolean[sortSpecs.length];
+    for (int i = 0; i < sortSpecs.length; i++) {
+      if (sortSpecs[i].getSortKey().hasQualifier()) {
+        this.sortKeyIds[i] = schema.getColumnId(sortSpecs[i].getSortKey().getQualifiedName());
+      } else {
+        this.sortKeyIds[i] = schema.getColumnIdByName(sortSpecs[i].getSortKey().getSimpleName());
+      }
+      this.asc[i] = sortSpecs[i].isAscending();
+      this.nullFirst[i] = sortSpecs[i].isNullsFirst();
+      this.sortKeyTypes[i] = sortSpecs[i].getSortKey().getDataType().getType();
+    }
+
+    // each sort key takes a null indicator bit and its value bits
+    int usedBits = 0;
+    int keyNum = 0;
+    boolean fit = true;
+    while (keyNum < sortKeyTypes.length && usedBits < KEY_BITS) {
+      int valueBits = getValueBits(sortKeyTypes[keyNum]);
+      usedBits += 1 + (valueBits < 0 ? KEY_BITS : valueBits);
+      fit = valueBits >= 0 && usedBits <= KEY_BITS;
+      keyNum++;
+    }
+    this.encodedKeyNum = keyNum;
+    this.complete = fit && keyNum == sortKeyTypes.length;
+  }
+
+  public static boolean isApplicableType(Type type) {
+    switch (type) {
+      case BOOLEAN:
+      case BIT:
+      case INT1:
+      case INT2:
+      case INT4:
+      case DATE:
+      case INT8:
+      case TIME:
+      case TIMESTAMP:
+      case FLOAT4:
+      case FLOAT8:
+      case CHAR:
+      case TEXT:
+      case BLOB:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * @return the number of bits of a normalized value, or -1 if the value has a variable length.
+   */
+  private static int getValueBits(Type type) {
+    switch (type) {
+      case BOOLEAN:
+        return 1;
+      case BIT:
+        return 8;
+      case INT1:
+      case INT2:
+        return 16;
+      case INT4:
+      case DATE:
+      case FLOAT4:
+        return 32;
+      case INT8:
+      case TIME:
+      case TIMESTAMP:
+      case FLOAT8:
+        return 64;
+      case CHAR:
+      case TEXT:
+      case BLOB:
+        return -1;
+      default:
+        throw new TajoInternalError(new UnsupportedException(type.name()));
+    }
+  }
+
+  /**
+   * Encode the leading sort keys of a tuple into a normalized key. Normalized keys must be compared as unsigned
+   * values. If a key is smaller than another one, the tuple of the former key precedes the latter.
+   *
+   * @param tuple tuple
+   * @return normalized key
+   */
+  long normalizedKey(UnSafeTuple tuple) {
+    long key = 0;
+    int remainBits = KEY_BITS;
+
+    for (int i = 0; i < encodedKeyNum && remainBits > 0; i++) {
+      boolean isNull = tuple.isBlankOrNull(sortKeyIds[i]);
+
+      // null indicator
+      remainBits--;
+      if (isNull != nullFirst[i]) {
+        key |= 1L << remainBits;
+      }
+      if (remainBits == 0) {
+        break;
+      }
+
+      int valueBits = getValueBits(sortKeyTypes[i]);
+      if (valueBits < 0) {
+        // a variable length value takes all the remain bits
+        valueBits = remainBits;
+      }
+
+      long value = isNull ? 0 : normalizedValue(tuple, sortKeyIds[i], sortKeyTypes[i], valueBits);
+      if (!asc[i]) {
+        value = ~value;
+      }
+      if (valueBits < KEY_BITS) {
+        value &= (1L << valueBits) - 1;
+      }
+
+      if (valueBits <= remainBits) {
+        remainBits -= valueBits;
+        key |= value << remainBits;
+      } else {
+        // truncate the lower bits
+        key |= value >>> (valueBits - remainBits);
+        remainBits = 0;
+      }
+    }
+
+    return key;
+  }
+
+  /**
+   * Get an unsigned value of which the order is the same as the ascending order of the field.
+   */
+  private static long normalizedValue(UnSafeTuple tuple, int fieldId, Type type, int valueBits) {
+    switch (type) {
+      case BOOLEAN:
+        return tuple.getBool(fieldId) ? 1 : 0;
+      case BIT:
+        return (tuple.getByte(fieldId) ^ Byte.MIN_VALUE) & 0xFF;
+      case INT1:
+      case INT2:
+        return (tuple.getInt2(fieldId) ^ Short.MIN_VALUE) & 0xFFFF;
+      case INT4:
+      case DATE:
+        return (tuple.getInt4(fieldId) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+      case INT8:
+      case TIME:
+      case TIMESTAMP:
+        return tuple.getInt8(fieldId) ^ Long.MIN_VALUE;
+      case FLOAT4: {
+        // flip all bits of negative values, and only the sign bit of positive values
+        int bits = Float.floatToIntBits(tuple.getFloat4(fieldId));
+        return (bits ^ ((bits >> 31) | Integer.MIN_VALUE)) & 0xFFFFFFFFL;
+      }
+      case FLOAT8: {
+        long bits = Double.doubleToLongBits(tuple.getFloat8(fieldId));
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+      }
+      case CHAR:
+      case TEXT:
+      case BLOB: {
+        // leading bytes in big endian, padded with zeros
+        long addr = tuple.getFieldAddr(fieldId);
+        int length = PlatformDependent.getInt(addr);
+        int byteNum = Math.min(length, (valueBits + 7) / 8);
+        addr += SizeOf.SIZE_OF_INT;
+
+        long value = 0;
+        for (int i = 0; i < byteNum; i++) {
+          value |= (PlatformDependent.getByte(addr + i) & 0xFFL) << (KEY_BITS - RADIX_BITS * (i + 1));
+        }
+        return value >>> (KEY_BITS - valueBits);
+      }
+      default:
+        throw new TajoInternalError(new UnsupportedException(type.name()));
+    }
+  }
+
+  /**
+   * Sort the given list in place.
+   *
+   * @param list tuples to be sorted
+   * @param comparator comparator for the tuples having the same normalized key
+   * @param radix if true, normalized keys are sorted with LSD radix sort. Otherwise, Tim sort is used.
+   * @return the sorted list
+   */
+  public List<UnSafeTuple> sort(UnSafeTupleList list, Comparator<UnSafeTuple> comparator, boolean radix) {
+    int size = list.size();
+    UnSafeTuple[] tuples = list.toArray(new UnSafeTuple[size]);
+    long[] keys = new long[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = normalizedKey(tuples[i]);
+    }
+
+    if (radix) {
+      radixSort(keys, tuples, comparator);
+    } else {
+      timSort(keys, tuples, comparator);
+    }
+
+    ListIterator<UnSafeTuple> it = list.listIterator();
+    for (UnSafeTuple t : tuples) {
+      it.next();
+      it.set(t);
+    }
+    return list;
+  }
+
+  private static class KeyedTuple {
+    final long key;
+    final UnSafeTuple tuple;
+
+    KeyedTuple(long key, UnSafeTuple tuple) {
+      this.key = key;
+      this.tuple = tuple;
+    }
+  }
+
+  private void timSort(long[] keys, UnSafeTuple[] tuples, Comparator<UnSafeTuple> comparator) {
+    KeyedTuple[] keyedTuples = new KeyedTuple[tuples.length];
+    for (int i = 0; i < tuples.length; i++) {
+      keyedTuples[i] = new KeyedTuple(keys[i], tuples[i]);
+    }
+
+    Arrays.sort(keyedTuples, (t1, t2) -> {
+      int compare = Long.compareUnsigned(t1.key, t2.key);
+      return compare != 0 || complete ? compare : comparator.compare(t1.tuple, t2.tuple);
+    });
+
+    for (int i = 0; i < tuples.length; i++) {
+      tuples[i] = keyedTuples[i].tuple;
+    }
+  }
+
+  /**
+   * LSD radix sort on normalized keys. The passes in which every key has the same digit are skipped.
+   */
+  private void radixSort(long[] keys, UnSafeTuple[] tuples, Comparator<UnSafeTuple> comparator) {
+    int size = keys.length;
+    int[][] histograms = new int[RADIX_PASSES][RADIX];
+    for (long key : keys) {
+      for (int pass = 0; pass < RADIX_PASSES; pass++) {
+        histograms[pass][(int) (key >>> (pass * RADIX_BITS)) & (RADIX - 1)]++;
+      }
+    }
+
+    long[] inKeys = keys;
+    UnSafeTuple[] in = tuples;
+    long[] outKeys = new long[size];
+    UnSafeTuple[] out = new UnSafeTuple[size];
+
+    for (int pass = 0; pass < RADIX_PASSES; pass++) {
+      int[] histogram = histograms[pass];
+      int shift = pass * RADIX_BITS;
+      if (size == 0 || histogram[(int) (inKeys[0] >>> shift) & (RADIX - 1)] == size) {
+        continue;
+      }
+
+      // histogram to start offsets
+      int offset = 0;
+      for (int digit = 0; digit < RADIX; digit++) {
+        int count = histogram[digit];
+        histogram[digit] = offset;
+        offset += count;
+      }
+
+      for (int i = 0; i < size; i++) {
+        int pos = histogram[(int) (inKeys[i] >>> shift) & (RADIX - 1)]++;
+        outKeys[pos] = inKeys[i];
+        out[pos] = in[i];
+      }
+
+      long[] tmpKeys = inKeys;
+      inKeys = outKeys;
+      outKeys = tmpKeys;
+      UnSafeTuple[] tmp = in;
+      in = out;
+      out = tmp;
+    }
+
+    if (in != tuples) {
+      System.arraycopy(in, 0, tuples, 0, size);
+      System.arraycopy(inKeys, 0, keys, 0, size);
+    }
+
+    if (!complete) {
+      // sort the tuples having the same normalized key
+      int start = 0;
+      for (int i = 1; i <= size; i++) {
+        if (i == size || keys[i] != keys[start]) {
+          if (i - start > 1) {
+            Arrays.sort(tuples, start, i, comparator);
+          }
+          start = i;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,171 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
+import org.apache.tajo.plan.function.FunctionContext;
+import org.apache.tajo.storage.RowStoreUtil;
+import org.apache.tajo.storage.ShuffleCombiner;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link ShuffleCombiner} which merges the partial aggregation results of the same grouping key.
+ * Each row consists of grouping keys followed by the partial results of aggregation functions,
+ * which is the output of the first phase of {@link AggregationExec}.
+ *
+ * A combiner outlives the task which creates it because it is shared by the execution block. So, it has its own
+ * aggregation functions instead of the ones bound to the task.
+ */
+public class PartialAggregationCombiner implements ShuffleCombiner {
+  /** rough memory size of a hash table entry except its key datums */
+  private static final int ENTRY_OVERHEAD = 64;
+  /** rough memory size of an aggregation context */
+  private static final int CONTEXT_OVERHEAD = 32;
+
+  private final int groupingKeyNum;
+  private final int aggFunctionsNum;
+  private final List<AggregationFunctionCallEval> aggFunctions;
+  private final int[] keyIds;
+  private final KeyTuple keyTuple;
+  private final VTuple partialResult = new VTuple(1);
+  private final Map<Integer, TupleMap<FunctionContext[]>> partitions = new HashMap<>();
+
+  public PartialAggregationCombiner(AggregationExec aggregation) {
+    this.groupingKeyNum = aggregation.groupingKeyNum;
+    this.aggFunctionsNum = aggregation.aggFunctionsNum;
+    this.aggFunctions = new ArrayList<>(aggFunctionsNum);
+    for (AggregationFunctionCallEval aggFunction : aggregation.aggFunctions) {
+      AggregationFunctionCallEval newFunction =
+          new AggregationFunctionCallEval(aggFunction.getFuncDesc(), aggFunction.getArgs());
+      newFunction.setFirstPhase();
+      newFunction.bind(null, aggregation.inSchema);
+      aggFunctions.add(newFunction);
+    }
+    this.keyIds = new int[groupingKeyNum];
+    for (int i = 0; i < groupingKeyNum; i++) {
+      keyIds[i] = i;
+    }
+    this.keyTuple = new KeyTuple(groupingKeyNum);
+  }
+
+  /**
+   * The partial results of an aggregation can be combined if they are produced by the first phase, and
+   * the rows of the same grouping key are always shuffled to the same partition.
+   */
+  public static boolean isCombinable(PhysicalExec child, int[] shuffleKeyIds) {
+    if (!(child instanceof AggregationExec)) {
+      return false;
+    }
+
+    AggregationExec aggregation = (AggregationExec) child;
+    if (aggregation.groupingKeyNum == 0 || !HashAggregateExec.isMergeable(aggregation.aggFunctions)) {
+      return false;
+    }
+    for (AggregationFunctionCallEval aggFunction : aggregation.aggFunctions) {
+      if (!aggFunction.isFirstPhase() || aggFunction.isLastPhase()) {
+        return false;
+      }
+    }
+    for (int shuffleKeyId : shuffleKeyIds) {
+      if (shuffleKeyId < 0 || shuffleKeyId >= aggregation.groupingKeyNum) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long combine(int partId, Tuple tuple) {
+    TupleMap<FunctionContext[]> groups = partitions.get(partId);
+    if (groups == null) {
+      groups = new TupleMap<>();
+      partitions.put(partId, groups);
+    }
+
+    RowStoreUtil.project(tuple, keyTuple, keyIds);
+    FunctionContext[] contexts = groups.get(keyTuple);
+    long size = 0;
+    if (contexts == null) {
+      contexts = new FunctionContext[aggFunctionsNum];
+      for (int i = 0; i < aggFunctionsNum; i++) {
+        contexts[i] = aggFunctions.get(i).newContext();
+      }
+      groups.put(keyTuple, contexts);
+      size = estimateEntrySize(keyTuple);
+    }
+
+    for (int i = 0; i < aggFunctionsNum; i++) {
+      partialResult.put(0, tuple.asDatum(groupingKeyNum + i));
+      aggFunctions.get(i).mergePartialResult(contexts[i], partialResult);
+    }
+    return size;
+  }
+
+  private long estimateEntrySize(KeyTuple keyTuple) {
+    long size = ENTRY_OVERHEAD + aggFunctionsNum * CONTEXT_OVERHEAD;
+    for (int i = 0; i < groupingKeyNum; i++) {
+      size += keyTuple.asDatum(i).size();
+    }
+    return size;
+  }
+
+  @Override
+  public Collection<Integer> getPartitions() {
+    return partitions.keySet();
+  }
+
+  @Override
+  public Iterator<Tuple> flush(int partId) {
+    TupleMap<FunctionContext[]> groups = partitions.remove(partId);
+    if (groups == null) {
+      return Collections.emptyIterator();
+    }
+
+    final Iterator<Map.Entry<KeyTuple, FunctionContext[]>> entries = groups.entrySet().iterator();
+    final VTuple outTuple = new VTuple(groupingKeyNum + aggFunctionsNum);
+    return new Iterator<Tuple>() {
+      @Override
+      public boolean hasNext() {
+        return entries.hasNext();
+      }
+
+      @Override
+      public Tuple next() {
+        Map.Entry<KeyTuple, FunctionContext[]> entry = entries.next();
+        int tupleIdx = 0;
+        for (; tupleIdx < groupingKeyNum; tupleIdx++) {
+          outTuple.put(tupleIdx, entry.getKey().asDatum(tupleIdx));
+        }
+        for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+          outTuple.put(tupleIdx, aggFunctions.get(funcIdx).getPartialResult(entry.getValue()[funcIdx]));
+        }
+        return outTuple;
+      }
+    };
+  }
+}
@@ -61,6 +61,9 @@ public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
   RESULT visitHaving(CONTEXT context, HavingExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
+  RESULT visitHybridHashJoin(CONTEXT context, HybridHashJoinExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
   RESULT visitLimit(CONTEXT context, LimitExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
@@ -97,4 +100,16 @@ public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
 
   RESULT visitStoreIndex(CONTEXT context, StoreIndexExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
+
+  RESULT visitVectorizedHashAggregate(CONTEXT context, VectorizedHashAggregateExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
+  RESULT visitVectorizedProjection(CONTEXT context, VectorizedProjectionExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
+  RESULT visitVectorizedScan(CONTEXT context, VectorizedScanExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
+  RESULT visitVectorizedSelection(CONTEXT context, VectorizedSelectionExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
 }
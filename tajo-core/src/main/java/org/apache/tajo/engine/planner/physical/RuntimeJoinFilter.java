@@ -0,0 +1,151 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import com.google.common.base.Preconditions;
+import org.apache.tajo.ResourceProtos.RuntimeJoinFilterProto;
+import org.apache.tajo.common.ProtoObject;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+
+/**
+ * RuntimeJoinFilter is a bloom filter of join keys. It is built from the shuffle keys of one side of
+ * a repartitioned inner join while the side is shuffled, and it is used to filter out tuples of the other side
+ * whose join keys cannot match any tuple before they are shuffled.
+ *
+ * The hash value of join keys is the same as {@link HashPartitioner}, so the filter is consistent with the shuffle.
+ */
+public class RuntimeJoinFilter implements ProtoObject<RuntimeJoinFilterProto> {
+  public static final int DEFAULT_NUM_HASH_FUNCTIONS = 3;
+
+  private final long [] bits;
+  private final long numBits;
+  private final int numHashFunctions;
+
+  private int [] keyIds;
+  private Tuple keyTuple;
+
+  public RuntimeJoinFilter(int numBytes) {
+    Preconditions.checkArgument(numBytes > 0, "The size of a runtime join filter must be positive");
+    this.bits = new long[(numBytes + 7) / 8];
+    this.numBits = (long) bits.length * Long.SIZE;
+    this.numHashFunctions = DEFAULT_NUM_HASH_FUNCTIONS;
+  }
+
+  public RuntimeJoinFilter(RuntimeJoinFilterProto proto) {
+    this.bits = new long[proto.getBitsCount()];
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] = proto.getBits(i);
+    }
+    this.numBits = (long) bits.length * Long.SIZE;
+    this.numHashFunctions = proto.getNumHashFunctions();
+  }
+
+  /**
+   * Set the ids of the join key columns in the tuples which will be given to {@link #add(Tuple)} and
+   * {@link #mightContain(Tuple)}.
+   */
+  public void bind(int [] keyIds) {
+    this.keyIds = keyIds;
+    this.keyTuple = new VTuple(keyIds.length);
+  }
+
+  private int hash(Tuple tuple) {
+    for (int i = 0; i < keyIds.length; i++) {
+      keyTuple.put(i, tuple.asDatum(keyIds[i]));
+    }
+    return keyTuple.hashCode();
+  }
+
+  /**
+   * The second hash function derived from the first one (the finalizer of MurmurHash3).
+   */
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h | 1;
+  }
+
+  private long bitIndex(int h1, int h2, int i) {
+    return ((h1 + (long) i * h2) & Long.MAX_VALUE) % numBits;
+  }
+
+  public void add(Tuple tuple) {
+    int h1 = hash(tuple);
+    int h2 = mix(h1);
+    for (int i = 0; i < numHashFunctions; i++) {
+      long idx = bitIndex(h1, h2, i);
+      bits[(int) (idx >>> 6)] |= 1L << idx;
+    }
+  }
+
+  /**
+   * @return false if the join keys of the tuple were never added to this filter
+   */
+  public boolean mightContain(Tuple tuple) {
+    int h1 = hash(tuple);
+    int h2 = mix(h1);
+    for (int i = 0; i < numHashFunctions; i++) {
+      long idx = bitIndex(h1, h2, i);
+      if ((bits[(int) (idx >>> 6)] & (1L << idx)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Merge another filter built with the same size and hash functions.
+   */
+  public void merge(RuntimeJoinFilter other) {
+    Preconditions.checkArgument(bits.length == other.bits.length && numHashFunctions == other.numHashFunctions,
+        "Runtime join filters of different sizes cannot be merged");
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] |= other.bits[i];
+    }
+  }
+
+  /**
+   * @return the ratio of set bits. The false positive rate is about (fill ratio ^ the number of hash functions).
+   */
+  public double getFillRatio() {
+    long setBits = 0;
+    for (long word : bits) {
+      setBits += Long.bitCount(word);
+    }
+    return (double) setBits / numBits;
+  }
+
+  public int getNumBytes() {
+    return bits.length * 8;
+  }
+
+  @Override
+  public RuntimeJoinFilterProto getProto() {
+    RuntimeJoinFilterProto.Builder builder = RuntimeJoinFilterProto.newBuilder();
+    builder.setNumHashFunctions(numHashFunctions);
+    for (long word : bits) {
+      builder.addBits(word);
+    }
+    return builder.build();
+  }
+}
@@ -18,7 +18,10 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.SessionVars;
 import org.apache.tajo.catalog.*;
 import org.apache.tajo.catalog.partition.PartitionMethodDesc;
 import org.apache.tajo.catalog.proto.CatalogProtos;
@@ -26,6 +29,7 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.engine.codegen.CompilationError;
+import org.apache.tajo.engine.codegen.CompiledPipeline;
 import org.apache.tajo.engine.planner.Projector;
 import org.apache.tajo.plan.Target;
 import org.apache.tajo.plan.expr.ConstEval;
@@ -46,6 +50,8 @@ import java.util.*;
 
 
 public class SeqScanExec extends ScanExec {
+  private static final Log LOG = LogFactory.getLog(SeqScanExec.class);
+
   private ScanNode plan;
 
   private Scanner scanner = null;
@@ -56,6 +62,10 @@ public class SeqScanExec extends ScanExec {
 
   private Projector projector;
 
+  // the filter and the projection fused into a generated method. If it is set, projector is not used.
+  private CompiledPipeline pipeline;
+  private Tuple pipelineOutTuple;
+
   private TableStats inputStats;
 
   // scanner iterator with filter or without filter
@@ -63,6 +73,9 @@ public class SeqScanExec extends ScanExec {
 
   private boolean needProjection;
 
+  // a filter of join keys which is built from the other side of a join. It is applied to output tuples.
+  private RuntimeJoinFilter runtimeJoinFilter;
+
   public SeqScanExec(TaskAttemptContext context, ScanNode plan,
                      CatalogProtos.FragmentProto [] fragments) throws IOException {
     super(context, plan.getInSchema(), plan.getOutSchema());
@@ -170,7 +183,8 @@ public class SeqScanExec extends ScanExec {
 
   private void initScanIterator() {
     // We should use FilterScanIterator only if underlying storage does not support filter push down.
-    if (plan.hasQual() && !scanner.isSelectable()) {
+    // A compiled pipeline evaluates the filter by itself.
+    if (plan.hasQual() && !scanner.isSelectable() && pipeline == null) {
       scanIt = new FilterScanIterator(scanner, qual);
 
     } else {
@@ -242,10 +256,42 @@ public class SeqScanExec extends ScanExec {
     }
 
     if(needProjection) {
-      projector = new Projector(context, actualInSchema, outSchema, plan.getTargets());
+      if (context.getQueryContext().getBool(SessionVars.CODEGEN_PIPELINE)) {
+        compilePipeline(actualInSchema, realTargets);
+      }
+      if (pipeline == null) {
+        projector = new Projector(context, actualInSchema, outSchema, plan.getTargets());
+      }
     }
   }
 
+  private void compilePipeline(Schema actualInSchema, List<Target> targets) {
+    EvalNode [] targetEvals = new EvalNode[targets.size()];
+    for (int i = 0; i < targets.size(); i++) {
+      targetEvals[i] = targets.get(i).getEvalTree();
+    }
+    // A selectable scanner filters tuples by itself.
+    EvalNode pipelineQual = plan.hasQual() && !scanner.isSelectable() ? plan.getQual() : null;
+
+    try {
+      pipeline = context.compilePipeline(actualInSchema, pipelineQual, targetEvals);
+      pipeline.bind(context.getEvalContext());
+      pipelineOutTuple = new VTuple(targetEvals.length);
+    } catch (Throwable t) {
+      // If any compilation error occurs, it works in a fallback mode, which uses the Projector.
+      LOG.warn("Cannot compile the pipeline of " + plan.getCanonicalName() + ", so the projector is used instead", t);
+      pipeline = null;
+    }
+  }
+
+  /**
+   * Set a filter to remove output tuples of which join keys do not match any tuple of the other side of a join.
+   * The filter should be bound to the output schema.
+   */
+  public void setRuntimeJoinFilter(RuntimeJoinFilter runtimeJoinFilter) {
+    this.runtimeJoinFilter = runtimeJoinFilter;
+  }
+
   @Override
   public ScanNode getScanNode() {
     return plan;
@@ -296,9 +342,28 @@ public class SeqScanExec extends ScanExec {
 
     while(scanIt.hasNext()) {
       Tuple t = scanIt.next();
-      if(!needProjection) return t;
+      if (pipeline != null) {
+        if (!pipeline.process(t, pipelineOutTuple)) {
+          continue;
+        }
+        if (runtimeJoinFilter != null && !runtimeJoinFilter.mightContain(pipelineOutTuple)) {
+          continue;
+        }
+        pipelineOutTuple.setOffset(t.getOffset());
+        return pipelineOutTuple;
+      }
+
+      if(!needProjection) {
+        if (runtimeJoinFilter != null && !runtimeJoinFilter.mightContain(t)) {
+          continue;
+        }
+        return t;
+      }
 
       Tuple outTuple = projector.eval(t);
+      if (runtimeJoinFilter != null && !runtimeJoinFilter.mightContain(outTuple)) {
+        continue;
+      }
       outTuple.setOffset(t.getOffset());
       return outTuple;
     }
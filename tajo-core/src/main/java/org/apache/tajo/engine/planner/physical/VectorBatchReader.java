@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.vector.VectorBatch;
+import org.apache.tajo.engine.vector.VectorUtil;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+
+import java.io.IOException;
+
+/**
+ * VectorBatchReader converts the batches of a {@link VectorizedExec} into tuples
+ * for the parents which do not understand batches.
+ */
+public class VectorBatchReader {
+  private final VectorizedExec exec;
+  private final Tuple outTuple;
+  private int cursor = 0;
+  private boolean eof = false;
+
+  public VectorBatchReader(VectorizedExec exec, int width) {
+    this.exec = exec;
+    this.outTuple = new VTuple(width);
+  }
+
+  public Tuple next() throws IOException {
+    VectorBatch batch = exec.getBatch();
+    while (cursor >= batch.size) {
+      if (eof || !exec.nextBatch()) {
+        eof = true;
+        return null;
+      }
+      cursor = 0;
+    }
+
+    int row = batch.rowAt(cursor++);
+    int [] columns = exec.getOutputColumns();
+    for (int i = 0; i < columns.length; i++) {
+      outTuple.put(i, VectorUtil.getDatum(batch.column(columns[i]), row));
+    }
+    return outTuple;
+  }
+
+  public void reset() {
+    exec.getBatch().reset();
+    cursor = 0;
+    eof = false;
+  }
+}
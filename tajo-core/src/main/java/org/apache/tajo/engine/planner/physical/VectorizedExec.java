@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.vector.VectorBatch;
+
+import java.io.IOException;
+
+/**
+ * VectorizedExec is implemented by physical executors which are able to produce a batch of
+ * column vectors at a time. Vectorized parents call {@link #nextBatch()}, and the other parents
+ * keep calling {@link PhysicalExec#next()}.
+ */
+public interface VectorizedExec {
+
+  /**
+   * @return The batch shared by this executor and its vectorized parents. It is available after init().
+   */
+  VectorBatch getBatch();
+
+  /**
+   * @return The batch column indexes of the columns in the output schema. It is available after init().
+   */
+  int [] getOutputColumns();
+
+  /**
+   * Fill the batch with the next rows.
+   *
+   * @return false if there are no more rows
+   */
+  boolean nextBatch() throws IOException;
+}
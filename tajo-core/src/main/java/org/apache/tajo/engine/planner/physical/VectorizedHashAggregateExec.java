@@ -0,0 +1,212 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.engine.function.builtin.*;
+import org.apache.tajo.engine.vector.VectorExpr;
+import org.apache.tajo.engine.vector.VectorHashAggregator;
+import org.apache.tajo.engine.vector.VectorHashAggregator.AggregateKind;
+import org.apache.tajo.engine.vector.VectorHashAggregator.AggregateSpec;
+import org.apache.tajo.engine.vector.VectorUtil;
+import org.apache.tajo.engine.vector.VectorizedEvalCompiler;
+import org.apache.tajo.function.Function;
+import org.apache.tajo.plan.expr.AggregationFunctionCallEval;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.logical.GroupbyNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * This is the hash-based GroupBy Operator which consumes the batches of a vectorized child.
+ * Only a subset of built-in aggregation functions (count, sum, min and max) is supported.
+ */
+public class VectorizedHashAggregateExec extends AggregationExec {
+  private final GroupbyNode plan;
+  private final VectorizedExec vectorizedChild;
+  private final Tuple tuple;
+
+  private VectorExpr [] argExprs;
+  private VectorHashAggregator aggregator;
+  private boolean computed = false;
+  private int cursor = 0;
+
+  public VectorizedHashAggregateExec(TaskAttemptContext ctx, GroupbyNode plan, PhysicalExec subOp)
+      throws IOException {
+    super(ctx, plan, subOp);
+    this.plan = plan;
+    this.vectorizedChild = (VectorizedExec) subOp;
+    this.tuple = new VTuple(plan.getOutSchema().size());
+  }
+
+  public static boolean isVectorizable(GroupbyNode plan) {
+    if (plan.getGroupingColumns().length == 0 && !plan.hasAggFunctions()) {
+      return false;
+    }
+
+    Schema inSchema = plan.getInSchema();
+    for (Column key : plan.getGroupingColumns()) {
+      int keyId = inSchema.getColumnId(key.getQualifiedName());
+      if (keyId < 0 || !VectorUtil.isSupportedType(inSchema.getColumn(keyId).getDataType().getType())) {
+        return false;
+      }
+    }
+
+    if (plan.hasAggFunctions()) {
+      for (AggregationFunctionCallEval aggFunction : plan.getAggFunctions()) {
+        if (getKind(inSchema, aggFunction) == null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Find the vectorized aggregation for the given function call, or return null if it is not supported.
+   */
+  private static AggregateKind getKind(Schema inSchema, AggregationFunctionCallEval aggFunction) {
+    if (!aggFunction.getFuncDesc().getInvocation().hasLegacy()) {
+      return null;
+    }
+
+    EvalNode [] args = aggFunction.getArgs();
+    if (args.length > 1) {
+      return null;
+    }
+    for (EvalNode arg : args) {
+      if (!VectorizedEvalCompiler.isVectorizable(inSchema, arg)) {
+        return null;
+      }
+    }
+
+    Class<? extends Function> funcClass = aggFunction.getFuncDesc().getLegacyFuncClass();
+    Type argType = args.length > 0 ? args[0].getValueType().kind() : null;
+    Type valueType = aggFunction.getValueType().kind();
+
+    if (funcClass == CountRows.class || funcClass == CountValue.class) {
+      if (!aggFunction.isFirstPhase()) {
+        return argType == Type.INT8 ? AggregateKind.SUM_COUNTS : null;
+      }
+      return funcClass == CountRows.class ? AggregateKind.COUNT_ROWS : AggregateKind.COUNT_VALUES;
+
+    } else if (funcClass == SumInt.class || funcClass == SumLong.class) {
+      return VectorUtil.isIntegral(argType) ? AggregateKind.SUM_LONG : null;
+
+    } else if (funcClass == SumDouble.class) {
+      return VectorUtil.isFloatingPoint(argType) ? AggregateKind.SUM_DOUBLE : null;
+
+    } else if (funcClass == SumFloat.class) {
+      // SumFloat reads partial results as FLOAT4, so only the first phase is vectorized.
+      return aggFunction.isFirstPhase() && argType == Type.FLOAT4 ? AggregateKind.SUM_DOUBLE : null;
+
+    } else if (Max.class.isAssignableFrom(funcClass) || Min.class.isAssignableFrom(funcClass)) {
+      if (argType != valueType || argType == Type.TEXT || argType == Type.BOOLEAN) {
+        return null;
+      }
+      return Max.class.isAssignableFrom(funcClass) ? AggregateKind.MAX : AggregateKind.MIN;
+    }
+
+    return null;
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+
+    Column [] keyColumns = plan.getGroupingColumns();
+    int [] childColumns = vectorizedChild.getOutputColumns();
+    int [] keyIndexes = new int[groupingKeyNum];
+    Type [] keyTypes = new Type[groupingKeyNum];
+    for (int i = 0; i < groupingKeyNum; i++) {
+      int keyId = inSchema.getColumnId(keyColumns[i].getQualifiedName());
+      keyIndexes[i] = childColumns[keyId];
+      keyTypes[i] = inSchema.getColumn(keyId).getDataType().getType();
+    }
+
+    VectorizedEvalCompiler compiler = new VectorizedEvalCompiler(inSchema, childColumns,
+        vectorizedChild.getBatch());
+    argExprs = new VectorExpr[aggFunctionsNum];
+    AggregateSpec [] specs = new AggregateSpec[aggFunctionsNum];
+    for (int i = 0; i < aggFunctionsNum; i++) {
+      AggregationFunctionCallEval aggFunction = aggFunctions.get(i);
+      int argColumn = -1;
+      if (aggFunction.getArgs().length > 0) {
+        argExprs[i] = compiler.compile(aggFunction.getArgs()[0]);
+        argColumn = argExprs[i].getOutputColumn();
+      }
+      specs[i] = new AggregateSpec(getKind(inSchema, aggFunction), argColumn,
+          aggFunction.getValueType().kind());
+    }
+
+    aggregator = new VectorHashAggregator(keyIndexes, keyTypes, specs,
+        vectorizedChild.getBatch().capacity(),
+        context.getQueryContext().getInt(SessionVars.AGG_HASH_TABLE_SIZE));
+  }
+
+  private void compute() throws IOException {
+    while (!context.isStopped() && vectorizedChild.nextBatch()) {
+      for (VectorExpr argExpr : argExprs) {
+        if (argExpr != null) {
+          argExpr.evaluate(vectorizedChild.getBatch());
+        }
+      }
+      aggregator.aggregate(vectorizedChild.getBatch());
+    }
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    if (!computed) {
+      compute();
+      computed = true;
+    }
+
+    if (cursor >= aggregator.getGroupNum()) {
+      return null;
+    }
+
+    int group = cursor++;
+    int tupleIdx = 0;
+    for (int keyIdx = 0; keyIdx < groupingKeyNum; keyIdx++, tupleIdx++) {
+      tuple.put(tupleIdx, aggregator.getKey(keyIdx, group));
+    }
+    for (int funcIdx = 0; funcIdx < aggFunctionsNum; funcIdx++, tupleIdx++) {
+      tuple.put(tupleIdx, aggregator.getResult(funcIdx, group));
+    }
+    return tuple;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    cursor = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    super.close();
+    aggregator = null;
+  }
+}
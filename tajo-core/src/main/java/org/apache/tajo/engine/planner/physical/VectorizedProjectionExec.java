@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.vector.VectorBatch;
+import org.apache.tajo.engine.vector.VectorExpr;
+import org.apache.tajo.engine.vector.VectorizedEvalCompiler;
+import org.apache.tajo.plan.Target;
+import org.apache.tajo.plan.logical.Projectable;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * VectorizedProjectionExec evaluates targets over the batches of a vectorized child.
+ */
+public class VectorizedProjectionExec extends UnaryPhysicalExec implements VectorizedExec {
+  private final Projectable plan;
+  private final VectorizedExec vectorizedChild;
+
+  private VectorExpr [] targets;
+  private int [] outputColumns;
+  private VectorBatchReader reader;
+
+  public VectorizedProjectionExec(TaskAttemptContext context, Projectable plan, PhysicalExec child) {
+    super(context, plan.getInSchema(), plan.getOutSchema(), child);
+    this.plan = plan;
+    this.vectorizedChild = (VectorizedExec) child;
+  }
+
+  public static boolean isVectorizable(Projectable plan) {
+    for (Target target : plan.getTargets()) {
+      if (!VectorizedEvalCompiler.isVectorizable(plan.getInSchema(), target.getEvalTree())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+
+    VectorizedEvalCompiler compiler = new VectorizedEvalCompiler(inSchema,
+        vectorizedChild.getOutputColumns(), vectorizedChild.getBatch());
+    List<Target> planTargets = plan.getTargets();
+    targets = new VectorExpr[planTargets.size()];
+    outputColumns = new int[planTargets.size()];
+    for (int i = 0; i < planTargets.size(); i++) {
+      targets[i] = compiler.compile(planTargets.get(i).getEvalTree());
+      outputColumns[i] = targets[i].getOutputColumn();
+    }
+    reader = new VectorBatchReader(this, outColumnNum);
+  }
+
+  @Override
+  public VectorBatch getBatch() {
+    return vectorizedChild.getBatch();
+  }
+
+  @Override
+  public int [] getOutputColumns() {
+    return outputColumns;
+  }
+
+  @Override
+  public boolean nextBatch() throws IOException {
+    if (!vectorizedChild.nextBatch()) {
+      return false;
+    }
+
+    VectorBatch batch = getBatch();
+    for (VectorExpr target : targets) {
+      target.evaluate(batch);
+    }
+    return true;
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    return reader.next();
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    reader.reset();
+  }
+}
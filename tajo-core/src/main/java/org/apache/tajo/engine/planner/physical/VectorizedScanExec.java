@@ -0,0 +1,359 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableDesc;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.engine.vector.*;
+import org.apache.tajo.plan.Target;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.expr.EvalTreeUtil;
+import org.apache.tajo.plan.logical.ScanNode;
+import org.apache.tajo.plan.util.PlannerUtil;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FragmentConvertor;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * VectorizedScanExec reads tuples from a scanner into column vectors, and evaluates
+ * the search condition and the targets of a scan for a batch of rows at a time.
+ *
+ * If the scanner is a {@link BatchScanner}, rows are decoded straight into the column vectors
+ * without tuples. In that case, the columns which are not used by the search condition are
+ * decoded only for the rows which satisfy it.
+ */
+public class VectorizedScanExec extends ScanExec implements VectorizedExec {
+  private static final Log LOG = LogFactory.getLog(VectorizedScanExec.class);
+
+  private final ScanNode plan;
+  private final CatalogProtos.FragmentProto [] fragments;
+
+  private Scanner scanner;
+  private TableStats inputStats;
+
+  private VectorBatch batch;
+  private int [] loadedFields;
+  private int [] loadedColumns;
+  private VectorExpr filter;
+  private VectorExpr [] targets;
+  private int [] outputColumns;
+  private boolean eof;
+
+  private BatchScanner batchScanner;
+  // the vectors filled by the batch scanner, in the order of the scanner output columns
+  private ColumnVector [] scanVectors;
+  // the indexes of loaded columns which are decoded after the search condition is evaluated
+  private int [] lazyColumns;
+
+  private VectorBatchReader reader;
+
+  public VectorizedScanExec(TaskAttemptContext context, ScanNode plan,
+                            CatalogProtos.FragmentProto [] fragments) {
+    super(context, plan.getInSchema(), plan.getOutSchema());
+    this.plan = plan;
+    this.fragments = fragments;
+  }
+
+  /**
+   * Check if the given scan can be executed in the vectorized way.
+   */
+  public static boolean isVectorizable(ScanNode plan) {
+    TableDesc table = plan.getTableDesc();
+    if (table.hasPartition() &&
+        table.getPartitionMethod().getPartitionType() == CatalogProtos.PartitionType.COLUMN) {
+      return false;
+    }
+
+    Schema projected = SeqScanExec.getProjectSchema(plan.getInSchema(), plan.getOutSchema(),
+        Optional.ofNullable(plan.getTargets()), Optional.ofNullable(plan.getQual()));
+    for (Column column : projected.getRootColumns()) {
+      if (!VectorUtil.isSupportedType(column.getDataType().getType())) {
+        return false;
+      }
+    }
+
+    if (plan.hasQual() && !VectorizedEvalCompiler.isVectorizable(plan.getInSchema(), plan.getQual())) {
+      return false;
+    }
+
+    for (Target target : getTargets(plan)) {
+      if (!VectorizedEvalCompiler.isVectorizable(plan.getInSchema(), target.getEvalTree())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static List<Target> getTargets(ScanNode plan) {
+    return plan.getTargets() == null ? PlannerUtil.schemaToTargets(plan.getOutSchema()) : plan.getTargets();
+  }
+
+  @Override
+  public void init() throws IOException {
+    Schema projected = SeqScanExec.getProjectSchema(plan.getInSchema(), plan.getOutSchema(),
+        Optional.ofNullable(plan.getTargets()), Optional.ofNullable(plan.getQual()));
+    initScanner(projected);
+
+    // See SeqScanExec.init(). The width of retrieved tuples depends on Scanner.isProjectable().
+    Schema actualInSchema = scanner.isProjectable() ? projected : inSchema;
+
+    batch = new VectorBatch(context.getQueryContext().getInt(SessionVars.VECTORIZED_BATCH_SIZE));
+    int [] columnIndexes = new int[actualInSchema.size()];
+    loadedFields = new int[projected.size()];
+    loadedColumns = new int[projected.size()];
+    for (int i = 0; i < projected.size(); i++) {
+      Column column = projected.getColumn(i);
+      int fieldId = actualInSchema.getColumnId(column.getQualifiedName());
+      loadedFields[i] = fieldId;
+      loadedColumns[i] = batch.addColumn(column.getDataType().getType());
+      columnIndexes[fieldId] = loadedColumns[i];
+    }
+
+    batchScanner = scanner instanceof BatchScanner ? (BatchScanner) scanner : null;
+
+    VectorizedEvalCompiler compiler = new VectorizedEvalCompiler(actualInSchema, columnIndexes, batch);
+    if (plan.hasQual() && (!scanner.isSelectable() || batchScanner != null)) {
+      // a batch scanner uses the qual only to skip blocks of rows
+      filter = compiler.compile(plan.getQual());
+    } else if (plan.hasQual()) {
+      // the scanner evaluates the qual against its output tuples
+      plan.getQual().bind(context.getEvalContext(), actualInSchema);
+    }
+
+    List<Target> realTargets = getTargets(plan);
+    targets = new VectorExpr[realTargets.size()];
+    outputColumns = new int[realTargets.size()];
+    for (int i = 0; i < realTargets.size(); i++) {
+      targets[i] = compiler.compile(realTargets.get(i).getEvalTree());
+      outputColumns[i] = targets[i].getOutputColumn();
+    }
+
+    if (batchScanner != null) {
+      initBatchScan(projected, actualInSchema.size());
+    }
+
+    reader = new VectorBatchReader(this, outColumnNum);
+    eof = false;
+
+    super.init();
+  }
+
+  private void initBatchScan(Schema projected, int scanColumnNum) {
+    Set<Column> filterColumns = filter != null ? EvalTreeUtil.findUniqueColumns(plan.getQual()) : null;
+    scanVectors = new ColumnVector[scanColumnNum];
+    List<Integer> lazy = new ArrayList<>();
+    for (int i = 0; i < projected.size(); i++) {
+      if (filterColumns == null || filterColumns.contains(projected.getColumn(i))) {
+        scanVectors[loadedFields[i]] = batch.column(loadedColumns[i]);
+      } else {
+        lazy.add(i);
+      }
+    }
+    lazyColumns = lazy.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  private void initScanner(Schema projected) throws IOException {
+    TableDesc table = plan.getTableDesc();
+    TableMeta meta = table.getMeta();
+
+    if (fragments.length > 1) {
+      this.scanner = new MergeScanner(
+          context.getConf(),
+          plan.getPhysicalSchema(), meta,
+          FragmentConvertor.convert(context.getConf(), fragments),
+          projected
+      );
+    } else {
+      Tablespace tablespace = TablespaceManager.get(table.getUri());
+      this.scanner = tablespace.getScanner(
+          meta,
+          plan.getPhysicalSchema(),
+          FragmentConvertor.convert(context.getConf(), fragments[0]),
+          projected);
+    }
+
+    if (scanner.isSelectable()) {
+      EvalNode qual = plan.getQual();
+      scanner.setFilter(qual);
+    }
+
+    if (plan.hasLimit()) {
+      scanner.setLimit(plan.getLimit());
+    }
+    scanner.init();
+  }
+
+  @Override
+  public VectorBatch getBatch() {
+    return batch;
+  }
+
+  @Override
+  public int [] getOutputColumns() {
+    return outputColumns;
+  }
+
+  @Override
+  public boolean nextBatch() throws IOException {
+    while (!eof && !context.isStopped()) {
+      load();
+      if (batch.isEmpty()) {
+        break;
+      }
+
+      if (filter != null) {
+        filter.evaluate(batch);
+        batch.filter(batch.column(filter.getOutputColumn()));
+        if (batch.isEmpty()) {
+          continue;
+        }
+      }
+
+      if (batchScanner != null) {
+        loadLazyColumns();
+      }
+
+      for (VectorExpr target : targets) {
+        target.evaluate(batch);
+      }
+      return true;
+    }
+
+    batch.reset();
+    return false;
+  }
+
+  private void load() throws IOException {
+    batch.reset();
+    for (int column : loadedColumns) {
+      batch.column(column).reset();
+    }
+
+    if (batchScanner != null) {
+      batch.size = batchScanner.nextBatch(scanVectors, batch.capacity());
+      eof = batch.isEmpty();
+      return;
+    }
+
+    Tuple tuple;
+    int row = 0;
+    while (row < batch.capacity() && (tuple = scanner.next()) != null) {
+      for (int i = 0; i < loadedFields.length; i++) {
+        VectorUtil.setValue(batch.column(loadedColumns[i]), row, tuple, loadedFields[i]);
+      }
+      row++;
+    }
+
+    batch.size = row;
+    eof = row < batch.capacity();
+  }
+
+  private void loadLazyColumns() throws IOException {
+    for (int i : lazyColumns) {
+      batchScanner.loadColumn(loadedFields[i], batch.column(loadedColumns[i]),
+          batch.selectionInUse ? batch.selected : null, batch.size);
+    }
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    return reader.next();
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    scanner.reset();
+    reader.reset();
+    eof = false;
+  }
+
+  @Override
+  public void close() throws IOException {
+    IOUtils.cleanup(null, scanner);
+    if (scanner != null) {
+      try {
+        TableStats stat = scanner.getInputStats();
+        if (stat != null) {
+          inputStats = (TableStats)(stat.clone());
+        }
+      } catch (CloneNotSupportedException e) {
+        LOG.warn("Failed to copy the input stats of " + plan.getTableName(), e);
+      }
+    }
+    scanner = null;
+  }
+
+  @Override
+  public ScanNode getScanNode() {
+    return plan;
+  }
+
+  @Override
+  public String getTableName() {
+    return plan.getTableName();
+  }
+
+  @Override
+  public String getCanonicalName() {
+    return plan.getCanonicalName();
+  }
+
+  @Override
+  public CatalogProtos.FragmentProto[] getFragments() {
+    return fragments;
+  }
+
+  @Override
+  public float getProgress() {
+    if (scanner == null) {
+      return 1.0f;
+    } else {
+      return scanner.getProgress();
+    }
+  }
+
+  @Override
+  public TableStats getInputStats() {
+    if (scanner != null) {
+      return scanner.getInputStats();
+    } else {
+      return inputStats;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "VectorizedScanExec:" + plan;
+  }
+}
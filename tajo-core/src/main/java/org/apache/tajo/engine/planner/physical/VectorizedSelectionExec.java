@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.vector.VectorBatch;
+import org.apache.tajo.engine.vector.VectorExpr;
+import org.apache.tajo.engine.vector.VectorizedEvalCompiler;
+import org.apache.tajo.plan.logical.SelectionNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * VectorizedSelectionExec filters the batches of a vectorized child by narrowing down
+ * their selection vectors.
+ */
+public class VectorizedSelectionExec extends UnaryPhysicalExec implements VectorizedExec {
+  private final SelectionNode plan;
+  private final VectorizedExec vectorizedChild;
+
+  private VectorExpr filter;
+  private VectorBatchReader reader;
+
+  public VectorizedSelectionExec(TaskAttemptContext context,
+                                 SelectionNode plan,
+                                 PhysicalExec child) {
+    super(context, plan.getInSchema(), plan.getOutSchema(), child);
+    this.plan = plan;
+    this.vectorizedChild = (VectorizedExec) child;
+  }
+
+  public static boolean isVectorizable(SelectionNode plan) {
+    return VectorizedEvalCompiler.isVectorizable(plan.getInSchema(), plan.getQual());
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+
+    VectorizedEvalCompiler compiler = new VectorizedEvalCompiler(inSchema,
+        vectorizedChild.getOutputColumns(), vectorizedChild.getBatch());
+    filter = compiler.compile(plan.getQual());
+    reader = new VectorBatchReader(this, outColumnNum);
+  }
+
+  @Override
+  public VectorBatch getBatch() {
+    return vectorizedChild.getBatch();
+  }
+
+  @Override
+  public int [] getOutputColumns() {
+    return vectorizedChild.getOutputColumns();
+  }
+
+  @Override
+  public boolean nextBatch() throws IOException {
+    VectorBatch batch = getBatch();
+    while (!context.isStopped() && vectorizedChild.nextBatch()) {
+      filter.evaluate(batch);
+      batch.filter(batch.column(filter.getOutputColumn()));
+      if (!batch.isEmpty()) {
+        return true;
+      }
+    }
+    batch.reset();
+    return false;
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    return reader.next();
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    reader.reset();
+  }
+}
@@ -29,7 +29,10 @@ import org.apache.tajo.plan.logical.NodeType;
 import org.apache.tajo.session.Session;
 
 import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.apache.tajo.rpc.protocolrecords.PrimitiveProtos.KeyValueSetProto;
@@ -174,6 +177,24 @@ public class QueryContext extends OverridableConf {
     setBool(QueryVars.OUTPUT_AS_DIRECTORY, true);
   }
 
+  /**
+   * Set the pull server addresses (host:port) of the workers which merge the pushed hash shuffle outputs.
+   * The merger of a partition is determined by the partition id modulo the number of mergers.
+   *
+   * @param mergers The pull server addresses of mergers
+   */
+  public void setHashShufflePushMergers(List<String> mergers) {
+    put(QueryVars.HASH_SHUFFLE_PUSH_MERGERS, String.join(",", mergers));
+  }
+
+  /**
+   * @return The pull server addresses of mergers, or an empty list if no merger is set
+   */
+  public List<String> getHashShufflePushMergers() {
+    String strVal = get(QueryVars.HASH_SHUFFLE_PUSH_MERGERS, "");
+    return strVal != null && !strVal.isEmpty() ? Arrays.asList(strVal.split(",")) : Collections.<String>emptyList();
+  }
+
   public boolean containsKey(ConfigKey key) {
     return containsKey(key.keyname());
   }
@@ -22,6 +22,7 @@
 package org.apache.tajo.engine.query;
 
 import org.apache.tajo.ResourceProtos.FetchProto;
+import org.apache.tajo.ResourceProtos.RuntimeJoinFilterProto;
 import org.apache.tajo.ResourceProtos.TaskRequestProto;
 import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.proto.CatalogProtos;
@@ -44,4 +45,8 @@ public interface TaskRequest extends ProtoObject<TaskRequestProto> {
   QueryContext getQueryContext(TajoConf conf);
   DataChannel getDataChannel();
   Enforcer getEnforcer();
+  void setCollectRuntimeJoinFilter();
+  boolean isCollectingRuntimeJoinFilter();
+  void setRuntimeJoinFilter(RuntimeJoinFilterProto filter);
+  RuntimeJoinFilterProto getRuntimeJoinFilter();
 }
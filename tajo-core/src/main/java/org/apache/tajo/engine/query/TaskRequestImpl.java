@@ -24,6 +24,7 @@ import org.apache.tajo.engine.planner.enforce.Enforcer;
 import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.ResourceProtos.TaskRequestProto;
 import org.apache.tajo.ResourceProtos.FetchProto;
+import org.apache.tajo.ResourceProtos.RuntimeJoinFilterProto;
 import org.apache.tajo.ResourceProtos.TaskRequestProtoOrBuilder;
 import org.apache.tajo.plan.serder.PlanProto;
 
@@ -46,6 +47,8 @@ public class TaskRequestImpl implements TaskRequest {
 	private DataChannel dataChannel;
 	private Enforcer enforcer;
 	private String queryMasterHostAndPort;
+	private Boolean collectRuntimeJoinFilter;
+	private RuntimeJoinFilterProto runtimeJoinFilter;
 	
 	private TaskRequestProto proto = TaskRequestProto.getDefaultInstance();
 	private TaskRequestProto.Builder builder = null;
@@ -210,6 +213,41 @@ public class TaskRequestImpl implements TaskRequest {
     return this.enforcer;
   }
 
+  @Override
+  public void setCollectRuntimeJoinFilter() {
+    maybeInitBuilder();
+    this.collectRuntimeJoinFilter = true;
+  }
+
+  @Override
+  public boolean isCollectingRuntimeJoinFilter() {
+    TaskRequestProtoOrBuilder p = viaProto ? proto : builder;
+    if (collectRuntimeJoinFilter != null) {
+      return collectRuntimeJoinFilter;
+    }
+    this.collectRuntimeJoinFilter = p.getCollectRuntimeJoinFilter();
+    return this.collectRuntimeJoinFilter;
+  }
+
+  @Override
+  public void setRuntimeJoinFilter(RuntimeJoinFilterProto filter) {
+    maybeInitBuilder();
+    this.runtimeJoinFilter = filter;
+  }
+
+  @Override
+  public RuntimeJoinFilterProto getRuntimeJoinFilter() {
+    TaskRequestProtoOrBuilder p = viaProto ? proto : builder;
+    if (runtimeJoinFilter != null) {
+      return runtimeJoinFilter;
+    }
+    if (!p.hasRuntimeJoinFilter()) {
+      return null;
+    }
+    this.runtimeJoinFilter = p.getRuntimeJoinFilter();
+    return this.runtimeJoinFilter;
+  }
+
   @Override
   public List<FetchProto> getFetches() {
 	  initFetches();
@@ -271,6 +309,12 @@ public class TaskRequestImpl implements TaskRequest {
     }
     if (this.enforcer != null) {
       builder.setEnforcer(enforcer.getProto());
+    }
+    if (this.collectRuntimeJoinFilter != null) {
+      builder.setCollectRuntimeJoinFilter(collectRuntimeJoinFilter);
+    }
+    if (this.runtimeJoinFilter != null) {
+      builder.setRuntimeJoinFilter(runtimeJoinFilter);
     }
 	}
 
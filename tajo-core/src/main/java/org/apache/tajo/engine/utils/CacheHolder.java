@@ -19,10 +19,9 @@
 package org.apache.tajo.engine.utils;
 
 import org.apache.tajo.QueryId;
+import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.engine.planner.physical.ScanExec;
-import org.apache.tajo.engine.planner.physical.TupleList;
-import org.apache.tajo.engine.planner.physical.TupleMap;
 import org.apache.tajo.util.Deallocatable;
 import org.apache.tajo.worker.TaskAttemptContext;
 
@@ -50,19 +49,19 @@ public interface CacheHolder<T> {
    * This is a cache-holder for a join table
    * It will release when execution block is finished
    */
-  class BroadcastCacheHolder implements CacheHolder<TupleMap<TupleList>> {
-    private TupleMap<TupleList> data;
+  class BroadcastCacheHolder<T> implements CacheHolder<T> {
+    private T data;
     private Deallocatable rowBlock;
     private TableStats tableStats;
 
-    public BroadcastCacheHolder(TupleMap<TupleList> data, TableStats tableStats, Deallocatable rowBlock){
+    public BroadcastCacheHolder(T data, TableStats tableStats, Deallocatable rowBlock){
       this.data = data;
       this.tableStats = tableStats;
       this.rowBlock = rowBlock;
     }
 
     @Override
-    public TupleMap<TupleList> getData() {
+    public T getData() {
       return data;
     }
 
@@ -82,6 +81,23 @@ public interface CacheHolder<T> {
           scanExec.getCanonicalName(), getUniqueKey(ctx, scanExec));
     }
 
+    /**
+     * Returns the key of a cache which holds the given kind of table built on the given key columns.
+     * Different kinds of tables of the same scan must not share a cache entry.
+     */
+    public static TableCacheKey getCacheKey(TaskAttemptContext ctx, ScanExec scanExec, String kind, Column [] keys)
+        throws IOException {
+
+      StringBuilder pathName = new StringBuilder(getUniqueKey(ctx, scanExec)).append(",").append(kind);
+      if (keys != null) {
+        for (Column key : keys) {
+          pathName.append(",").append(key.getQualifiedName());
+        }
+      }
+      return new TableCacheKey(ctx.getTaskId().getTaskId().getExecutionBlockId().toString(),
+          scanExec.getCanonicalName(), pathName.toString());
+    }
+
     public static String getUniqueKey(TaskAttemptContext context, ScanExec scanExec) {
       QueryId queryId = context.getTaskId().getTaskId().getExecutionBlockId().getQueryId();
       int pid = scanExec.getScanNode().getPID();
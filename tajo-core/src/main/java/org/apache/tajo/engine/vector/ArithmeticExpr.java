@@ -0,0 +1,114 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * Addition, subtraction and multiplication of numeric vectors.
+ * The arithmetic precision follows the result type in the same way as the Datum arithmetic.
+ */
+public class ArithmeticExpr extends VectorExpr {
+  private final EvalType op;
+
+  public ArithmeticExpr(int outputColumn, Type outputType, EvalType op, VectorExpr left, VectorExpr right) {
+    super(outputColumn, outputType, left, right);
+    this.op = op;
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    ColumnVector lhs = batch.column(children[0].getOutputColumn());
+    ColumnVector rhs = batch.column(children[1].getOutputColumn());
+    ColumnVector out = batch.column(outputColumn);
+    propagateNulls(batch, out, lhs, rhs);
+
+    switch (outputType) {
+    case INT4:
+    case INT8:
+      evalLong(batch, ((LongColumnVector) lhs).vector, ((LongColumnVector) rhs).vector,
+          ((LongColumnVector) out).vector, outputType == Type.INT4);
+      break;
+    case FLOAT4:
+      evalFloat(batch, lhs, rhs, ((DoubleColumnVector) out).vector);
+      break;
+    default:
+      evalDouble(batch, lhs, rhs, ((DoubleColumnVector) out).vector);
+    }
+  }
+
+  private void evalLong(VectorBatch batch, long [] l, long [] r, long [] out, boolean narrowToInt) {
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      long result;
+      switch (op) {
+      case PLUS: result = l[i] + r[i]; break;
+      case MINUS: result = l[i] - r[i]; break;
+      default: result = l[i] * r[i];
+      }
+      out[i] = narrowToInt ? (int) result : result;
+    }
+  }
+
+  private void evalFloat(VectorBatch batch, ColumnVector lhs, ColumnVector rhs, double [] out) {
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      float l = getFloat(lhs, i);
+      float r = getFloat(rhs, i);
+      switch (op) {
+      case PLUS: out[i] = l + r; break;
+      case MINUS: out[i] = l - r; break;
+      default: out[i] = l * r;
+      }
+    }
+  }
+
+  private void evalDouble(VectorBatch batch, ColumnVector lhs, ColumnVector rhs, double [] out) {
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      double l = getDouble(lhs, i);
+      double r = getDouble(rhs, i);
+      switch (op) {
+      case PLUS: out[i] = l + r; break;
+      case MINUS: out[i] = l - r; break;
+      default: out[i] = l * r;
+      }
+    }
+  }
+
+  static float getFloat(ColumnVector vector, int row) {
+    if (vector instanceof LongColumnVector) {
+      return ((LongColumnVector) vector).vector[row];
+    } else {
+      return (float) ((DoubleColumnVector) vector).vector[row];
+    }
+  }
+
+  static double getDouble(ColumnVector vector, int row) {
+    if (vector instanceof LongColumnVector) {
+      return ((LongColumnVector) vector).vector[row];
+    } else {
+      return ((DoubleColumnVector) vector).vector[row];
+    }
+  }
+}
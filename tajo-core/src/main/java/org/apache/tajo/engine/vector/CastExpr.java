@@ -0,0 +1,96 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * A cast between numeric types. It follows the narrowing and widening rules of Java primitive casts
+ * as the corresponding Datum methods do.
+ */
+public class CastExpr extends VectorExpr {
+
+  public CastExpr(int outputColumn, Type targetType, VectorExpr child) {
+    super(outputColumn, targetType, child);
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    ColumnVector in = batch.column(children[0].getOutputColumn());
+    ColumnVector out = batch.column(outputColumn);
+    propagateNulls(batch, out, in);
+
+    if (in instanceof LongColumnVector) {
+      long [] src = ((LongColumnVector) in).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        write(out, i, src[i]);
+      }
+    } else {
+      double [] src = ((DoubleColumnVector) in).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        write(out, i, src[i]);
+      }
+    }
+  }
+
+  private void write(ColumnVector out, int row, long value) {
+    switch (outputType) {
+    case INT1:
+    case INT2:
+      ((LongColumnVector) out).vector[row] = (short) value;
+      break;
+    case INT4:
+      ((LongColumnVector) out).vector[row] = (int) value;
+      break;
+    case INT8:
+      ((LongColumnVector) out).vector[row] = value;
+      break;
+    case FLOAT4:
+      ((DoubleColumnVector) out).vector[row] = (float) value;
+      break;
+    default:
+      ((DoubleColumnVector) out).vector[row] = (double) value;
+    }
+  }
+
+  private void write(ColumnVector out, int row, double value) {
+    switch (outputType) {
+    case INT1:
+    case INT2:
+      ((LongColumnVector) out).vector[row] = (short) value;
+      break;
+    case INT4:
+      ((LongColumnVector) out).vector[row] = (int) value;
+      break;
+    case INT8:
+      ((LongColumnVector) out).vector[row] = (long) value;
+      break;
+    case FLOAT4:
+      ((DoubleColumnVector) out).vector[row] = (float) value;
+      break;
+    default:
+      ((DoubleColumnVector) out).vector[row] = value;
+    }
+  }
+}
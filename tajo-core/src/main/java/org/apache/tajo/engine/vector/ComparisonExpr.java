@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.TextDatum;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.vector.BytesColumnVector;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * Comparison of two vectors. The output is a BOOLEAN vector, and it is null if any operand is null.
+ */
+public class ComparisonExpr extends VectorExpr {
+  public enum CompareMode {
+    LONG,
+    FLOAT,
+    DOUBLE,
+    BYTES
+  }
+
+  private final EvalType op;
+  private final CompareMode mode;
+
+  public ComparisonExpr(int outputColumn, EvalType op, CompareMode mode, VectorExpr left, VectorExpr right) {
+    super(outputColumn, Type.BOOLEAN, left, right);
+    this.op = op;
+    this.mode = mode;
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    ColumnVector lhs = batch.column(children[0].getOutputColumn());
+    ColumnVector rhs = batch.column(children[1].getOutputColumn());
+    LongColumnVector out = batch.column(outputColumn);
+    propagateNulls(batch, out, lhs, rhs);
+
+    long [] result = out.vector;
+    switch (mode) {
+    case LONG: {
+      long [] l = ((LongColumnVector) lhs).vector;
+      long [] r = ((LongColumnVector) rhs).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        result[i] = test(Long.compare(l[i], r[i]));
+      }
+      break;
+    }
+    case FLOAT:
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        float l = ArithmeticExpr.getFloat(lhs, i);
+        float r = ArithmeticExpr.getFloat(rhs, i);
+        result[i] = test(l < r ? -1 : (l > r ? 1 : 0));
+      }
+      break;
+    case DOUBLE:
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        double l = ArithmeticExpr.getDouble(lhs, i);
+        double r = ArithmeticExpr.getDouble(rhs, i);
+        result[i] = test(l < r ? -1 : (l > r ? 1 : 0));
+      }
+      break;
+    default: {
+      byte [][] l = ((BytesColumnVector) lhs).vector;
+      byte [][] r = ((BytesColumnVector) rhs).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        if (out.isNullAt(i)) {
+          continue;
+        }
+        result[i] = test(TextDatum.COMPARATOR.compare(l[i], r[i]));
+      }
+    }
+    }
+  }
+
+  private long test(int compare) {
+    boolean matched;
+    switch (op) {
+    case EQUAL: matched = compare == 0; break;
+    case NOT_EQUAL: matched = compare != 0; break;
+    case LTH: matched = compare < 0; break;
+    case LEQ: matched = compare <= 0; break;
+    case GTH: matched = compare > 0; break;
+    default: matched = compare >= 0;
+    }
+    return matched ? 1 : 0;
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.storage.vector.ColumnVector;
+
+/**
+ * A constant value. Its output column is filled only once because no other expression writes to it.
+ */
+public class ConstExpr extends VectorExpr {
+  private final Datum value;
+  private boolean filled = false;
+
+  public ConstExpr(int outputColumn, Type type, Datum value) {
+    super(outputColumn, type);
+    this.value = value;
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    if (!filled) {
+      ColumnVector out = batch.column(outputColumn);
+      out.reset();
+      for (int i = 0; i < batch.capacity(); i++) {
+        VectorUtil.setValue(out, i, value);
+      }
+      filled = true;
+    }
+  }
+}
@@ -0,0 +1,47 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * IS NULL and IS NOT NULL predicates. The output never contains nulls.
+ */
+public class IsNullExpr extends VectorExpr {
+  private final boolean not;
+
+  public IsNullExpr(int outputColumn, boolean not, VectorExpr child) {
+    super(outputColumn, Type.BOOLEAN, child);
+    this.not = not;
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    ColumnVector in = batch.column(children[0].getOutputColumn());
+    LongColumnVector out = batch.column(outputColumn);
+    out.reset();
+
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      out.vector[i] = in.isNullAt(i) ^ not ? 1 : 0;
+    }
+  }
+}
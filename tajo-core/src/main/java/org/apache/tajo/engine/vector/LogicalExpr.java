@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * AND and OR of two BOOLEAN vectors with the three-valued logic of SQL.
+ */
+public class LogicalExpr extends VectorExpr {
+  private final boolean and;
+
+  public LogicalExpr(int outputColumn, boolean and, VectorExpr left, VectorExpr right) {
+    super(outputColumn, Type.BOOLEAN, left, right);
+    this.and = and;
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    LongColumnVector lhs = batch.column(children[0].getOutputColumn());
+    LongColumnVector rhs = batch.column(children[1].getOutputColumn());
+    LongColumnVector out = batch.column(outputColumn);
+    long [] l = lhs.vector;
+    long [] r = rhs.vector;
+    long [] result = out.vector;
+
+    if (lhs.noNulls && rhs.noNulls) {
+      out.reset();
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        result[i] = and ? l[i] & r[i] : l[i] | r[i];
+      }
+      return;
+    }
+
+    // A dominant value (false for AND, true for OR) decides the result even if the other side is null.
+    final long dominant = and ? 0 : 1;
+    out.noNulls = false;
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      boolean lNull = lhs.isNullAt(i);
+      boolean rNull = rhs.isNullAt(i);
+      if ((!lNull && l[i] == dominant) || (!rNull && r[i] == dominant)) {
+        out.isNull[i] = false;
+        result[i] = dominant;
+      } else if (lNull || rNull) {
+        out.isNull[i] = true;
+      } else {
+        out.isNull[i] = false;
+        result[i] = 1 - dominant;
+      }
+    }
+  }
+}
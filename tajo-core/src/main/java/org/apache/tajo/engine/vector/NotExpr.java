@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+/**
+ * Negation of a BOOLEAN vector. The negation of null is null.
+ */
+public class NotExpr extends VectorExpr {
+
+  public NotExpr(int outputColumn, VectorExpr child) {
+    super(outputColumn, Type.BOOLEAN, child);
+  }
+
+  @Override
+  protected void evaluateSelf(VectorBatch batch) {
+    LongColumnVector in = batch.column(children[0].getOutputColumn());
+    LongColumnVector out = batch.column(outputColumn);
+    propagateNulls(batch, out, in);
+
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      out.vector[i] = 1 - in.vector[i];
+    }
+  }
+}
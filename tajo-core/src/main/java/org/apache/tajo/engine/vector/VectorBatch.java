@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VectorBatch is a set of column vectors which hold up to <code>capacity</code> rows.
+ *
+ * If <code>selectionInUse</code> is true, the live rows are <code>selected[0 ~ size-1]</code>.
+ * Otherwise, the live rows are <code>0 ~ size-1</code>. Filters narrow down the live rows by
+ * rewriting the selection vector instead of moving values between vectors.
+ *
+ * A batch is shared by a chain of vectorized operators, and each operator appends its
+ * scratch and output columns to the batch during initialization.
+ */
+public class VectorBatch {
+  public static final int DEFAULT_SIZE = 1024;
+
+  private final int capacity;
+  private final List<ColumnVector> columns = new ArrayList<>();
+
+  public int size;
+  public final int [] selected;
+  public boolean selectionInUse;
+
+  public VectorBatch(int capacity) {
+    this.capacity = capacity;
+    this.selected = new int[capacity];
+  }
+
+  public int capacity() {
+    return capacity;
+  }
+
+  /**
+   * Add a new column vector for the given type.
+   *
+   * @return the index of the added column
+   */
+  public int addColumn(Type type) {
+    columns.add(VectorUtil.createVector(type, capacity));
+    return columns.size() - 1;
+  }
+
+  @SuppressWarnings("unchecked")
+  public <T extends ColumnVector> T column(int idx) {
+    return (T) columns.get(idx);
+  }
+
+  public int columnNum() {
+    return columns.size();
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Get the row index of the i-th live row.
+   */
+  public final int rowAt(int i) {
+    return selectionInUse ? selected[i] : i;
+  }
+
+  /**
+   * Keep only the live rows for which the given BOOLEAN vector is true.
+   */
+  public void filter(LongColumnVector predicate) {
+    int newSize = 0;
+    for (int j = 0; j < size; j++) {
+      int i = rowAt(j);
+      if (predicate.vector[i] == 1 && !predicate.isNullAt(i)) {
+        selected[newSize++] = i;
+      }
+    }
+    size = newSize;
+    selectionInUse = true;
+  }
+
+  public void reset() {
+    size = 0;
+    selectionInUse = false;
+  }
+}
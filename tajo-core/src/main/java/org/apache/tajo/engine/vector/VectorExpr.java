@@ -0,0 +1,86 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.storage.vector.ColumnVector;
+
+/**
+ * VectorExpr is the vectorized counterpart of an EvalNode.
+ * It evaluates an expression for all live rows of a batch and writes the results into its output column.
+ */
+public abstract class VectorExpr {
+  protected final int outputColumn;
+  protected final Type outputType;
+  protected final VectorExpr [] children;
+
+  public VectorExpr(int outputColumn, Type outputType, VectorExpr... children) {
+    this.outputColumn = outputColumn;
+    this.outputType = outputType;
+    this.children = children;
+  }
+
+  public int getOutputColumn() {
+    return outputColumn;
+  }
+
+  public Type getOutputType() {
+    return outputType;
+  }
+
+  public void evaluate(VectorBatch batch) {
+    for (VectorExpr child : children) {
+      child.evaluate(batch);
+    }
+    evaluateSelf(batch);
+  }
+
+  /**
+   * Compute this expression under the assumption that all children are already evaluated.
+   */
+  protected abstract void evaluateSelf(VectorBatch batch);
+
+  /**
+   * Set null flags of the output vector for live rows from the given input vectors.
+   *
+   * @return true if any input vector may contain nulls
+   */
+  protected static boolean propagateNulls(VectorBatch batch, ColumnVector out, ColumnVector... inputs) {
+    boolean noNulls = true;
+    for (ColumnVector in : inputs) {
+      noNulls &= in.noNulls;
+    }
+
+    if (noNulls) {
+      out.reset();
+      return false;
+    }
+
+    out.noNulls = false;
+    for (int j = 0; j < batch.size; j++) {
+      int i = batch.rowAt(j);
+      boolean isNull = false;
+      for (ColumnVector in : inputs) {
+        isNull |= in.isNullAt(i);
+      }
+      out.isNull[i] = isNull;
+    }
+    return true;
+  }
+}
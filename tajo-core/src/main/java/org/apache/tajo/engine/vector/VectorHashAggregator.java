@@ -0,0 +1,665 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.vector.BytesColumnVector;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+import java.util.Arrays;
+
+/**
+ * VectorHashAggregator groups the live rows of batches by key columns and keeps aggregation states
+ * in primitive arrays indexed by group id.
+ *
+ * Groups are found through an open addressing hash table with linear probing.
+ * If there is no key column, all rows belong to a single group which always exists.
+ */
+public class VectorHashAggregator {
+
+  public enum AggregateKind {
+    COUNT_ROWS,     // count(*) in the first phase
+    COUNT_VALUES,   // count(expr) in the first phase
+    SUM_COUNTS,     // count in the other phases, summing up partial counts
+    SUM_LONG,
+    SUM_DOUBLE,
+    MIN,
+    MAX
+  }
+
+  public static class AggregateSpec {
+    private final AggregateKind kind;
+    private final int argColumn;
+    private final Type outputType;
+
+    /**
+     * @param kind The kind of aggregation
+     * @param argColumn The batch column of the argument, or -1 if there is no argument
+     * @param outputType The type of the aggregation result
+     */
+    public AggregateSpec(AggregateKind kind, int argColumn, Type outputType) {
+      this.kind = kind;
+      this.argColumn = argColumn;
+      this.outputType = outputType;
+    }
+  }
+
+  private static final int EMPTY = -1;
+
+  private final int [] keyColumns;
+  private final KeyStore [] keys;
+  private final AggregateSpec [] specs;
+  private final Accumulator [] accumulators;
+
+  private int [] slots;
+  private int mask;
+  private int [] groupHashes;
+  private int groupNum;
+  private int groupCapacity;
+
+  // per-batch working arrays
+  private final int [] rowHashes;
+  private final int [] rowGroups;
+
+  public VectorHashAggregator(int [] keyColumns, Type [] keyTypes, AggregateSpec [] specs,
+                              int batchCapacity, int initialSize) {
+    this.keyColumns = keyColumns;
+    this.specs = specs;
+    this.groupCapacity = Math.max(16, initialSize);
+
+    keys = new KeyStore[keyColumns.length];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = newKeyStore(keyTypes[i], groupCapacity);
+    }
+    accumulators = new Accumulator[specs.length];
+    for (int i = 0; i < specs.length; i++) {
+      accumulators[i] = newAccumulator(specs[i], groupCapacity);
+    }
+
+    int slotNum = Integer.highestOneBit(groupCapacity * 2 - 1) << 1;
+    slots = new int[slotNum];
+    Arrays.fill(slots, EMPTY);
+    mask = slotNum - 1;
+    groupHashes = new int[groupCapacity];
+
+    rowHashes = new int[batchCapacity];
+    rowGroups = new int[batchCapacity];
+
+    if (keyColumns.length == 0) {
+      addGroup(null, 0, 0);
+    }
+  }
+
+  public int getGroupNum() {
+    return groupNum;
+  }
+
+  public int getKeyNum() {
+    return keys.length;
+  }
+
+  public int getAggregateNum() {
+    return accumulators.length;
+  }
+
+  public Datum getKey(int keyIdx, int group) {
+    return keys[keyIdx].get(group);
+  }
+
+  public Datum getResult(int aggIdx, int group) {
+    return accumulators[aggIdx].get(group);
+  }
+
+  public void aggregate(VectorBatch batch) {
+    if (batch.size == 0) {
+      return;
+    }
+
+    if (keyColumns.length > 0) {
+      findGroups(batch);
+    }
+
+    for (int a = 0; a < accumulators.length; a++) {
+      ColumnVector arg = specs[a].argColumn < 0 ? null : batch.column(specs[a].argColumn);
+      accumulators[a].accumulate(batch, rowGroups, arg);
+    }
+  }
+
+  private void findGroups(VectorBatch batch) {
+    ColumnVector [] vectors = new ColumnVector[keyColumns.length];
+    for (int k = 0; k < keyColumns.length; k++) {
+      vectors[k] = batch.column(keyColumns[k]);
+    }
+
+    for (int j = 0; j < batch.size; j++) {
+      rowHashes[batch.rowAt(j)] = 0;
+    }
+    for (int k = 0; k < keyColumns.length; k++) {
+      keys[k].hash(batch, vectors[k], rowHashes);
+    }
+
+    for (int j = 0; j < batch.size; j++) {
+      int row = batch.rowAt(j);
+      int hash = mix(rowHashes[row]);
+      int slot = hash & mask;
+
+      int group;
+      while ((group = slots[slot]) != EMPTY) {
+        if (groupHashes[group] == hash && keyEquals(group, vectors, row)) {
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      if (group == EMPTY) {
+        group = addGroup(vectors, row, hash);
+        slots[slot] = group;
+        if (groupNum * 2 > slots.length) {
+          rehash();
+        }
+      }
+      rowGroups[row] = group;
+    }
+  }
+
+  private boolean keyEquals(int group, ColumnVector [] vectors, int row) {
+    for (int k = 0; k < keys.length; k++) {
+      if (!keys[k].equals(group, vectors[k], row)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int addGroup(ColumnVector [] vectors, int row, int hash) {
+    if (groupNum == groupCapacity) {
+      groupCapacity *= 2;
+      groupHashes = Arrays.copyOf(groupHashes, groupCapacity);
+      for (KeyStore key : keys) {
+        key.grow(groupCapacity);
+      }
+      for (Accumulator accumulator : accumulators) {
+        accumulator.grow(groupCapacity);
+      }
+    }
+
+    int group = groupNum++;
+    groupHashes[group] = hash;
+    for (int k = 0; k < keys.length; k++) {
+      keys[k].add(group, vectors[k], row);
+    }
+    for (Accumulator accumulator : accumulators) {
+      accumulator.init(group);
+    }
+    return group;
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    Arrays.fill(slots, EMPTY);
+    mask = slots.length - 1;
+    for (int group = 0; group < groupNum; group++) {
+      int slot = groupHashes[group] & mask;
+      while (slots[slot] != EMPTY) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = group;
+    }
+  }
+
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+
+  private static KeyStore newKeyStore(Type type, int capacity) {
+    ColumnVector prototype = VectorUtil.createVector(type, 0);
+    if (prototype instanceof LongColumnVector) {
+      return new LongKeyStore(type, capacity);
+    } else if (prototype instanceof DoubleColumnVector) {
+      return new DoubleKeyStore(type, capacity);
+    } else {
+      return new BytesKeyStore(capacity);
+    }
+  }
+
+  private static Accumulator newAccumulator(AggregateSpec spec, int capacity) {
+    switch (spec.kind) {
+    case COUNT_ROWS:
+    case COUNT_VALUES:
+    case SUM_COUNTS:
+      return new CountAccumulator(spec.kind, capacity);
+    case SUM_LONG:
+      return new SumLongAccumulator(capacity);
+    case SUM_DOUBLE:
+      return new SumDoubleAccumulator(capacity);
+    default:
+      if (VectorUtil.isFloatingPoint(spec.outputType)) {
+        return new MinMaxDoubleAccumulator(spec.kind == AggregateKind.MAX, spec.outputType, capacity);
+      } else {
+        return new MinMaxLongAccumulator(spec.kind == AggregateKind.MAX, spec.outputType, capacity);
+      }
+    }
+  }
+
+  //////////////////////////////////////////////////////////////////////////////
+  // Grouping Keys
+  //////////////////////////////////////////////////////////////////////////////
+
+  private static abstract class KeyStore {
+    protected boolean [] nulls;
+
+    KeyStore(int capacity) {
+      nulls = new boolean[capacity];
+    }
+
+    void grow(int capacity) {
+      nulls = Arrays.copyOf(nulls, capacity);
+    }
+
+    /** Combine the hash values of this key column into the hash values of live rows */
+    abstract void hash(VectorBatch batch, ColumnVector vector, int [] hashes);
+
+    abstract boolean equals(int group, ColumnVector vector, int row);
+
+    abstract void add(int group, ColumnVector vector, int row);
+
+    abstract Datum get(int group);
+  }
+
+  private static class LongKeyStore extends KeyStore {
+    private final Type type;
+    private long [] values;
+
+    LongKeyStore(Type type, int capacity) {
+      super(capacity);
+      this.type = type;
+      values = new long[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      super.grow(capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void hash(VectorBatch batch, ColumnVector vector, int [] hashes) {
+      long [] v = ((LongColumnVector) vector).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        hashes[i] = hashes[i] * 31 + (vector.isNullAt(i) ? 0 : Long.hashCode(v[i]));
+      }
+    }
+
+    @Override
+    boolean equals(int group, ColumnVector vector, int row) {
+      if (vector.isNullAt(row)) {
+        return nulls[group];
+      }
+      return !nulls[group] && values[group] == ((LongColumnVector) vector).vector[row];
+    }
+
+    @Override
+    void add(int group, ColumnVector vector, int row) {
+      nulls[group] = vector.isNullAt(row);
+      values[group] = ((LongColumnVector) vector).vector[row];
+    }
+
+    @Override
+    Datum get(int group) {
+      return nulls[group] ? NullDatum.get() : VectorUtil.toDatum(type, values[group]);
+    }
+  }
+
+  private static class DoubleKeyStore extends KeyStore {
+    private final Type type;
+    private double [] values;
+
+    DoubleKeyStore(Type type, int capacity) {
+      super(capacity);
+      this.type = type;
+      values = new double[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      super.grow(capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void hash(VectorBatch batch, ColumnVector vector, int [] hashes) {
+      double [] v = ((DoubleColumnVector) vector).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        hashes[i] = hashes[i] * 31 + (vector.isNullAt(i) ? 0 : Double.hashCode(v[i]));
+      }
+    }
+
+    @Override
+    boolean equals(int group, ColumnVector vector, int row) {
+      if (vector.isNullAt(row)) {
+        return nulls[group];
+      }
+      return !nulls[group] &&
+          Double.doubleToLongBits(values[group]) == Double.doubleToLongBits(((DoubleColumnVector) vector).vector[row]);
+    }
+
+    @Override
+    void add(int group, ColumnVector vector, int row) {
+      nulls[group] = vector.isNullAt(row);
+      values[group] = ((DoubleColumnVector) vector).vector[row];
+    }
+
+    @Override
+    Datum get(int group) {
+      return nulls[group] ? NullDatum.get() : VectorUtil.toDatum(type, values[group]);
+    }
+  }
+
+  private static class BytesKeyStore extends KeyStore {
+    private byte [][] values;
+
+    BytesKeyStore(int capacity) {
+      super(capacity);
+      values = new byte[capacity][];
+    }
+
+    @Override
+    void grow(int capacity) {
+      super.grow(capacity);
+      values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    void hash(VectorBatch batch, ColumnVector vector, int [] hashes) {
+      byte [][] v = ((BytesColumnVector) vector).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        hashes[i] = hashes[i] * 31 + (vector.isNullAt(i) ? 0 : Arrays.hashCode(v[i]));
+      }
+    }
+
+    @Override
+    boolean equals(int group, ColumnVector vector, int row) {
+      if (vector.isNullAt(row)) {
+        return nulls[group];
+      }
+      return !nulls[group] && Arrays.equals(values[group], ((BytesColumnVector) vector).vector[row]);
+    }
+
+    @Override
+    void add(int group, ColumnVector vector, int row) {
+      nulls[group] = vector.isNullAt(row);
+      values[group] = nulls[group] ? null : ((BytesColumnVector) vector).vector[row];
+    }
+
+    @Override
+    Datum get(int group) {
+      return nulls[group] ? NullDatum.get() : DatumFactory.createText(values[group]);
+    }
+  }
+
+  //////////////////////////////////////////////////////////////////////////////
+  // Aggregation States
+  //////////////////////////////////////////////////////////////////////////////
+
+  private static abstract class Accumulator {
+    abstract void grow(int capacity);
+
+    abstract void init(int group);
+
+    abstract void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg);
+
+    abstract Datum get(int group);
+  }
+
+  private static class CountAccumulator extends Accumulator {
+    private final AggregateKind kind;
+    private long [] counts;
+
+    CountAccumulator(AggregateKind kind, int capacity) {
+      this.kind = kind;
+      this.counts = new long[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      counts = Arrays.copyOf(counts, capacity);
+    }
+
+    @Override
+    void init(int group) {
+      counts[group] = 0;
+    }
+
+    @Override
+    void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg) {
+      switch (kind) {
+      case COUNT_ROWS:
+        for (int j = 0; j < batch.size; j++) {
+          counts[rowGroups[batch.rowAt(j)]]++;
+        }
+        break;
+      case COUNT_VALUES:
+        for (int j = 0; j < batch.size; j++) {
+          int i = batch.rowAt(j);
+          if (!arg.isNullAt(i)) {
+            counts[rowGroups[i]]++;
+          }
+        }
+        break;
+      default:
+        long [] partial = ((LongColumnVector) arg).vector;
+        for (int j = 0; j < batch.size; j++) {
+          int i = batch.rowAt(j);
+          if (!arg.isNullAt(i)) {
+            counts[rowGroups[i]] += partial[i];
+          }
+        }
+      }
+    }
+
+    @Override
+    Datum get(int group) {
+      return DatumFactory.createInt8(counts[group]);
+    }
+  }
+
+  private static class SumLongAccumulator extends Accumulator {
+    private long [] sums;
+    private boolean [] hasValue;
+
+    SumLongAccumulator(int capacity) {
+      sums = new long[capacity];
+      hasValue = new boolean[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      sums = Arrays.copyOf(sums, capacity);
+      hasValue = Arrays.copyOf(hasValue, capacity);
+    }
+
+    @Override
+    void init(int group) {
+      sums[group] = 0;
+      hasValue[group] = false;
+    }
+
+    @Override
+    void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg) {
+      long [] v = ((LongColumnVector) arg).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        if (!arg.isNullAt(i)) {
+          int group = rowGroups[i];
+          sums[group] += v[i];
+          hasValue[group] = true;
+        }
+      }
+    }
+
+    @Override
+    Datum get(int group) {
+      return hasValue[group] ? DatumFactory.createInt8(sums[group]) : NullDatum.get();
+    }
+  }
+
+  private static class SumDoubleAccumulator extends Accumulator {
+    private double [] sums;
+    private boolean [] hasValue;
+
+    SumDoubleAccumulator(int capacity) {
+      sums = new double[capacity];
+      hasValue = new boolean[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      sums = Arrays.copyOf(sums, capacity);
+      hasValue = Arrays.copyOf(hasValue, capacity);
+    }
+
+    @Override
+    void init(int group) {
+      sums[group] = 0;
+      hasValue[group] = false;
+    }
+
+    @Override
+    void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg) {
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        if (!arg.isNullAt(i)) {
+          int group = rowGroups[i];
+          sums[group] += ArithmeticExpr.getDouble(arg, i);
+          hasValue[group] = true;
+        }
+      }
+    }
+
+    @Override
+    Datum get(int group) {
+      return hasValue[group] ? DatumFactory.createFloat8(sums[group]) : NullDatum.get();
+    }
+  }
+
+  private static class MinMaxLongAccumulator extends Accumulator {
+    private final boolean max;
+    private final Type type;
+    private long [] values;
+    private boolean [] hasValue;
+
+    MinMaxLongAccumulator(boolean max, Type type, int capacity) {
+      this.max = max;
+      this.type = type;
+      values = new long[capacity];
+      hasValue = new boolean[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+      hasValue = Arrays.copyOf(hasValue, capacity);
+    }
+
+    @Override
+    void init(int group) {
+      hasValue[group] = false;
+    }
+
+    @Override
+    void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg) {
+      long [] v = ((LongColumnVector) arg).vector;
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        if (arg.isNullAt(i)) {
+          continue;
+        }
+        int group = rowGroups[i];
+        if (!hasValue[group] || (max ? v[i] > values[group] : v[i] < values[group])) {
+          values[group] = v[i];
+          hasValue[group] = true;
+        }
+      }
+    }
+
+    @Override
+    Datum get(int group) {
+      return hasValue[group] ? VectorUtil.toDatum(type, values[group]) : NullDatum.get();
+    }
+  }
+
+  private static class MinMaxDoubleAccumulator extends Accumulator {
+    private final boolean max;
+    private final Type type;
+    private double [] values;
+    private boolean [] hasValue;
+
+    MinMaxDoubleAccumulator(boolean max, Type type, int capacity) {
+      this.max = max;
+      this.type = type;
+      values = new double[capacity];
+      hasValue = new boolean[capacity];
+    }
+
+    @Override
+    void grow(int capacity) {
+      values = Arrays.copyOf(values, capacity);
+      hasValue = Arrays.copyOf(hasValue, capacity);
+    }
+
+    @Override
+    void init(int group) {
+      hasValue[group] = false;
+    }
+
+    @Override
+    void accumulate(VectorBatch batch, int [] rowGroups, ColumnVector arg) {
+      for (int j = 0; j < batch.size; j++) {
+        int i = batch.rowAt(j);
+        if (arg.isNullAt(i)) {
+          continue;
+        }
+        int group = rowGroups[i];
+        double value = ArithmeticExpr.getDouble(arg, i);
+        if (!hasValue[group] || (max ? value > values[group] : value < values[group])) {
+          values[group] = value;
+          hasValue[group] = true;
+        }
+      }
+    }
+
+    @Override
+    Datum get(int group) {
+      return hasValue[group] ? VectorUtil.toDatum(type, values[group]) : NullDatum.get();
+    }
+  }
+}
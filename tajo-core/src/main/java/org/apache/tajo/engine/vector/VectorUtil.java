@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.vector.BytesColumnVector;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
+
+public class VectorUtil {
+
+  /**
+   * Check if values of the given type can be kept in a column vector.
+   */
+  public static boolean isSupportedType(Type type) {
+    switch (type) {
+    case BOOLEAN:
+    case INT1:
+    case INT2:
+    case INT4:
+    case INT8:
+    case DATE:
+    case TIMESTAMP:
+    case FLOAT4:
+    case FLOAT8:
+    case TEXT:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  public static boolean isIntegral(Type type) {
+    return type == Type.INT1 || type == Type.INT2 || type == Type.INT4 || type == Type.INT8;
+  }
+
+  public static boolean isFloatingPoint(Type type) {
+    return type == Type.FLOAT4 || type == Type.FLOAT8;
+  }
+
+  public static boolean isNumeric(Type type) {
+    return isIntegral(type) || isFloatingPoint(type);
+  }
+
+  public static ColumnVector createVector(Type type, int capacity) {
+    switch (type) {
+    case BOOLEAN:
+    case INT1:
+    case INT2:
+    case INT4:
+    case INT8:
+    case DATE:
+    case TIMESTAMP:
+      return new LongColumnVector(type, capacity);
+    case FLOAT4:
+    case FLOAT8:
+      return new DoubleColumnVector(type, capacity);
+    case TEXT:
+      return new BytesColumnVector(type, capacity);
+    default:
+      throw new TajoInternalError("unsupported type in vectorized execution: " + type.name());
+    }
+  }
+
+  /**
+   * Set the value of a tuple field to a row of a column vector.
+   * The vector must not be reset between calls for the same batch.
+   */
+  public static void setValue(ColumnVector vector, int row, Tuple tuple, int fieldId) {
+    if (tuple.isBlankOrNull(fieldId)) {
+      vector.setNull(row);
+      return;
+    }
+
+    vector.isNull[row] = false;
+    switch (vector.getType()) {
+    case BOOLEAN:
+      ((LongColumnVector) vector).vector[row] = tuple.getBool(fieldId) ? 1 : 0;
+      break;
+    case INT1:
+    case INT2:
+      ((LongColumnVector) vector).vector[row] = tuple.getInt2(fieldId);
+      break;
+    case INT4:
+    case DATE:
+      ((LongColumnVector) vector).vector[row] = tuple.getInt4(fieldId);
+      break;
+    case INT8:
+    case TIMESTAMP:
+      ((LongColumnVector) vector).vector[row] = tuple.getInt8(fieldId);
+      break;
+    case FLOAT4:
+      ((DoubleColumnVector) vector).vector[row] = tuple.getFloat4(fieldId);
+      break;
+    case FLOAT8:
+      ((DoubleColumnVector) vector).vector[row] = tuple.getFloat8(fieldId);
+      break;
+    case TEXT:
+      ((BytesColumnVector) vector).vector[row] = tuple.getBytes(fieldId);
+      break;
+    default:
+      throw new TajoInternalError("unsupported type in vectorized execution: " + vector.getType().name());
+    }
+  }
+
+  /**
+   * Set a constant datum to a row of a column vector.
+   */
+  public static void setValue(ColumnVector vector, int row, Datum datum) {
+    if (datum.isNull()) {
+      vector.setNull(row);
+      return;
+    }
+
+    vector.isNull[row] = false;
+    switch (vector.getType()) {
+    case BOOLEAN:
+      ((LongColumnVector) vector).vector[row] = datum.asBool() ? 1 : 0;
+      break;
+    case INT1:
+    case INT2:
+      ((LongColumnVector) vector).vector[row] = datum.asInt2();
+      break;
+    case INT4:
+    case DATE:
+      ((LongColumnVector) vector).vector[row] = datum.asInt4();
+      break;
+    case INT8:
+    case TIMESTAMP:
+      ((LongColumnVector) vector).vector[row] = datum.asInt8();
+      break;
+    case FLOAT4:
+      ((DoubleColumnVector) vector).vector[row] = datum.asFloat4();
+      break;
+    case FLOAT8:
+      ((DoubleColumnVector) vector).vector[row] = datum.asFloat8();
+      break;
+    case TEXT:
+      ((BytesColumnVector) vector).vector[row] = datum.asTextBytes();
+      break;
+    default:
+      throw new TajoInternalError("unsupported type in vectorized execution: " + vector.getType().name());
+    }
+  }
+
+  /**
+   * Get a row of a column vector as a datum.
+   */
+  public static Datum getDatum(ColumnVector vector, int row) {
+    if (vector.isNullAt(row)) {
+      return NullDatum.get();
+    }
+
+    if (vector instanceof LongColumnVector) {
+      return toDatum(vector.getType(), ((LongColumnVector) vector).vector[row]);
+    } else if (vector instanceof DoubleColumnVector) {
+      return toDatum(vector.getType(), ((DoubleColumnVector) vector).vector[row]);
+    } else {
+      return DatumFactory.createText(((BytesColumnVector) vector).vector[row]);
+    }
+  }
+
+  /**
+   * Convert a value kept in a {@link LongColumnVector} into a datum of the given type.
+   */
+  public static Datum toDatum(Type type, long value) {
+    switch (type) {
+    case BOOLEAN:
+      return DatumFactory.createBool(value != 0);
+    case INT1:
+    case INT2:
+      return DatumFactory.createInt2((short) value);
+    case INT4:
+      return DatumFactory.createInt4((int) value);
+    case INT8:
+      return DatumFactory.createInt8(value);
+    case DATE:
+      return DatumFactory.createDate((int) value);
+    case TIMESTAMP:
+      return DatumFactory.createTimestamp(value);
+    case FLOAT4:
+      return DatumFactory.createFloat4(value);
+    case FLOAT8:
+      return DatumFactory.createFloat8(value);
+    default:
+      throw new TajoInternalError("unsupported type in vectorized execution: " + type.name());
+    }
+  }
+
+  /**
+   * Convert a value kept in a {@link DoubleColumnVector} into a datum of the given type.
+   */
+  public static Datum toDatum(Type type, double value) {
+    switch (type) {
+    case FLOAT4:
+      return DatumFactory.createFloat4((float) value);
+    case FLOAT8:
+      return DatumFactory.createFloat8(value);
+    default:
+      throw new TajoInternalError("unsupported type in vectorized execution: " + type.name());
+    }
+  }
+}
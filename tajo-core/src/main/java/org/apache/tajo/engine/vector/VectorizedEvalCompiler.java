@@ -0,0 +1,207 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.vector;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.engine.vector.ComparisonExpr.CompareMode;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.plan.expr.*;
+
+/**
+ * VectorizedEvalCompiler translates an EvalNode tree into a {@link VectorExpr} tree.
+ * Every intermediate result gets its own scratch column appended to the given batch.
+ *
+ * Only a subset of expressions is supported, and {@link #isVectorizable(Schema, EvalNode)}
+ * must be checked before {@link #compile(EvalNode)} is called.
+ */
+public class VectorizedEvalCompiler {
+  private final Schema schema;
+  private final int [] columnIndexes;
+  private final VectorBatch batch;
+
+  /**
+   * @param schema The input schema of expressions
+   * @param columnIndexes Column indexes of the batch for each column of the input schema
+   * @param batch The batch to which scratch columns are added
+   */
+  public VectorizedEvalCompiler(Schema schema, int [] columnIndexes, VectorBatch batch) {
+    this.schema = schema;
+    this.columnIndexes = columnIndexes;
+    this.batch = batch;
+  }
+
+  public static boolean isVectorizable(Schema schema, EvalNode eval) {
+    Type type = eval.getValueType().kind();
+
+    switch (eval.getType()) {
+    case FIELD:
+      return findColumnId(schema, (FieldEval) eval) >= 0 && VectorUtil.isSupportedType(type);
+
+    case CONST:
+      return !((ConstEval) eval).getValue().isNull() && VectorUtil.isSupportedType(type);
+
+    case CAST: {
+      EvalNode operand = ((CastEval) eval).getOperand();
+      return VectorUtil.isNumeric(type) && VectorUtil.isNumeric(operand.getValueType().kind())
+          && isVectorizable(schema, operand);
+    }
+
+    case NOT: {
+      EvalNode child = ((NotEval) eval).getChild();
+      return child.getValueType().kind() == Type.BOOLEAN && isVectorizable(schema, child);
+    }
+
+    case IS_NULL:
+      return isVectorizable(schema, ((IsNullEval) eval).getChild());
+
+    case AND:
+    case OR: {
+      BinaryEval binary = (BinaryEval) eval;
+      return binary.getLeftExpr().getValueType().kind() == Type.BOOLEAN
+          && binary.getRightExpr().getValueType().kind() == Type.BOOLEAN
+          && isVectorizable(schema, binary.getLeftExpr()) && isVectorizable(schema, binary.getRightExpr());
+    }
+
+    case EQUAL:
+    case NOT_EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binary = (BinaryEval) eval;
+      return getCompareMode(binary) != null
+          && isVectorizable(schema, binary.getLeftExpr()) && isVectorizable(schema, binary.getRightExpr());
+    }
+
+    case PLUS:
+    case MINUS:
+    case MULTIPLY: {
+      BinaryEval binary = (BinaryEval) eval;
+      // Datum arithmetic on INT1 and INT2 does not always follow the declared result type.
+      return isArithmeticOperand(binary.getLeftExpr().getValueType().kind())
+          && isArithmeticOperand(binary.getRightExpr().getValueType().kind())
+          && isArithmeticOperand(type)
+          && isVectorizable(schema, binary.getLeftExpr()) && isVectorizable(schema, binary.getRightExpr());
+    }
+
+    default:
+      return false;
+    }
+  }
+
+  public VectorExpr compile(EvalNode eval) {
+    Type type = eval.getValueType().kind();
+
+    switch (eval.getType()) {
+    case FIELD: {
+      int fieldId = findColumnId(schema, (FieldEval) eval);
+      return new ColumnRefExpr(columnIndexes[fieldId], schema.getColumn(fieldId).getDataType().getType());
+    }
+
+    case CONST:
+      return new ConstExpr(batch.addColumn(type), type, ((ConstEval) eval).getValue());
+
+    case CAST:
+      return new CastExpr(batch.addColumn(type), type, compile(((CastEval) eval).getOperand()));
+
+    case NOT:
+      return new NotExpr(batch.addColumn(Type.BOOLEAN), compile(((NotEval) eval).getChild()));
+
+    case IS_NULL: {
+      IsNullEval isNull = (IsNullEval) eval;
+      return new IsNullExpr(batch.addColumn(Type.BOOLEAN), isNull.isNot(), compile(isNull.getChild()));
+    }
+
+    case AND:
+    case OR: {
+      BinaryEval binary = (BinaryEval) eval;
+      return new LogicalExpr(batch.addColumn(Type.BOOLEAN), eval.getType() == EvalType.AND,
+          compile(binary.getLeftExpr()), compile(binary.getRightExpr()));
+    }
+
+    case EQUAL:
+    case NOT_EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ: {
+      BinaryEval binary = (BinaryEval) eval;
+      return new ComparisonExpr(batch.addColumn(Type.BOOLEAN), eval.getType(), getCompareMode(binary),
+          compile(binary.getLeftExpr()), compile(binary.getRightExpr()));
+    }
+
+    case PLUS:
+    case MINUS:
+    case MULTIPLY: {
+      BinaryEval binary = (BinaryEval) eval;
+      return new ArithmeticExpr(batch.addColumn(type), type, eval.getType(),
+          compile(binary.getLeftExpr()), compile(binary.getRightExpr()));
+    }
+
+    default:
+      throw new TajoInternalError("not vectorizable expression: " + eval);
+    }
+  }
+
+  private static boolean isArithmeticOperand(Type type) {
+    return type == Type.INT4 || type == Type.INT8 || type == Type.FLOAT4 || type == Type.FLOAT8;
+  }
+
+  /**
+   * Decide how two operands are compared. The precision follows the Datum comparison.
+   *
+   * @return null if the comparison is not supported
+   */
+  private static CompareMode getCompareMode(BinaryEval binary) {
+    Type left = binary.getLeftExpr().getValueType().kind();
+    Type right = binary.getRightExpr().getValueType().kind();
+
+    if (VectorUtil.isNumeric(left) && VectorUtil.isNumeric(right)) {
+      if (left == Type.FLOAT8 || right == Type.FLOAT8) {
+        return CompareMode.DOUBLE;
+      } else if (left == Type.FLOAT4 || right == Type.FLOAT4) {
+        return CompareMode.FLOAT;
+      } else {
+        return CompareMode.LONG;
+      }
+    } else if (left == Type.TEXT && right == Type.TEXT) {
+      return CompareMode.BYTES;
+    } else if (left == right && (left == Type.DATE || left == Type.TIMESTAMP)) {
+      return CompareMode.LONG;
+    } else if (left == Type.BOOLEAN && right == Type.BOOLEAN &&
+        (binary.getType() == EvalType.EQUAL || binary.getType() == EvalType.NOT_EQUAL)) {
+      return CompareMode.LONG;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Find a column in the same way as {@link FieldEval#bind(EvalContext, Schema)}.
+   */
+  public static int findColumnId(Schema schema, FieldEval field) {
+    String name = field.getColumnRef().getQualifiedName();
+    int fieldId = schema.getColumnId(name);
+    if (fieldId == -1) {
+      fieldId = schema.getColumnIdByName(name);
+    }
+    return fieldId;
+  }
+}
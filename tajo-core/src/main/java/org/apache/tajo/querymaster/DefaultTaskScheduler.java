@@ -898,6 +898,12 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
           if (checkIfInterQuery(stage.getMasterPlan(), stage.getBlock())) {
             taskAssign.setInterQuery();
           }
+          if (stage.isCollectingRuntimeJoinFilter()) {
+            taskAssign.setCollectRuntimeJoinFilter();
+          }
+          if (stage.getRuntimeJoinFilter() != null) {
+            taskAssign.setRuntimeJoinFilter(stage.getRuntimeJoinFilter());
+          }
 
           //TODO send batch request
           BatchAllocationRequest.Builder requestProto = BatchAllocationRequest.newBuilder();
@@ -1009,6 +1015,12 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
           if (checkIfInterQuery(stage.getMasterPlan(), stage.getBlock())) {
             taskAssign.setInterQuery();
           }
+          if (stage.isCollectingRuntimeJoinFilter()) {
+            taskAssign.setCollectRuntimeJoinFilter();
+          }
+          if (stage.getRuntimeJoinFilter() != null) {
+            taskAssign.setRuntimeJoinFilter(stage.getRuntimeJoinFilter());
+          }
           for(Map.Entry<String, Set<FetchProto>> entry: task.getFetchMap().entrySet()) {
             Collection<FetchProto> fetches = entry.getValue();
             if (fetches != null) {
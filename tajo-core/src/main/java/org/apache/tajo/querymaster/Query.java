@@ -54,6 +54,7 @@ import org.apache.tajo.schema.IdentifierUtil;
 import org.apache.tajo.storage.StorageConstants;
 import org.apache.tajo.storage.Tablespace;
 import org.apache.tajo.storage.TablespaceManager;
+import org.apache.tajo.util.FileUtil;
 import org.apache.tajo.util.history.QueryHistory;
 import org.apache.tajo.util.history.StageHistory;
 
@@ -476,6 +477,9 @@ public class Query implements EventHandler<QueryEvent> {
 
       if (stageEvent.getState() == StageState.SUCCEEDED) {
         finalState = finalizeQuery(query, stageEvent);
+        if (!query.context.getQueryContext().get(SessionVars.HASH_SHUFFLE_COMPRESSION_CODEC).isEmpty()) {
+          logShuffleCompression(query);
+        }
       } else if (stageEvent.getState() == StageState.FAILED) {
         finalState = QueryState.QUERY_FAILED;
       } else if (stageEvent.getState() == StageState.KILLED) {
@@ -496,6 +500,28 @@ public class Query implements EventHandler<QueryEvent> {
       return finalState;
     }
 
+    /**
+     * Log the compression ratio of the hash shuffles of a query, which is the ratio of the raw output bytes of
+     * the shuffles to the compressed bytes stored and transferred.
+     */
+    private void logShuffleCompression(Query query) {
+      long rawBytes = 0;
+      long shuffleBytes = 0;
+      for (Stage eachStage : query.getStages()) {
+        StageHistory stageHistory = eachStage.getStageHistory();
+        if (stageHistory.getTotalShuffleBytes() > 0) {
+          rawBytes += stageHistory.getTotalWriteBytes();
+          shuffleBytes += stageHistory.getTotalShuffleBytes();
+        }
+      }
+
+      if (shuffleBytes > 0) {
+        LOG.info(String.format("%s, hash shuffle compression (raw=%s, compressed=%s, ratio=%.2f)", query.getId(),
+            FileUtil.humanReadableByteCount(rawBytes, false), FileUtil.humanReadableByteCount(shuffleBytes, false),
+            (double) rawBytes / shuffleBytes));
+      }
+    }
+
     // handle query failures
     private void handleQueryFailure(Query query, Stage lastStage) {
       QueryContext context = query.context.getQueryContext();
@@ -56,6 +56,7 @@ import org.apache.tajo.session.Session;
 import org.apache.tajo.storage.FormatProperty;
 import org.apache.tajo.storage.Tablespace;
 import org.apache.tajo.storage.TablespaceManager;
+import org.apache.tajo.util.NetUtils;
 import org.apache.tajo.util.RpcParameterFactory;
 import org.apache.tajo.util.TUtil;
 import org.apache.tajo.worker.NodeResourceManager.Allocation;
@@ -159,11 +160,11 @@ public class QueryMasterTask extends CompositeService {
 
   @Override
   public void serviceStart() throws Exception {
-    startQuery();
     List<TajoProtos.WorkerConnectionInfoProto> workersProto = queryMasterContext.getQueryMaster().getAllWorker();
     for (TajoProtos.WorkerConnectionInfoProto worker : workersProto) {
       workerMap.put(worker.getId(), new WorkerConnectionInfo(worker));
     }
+    startQuery();
     super.serviceStart();
   }
 
@@ -334,6 +335,10 @@ public class QueryMasterTask extends CompositeService {
 
       initStagingDir();
 
+      if (queryContext.getBool(SessionVars.HASH_SHUFFLE_PUSH_ENABLED)) {
+        initHashShufflePushMergers();
+      }
+
       for (LogicalPlan.QueryBlock block : plan.getQueryBlocks()) {
         LogicalNode[] scanNodes = PlannerUtil.findAllNodes(block.getRoot(), NodeType.SCAN);
         if (scanNodes != null) {
@@ -404,6 +409,22 @@ public class QueryMasterTask extends CompositeService {
     }
   }
 
+  /**
+   * All the running workers merge the pushed hash shuffle outputs. The list is shipped to the workers with the query
+   * context, so the merger of each partition is the same in all the tasks of the query.
+   */
+  private void initHashShufflePushMergers() {
+    List<WorkerConnectionInfo> workers = new ArrayList<>(workerMap.values());
+    Collections.sort(workers);
+
+    List<String> mergers = new ArrayList<>();
+    for (WorkerConnectionInfo worker : workers) {
+      mergers.add(worker.getHost() + ":" + worker.getPullServerPort());
+    }
+    queryContext.setHashShufflePushMergers(mergers);
+    LOG.info("Hash shuffle outputs of " + queryId + " are pushed to " + mergers.size() + " mergers");
+  }
+
   public Query getQuery() {
     return query;
   }
@@ -473,6 +494,13 @@ public class QueryMasterTask extends CompositeService {
         workers.addAll(stage.getAssignedWorkerMap().values());
       }
 
+      // the mergers of pushed hash shuffle outputs may not run any task of the query
+      if (!queryContext.getHashShufflePushMergers().isEmpty()) {
+        for (WorkerConnectionInfo worker : workerMap.values()) {
+          workers.add(NetUtils.createSocketAddr(worker.getHost(), worker.getPeerRpcPort()));
+        }
+      }
+
       LOG.info("Cleanup resources of all workers. Query: " + queryId + ", workers: " + workers.size());
       for (final InetSocketAddress worker : workers) {
         queryMasterContext.getEventExecutor().submit(new Runnable() {
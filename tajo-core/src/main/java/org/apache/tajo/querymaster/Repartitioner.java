@@ -404,16 +404,234 @@ public class Repartitioner {
     }
     Stage.scheduleFragment(stage, fragments[0], rightFragments);
 
-    // Assign partitions to tasks in a round robin manner.
-    for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry
-        : hashEntries.entrySet()) {
-      addJoinShuffle(stage, entry.getKey(), entry.getValue());
+    int skewedTaskNum = 0;
+    if (stage.getMasterPlan().getContext().getBool(SessionVars.JOIN_SKEW_ENABLED) && broadcastScans == null) {
+      skewedTaskNum = scheduleSkewedJoinPartitions(stage, hashEntries, (long) desireJoinTaskVolumn * StorageUnit.MB);
     }
 
+    if (stage.getMasterPlan().getContext().getBool(SessionVars.ADAPTIVE_PARTITION_ENABLED) && hashEntries.size() > 1) {
+      // Coalesce partitions into tasks according to the actual volumes of both sides.
+      Map<Integer, Long> partitionVolumes = new HashMap<>();
+      for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry : hashEntries.entrySet()) {
+        long volume = 0;
+        for (List<IntermediateEntry> intermediates : entry.getValue().values()) {
+          volume += getVolume(intermediates);
+        }
+        partitionVolumes.put(entry.getKey(), volume);
+      }
+
+      List<List<Integer>> partitionGroups =
+          coalescePartitions(partitionVolumes, (long) desireJoinTaskVolumn * StorageUnit.MB);
+      for (List<Integer> partitionGroup : partitionGroups) {
+        addJoinShuffle(stage, partitionGroup, hashEntries);
+      }
+      joinTaskNum = partitionGroups.size();
+      LOG.info("The number of join tasks is adjusted to " + joinTaskNum + " by actual partition volumes");
+    } else {
+      // Assign partitions to tasks in a round robin manner.
+      for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry
+          : hashEntries.entrySet()) {
+        addJoinShuffle(stage, entry.getKey(), entry.getValue());
+      }
+    }
+    joinTaskNum += skewedTaskNum;
+
     schedulerContext.setTaskSize((int) Math.ceil((double) bothFetchSize / joinTaskNum));
     schedulerContext.setEstimatedTaskNum(joinTaskNum);
   }
 
+  /**
+   * Schedules the skewed partitions of a repartition join.
+   *
+   * The scheduled partitions are removed from <code>hashEntries</code>.
+   *
+   * @param stage
+   * @param hashEntries partition id -> (ebId -> intermediate entries)
+   * @param taskVolume desired input volume of a join task in bytes
+   * @return the number of tasks scheduled for skewed partitions
+   * @see #splitSkewedJoinPartitions
+   */
+  private static int scheduleSkewedJoinPartitions(Stage stage,
+      Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries, long taskVolume) {
+    ExecutionBlock execBlock = stage.getBlock();
+    JoinNode joinNode = PlannerUtil.findTopNode(execBlock.getPlan(), NodeType.JOIN);
+    if (joinNode == null || (execBlock.getUnionScanMap() != null && !execBlock.getUnionScanMap().isEmpty())) {
+      return 0;
+    }
+
+    ScanNode leftScan = PlannerUtil.findTopNode(joinNode.getLeftChild(), NodeType.SCAN);
+    ScanNode rightScan = PlannerUtil.findTopNode(joinNode.getRightChild(), NodeType.SCAN);
+    ExecutionBlockId leftEbId = null;
+    ExecutionBlockId rightEbId = null;
+    for (ExecutionBlock childBlock : stage.getMasterPlan().getChilds(stage.getId())) {
+      if (leftScan != null && childBlock.getId().toString().equals(leftScan.getTableName())) {
+        leftEbId = childBlock.getId();
+      } else if (rightScan != null && childBlock.getId().toString().equals(rightScan.getTableName())) {
+        rightEbId = childBlock.getId();
+      }
+    }
+    if (leftEbId == null || rightEbId == null) {
+      return 0;
+    }
+
+    long pageSize = ((long)StorageUnit.MB) *
+        stage.getContext().getConf().getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME); // in bytes
+    if (taskVolume <= pageSize) {
+      LOG.info(stage.getId() + ", Skewed partitions are not split because the join task volume (" + taskVolume +
+          ") is not larger than the hash shuffle page volume (" + pageSize + ")");
+      return 0;
+    }
+    int skewFactor = stage.getMasterPlan().getContext().getInt(SessionVars.JOIN_SKEW_FACTOR);
+
+    List<Map<String, List<FetchProto>>> tasks = splitSkewedJoinPartitions(joinNode.getJoinType(), leftEbId, rightEbId,
+        hashEntries, taskVolume, pageSize, skewFactor);
+    for (Map<String, List<FetchProto>> fetches : tasks) {
+      Stage.scheduleFetches(stage, fetches);
+    }
+    return tasks.size();
+  }
+
+  /**
+   * Splits the skewed partitions of a repartition join into tasks. The skewed side of such a partition is split
+   * at page boundaries, and the matching partition of the other relation is fetched in full by each of the tasks.
+   * A relation can be replicated only if the join does not preserve its rows. Otherwise, its unmatched rows
+   * would be emitted by every task.
+   *
+   * The split partitions are removed from <code>hashEntries</code>.
+   *
+   * @param joinType
+   * @param leftEbId the execution block of the left relation
+   * @param rightEbId the execution block of the right relation
+   * @param hashEntries partition id -> (ebId -> intermediate entries)
+   * @param taskVolume desired input volume of a join task in bytes
+   * @param pageSize the volume of a hash shuffle page in bytes
+   * @param skewFactor
+   * @return the fetches of each task, which are keyed by the relation names
+   */
+  @VisibleForTesting
+  public static List<Map<String, List<FetchProto>>> splitSkewedJoinPartitions(JoinType joinType,
+      ExecutionBlockId leftEbId, ExecutionBlockId rightEbId,
+      Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries,
+      long taskVolume, long pageSize, int skewFactor) {
+    List<Map<String, List<FetchProto>>> tasks = new ArrayList<>();
+
+    // the relations which can be split
+    List<ExecutionBlockId> splittableEbIds = new ArrayList<>();
+    switch (joinType) {
+    case INNER:
+      splittableEbIds.add(leftEbId);
+      splittableEbIds.add(rightEbId);
+      break;
+    case LEFT_OUTER:
+    case LEFT_SEMI:
+    case LEFT_ANTI:
+      splittableEbIds.add(leftEbId);
+      break;
+    case RIGHT_OUTER:
+    case RIGHT_SEMI:
+    case RIGHT_ANTI:
+      splittableEbIds.add(rightEbId);
+      break;
+    default:
+      return tasks;
+    }
+
+    // partition id -> the relation to be split. If both relations are skewed, the larger one is split.
+    Map<Integer, ExecutionBlockId> skewedPartitions = new HashMap<>();
+    for (ExecutionBlockId ebId : splittableEbIds) {
+      Map<Integer, Long> partitionVolumes = new HashMap<>();
+      for (Entry<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> entry : hashEntries.entrySet()) {
+        partitionVolumes.put(entry.getKey(), getVolume(entry.getValue().get(ebId)));
+      }
+
+      for (Integer partId : findSkewedPartitions(partitionVolumes, taskVolume, skewFactor)) {
+        ExecutionBlockId selected = skewedPartitions.get(partId);
+        if (selected == null ||
+            getVolume(hashEntries.get(partId).get(selected)) < partitionVolumes.get(partId)) {
+          skewedPartitions.put(partId, ebId);
+        }
+      }
+    }
+
+    for (Entry<Integer, ExecutionBlockId> skewed : skewedPartitions.entrySet()) {
+      int partId = skewed.getKey();
+      ExecutionBlockId splitEbId = skewed.getValue();
+      Map<ExecutionBlockId, List<IntermediateEntry>> partition = hashEntries.get(partId);
+      List<IntermediateEntry> splitEntries = partition.get(splitEbId);
+
+      // An intermediate entry without pages cannot be split.
+      boolean hasPages = true;
+      for (IntermediateEntry eachEntry : splitEntries) {
+        hasPages &= eachEntry.getPages() != null && !eachEntry.getPages().isEmpty();
+      }
+      if (!hasPages) {
+        continue;
+      }
+
+      List<List<FetchProto>> splits = splitOrMergeIntermediates(splitEbId.toString(), splitEbId, splitEntries,
+          taskVolume, pageSize, HASH_SHUFFLE);
+      if (splits == null || splits.size() < 2) {
+        continue;
+      }
+
+      Map<String, List<FetchProto>> replicated = new HashMap<>();
+      for (Entry<ExecutionBlockId, List<IntermediateEntry>> eachSide : partition.entrySet()) {
+        if (!eachSide.getKey().equals(splitEbId) && !eachSide.getValue().isEmpty()) {
+          String name = eachSide.getKey().toString();
+          replicated.put(name, mergeShuffleRequest(name, partId, HASH_SHUFFLE, eachSide.getValue()));
+        }
+      }
+
+      for (List<FetchProto> eachSplit : splits) {
+        Map<String, List<FetchProto>> fetches = new HashMap<>(replicated);
+        fetches.put(splitEbId.toString(), eachSplit);
+        tasks.add(fetches);
+      }
+      LOG.info("The skewed partition " + partId + " of " + splitEbId + " (" +
+          getVolume(splitEntries) + " bytes) is split into " + splits.size() + " tasks");
+
+      hashEntries.remove(partId);
+    }
+    return tasks;
+  }
+
+  /**
+   * Finds skewed partitions of a relation. A partition is skewed if its volume is larger than both
+   * <code>taskVolume</code> and <code>skewFactor</code> times the median partition volume.
+   *
+   * @param partitionVolumes partition id -> volume in bytes
+   * @param taskVolume desired input volume of a task in bytes
+   * @param skewFactor
+   * @return ids of skewed partitions
+   */
+  public static Set<Integer> findSkewedPartitions(Map<Integer, Long> partitionVolumes, long taskVolume,
+                                                  int skewFactor) {
+    Set<Integer> skewedPartitions = new HashSet<>();
+    if (partitionVolumes.size() < 2) {
+      return skewedPartitions;
+    }
+
+    long[] sortedVolumes = partitionVolumes.values().stream().mapToLong(Long::longValue).sorted().toArray();
+    long median = sortedVolumes[(sortedVolumes.length - 1) / 2];
+    long threshold = Math.max(taskVolume, median * skewFactor);
+    for (Entry<Integer, Long> entry : partitionVolumes.entrySet()) {
+      if (entry.getValue() > threshold) {
+        skewedPartitions.add(entry.getKey());
+      }
+    }
+    return skewedPartitions;
+  }
+
+  private static long getVolume(List<IntermediateEntry> entries) {
+    long volume = 0;
+    if (entries != null) {
+      for (IntermediateEntry entry : entries) {
+        volume += entry.getVolume();
+      }
+    }
+    return volume;
+  }
+
   /**
    * merge intermediate entry by ebid, pullhost
    * @param hashEntries
@@ -514,20 +732,43 @@ public class Repartitioner {
   private static void addJoinShuffle(Stage stage, int partitionId,
                                      Map<ExecutionBlockId, List<IntermediateEntry>> grouppedPartitions) {
     Map<String, List<FetchProto>> fetches = new HashMap<>();
+    addJoinFetches(stage, partitionId, grouppedPartitions, fetches);
+
+    if (fetches.isEmpty()) {
+      LOG.info(stage.getId() + "'s " + partitionId + " partition has empty result.");
+      return;
+    }
+    Stage.scheduleFetches(stage, fetches);
+  }
+
+  /**
+   * Adds a single join task which fetches all the given partitions of both sides.
+   */
+  private static void addJoinShuffle(Stage stage, List<Integer> partitionIds,
+                                     Map<Integer, Map<ExecutionBlockId, List<IntermediateEntry>>> hashEntries) {
+    Map<String, List<FetchProto>> fetches = new HashMap<>();
+    for (Integer partitionId : partitionIds) {
+      addJoinFetches(stage, partitionId, hashEntries.get(partitionId), fetches);
+    }
+
+    if (fetches.isEmpty()) {
+      LOG.info(stage.getId() + "'s " + partitionIds + " partitions have empty result.");
+      return;
+    }
+    Stage.scheduleFetches(stage, fetches);
+  }
+
+  private static void addJoinFetches(Stage stage, int partitionId,
+                                     Map<ExecutionBlockId, List<IntermediateEntry>> grouppedPartitions,
+                                     Map<String, List<FetchProto>> fetches) {
     for (ExecutionBlock execBlock : stage.getMasterPlan().getChilds(stage.getId())) {
       if (grouppedPartitions.containsKey(execBlock.getId())) {
         String name = execBlock.getId().toString();
         List<FetchProto> requests = mergeShuffleRequest(name, partitionId, HASH_SHUFFLE,
             grouppedPartitions.get(execBlock.getId()));
-        fetches.put(name, requests);
+        TUtil.putCollectionToNestedList(fetches, name, requests);
       }
     }
-
-    if (fetches.isEmpty()) {
-      LOG.info(stage.getId() + "'s " + partitionId + " partition has empty result.");
-      return;
-    }
-    Stage.scheduleFetches(stage, fetches);
   }
 
   /**
@@ -842,6 +1083,8 @@ public class Repartitioner {
     int determinedTaskNum = Math.min(maxNum, finalFetches.size());
     LOG.info(stage.getId() + ", ScheduleHashShuffledFetches - Max num=" + maxNum + ", finalFetchURI=" + finalFetches.size());
 
+    // whether partitions are assigned to tasks according to their actual volumes
+    boolean adaptive = false;
     if (groupingColumns == 0) {
       determinedTaskNum = 1;
       LOG.info(stage.getId() + ", No Grouping Column - determinedTaskNum is set to 1");
@@ -849,6 +1092,8 @@ public class Repartitioner {
       TableStats totalStat = computeChildBlocksStats(stage.getContext(), masterPlan, stage.getId());
       if (totalStat.getNumRows() == 0) {
         determinedTaskNum = 1;
+      } else {
+        adaptive = masterPlan.getContext().getBool(SessionVars.ADAPTIVE_PARTITION_ENABLED) && finalFetches.size() > 1;
       }
     }
 
@@ -856,6 +1101,9 @@ public class Repartitioner {
     if (channel.getShuffleType() == SCATTERED_HASH_SHUFFLE) {
       scheduleScatteredHashShuffleFetches(schedulerContext, stage, intermediates,
           scan.getTableName());
+    } else if (adaptive) {
+      long taskVolume = Stage.getNonLeafTaskVolume(stage) * StorageUnit.MB;
+      scheduleFetchesByActualVolumes(schedulerContext, stage, finalFetches, scan.getTableName(), taskVolume);
     } else {
       schedulerContext.setEstimatedTaskNum(determinedTaskNum);
       // divide fetch uris into the the proper number of tasks according to volumes
@@ -927,6 +1175,81 @@ public class Repartitioner {
     }
   }
 
+  /**
+   * Schedules tasks, each of which fetches a group of partitions coalesced by their actual volumes.
+   *
+   * @see #coalescePartitions(Map, long)
+   */
+  public static void scheduleFetchesByActualVolumes(TaskSchedulerContext schedulerContext, Stage stage,
+                                                    Map<Integer, FetchGroupMeta> partitions, String tableName,
+                                                    long taskVolume) {
+    Map<Integer, Long> partitionVolumes = new HashMap<>();
+    for (Entry<Integer, FetchGroupMeta> entry : partitions.entrySet()) {
+      partitionVolumes.put(entry.getKey(), entry.getValue().getVolume());
+    }
+
+    List<List<Integer>> partitionGroups = coalescePartitions(partitionVolumes, taskVolume);
+    schedulerContext.setEstimatedTaskNum(partitionGroups.size());
+    for (List<Integer> partitionGroup : partitionGroups) {
+      Map<String, List<FetchProto>> fetches = new HashMap<>();
+      for (Integer partId : partitionGroup) {
+        TUtil.putCollectionToNestedList(fetches, tableName, partitions.get(partId).getFetchProtos());
+      }
+      Stage.scheduleFetches(stage, fetches);
+    }
+
+    LOG.info(stage.getId()
+        + ", Partitions: " + partitions.size()
+        + ", taskVolume: " + taskVolume
+        + ", DeterminedTaskNum by actual volumes: " + partitionGroups.size());
+  }
+
+  /**
+   * Packs hash partitions into groups according to their actual volumes, and each group is assigned to a task.
+   * Partitions are visited in a descending order of volumes, and each one is added to the least loaded group if
+   * the group still does not exceed <code>taskVolume</code>. Otherwise, a new group is created for it.
+   * As a result, a lot of tiny partitions are coalesced into a few tasks, and a partition larger than
+   * <code>taskVolume</code> occupies a task alone. A partition cannot be split into several tasks because all the
+   * rows of a key must be processed in the same task.
+   *
+   * @param partitionVolumes partition id -> actual volume in bytes
+   * @param taskVolume desired input volume of a task in bytes
+   * @return partition ids of each group
+   */
+  public static List<List<Integer>> coalescePartitions(Map<Integer, Long> partitionVolumes, long taskVolume) {
+    List<Entry<Integer, Long>> sortedPartitions = new ArrayList<>(partitionVolumes.entrySet());
+    sortedPartitions.sort((o1, o2) -> Long.compare(o2.getValue(), o1.getValue()));
+
+    List<List<Integer>> groups = new ArrayList<>();
+    PriorityQueue<PartitionGroup> leastLoaded = new PriorityQueue<>();
+    for (Entry<Integer, Long> partition : sortedPartitions) {
+      PartitionGroup group = leastLoaded.peek();
+      if (group != null && group.volume + partition.getValue() <= taskVolume) {
+        leastLoaded.poll();
+        group.partIds.add(partition.getKey());
+        group.volume += partition.getValue();
+        leastLoaded.add(group);
+      } else {
+        group = new PartitionGroup();
+        group.partIds.add(partition.getKey());
+        group.volume = partition.getValue();
+        groups.add(group.partIds);
+        leastLoaded.add(group);
+      }
+    }
+    return groups;
+  }
+
+  private static class PartitionGroup implements Comparable<PartitionGroup> {
+    private final List<Integer> partIds = new ArrayList<>();
+    private long volume;
+
+    @Override
+    public int compareTo(PartitionGroup o) {
+      return Long.compare(volume, o.volume);
+    }
+  }
+
   // Scattered hash shuffle hashes the key columns and groups the hash keys associated with
   // the same hash key. Then, if the volume of a group is larger
   // than $DIST_QUERY_TABLE_PARTITION_VOLUME, it divides the group into more than two sub groups
@@ -1001,6 +1324,11 @@ public class Repartitioner {
    */
   public static List<List<FetchProto>> splitOrMergeIntermediates(@NotNull  String fetchName,
       ExecutionBlockId ebId, List<IntermediateEntry> entries, long splitVolume, long pageSize) {
+    return splitOrMergeIntermediates(fetchName, ebId, entries, splitVolume, pageSize, SCATTERED_HASH_SHUFFLE);
+  }
+
+  private static List<List<FetchProto>> splitOrMergeIntermediates(@NotNull  String fetchName,
+      ExecutionBlockId ebId, List<IntermediateEntry> entries, long splitVolume, long pageSize, ShuffleType type) {
     // Each List<FetchImpl> has splitVolume size.
     List<List<FetchProto>> fetches = new ArrayList<>();
 
@@ -1034,7 +1362,7 @@ public class Repartitioner {
           fetchListForSingleTask = new ArrayList<>();
           fetchListVolume = 0;
         }
-        FetchImpl fetch = new FetchImpl(fetchName, currentInterm.getPullHost(), SCATTERED_HASH_SHUFFLE,
+        FetchImpl fetch = new FetchImpl(fetchName, currentInterm.getPullHost(), type,
             ebId, currentInterm.getPartId(), Lists.newArrayList(currentInterm));
         fetch.setOffset(eachSplit.getFirst());
         fetch.setLength(eachSplit.getSecond());
@@ -43,6 +43,8 @@ import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.planner.global.MasterPlan.ShuffleContext;
+import org.apache.tajo.engine.planner.global.RuntimeJoinFilterUtil;
+import org.apache.tajo.engine.planner.physical.RuntimeJoinFilter;
 import org.apache.tajo.error.Errors.SerializedException;
 import org.apache.tajo.exception.ErrorUtil;
 import org.apache.tajo.exception.TajoException;
@@ -90,6 +92,8 @@ import static org.apache.tajo.plan.serder.PlanProto.ShuffleType;
 public class Stage implements EventHandler<StageEvent> {
 
   private static final Log LOG = LogFactory.getLog(Stage.class);
+  // the false positive rate of a runtime join filter is about 12.5% at this ratio
+  private static final double MAX_RUNTIME_JOIN_FILTER_FILL_RATIO = 0.5;
 
   private final Properties rpcParams;
 
@@ -300,6 +304,14 @@ public class Stage implements EventHandler<StageEvent> {
   private AtomicBoolean stopShuffleReceiver = new AtomicBoolean();
   private StageHistory finalStageHistory;
 
+  // If true, tasks build a filter of the shuffle keys for the other side of a join.
+  private boolean collectRuntimeJoinFilter = false;
+  // a filter of the shuffle keys which is built by the other side of a join
+  private RuntimeJoinFilterProto runtimeJoinFilter;
+  // a filter merged from the filters built by all tasks of this stage
+  private RuntimeJoinFilter collectedRuntimeJoinFilter;
+  private boolean collectedRuntimeJoinFilterMerged = false;
+
   public Stage(QueryMasterTask.QueryMasterTaskContext context, MasterPlan masterPlan, ExecutionBlock block) {
     this.context = context;
     this.masterPlan = masterPlan;
@@ -493,8 +505,10 @@ public class Stage implements EventHandler<StageEvent> {
     }
 
     Set<Integer> partitions = Sets.newHashSet();
+    long totalShuffleBytes = 0; // the bytes stored and transferred, which are compressed if a codec is given
     for (IntermediateEntry entry : getHashShuffleIntermediateEntries()) {
        partitions.add(entry.getPartId());
+       totalShuffleBytes += entry.getVolume();
     }
 
     stageHistory.setTotalInputBytes(totalInputBytes);
@@ -503,6 +517,7 @@ public class Stage implements EventHandler<StageEvent> {
     stageHistory.setTotalWriteBytes(totalWriteBytes);
     stageHistory.setTotalWriteRows(totalWriteRows);
     stageHistory.setNumShuffles(partitions.size());
+    stageHistory.setTotalShuffleBytes(totalShuffleBytes);
     stageHistory.setProgress(getProgress());
     return stageHistory;
   }
@@ -584,6 +599,61 @@ public class Stage implements EventHandler<StageEvent> {
     return block.getId();
   }
   
+  public boolean isCollectingRuntimeJoinFilter() {
+    return collectRuntimeJoinFilter;
+  }
+
+  /**
+   * @return a filter of the shuffle keys built by the other side of a join, or null if there is no filter
+   */
+  public RuntimeJoinFilterProto getRuntimeJoinFilter() {
+    return runtimeJoinFilter;
+  }
+
+  /**
+   * Merge the filters of the shuffle keys built by all succeeded tasks.
+   *
+   * @return the merged filter, or null if this stage is not completed, some task did not build a filter or
+   * the merged filter is too saturated to filter out tuples effectively.
+   */
+  public synchronized RuntimeJoinFilter getCollectedRuntimeJoinFilter() {
+    if (!collectRuntimeJoinFilter || getSynchronizedState() != StageState.SUCCEEDED) {
+      return null;
+    }
+    if (collectedRuntimeJoinFilterMerged) {
+      return collectedRuntimeJoinFilter;
+    }
+    collectedRuntimeJoinFilterMerged = true;
+
+    RuntimeJoinFilter merged = null;
+    for (Task task : getTasks()) {
+      TaskAttempt attempt = task.getSuccessfulAttempt();
+      if (attempt == null || attempt.getRuntimeJoinFilter() == null) {
+        LOG.info(getId() + " does not use the runtime join filter because some task did not build it");
+        return null;
+      }
+      RuntimeJoinFilter filter = new RuntimeJoinFilter(attempt.getRuntimeJoinFilter());
+      if (merged == null) {
+        merged = filter;
+      } else {
+        merged.merge(filter);
+      }
+    }
+
+    if (merged != null) {
+      double fillRatio = merged.getFillRatio();
+      if (fillRatio > MAX_RUNTIME_JOIN_FILTER_FILL_RATIO) {
+        LOG.info(getId() + " does not use the runtime join filter because it is too saturated (fill ratio: "
+            + fillRatio + ")");
+        return null;
+      }
+      LOG.info(getId() + " built a runtime join filter (" + merged.getNumBytes() + " bytes, fill ratio: "
+          + fillRatio + ")");
+    }
+    collectedRuntimeJoinFilter = merged;
+    return collectedRuntimeJoinFilter;
+  }
+
   public Task[] getTasks() {
     return tasks.values().toArray(new Task[tasks.size()]);
   }
@@ -856,6 +926,7 @@ public class Stage implements EventHandler<StageEvent> {
           ExecutionBlock parent = stage.getMasterPlan().getParent(stage.getBlock());
           DataChannel channel = stage.getMasterPlan().getChannel(stage.getId(), parent.getId());
           setShuffleIfNecessary(stage, channel);
+          initRuntimeJoinFilter(stage, parent);
           // TODO: verify changed shuffle plan
           initTaskScheduler(stage);
           // execute pre-processing asyncronously
@@ -917,6 +988,46 @@ public class Stage implements EventHandler<StageEvent> {
       LOG.info(stage.taskScheduler.getName() + " is chosen for the task scheduling for " + stage.getId());
     }
 
+    /**
+     * If a parent block is a repartitioned join of this block and a sibling block, the stage executed first builds
+     * a filter of its shuffle keys, and the other stage filters out its tuples with the filter before the shuffle.
+     */
+    private static void initRuntimeJoinFilter(Stage stage, ExecutionBlock parent) {
+      if (!stage.getContext().getQueryContext().getBool(SessionVars.RUNTIME_JOIN_FILTER_ENABLED)) {
+        return;
+      }
+
+      MasterPlan masterPlan = stage.getMasterPlan();
+      List<ExecutionBlock> children = masterPlan.getChilds(parent);
+      if (children.size() != 2) {
+        return;
+      }
+      ExecutionBlock sibling = children.get(0).getId().equals(stage.getId()) ? children.get(1) : children.get(0);
+
+      boolean left = true;
+      JoinNode joinNode = RuntimeJoinFilterUtil.findRepartitionedJoin(masterPlan, parent, stage.getId(), sibling.getId());
+      if (joinNode == null) {
+        left = false;
+        joinNode = RuntimeJoinFilterUtil.findRepartitionedJoin(masterPlan, parent, sibling.getId(), stage.getId());
+      }
+      if (joinNode == null) {
+        return;
+      }
+
+      Stage siblingStage = stage.getContext().getQuery().getStage(sibling.getId());
+      if (siblingStage == null) {
+        // the sibling is not executed yet. So, this stage builds a filter for the sibling.
+        stage.collectRuntimeJoinFilter = RuntimeJoinFilterUtil.isFilterableJoinSide(joinNode.getJoinType(), !left);
+      } else if (RuntimeJoinFilterUtil.isFilterableJoinSide(joinNode.getJoinType(), left)) {
+        RuntimeJoinFilter filter = siblingStage.getCollectedRuntimeJoinFilter();
+        if (filter != null) {
+          stage.runtimeJoinFilter = filter.getProto();
+          LOG.info(stage.getId() + " filters out its tuples with the runtime join filter built by "
+              + sibling.getId());
+        }
+      }
+    }
+
     /**
      * If a parent block requires a repartition operation, the method sets proper repartition
      * methods and the number of partitions to a given Stage.
@@ -1104,37 +1215,7 @@ public class Stage implements EventHandler<StageEvent> {
      * @return
      */
     public static int getNonLeafTaskNum(Stage stage) {
-      // This method is assumed to be called only for aggregation or sort.
-      LogicalNode plan = stage.getBlock().getPlan();
-      LogicalNode sortNode = PlannerUtil.findTopNode(plan, NodeType.SORT);
-      LogicalNode groupbyNode = PlannerUtil.findTopNode(plan, NodeType.GROUP_BY);
-
-      // Task volume is assumed to be 64 MB by default.
-      long taskVolume = 64;
-
-      if (groupbyNode != null && sortNode == null) {
-        // aggregation plan
-        taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.GROUPBY_TASK_INPUT_SIZE);
-      } else if (sortNode != null && groupbyNode == null) {
-        // sort plan
-        taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.SORT_TASK_INPUT_SIZE);
-      } else if (sortNode != null /* && groupbyNode != null */) {
-        // NOTE: when the plan includes both aggregation and sort, usually aggregation is executed first.
-        // If not, we need to check the query plan is valid.
-        LogicalNode aggChildOfSort = PlannerUtil.findTopNode(sortNode, NodeType.GROUP_BY);
-        boolean aggFirst = aggChildOfSort != null && aggChildOfSort.equals(groupbyNode);
-        // Set task volume according to the operator which will be executed first.
-        if (aggFirst) {
-          // choose aggregation task volume
-          taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.GROUPBY_TASK_INPUT_SIZE);
-        } else {
-          // choose sort task volume
-          LOG.warn("Sort is executed before aggregation.");
-          taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.SORT_TASK_INPUT_SIZE);
-        }
-      } else {
-        LOG.warn("Task volume is chosen as " + taskVolume + " in unexpected case.");
-      }
+      long taskVolume = getNonLeafTaskVolume(stage);
 
       // Getting intermediate data size
       long volume = getInputVolume(stage.getMasterPlan(), stage.context, stage.getBlock());
@@ -1193,6 +1274,48 @@ public class Stage implements EventHandler<StageEvent> {
     }
   }
 
+  /**
+   * Getting the desired input volume (MB) of a non-leaf task according to the operator executed first in the stage
+   *
+   * @param stage
+   * @return
+   */
+  public static long getNonLeafTaskVolume(Stage stage) {
+    // This method is assumed to be called only for aggregation or sort.
+    LogicalNode plan = stage.getBlock().getPlan();
+    LogicalNode sortNode = PlannerUtil.findTopNode(plan, NodeType.SORT);
+    LogicalNode groupbyNode = PlannerUtil.findTopNode(plan, NodeType.GROUP_BY);
+
+    // Task volume is assumed to be 64 MB by default.
+    long taskVolume = 64;
+
+    if (groupbyNode != null && sortNode == null) {
+      // aggregation plan
+      taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.GROUPBY_TASK_INPUT_SIZE);
+    } else if (sortNode != null && groupbyNode == null) {
+      // sort plan
+      taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.SORT_TASK_INPUT_SIZE);
+    } else if (sortNode != null /* && groupbyNode != null */) {
+      // NOTE: when the plan includes both aggregation and sort, usually aggregation is executed first.
+      // If not, we need to check the query plan is valid.
+      LogicalNode aggChildOfSort = PlannerUtil.findTopNode(sortNode, NodeType.GROUP_BY);
+      boolean aggFirst = aggChildOfSort != null && aggChildOfSort.equals(groupbyNode);
+      // Set task volume according to the operator which will be executed first.
+      if (aggFirst) {
+        // choose aggregation task volume
+        taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.GROUPBY_TASK_INPUT_SIZE);
+      } else {
+        // choose sort task volume
+        LOG.warn("Sort is executed before aggregation.");
+        taskVolume = stage.getContext().getQueryContext().getLong(SessionVars.SORT_TASK_INPUT_SIZE);
+      }
+    } else {
+      LOG.warn("Task volume is chosen as " + taskVolume + " in unexpected case.");
+    }
+
+    return taskVolume;
+  }
+
   public static void scheduleFragment(Stage stage, Fragment fragment) {
     stage.taskScheduler.handle(new FragmentScheduleEvent(TaskSchedulerEvent.EventType.T_SCHEDULE,
         stage.getId(), fragment));
@@ -28,6 +28,7 @@ import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.proto.CatalogProtos;
 import org.apache.tajo.catalog.proto.CatalogProtos.PartitionDescProto;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.ResourceProtos.RuntimeJoinFilterProto;
 import org.apache.tajo.ResourceProtos.TaskCompletionReport;
 import org.apache.tajo.ResourceProtos.ShuffleFileOutput;
 import org.apache.tajo.master.cluster.WorkerConnectionInfo;
@@ -65,6 +66,7 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
   private float progress;
   private CatalogProtos.TableStatsProto inputStats;
   private CatalogProtos.TableStatsProto resultStats;
+  private RuntimeJoinFilterProto runtimeJoinFilter;
 
   private Set<PartitionDescProto> partitions;
 
@@ -254,6 +256,13 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
     return new TableStats(resultStats);
   }
 
+  /**
+   * @return a filter of the shuffle keys built by this attempt, or null if it is not built
+   */
+  public RuntimeJoinFilterProto getRuntimeJoinFilter() {
+    return runtimeJoinFilter;
+  }
+
   public Set<PartitionDescProto> getPartitions() {
     return partitions;
   }
@@ -286,6 +295,9 @@ public class TaskAttempt implements EventHandler<TaskAttemptEvent> {
       this.resultStats = report.getResultStats();
       this.getTask().setStats(new TableStats(resultStats));
     }
+    if (report.hasRuntimeJoinFilter()) {
+      this.runtimeJoinFilter = report.getRuntimeJoinFilter();
+    }
   }
 
   private static class TaskAttemptScheduleTransition implements
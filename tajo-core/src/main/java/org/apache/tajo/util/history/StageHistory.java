@@ -58,6 +58,8 @@ public class StageHistory implements GsonObject {
   @Expose
   private int numShuffles;
   @Expose
+  private long totalShuffleBytes;
+  @Expose
   private float progress;
 
   @Expose
@@ -165,6 +167,14 @@ public class StageHistory implements GsonObject {
     this.numShuffles = numShuffles;
   }
 
+  public long getTotalShuffleBytes() {
+    return totalShuffleBytes;
+  }
+
+  public void setTotalShuffleBytes(long totalShuffleBytes) {
+    this.totalShuffleBytes = totalShuffleBytes;
+  }
+
   public float getProgress() {
     return progress;
   }
@@ -259,6 +269,7 @@ public class StageHistory implements GsonObject {
       .setTotalWriteBytes(totalWriteBytes)
       .setTotalWriteRows(totalWriteRows)
       .setNumShuffles(numShuffles)
+      .setTotalShuffleBytes(totalShuffleBytes)
       .setProgress(progress)
 
       .setPlan(plan)
@@ -398,11 +398,14 @@ public class ExecutionBlockContext {
         }
         intermediateBuilder.clear();
 
+        // a pushed intermediate is stored in its merger
+        String host = eachShuffle.getPullHost() != null ? eachShuffle.getPullHost() :
+            getWorkerContext().getConnectionInfo().getHost() + ":" +
+                getWorkerContext().getConnectionInfo().getPullServerPort();
         intermediateBuilder.setEbId(ebId.getProto())
-            .setHost(getWorkerContext().getConnectionInfo().getHost() + ":" +
-                getWorkerContext().getConnectionInfo().getPullServerPort())
-            .setTaskId(-1)
-            .setAttemptId(-1)
+            .setHost(host)
+            .setTaskId(eachShuffle.getTaskId())
+            .setAttemptId(eachShuffle.getAttemptId())
             .setPartId(eachShuffle.getPartId())
             .setVolume(eachShuffle.getVolume())
             .addAllPages(pages)
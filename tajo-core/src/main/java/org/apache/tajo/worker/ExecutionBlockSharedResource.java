@@ -25,8 +25,8 @@ import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.SessionVars;
 import org.apache.tajo.annotation.Nullable;
 import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.engine.codegen.CompiledEvalCache;
 import org.apache.tajo.engine.codegen.ExecutorPreCompiler;
-import org.apache.tajo.engine.codegen.TajoClassLoader;
 import org.apache.tajo.engine.json.CoreGsonHelper;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.engine.utils.CacheHolder;
@@ -52,7 +52,6 @@ public class ExecutionBlockSharedResource {
   private QueryContext context;
 
   // Resources
-  private TajoClassLoader classLoader;
   private ExecutorPreCompiler.CompilationContext compilationContext;
   private LogicalNode plan;
   private boolean codeGenEnabled = false;
@@ -71,7 +70,7 @@ public class ExecutionBlockSharedResource {
     if (!initializing.getAndSet(true)) {
       try {
         ExecutionBlockSharedResource.this.context = context;
-        initCodeGeneration();
+        initCodeGeneration(planJson);
         resourceInitSuccess = true;
       } catch (Throwable t) {
         LOG.error(t);
@@ -84,12 +83,14 @@ public class ExecutionBlockSharedResource {
     }
   }
 
-  private void initCodeGeneration() throws TajoException {
+  private void initCodeGeneration(String planJson) throws TajoException {
     if (context.getBool(SessionVars.CODEGEN)) {
       codeGenEnabled = true;
-      classLoader = new TajoClassLoader();
-      compilationContext = new ExecutorPreCompiler.CompilationContext(classLoader);
-      ExecutorPreCompiler.compile(compilationContext, plan);
+      compilationContext = new ExecutorPreCompiler.CompilationContext(CompiledEvalCache.getInstance(context.getConf()));
+      if (planJson != null) {
+        plan = CoreGsonHelper.fromJson(planJson, LogicalNode.class);
+        ExecutorPreCompiler.compile(compilationContext, plan);
+      }
     }
   }
 
@@ -98,7 +99,7 @@ public class ExecutionBlockSharedResource {
   }
 
   public EvalNode compileEval(Schema schema, EvalNode eval) {
-    return compilationContext.getCompiler().compile(schema, eval);
+    return compilationContext.compile(schema, eval);
   }
 
   public EvalNode getPreCompiledEval(Schema schema, EvalNode eval) {
@@ -147,15 +148,7 @@ public class ExecutionBlockSharedResource {
   }
 
   public void release() {
+    // The compiled classes are owned by the worker-wide CompiledEvalCache, which unloads them on eviction.
     compilationContext = null;
-
-    if (classLoader != null) {
-      try {
-        classLoader.clean();
-      } catch (Throwable throwable) {
-        throwable.printStackTrace();
-      }
-      classLoader = null;
-    }
   }
 }
@@ -0,0 +1,413 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.*;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.rpc.NettyUtils;
+import org.apache.tajo.unit.StorageUnit;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FetchClient keeps persistent HTTP connections to pull servers, and it is shared by all remote fetchers of a worker.
+ *
+ * <ul>
+ *   <li>Each pull server gets at most a given number of keep-alive connections.</li>
+ *   <li>Multiple requests are pipelined on a connection. Since the responses of a connection arrive in the order of
+ *   the requests, they are matched with the requests in FIFO order.</li>
+ *   <li>New requests to a host are held while the remaining bytes of the responses from the host exceed a limit.
+ *   The expected length of a response is reserved when its request is sent, and it is replaced with the actual
+ *   content length when the response header arrives.</li>
+ * </ul>
+ *
+ * If a connection is closed, the requests which have not received any response yet are sent again through another
+ * connection. The requests which have received a part of their responses fail.
+ */
+public class FetchClient {
+  private static final Log LOG = LogFactory.getLog(FetchClient.class);
+
+  /** the number of times that a request can be sent again when its connection is closed */
+  private static final int MAX_RESEND_NUM = 1;
+
+  private static volatile FetchClient instance;
+
+  private final TajoConf conf;
+  private final Bootstrap bootstrap;
+  private final int maxConnectionsPerHost;
+  private final int maxPipelinedRequests;
+  private final long maxInFlightBytesPerHost;
+  /** the bytes reserved for a response whose length is not known until its header arrives */
+  private final long defaultReservedBytes;
+  private final Map<InetSocketAddress, HostConnections> hosts = new ConcurrentHashMap<>();
+
+  public static FetchClient getInstance(TajoConf conf) {
+    if (instance == null) {
+      synchronized (FetchClient.class) {
+        if (instance == null) {
+          instance = new FetchClient(conf);
+        }
+      }
+    }
+    return instance;
+  }
+
+  private FetchClient(TajoConf conf) {
+    this.conf = conf;
+    this.maxConnectionsPerHost = conf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECTIONS_PER_HOST);
+    this.maxPipelinedRequests = conf.getIntVar(ConfVars.SHUFFLE_FETCHER_PIPELINING_MAX_NUM);
+    this.maxInFlightBytesPerHost =
+        (long) conf.getIntVar(ConfVars.SHUFFLE_FETCHER_HOST_IN_FLIGHT_MAX_SIZE) * StorageUnit.MB;
+    this.defaultReservedBytes = maxInFlightBytesPerHost / ((long) maxConnectionsPerHost * maxPipelinedRequests);
+
+    this.bootstrap = new Bootstrap()
+        .group(
+            NettyUtils.getSharedEventLoopGroup(NettyUtils.GROUP.FETCHER,
+                conf.getIntVar(ConfVars.SHUFFLE_RPC_CLIENT_WORKER_THREAD_NUM)))
+        .channel(NioSocketChannel.class)
+        .option(ChannelOption.ALLOCATOR, NettyUtils.ALLOCATOR)
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+            conf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECT_TIMEOUT) * 1000)
+        .option(ChannelOption.SO_RCVBUF, 1048576) // set 1M
+        .option(ChannelOption.SO_KEEPALIVE, true)
+        .option(ChannelOption.TCP_NODELAY, true);
+  }
+
+  @VisibleForTesting
+  int getConnectionNum(InetSocketAddress address) {
+    HostConnections host = hosts.get(address);
+    if (host == null) {
+      return 0;
+    }
+    synchronized (host) {
+      return host.connections.size();
+    }
+  }
+
+  /**
+   * Send a request to a pull server. The request is sent when a connection to the host is available.
+   *
+   * @param address the address of the pull server
+   * @param request request
+   */
+  public void fetch(InetSocketAddress address, FetchRequest request) {
+    HostConnections host = hosts.computeIfAbsent(address, HostConnections::new);
+    synchronized (host) {
+      host.pending.add(request);
+      host.dispatch();
+    }
+  }
+
+  /**
+   * A request to a pull server. The callbacks are called in an event loop thread.
+   */
+  public static abstract class FetchRequest {
+    private final URI uri;
+    private final long expectedLength;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private int sentNum = 0;
+    private boolean responseStarted = false;
+    /** the number of bytes which are not received yet. It is the reserved bytes until the response starts. */
+    private long remainBytes = 0;
+
+    public FetchRequest(URI uri) {
+      this(uri, -1);
+    }
+
+    /**
+     * @param uri
+     * @param expectedLength the expected length of the response content, or -1 if it is unknown
+     */
+    public FetchRequest(URI uri, long expectedLength) {
+      this.uri = uri;
+      this.expectedLength = expectedLength;
+    }
+
+    public URI getURI() {
+      return uri;
+    }
+
+    /**
+     * Called when the status and headers of the response are received.
+     */
+    protected abstract void onResponse(HttpResponse response);
+
+    /**
+     * Called for each part of the response content. The content is released after this method returns.
+     */
+    protected abstract void onContent(HttpContent content);
+
+    /**
+     * Called when the request is failed before receiving the whole response.
+     */
+    protected abstract void onFailure(Throwable cause);
+
+    /**
+     * Wait until the whole response is received, or the request is failed.
+     */
+    public void awaitUninterruptibly() {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    private void fail(Throwable cause) {
+      try {
+        onFailure(cause);
+      } finally {
+        done.countDown();
+      }
+    }
+  }
+
+  /**
+   * Connections and pending requests to a host
+   */
+  private class HostConnections {
+    private final InetSocketAddress address;
+    private final Deque<FetchRequest> pending = new ArrayDeque<>();
+    private final List<Connection> connections = new ArrayList<>();
+    private int connectingNum = 0;
+    /** the remaining or reserved bytes of the responses to the sent requests */
+    private long inFlightBytes = 0;
+
+    HostConnections(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    /**
+     * Send pending requests through available connections. It must be called while holding the lock of this object.
+     */
+    private void dispatch() {
+      while (!pending.isEmpty() && inFlightBytes < maxInFlightBytesPerHost) {
+        // the least loaded connection
+        Connection connection = null;
+        for (Connection candidate : connections) {
+          if (candidate.requests.size() < maxPipelinedRequests &&
+              (connection == null || candidate.requests.size() < connection.requests.size())) {
+            connection = candidate;
+          }
+        }
+
+        // open a new connection if every connection is busy
+        if ((connection == null || !connection.requests.isEmpty()) &&
+            connections.size() + connectingNum < maxConnectionsPerHost) {
+          connect();
+        }
+        if (connection == null) {
+          // pending requests will be sent when a connection becomes available
+          return;
+        }
+
+        FetchRequest request = pending.poll();
+        request.sentNum++;
+        request.remainBytes = request.expectedLength >= 0 ? request.expectedLength : defaultReservedBytes;
+        inFlightBytes += request.remainBytes;
+        connection.requests.add(request);
+        connection.channel.writeAndFlush(createHttpRequest(request.getURI()))
+            .addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
+      }
+    }
+
+    private void connect() {
+      connectingNum++;
+      bootstrap.clone().handler(new FetchChannelInitializer(this)).connect(address).addListener(
+          (ChannelFutureListener) future -> {
+            synchronized (HostConnections.this) {
+              connectingNum--;
+              if (future.isSuccess()) {
+                connections.add((Connection) future.channel().pipeline().get("handler"));
+              } else if (connections.isEmpty() && connectingNum == 0) {
+                // no connection to this host is available
+                LOG.error("Failed to connect to " + address, future.cause());
+                FetchRequest request;
+                while ((request = pending.poll()) != null) {
+                  request.fail(future.cause());
+                }
+              }
+              dispatch();
+            }
+          });
+    }
+
+    private HttpRequest createHttpRequest(URI uri) {
+      String query = uri.getPath() + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+      // a full request terminates the message, so that the next request can be pipelined
+      HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, query);
+      request.headers().set(HttpHeaders.Names.HOST, address.getHostString());
+      request.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+      request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.GZIP);
+      return request;
+    }
+  }
+
+  /**
+   * A connection to a pull server. It receives the responses of the requests sent through this connection.
+   */
+  private class Connection extends ChannelInboundHandlerAdapter {
+    private final HostConnections host;
+    private final Channel channel;
+    private final Deque<FetchRequest> requests = new ArrayDeque<>();
+
+    Connection(HostConnections host, Channel channel) {
+      this.host = host;
+      this.channel = channel;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      try {
+        FetchRequest request;
+        synchronized (host) {
+          request = requests.peek();
+        }
+        if (request == null) {
+          LOG.warn("Unexpected response from " + host.address);
+          return;
+        }
+
+        if (msg instanceof HttpResponse) {
+          HttpResponse response = (HttpResponse) msg;
+          long length = HttpHeaders.getContentLength(response, 0);
+          synchronized (host) {
+            // replace the reserved bytes with the actual length
+            request.responseStarted = true;
+            host.inFlightBytes += length - request.remainBytes;
+            request.remainBytes = length;
+          }
+          request.onResponse(response);
+        }
+
+        if (msg instanceof HttpContent) {
+          HttpContent content = (HttpContent) msg;
+          int readableBytes = content.content().readableBytes();
+          request.onContent(content);
+
+          synchronized (host) {
+            long received = Math.min(readableBytes, request.remainBytes);
+            request.remainBytes -= received;
+            host.inFlightBytes -= received;
+
+            if (msg instanceof LastHttpContent) {
+              host.inFlightBytes -= request.remainBytes;
+              request.remainBytes = 0;
+              requests.poll();
+              request.done.countDown();
+              host.dispatch();
+            }
+          }
+        }
+      } finally {
+        ReferenceCountUtil.release(msg);
+      }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+      boolean idle;
+      synchronized (host) {
+        idle = requests.isEmpty();
+      }
+      if (cause instanceof ReadTimeoutException) {
+        if (!idle) {
+          LOG.warn(cause.getMessage(), cause);
+        }
+      } else {
+        LOG.error("Fetch failed :", cause);
+      }
+      // the requests of this connection will be sent again or failed
+      ctx.close();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      List<FetchRequest> failed = new ArrayList<>();
+      synchronized (host) {
+        host.connections.remove(this);
+        FetchRequest request;
+        while ((request = requests.pollLast()) != null) {
+          host.inFlightBytes -= request.remainBytes;
+          request.remainBytes = 0;
+          if (!request.responseStarted && request.sentNum <= MAX_RESEND_NUM) {
+            host.pending.addFirst(request);
+          } else {
+            failed.add(request);
+          }
+        }
+        host.dispatch();
+      }
+
+      for (FetchRequest request : failed) {
+        request.fail(new IOException("Channel closed by peer: " + ctx.channel()));
+      }
+      super.channelInactive(ctx);
+    }
+  }
+
+  private class FetchChannelInitializer extends ChannelInitializer<Channel> {
+    private final HostConnections host;
+
+    FetchChannelInitializer(HostConnections host) {
+      this.host = host;
+    }
+
+    @Override
+    protected void initChannel(Channel channel) throws Exception {
+      ChannelPipeline pipeline = channel.pipeline();
+
+      int maxChunkSize = conf.getIntVar(ConfVars.SHUFFLE_FETCHER_CHUNK_MAX_SIZE);
+      int readTimeout = conf.getIntVar(ConfVars.SHUFFLE_FETCHER_READ_TIMEOUT);
+
+      pipeline.addLast("codec", new HttpClientCodec(4096, 8192, maxChunkSize));
+      pipeline.addLast("inflater", new HttpContentDecompressor());
+      // an idle connection is also closed by read timeout
+      pipeline.addLast("timeout", new ReadTimeoutHandler(readTimeout, TimeUnit.SECONDS));
+      pipeline.addLast("handler", new Connection(host, channel));
+    }
+  }
+}
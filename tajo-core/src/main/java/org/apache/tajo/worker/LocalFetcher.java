@@ -201,6 +201,8 @@ public class LocalFetcher extends AbstractFetcher {
 
     if (PullServerUtil.isRangeShuffle(params.shuffleType())) {
       return getChunksForRangeShuffle(params, queryBaseDir);
+    } else if (PullServerUtil.isHashShuffle(params.shuffleType()) && params.contains(Param.TASK_ID)) {
+      return getChunksForSortedHashShuffle(params);
     } else if (PullServerUtil.isHashShuffle(params.shuffleType())) {
       return getChunksForHashShuffle(params, queryBaseDir);
     } else {
@@ -209,6 +211,27 @@ public class LocalFetcher extends AbstractFetcher {
     }
   }
 
+  private List<FileChunk> getChunksForSortedHashShuffle(final PullServerParams params) throws IOException {
+    final List<FileChunk> fileChunks;
+    try {
+      fileChunks = PullServerUtil.getSortedHashShuffleChunks(conf, localDirAllocator, localFileSystem, params);
+    } catch (IOException e) {
+      endFetch(FetcherState.FETCH_FAILED);
+      throw e;
+    }
+
+    fileLen = fileNum = 0;
+    for (FileChunk chunk : fileChunks) {
+      chunk.setEbId(tableName);
+      chunk.setFromRemote(false);
+      fileLen += chunk.length();
+      fileNum++;
+    }
+
+    endFetch(FetcherState.FETCH_DATA_FINISHED);
+    return fileChunks;
+  }
+
   private List<FileChunk> getChunksForHashShuffle(final PullServerParams params, final Path queryBaseDir)
       throws IOException {
     final List<FileChunk> fileChunks = new ArrayList<>();
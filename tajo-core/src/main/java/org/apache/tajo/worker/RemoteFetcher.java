@@ -18,40 +18,40 @@
 
 package org.apache.tajo.worker;
 
-import io.netty.bootstrap.Bootstrap;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.*;
-import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.http.*;
-import io.netty.handler.timeout.ReadTimeoutException;
-import io.netty.handler.timeout.ReadTimeoutHandler;
-import io.netty.util.ReferenceCountUtil;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.io.IOUtils;
-import org.apache.tajo.TajoProtos;
 import org.apache.tajo.TajoProtos.FetcherState;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.pullserver.PullServerConstants;
+import org.apache.tajo.pullserver.PullServerUtil.PullServerParams;
 import org.apache.tajo.pullserver.retriever.FileChunk;
-import org.apache.tajo.rpc.NettyUtils;
+import org.apache.tajo.storage.FetchedShuffleData;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
 
 /**
  * RemoteFetcher fetches data from a given uri via HTTP protocol and stores them into
  * a specific file. It aims at asynchronous and efficient data transmit.
+ *
+ * The request is sent through a persistent connection of {@link FetchClient}, which is shared by the fetchers of
+ * a worker.
+ *
+ * If {@link FetchedShuffleData} is given, the content is appended to it instead of the file, so that the data can
+ * be scanned while being fetched. The file is then written only when the data are spilled.
  */
 public class RemoteFetcher extends AbstractFetcher {
 
@@ -60,11 +60,17 @@ public class RemoteFetcher extends AbstractFetcher {
   private final String host;
   private int port;
 
-  private final Bootstrap bootstrap;
+  private final FetchClient client;
   private final List<Long> chunkLengths = new ArrayList<>();
+  private final FetchedShuffleData fetchedData;
 
   public RemoteFetcher(TajoConf conf, URI uri, FileChunk chunk) {
+    this(conf, uri, chunk, null);
+  }
+
+  public RemoteFetcher(TajoConf conf, URI uri, FileChunk chunk, FetchedShuffleData fetchedData) {
     super(conf, uri, chunk);
+    this.fetchedData = fetchedData;
 
     String scheme = uri.getScheme() == null ? "http" : uri.getScheme();
     this.host = uri.getHost() == null ? "localhost" : uri.getHost();
@@ -77,59 +83,39 @@ public class RemoteFetcher extends AbstractFetcher {
       }
     }
 
-    bootstrap = new Bootstrap()
-        .group(
-            NettyUtils.getSharedEventLoopGroup(NettyUtils.GROUP.FETCHER,
-                conf.getIntVar(TajoConf.ConfVars.SHUFFLE_RPC_CLIENT_WORKER_THREAD_NUM)))
-        .channel(NioSocketChannel.class)
-        .option(ChannelOption.ALLOCATOR, NettyUtils.ALLOCATOR)
-        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
-            conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_CONNECT_TIMEOUT) * 1000)
-        .option(ChannelOption.SO_RCVBUF, 1048576) // set 1M
-        .option(ChannelOption.TCP_NODELAY, true);
+    this.client = FetchClient.getInstance(conf);
   }
 
   @Override
   public List<FileChunk> get() throws IOException {
     List<FileChunk> fileChunks = new ArrayList<>();
 
-    if (state == FetcherState.FETCH_INIT) {
-      ChannelInitializer<Channel> initializer = new HttpClientChannelInitializer(fileChunk.getFile());
-      bootstrap.handler(initializer);
-    }
-
     this.startTime = System.currentTimeMillis();
     this.state = FetcherState.FETCH_DATA_FETCHING;
-    ChannelFuture future = null;
+    chunkLengths.clear();
     try {
-      future = bootstrap.clone().connect(new InetSocketAddress(host, port))
-              .addListener(ChannelFutureListener.FIRE_EXCEPTION_ON_FAILURE);
-
-      // Wait until the connection attempt succeeds or fails.
-      Channel channel = future.awaitUninterruptibly().channel();
-      if (!future.isSuccess()) {
-        state = TajoProtos.FetcherState.FETCH_FAILED;
-        throw new IOException(future.cause());
+      if (fetchedData != null && !fetchedData.discard()) {
+        // the data of the previous attempt are already consumed by a scanner
+        state = FetcherState.FETCH_FAILED;
+        IOException cause = new IOException("Cannot fetch again the partially consumed data of " + uri);
+        fetchedData.fail(cause);
+        throw cause;
       }
 
-      String query = uri.getPath()
-          + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
-      // Prepare the HTTP request.
-      HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, query);
-      request.headers().set(HttpHeaders.Names.HOST, host);
-      request.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-      request.headers().set(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.GZIP);
+      ChunkRequest request = new ChunkRequest(uri, fileChunk.getFile());
 
       if(LOG.isDebugEnabled()) {
         LOG.debug("Status: " + getState() + ", URI:" + uri);
       }
-      // Send the HTTP request.
-      channel.writeAndFlush(request);
-
-      // Wait for the server to close the connection. throw exception if failed
-      channel.closeFuture().syncUninterruptibly();
+      // Send the HTTP request, and wait for the whole response. throw exception if failed to connect
+      client.fetch(new InetSocketAddress(host, port), request);
+      request.awaitUninterruptibly();
+      if (request.connectFailure != null) {
+        state = FetcherState.FETCH_FAILED;
+        throw new IOException(request.connectFailure);
+      }
 
-      fileChunk.setLength(fileChunk.getFile().length());
+      fileChunk.setLength(fetchedData != null ? fetchedData.size() : fileChunk.getFile().length());
 
       long start = 0;
       for (Long eachChunkLength : chunkLengths) {
@@ -143,11 +129,6 @@ public class RemoteFetcher extends AbstractFetcher {
       return fileChunks;
 
     } finally {
-      if(future != null && future.channel().isOpen()){
-        // Close the channel to exit.
-        future.channel().close().awaitUninterruptibly();
-      }
-
       this.finishTime = System.currentTimeMillis();
       long elapsedMills = finishTime - startTime;
       String transferSpeed;
@@ -163,114 +144,133 @@ public class RemoteFetcher extends AbstractFetcher {
     }
   }
 
-  public class HttpClientHandler extends ChannelInboundHandlerAdapter {
+  public FetchedShuffleData getFetchedData() {
+    return fetchedData;
+  }
+
+  /**
+   * It stores the content of a response into a file, or appends it to the fetched data.
+   */
+  private class ChunkRequest extends FetchClient.FetchRequest {
     private final File file;
     private RandomAccessFile raf;
     private FileChannel fc;
     private long length = -1;
-    private int totalReceivedContentLength = 0;
+    private long totalReceivedContentLength = 0;
+    private Throwable connectFailure;
 
-    public HttpClientHandler(File file) throws FileNotFoundException {
+    public ChunkRequest(URI uri, File file) {
+      // the length of a remote chunk is not known, but a split of a hash shuffle output is requested with its length
+      super(uri, new PullServerParams(uri).length());
       this.file = file;
-      this.raf = new RandomAccessFile(file, "rw");
-      this.fc = raf.getChannel();
     }
 
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg)
-        throws Exception {
-
+    protected void onResponse(HttpResponse response) {
       messageReceiveCount++;
-      if (msg instanceof HttpResponse) {
+      if (fetchedData == null) {
         try {
-          HttpResponse response = (HttpResponse) msg;
+          raf = new RandomAccessFile(file, "rw");
+          fc = raf.getChannel();
+        } catch (FileNotFoundException e) {
+          LOG.error(e.getMessage(), e);
+          endFetch(FetcherState.FETCH_FAILED);
+          return;
+        }
+      }
 
-          StringBuilder sb = new StringBuilder();
-          if (LOG.isDebugEnabled()) {
-            sb.append("STATUS: ").append(response.getStatus()).append(", VERSION: ")
-                .append(response.getProtocolVersion()).append(", HEADER: ");
-          }
-          if (!response.headers().names().isEmpty()) {
-            for (String name : response.headers().names()) {
-              for (String value : response.headers().getAll(name)) {
-                if (LOG.isDebugEnabled()) {
-                  sb.append(name).append(" = ").append(value);
-                }
-                if (this.length == -1 && name.equals("Content-Length")) {
-                  this.length = Long.parseLong(value);
-                }
-              }
+      StringBuilder sb = new StringBuilder();
+      if (LOG.isDebugEnabled()) {
+        sb.append("STATUS: ").append(response.getStatus()).append(", VERSION: ")
+            .append(response.getProtocolVersion()).append(", HEADER: ");
+      }
+      if (!response.headers().names().isEmpty()) {
+        for (String name : response.headers().names()) {
+          for (String value : response.headers().getAll(name)) {
+            if (LOG.isDebugEnabled()) {
+              sb.append(name).append(" = ").append(value);
             }
-            if (response.headers().contains(PullServerConstants.CHUNK_LENGTH_HEADER_NAME)) {
-              String stringOffset = response.headers().get(PullServerConstants.CHUNK_LENGTH_HEADER_NAME);
-
-              for (String eachSplit : stringOffset.split(",")) {
-                chunkLengths.add(Long.parseLong(eachSplit));
-              }
+            if (this.length == -1 && name.equals("Content-Length")) {
+              this.length = Long.parseLong(value);
             }
           }
-          if (LOG.isDebugEnabled()) {
-            LOG.debug(sb.toString());
-          }
+        }
+        if (response.headers().contains(PullServerConstants.CHUNK_LENGTH_HEADER_NAME)) {
+          String stringOffset = response.headers().get(PullServerConstants.CHUNK_LENGTH_HEADER_NAME);
 
-          if (response.getStatus().code() == HttpResponseStatus.NO_CONTENT.code()) {
-            LOG.warn("There are no data corresponding to the request");
-            length = 0;
-            return;
-          } else if (response.getStatus().code() != HttpResponseStatus.OK.code()) {
-            LOG.error(response.getStatus().reasonPhrase(), response.getDecoderResult().cause());
-            endFetch(FetcherState.FETCH_FAILED);
-            return;
+          for (String eachSplit : stringOffset.split(",")) {
+            chunkLengths.add(Long.parseLong(eachSplit));
           }
-        } catch (Exception e) {
-          LOG.error(e.getMessage(), e);
-        } finally {
-          ReferenceCountUtil.release(msg);
         }
       }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(sb.toString());
+      }
 
-      if (msg instanceof HttpContent) {
-        HttpContent httpContent = (HttpContent) msg;
-        ByteBuf content = httpContent.content();
+      if (response.getStatus().code() == HttpResponseStatus.NO_CONTENT.code()) {
+        LOG.warn("There are no data corresponding to the request");
+        length = 0;
+      } else if (response.getStatus().code() != HttpResponseStatus.OK.code()) {
+        LOG.error(response.getStatus().reasonPhrase(), response.getDecoderResult().cause());
+        endFetch(FetcherState.FETCH_FAILED);
+      }
+    }
 
-        if (state != FetcherState.FETCH_FAILED) {
-          try {
-            if (content.isReadable()) {
-              totalReceivedContentLength += content.readableBytes();
+    @Override
+    protected void onContent(HttpContent httpContent) {
+      if (!(httpContent instanceof HttpResponse)) {
+        messageReceiveCount++;
+      }
+      ByteBuf content = httpContent.content();
+
+      if (state != FetcherState.FETCH_FAILED) {
+        try {
+          if (content.isReadable()) {
+            totalReceivedContentLength += content.readableBytes();
+            if (fetchedData != null) {
+              fetchedData.append(content);
+            } else {
               content.readBytes(fc, content.readableBytes());
             }
+          }
 
-            if (msg instanceof LastHttpContent) {
-              if (raf != null) {
-                fileLen = file.length();
-                fileNum = 1;
-              }
+          if (httpContent instanceof LastHttpContent) {
+            if (raf != null) {
+              fileLen = file.length();
+              fileNum = 1;
+            } else if (fetchedData != null) {
+              fileLen = fetchedData.size();
+              fileNum = 1;
+            }
 
-              if (totalReceivedContentLength == length) {
-                endFetch(FetcherState.FETCH_DATA_FINISHED);
-              } else {
-                endFetch(FetcherState.FETCH_FAILED);
-                throw new IOException("Invalid fetch length: " + totalReceivedContentLength + ", but expected " + length);
+            if (totalReceivedContentLength == length) {
+              if (fetchedData != null) {
+                fetchedData.finish();
               }
-              IOUtils.cleanup(LOG, fc, raf);
+              endFetch(FetcherState.FETCH_DATA_FINISHED);
+            } else {
+              endFetch(FetcherState.FETCH_FAILED);
+              throw new IOException("Invalid fetch length: " + totalReceivedContentLength + ", but expected " + length);
             }
-          } catch (Exception e) {
-            LOG.error(e.getMessage(), e);
-          } finally {
-            ReferenceCountUtil.release(msg);
           }
-        } else {
-          // http content contains the reason why the fetch failed.
-          LOG.error(content.toString(Charset.defaultCharset()));
+        } catch (Exception e) {
+          LOG.error(e.getMessage(), e);
+          endFetch(FetcherState.FETCH_FAILED);
         }
+      } else {
+        // http content contains the reason why the fetch failed.
+        LOG.error(content.toString(Charset.defaultCharset()));
+      }
+
+      if (httpContent instanceof LastHttpContent) {
+        IOUtils.cleanup(LOG, fc, raf);
       }
     }
 
     @Override
-    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause)
-        throws Exception {
-      if (cause instanceof ReadTimeoutException) {
-        LOG.warn(cause.getMessage(), cause);
+    protected void onFailure(Throwable cause) {
+      if (cause instanceof ConnectException) {
+        connectFailure = cause;
       } else {
         LOG.error("Fetch failed :", cause);
       }
@@ -278,40 +278,6 @@ public class RemoteFetcher extends AbstractFetcher {
       // this fetching will be retry
       IOUtils.cleanup(LOG, fc, raf);
       endFetch(FetcherState.FETCH_FAILED);
-      ctx.close();
-    }
-
-    @Override
-    public void channelUnregistered(ChannelHandlerContext ctx) throws Exception {
-      if(getState() != FetcherState.FETCH_DATA_FINISHED){
-        //channel is closed, but cannot complete fetcher
-        endFetch(FetcherState.FETCH_FAILED);
-        LOG.error("Channel closed by peer: " + ctx.channel());
-      }
-      IOUtils.cleanup(LOG, fc, raf);
-
-      super.channelUnregistered(ctx);
-    }
-  }
-
-  public class HttpClientChannelInitializer extends ChannelInitializer<Channel> {
-    private final File file;
-
-    public HttpClientChannelInitializer(File file) {
-      this.file = file;
-    }
-
-    @Override
-    protected void initChannel(Channel channel) throws Exception {
-      ChannelPipeline pipeline = channel.pipeline();
-
-      int maxChunkSize = conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_CHUNK_MAX_SIZE);
-      int readTimeout = conf.getIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_READ_TIMEOUT);
-
-      pipeline.addLast("codec", new HttpClientCodec(4096, 8192, maxChunkSize));
-      pipeline.addLast("inflater", new HttpContentDecompressor());
-      pipeline.addLast("timeout", new ReadTimeoutHandler(readTimeout, TimeUnit.SECONDS));
-      pipeline.addLast("handler", new HttpClientHandler(file));
     }
   }
 }
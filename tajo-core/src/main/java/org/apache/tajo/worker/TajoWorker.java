@@ -33,6 +33,7 @@ import org.apache.tajo.TajoConstants;
 import org.apache.tajo.catalog.CatalogClient;
 import org.apache.tajo.catalog.CatalogService;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.codegen.CompiledEvalCache;
 import org.apache.tajo.engine.function.FunctionLoader;
 import org.apache.tajo.engine.function.hiveudf.HiveFunctionLoader;
 import org.apache.tajo.master.cluster.WorkerConnectionInfo;
@@ -214,6 +215,10 @@ public class TajoWorker extends CompositeService {
 
     workerSystemMetrics.register(Node.Tasks.RUNNING_TASKS,
         () -> taskExecutor != null ? taskExecutor.getRunningTasks() : 0);
+
+    CompiledEvalCache compiledEvalCache = CompiledEvalCache.getInstance(systemConf);
+    workerSystemMetrics.register(Node.Codegen.CACHED_CLASSES, compiledEvalCache::size);
+    workerSystemMetrics.register(Node.Codegen.FALLBACKS, compiledEvalCache::getFallbackNum);
   }
 
   private int initWebServer() {
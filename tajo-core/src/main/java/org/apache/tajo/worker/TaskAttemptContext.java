@@ -26,12 +26,16 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.Path;
 import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.annotation.Nullable;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.proto.CatalogProtos.PartitionDescProto;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.codegen.CompiledEvalCache;
+import org.apache.tajo.engine.codegen.CompiledPipeline;
 import org.apache.tajo.engine.planner.enforce.Enforcer;
 import org.apache.tajo.engine.planner.global.DataChannel;
+import org.apache.tajo.engine.planner.physical.RuntimeJoinFilter;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.plan.expr.EvalContext;
 import org.apache.tajo.plan.expr.EvalNode;
@@ -75,6 +79,9 @@ public class TaskAttemptContext {
   private Path outputPath;
   private DataChannel dataChannel;
   private Enforcer enforcer;
+  private RuntimeJoinFilter runtimeJoinFilter;
+  private boolean collectRuntimeJoinFilter = false;
+  private RuntimeJoinFilter collectedRuntimeJoinFilter;
   private QueryContext queryContext;
   private WorkerContext workerContext;
   private ExecutionBlockSharedResource sharedResource;
@@ -164,6 +171,36 @@ public class TaskAttemptContext {
     return this.enforcer;
   }
 
+  /**
+   * Set a filter of the shuffle keys built from the other side of a join. It is applied before the shuffle.
+   */
+  public void setRuntimeJoinFilter(RuntimeJoinFilter runtimeJoinFilter) {
+    this.runtimeJoinFilter = runtimeJoinFilter;
+  }
+
+  public RuntimeJoinFilter getRuntimeJoinFilter() {
+    return runtimeJoinFilter;
+  }
+
+  public void setCollectRuntimeJoinFilter() {
+    this.collectRuntimeJoinFilter = true;
+  }
+
+  /**
+   * @return true if a filter of the shuffle keys should be built from all the shuffled tuples
+   */
+  public boolean isCollectingRuntimeJoinFilter() {
+    return collectRuntimeJoinFilter;
+  }
+
+  public void setCollectedRuntimeJoinFilter(RuntimeJoinFilter collectedRuntimeJoinFilter) {
+    this.collectedRuntimeJoinFilter = collectedRuntimeJoinFilter;
+  }
+
+  public RuntimeJoinFilter getCollectedRuntimeJoinFilter() {
+    return collectedRuntimeJoinFilter;
+  }
+
   public ExecutionBlockSharedResource getSharedResource() {
     return sharedResource;
   }
@@ -172,6 +209,14 @@ public class TaskAttemptContext {
     return sharedResource.compileEval(schema, eval);
   }
 
+  /**
+   * Compiles a filter and projected expressions into a single generated method.
+   * Generated classes are shared by all tasks in this process.
+   */
+  public CompiledPipeline compilePipeline(Schema schema, @Nullable EvalNode qual, EvalNode [] targets) {
+    return CompiledEvalCache.getInstance(getConf()).compilePipeline(schema, qual, targets);
+  }
+
   public EvalNode getPrecompiledEval(Schema schema, EvalNode eval) {
     if (sharedResource != null) {
       return sharedResource.getPreCompiledEval(schema, eval);
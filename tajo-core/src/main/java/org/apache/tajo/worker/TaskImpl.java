@@ -27,6 +27,9 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CommonConfigurationKeysPublic;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.tajo.BuiltinStorages;
+import org.apache.tajo.SessionVars;
+import org.apache.tajo.TajoConstants;
 import org.apache.tajo.TajoProtos;
 import org.apache.tajo.TajoProtos.FetcherState;
 import org.apache.tajo.TajoProtos.TaskAttemptState;
@@ -39,6 +42,7 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.engine.planner.physical.PhysicalExec;
+import org.apache.tajo.engine.planner.physical.RuntimeJoinFilter;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.engine.query.TaskRequest;
 import org.apache.tajo.exception.ErrorUtil;
@@ -59,6 +63,7 @@ import org.apache.tajo.querymaster.Repartitioner;
 import org.apache.tajo.rpc.NullCallback;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.NetUtils;
 
 import java.io.File;
@@ -67,6 +72,7 @@ import java.net.InetAddress;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 
 import static org.apache.tajo.ResourceProtos.*;
@@ -96,6 +102,13 @@ public class TaskImpl implements Task {
 
   private List<FileChunk> localChunks;
   private List<FileChunk> remoteChunks;
+
+  // remote fetches whose data are kept in memory, and can be scanned while being fetched
+  private final boolean streamingFetch;
+  private final Map<RemoteFetcher, FileChunk> streamingFetchers = new LinkedHashMap<>();
+  private CountDownLatch unstreamedFetchLatch = new CountDownLatch(0);
+  private boolean rangeShuffleFetch;
+  private boolean fetchOverlapped;
   // TODO - to be refactored
   private ShuffleType shuffleType = null;
   private Schema finalSchema = null;
@@ -126,8 +139,17 @@ public class TaskImpl implements Task {
         request.getFragments().toArray(new FragmentProto[request.getFragments().size()]), taskDir);
     this.context.setDataChannel(request.getDataChannel());
     this.context.setEnforcer(request.getEnforcer());
+    if (request.isCollectingRuntimeJoinFilter()) {
+      this.context.setCollectRuntimeJoinFilter();
+    }
+    if (request.getRuntimeJoinFilter() != null) {
+      this.context.setRuntimeJoinFilter(new RuntimeJoinFilter(request.getRuntimeJoinFilter()));
+    }
     this.context.setState(TaskAttemptState.TA_PENDING);
     this.maxUrlLength = systemConf.getIntVar(ConfVars.PULLSERVER_FETCH_URL_MAX_LENGTH);
+    // only RawFile scanner can read the data being fetched
+    this.streamingFetch = systemConf.getBoolVar(ConfVars.SHUFFLE_FETCHER_STREAMING_ENABLED)
+        && BuiltinStorages.RAW.equalsIgnoreCase(systemConf.getVar(ConfVars.SHUFFLE_FILE_FORMAT));
   }
 
   public void initPlan() throws IOException {
@@ -135,6 +157,7 @@ public class TaskImpl implements Task {
     updateDescsForScanNodes(NodeType.SCAN);
     updateDescsForScanNodes(NodeType.PARTITIONS_SCAN);
     updateDescsForScanNodes(NodeType.INDEX_SCAN);
+    updateDescsForCompressedInputs();
 
     interQuery = request.getProto().getInterQuery();
     if (interQuery) {
@@ -183,6 +206,26 @@ public class TaskImpl implements Task {
     }
   }
 
+  /**
+   * The pages of raw hash shuffle outputs are compressed by the codec of the query, if it is given.
+   * The scanners of them decompress the pages while they are being read.
+   */
+  private void updateDescsForCompressedInputs() {
+    String codec = queryContext.get(SessionVars.HASH_SHUFFLE_COMPRESSION_CODEC);
+    if (codec.isEmpty()) {
+      return;
+    }
+
+    for (FetchProto fetch : request.getFetches()) {
+      if (fetch.getType() == ShuffleType.HASH_SHUFFLE || fetch.getType() == ShuffleType.SCATTERED_HASH_SHUFFLE) {
+        TableDesc desc = descs.get(fetch.getName());
+        if (desc != null && BuiltinStorages.RAW.equalsIgnoreCase(desc.getMeta().getDataFormat())) {
+          desc.getMeta().putProperty(StorageConstants.COMPRESSION_CODEC, codec);
+        }
+      }
+    }
+  }
+
   private void startScriptExecutors() throws IOException {
     for (TajoScriptEngine executor : context.getEvalContext().getAllScriptEngines()) {
       executor.start(systemConf);
@@ -277,6 +320,7 @@ public class TaskImpl implements Task {
   @Override
   public void kill() {
     stopScriptExecutors();
+    failStreamingFetches();
     context.setState(TaskAttemptState.TA_KILLED);
     context.stop();
   }
@@ -284,6 +328,7 @@ public class TaskImpl implements Task {
   @Override
   public void abort() {
     stopScriptExecutors();
+    failStreamingFetches();
     context.setState(TaskAttemptState.TA_FAILED);
     context.stop();
   }
@@ -351,6 +396,10 @@ public class TaskImpl implements Task {
       builder.addAllPartitions(context.getPartitions());
     }
 
+    if (context.getCollectedRuntimeJoinFilter() != null) {
+      builder.setRuntimeJoinFilter(context.getCollectedRuntimeJoinFilter().getProto());
+    }
+
     Iterator<Entry<Integer, String>> it = context.getShuffleFileOutputs();
     if (it.hasNext()) {
       do {
@@ -376,8 +425,17 @@ public class TaskImpl implements Task {
   }
 
   private void waitForFetch() throws InterruptedException, IOException {
-    context.getFetchLatch().await();
-    LOG.info(context.getTaskId() + " All fetches are done!");
+    // The physical planner chooses join algorithms by the input volumes, which are unknown until the fetches end.
+    // A range shuffle response consists of sorted chunks which are merged as separate fragments.
+    fetchOverlapped = !streamingFetchers.isEmpty() && !rangeShuffleFetch
+        && PlannerUtil.findTopNode(plan, NodeType.JOIN) == null;
+    if (fetchOverlapped) {
+      unstreamedFetchLatch.await();
+      LOG.info(context.getTaskId() + " All local fetches are done! Remote fetches are scanned while being fetched.");
+    } else {
+      context.getFetchLatch().await();
+      LOG.info(context.getTaskId() + " All fetches are done!");
+    }
     Collection<String> inputs = Lists.newArrayList(context.getInputTables());
 
     // Get all broadcasted tables
@@ -410,8 +468,10 @@ public class TaskImpl implements Task {
         if (context.hasFetchPhase()) {
           // If the fetch is still in progress, the query unit must wait for complete.
           waitForFetch();
-          context.setFetcherProgress(FETCHER_PROGRESS);
-          updateProgress();
+          if (!fetchOverlapped) {
+            context.setFetcherProgress(FETCHER_PROGRESS);
+            updateProgress();
+          }
         }
 
         this.executor = executionBlockContext.getTQueryEngine().createPlan(context, plan);
@@ -489,6 +549,12 @@ public class TaskImpl implements Task {
       LOG.fatal(e.getMessage(), e);
     }
 
+    // the fetched buffers are released after the executor, which may still read them until it is closed.
+    for (FileChunk chunk : streamingFetchers.values()) {
+      FetchedShuffleData.unregister(chunk.getFile());
+    }
+    streamingFetchers.clear();
+
     executionBlockContext.getWorkerContext().getTaskHistoryWriter().appendHistory(taskHistory);
     stopScriptExecutors();
   }
@@ -560,10 +626,21 @@ public class TaskImpl implements Task {
     List<FileFragment> listTablets = new ArrayList<>();
     FileFragment tablet;
 
-    for (FileChunk chunk : remoteChunks) {
-      if (name.equals(chunk.getEbId())) {
-        tablet = new FileFragment(name, fs.makeQualified(new Path(chunk.getFile().getPath())), chunk.startOffset(), chunk.length());
-        listTablets.add(tablet);
+    if (fetchOverlapped) {
+      // the length is unknown until the fetch is finished
+      for (FileChunk chunk : streamingFetchers.values()) {
+        if (name.equals(chunk.getEbId())) {
+          tablet = new FileFragment(name, fs.makeQualified(new Path(chunk.getFile().getPath())), 0,
+              TajoConstants.UNKNOWN_LENGTH);
+          listTablets.add(tablet);
+        }
+      }
+    } else {
+      for (FileChunk chunk : remoteChunks) {
+        if (name.equals(chunk.getEbId())) {
+          tablet = new FileFragment(name, fs.makeQualified(new Path(chunk.getFile().getPath())), chunk.startOffset(), chunk.length());
+          listTablets.add(tablet);
+        }
       }
     }
 
@@ -630,12 +707,18 @@ public class TaskImpl implements Task {
           retryNum++;
         }
       } finally {
+        if (!streamingFetchers.containsKey(fetcher)) {
+          unstreamedFetchLatch.countDown();
+        }
         if(fetcher.getState() == FetcherState.FETCH_DATA_FINISHED){
           fetcherFinished(ctx);
         } else {
           if (retryNum == maxRetryNum) {
             LOG.error("ERROR: the maximum retry (" + retryNum + ") on the fetch exceeded (" + fetcher.getURI() + ")");
           }
+          if (streamingFetchers.containsKey(fetcher)) {
+            ((RemoteFetcher) fetcher).getFetchedData().fail(new IOException("Failed to fetch " + fetcher.getURI()));
+          }
           stopScriptExecutors();
           context.stop(); // retry task
           ctx.getFetchLatch().countDown();
@@ -684,6 +767,7 @@ public class TaskImpl implements Task {
       List<AbstractFetcher> runnerList = Lists.newArrayList();
 
       for (FetchProto f : fetches) {
+        rangeShuffleFetch |= f.getType() == ShuffleType.RANGE_SHUFFLE;
         storeDir = new File(inputDir.toString(), f.getName());
         if (!storeDir.exists()) {
           if (!storeDir.mkdirs()) throw new IOException("Failed to create " + storeDir);
@@ -704,11 +788,21 @@ public class TaskImpl implements Task {
             FileChunk remoteChunk = new FileChunk(defaultStoreFile, 0, -1);
             remoteChunk.setFromRemote(true);
             remoteChunk.setEbId(f.getName());
-            runnerList.add(new RemoteFetcher(systemConf, uri, remoteChunk));
+            if (streamingFetch) {
+              FetchedShuffleData fetchedData = new FetchedShuffleData(defaultStoreFile,
+                  (long) systemConf.getIntVar(ConfVars.SHUFFLE_FETCHER_STREAMING_MEMORY_MAX_SIZE) * StorageUnit.MB);
+              FetchedShuffleData.register(fetchedData);
+              RemoteFetcher fetcher = new RemoteFetcher(systemConf, uri, remoteChunk, fetchedData);
+              streamingFetchers.put(fetcher, remoteChunk);
+              runnerList.add(fetcher);
+            } else {
+              runnerList.add(new RemoteFetcher(systemConf, uri, remoteChunk));
+            }
             i++;
           }
         }
       }
+      unstreamedFetchLatch = new CountDownLatch(runnerList.size() - streamingFetchers.size());
       ctx.addFetchPhase(runnerList.size(), new File(inputDir.toString()));
       LOG.info("Create shuffle Fetchers local:" + localStoreChunkCount +
           ", remote:" + (runnerList.size() - localStoreChunkCount));
@@ -718,6 +812,12 @@ public class TaskImpl implements Task {
     }
   }
 
+  private void failStreamingFetches() {
+    for (RemoteFetcher fetcher : streamingFetchers.keySet()) {
+      fetcher.getFetchedData().fail(new IOException(getId() + " is stopped"));
+    }
+  }
+
   public static Path getTaskAttemptDir(TaskAttemptId quid) {
     return StorageUtil.concatPath(ExecutionBlockContext.getBaseInputDir(quid.getTaskId().getExecutionBlockId()),
         String.valueOf(quid.getTaskId().getId()),
@@ -90,6 +90,7 @@
   long totalReadRows = 0;
   long totalWriteBytes = 0;
   long totalWriteRows = 0;
+  long totalShuffleBytes = 0;
 
   if (stage != null) {
     totalInputBytes = stage.getTotalInputBytes();
@@ -97,6 +98,7 @@
     totalReadRows = stage.getTotalReadRows();
     totalWriteBytes = stage.getTotalWriteBytes();
     totalWriteRows = stage.getTotalWriteRows();
+    totalShuffleBytes = stage.getTotalShuffleBytes();
   }
 
   List<TaskHistory> allTasks = reader.getTaskHistory(queryId, ebId, NumberUtils.toLong(startTime, 0));
@@ -165,6 +167,13 @@
     <tr><td align='right'>Input Rows:</td><td><%=nf.format(totalReadRows)%></td></tr>
     <tr><td align='right'>Output Bytes:</td><td><%=FileUtil.humanReadableByteCount(totalWriteBytes, false) + " (" + nf.format(totalWriteBytes) + " B)"%></td></tr>
     <tr><td align='right'>Output Rows:</td><td><%=nf.format(totalWriteRows)%></td></tr>
+<%
+  if (totalShuffleBytes > 0) {
+%>
+    <tr><td align='right'>Shuffle Bytes:</td><td><%=FileUtil.humanReadableByteCount(totalShuffleBytes, false) + " (" + nf.format(totalShuffleBytes) + " B)"%></td></tr>
+<%
+  }
+%>
   </table>
   <hr/>
 
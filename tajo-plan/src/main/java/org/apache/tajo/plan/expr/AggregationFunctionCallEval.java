@@ -22,6 +22,7 @@ import com.google.gson.annotations.Expose;
 import org.apache.tajo.catalog.FunctionDesc;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TypeConverter;
+import org.apache.tajo.common.TajoDataTypes;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.plan.function.AggFunctionInvoke;
 import org.apache.tajo.plan.function.FunctionContext;
@@ -106,6 +107,31 @@ public class AggregationFunctionCallEval extends FunctionEval implements Cloneab
     }
   }
 
+  /**
+   * Get the partial result of an aggregation context regardless of the phase of this function.
+   */
+  public Datum getPartialResult(FunctionContext context) {
+    return functionInvoke.getPartialResult(context);
+  }
+
+  public TajoDataTypes.DataType getPartialResultType() {
+    return functionInvoke.getPartialResultType();
+  }
+
+  /**
+   * Merge a partial result, which is produced by {@link #getPartialResult}, into an aggregation context
+   * regardless of the phase of this function.
+   *
+   * @param context aggregation context
+   * @param partialResult a tuple containing a single partial result
+   */
+  public void mergePartialResult(FunctionContext context, Tuple partialResult) {
+    if (!isBound) {
+      throw new IllegalStateException("bind() must be called before mergePartialResult()");
+    }
+    functionInvoke.merge(context, partialResult);
+  }
+
   @Override
   public Type getValueType() {
     if (!lastPhase) {
@@ -93,6 +93,13 @@ public class FieldEval extends EvalNode implements Cloneable {
   public Column getColumnRef() {
     return FieldConverter.convert(field);
   }
+
+  /**
+   * Returns the index of the referred column in the bound schema, or -1 if it is not bound yet.
+   */
+  public int getFieldId() {
+    return fieldId;
+  }
 	
 	public String getQualifier() {
 	  return IdentifierUtil.extractQualifier(field.name().interned());
@@ -20,21 +20,18 @@ package org.apache.tajo.plan.expr;
 
 
 import com.google.gson.annotations.Expose;
-import org.apache.tajo.catalog.CatalogUtil;
-import org.apache.tajo.common.TajoDataTypes;
+import org.apache.tajo.annotation.Nullable;
+import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.type.Type;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 public class InEval extends BinaryEval {
   @Expose private boolean not;
-  Set<Datum> values;
+  private InValueSet valueSet;
+  private int fieldId = -1; // the field id of the left operand if it is a column of the type of the value set
 
   public InEval(EvalNode lhs, ValueSetEval valueList, boolean not) {
     super(EvalType.IN, lhs, valueList);
@@ -55,13 +52,40 @@ public class InEval extends BinaryEval {
     return "?";
   }
 
+  /**
+   * Returns the value list specialized on the type of the values.
+   */
+  public InValueSet getValueSet() {
+    if (valueSet == null) {
+      valueSet = InValueSet.create(((ValueSetEval) rightExpr).getValues());
+    }
+    return valueSet;
+  }
+
+  @Override
+  public EvalNode bind(@Nullable EvalContext evalContext, Schema schema) {
+    super.bind(evalContext, schema);
+
+    fieldId = -1;
+    if (leftExpr.getType() == EvalType.FIELD && getValueSet().kind() != null &&
+        leftExpr.getValueType().kind() == valueSet.kind()) {
+      fieldId = ((FieldEval) leftExpr).getFieldId();
+    }
+    return this;
+  }
+
   @Override
   public Datum eval(Tuple tuple) {
     if (!isBound) {
       throw new IllegalStateException("bind() must be called before eval()");
     }
-    if (values == null) {
-      values = new HashSet<>(Arrays.asList(((ValueSetEval) rightExpr).getValues()));
+
+    // a column is probed without materializing its Datum
+    if (fieldId >= 0) {
+      if (tuple.isBlankOrNull(fieldId)) {
+        return NullDatum.get();
+      }
+      return DatumFactory.createBool(not ^ valueSet.contains(tuple, fieldId));
     }
 
     Datum leftValue = leftExpr.eval(tuple);
@@ -70,7 +94,7 @@ public class InEval extends BinaryEval {
       return NullDatum.get();
     }
 
-    return DatumFactory.createBool(not ^ values.contains(leftValue));
+    return DatumFactory.createBool(not ^ getValueSet().contains(leftValue));
   }
 
   @Override
@@ -78,7 +102,6 @@ public class InEval extends BinaryEval {
     final int prime = 31;
     int result = super.hashCode();
     result = prime * result + (not ? 1231 : 1237);
-    result = prime * result + ((values == null) ? 0 : values.hashCode());
     return result;
   }
 
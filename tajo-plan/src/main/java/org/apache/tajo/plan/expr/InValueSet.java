@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.plan.expr;
+
+import org.apache.tajo.common.TajoDataTypes;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.util.MurmurHash;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The value list of an IN predicate, which is specialized on the type of the values.
+ *
+ * If all values are integers or texts of the same type, a probed value is looked up without being boxed into a
+ * Datum. Integers are kept in a sorted array for a short list, or in an open addressing table for a long list.
+ * Texts are kept in an open addressing table of their UTF-8 bytes. Any other list is kept in a set of Datums.
+ *
+ * A value set has the same semantics as {@link Datum#equals(Object)}, so a value of a different type from
+ * the list is never contained.
+ */
+public abstract class InValueSet {
+  /** The maximum number of integers looked up by a binary search */
+  static final int MAX_SORTED_ARRAY_SIZE = 16;
+
+  /**
+   * Creates the value set specialized for the given values.
+   */
+  public static InValueSet create(Datum [] values) {
+    TajoDataTypes.Type kind = values.length > 0 ? values[0].kind() : null;
+    for (Datum value : values) {
+      if (value.kind() != kind) {
+        return new DatumValueSet(values);
+      }
+    }
+
+    if (kind == TajoDataTypes.Type.INT2 || kind == TajoDataTypes.Type.INT4 || kind == TajoDataTypes.Type.INT8) {
+      long [] longs = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        longs[i] = values[i].asInt8();
+      }
+      return new LongValueSet(kind, longs);
+    } else if (kind == TajoDataTypes.Type.TEXT) {
+      byte [][] texts = new byte[values.length][];
+      for (int i = 0; i < values.length; i++) {
+        texts[i] = values[i].asTextBytes();
+      }
+      return new TextValueSet(texts);
+    } else {
+      return new DatumValueSet(values);
+    }
+  }
+
+  /**
+   * Returns the type of all values, or null if the values are of different types.
+   */
+  public abstract TajoDataTypes.Type kind();
+
+  /**
+   * Returns true if the given non-null value is contained.
+   */
+  public abstract boolean contains(Datum value);
+
+  /**
+   * Returns true if the non-null value of the given field is contained.
+   * The type of the field must be the same as {@link #kind()}.
+   */
+  public abstract boolean contains(Tuple tuple, int fieldId);
+
+  /**
+   * The set of INT2, INT4 or INT8 values.
+   */
+  public static class LongValueSet extends InValueSet {
+    private final TajoDataTypes.Type kind;
+    private final long [] sorted;  // used for a short list
+    private final long [] table;   // used for a long list, where 0 denotes an empty slot
+    private final boolean hasZero;
+
+    LongValueSet(TajoDataTypes.Type kind, long [] values) {
+      this.kind = kind;
+
+      long [] distinct = Arrays.stream(values).distinct().sorted().toArray();
+      if (distinct.length <= MAX_SORTED_ARRAY_SIZE) {
+        this.sorted = distinct;
+        this.table = null;
+        this.hasZero = false;
+      } else {
+        this.sorted = null;
+        // the load factor is kept under 0.5, so a probe sequence is short.
+        this.table = new long[tableSize(distinct.length)];
+        boolean zero = false;
+        for (long value : distinct) {
+          if (value == 0) {
+            zero = true;
+          } else {
+            table[indexOf(value)] = value;
+          }
+        }
+        this.hasZero = zero;
+      }
+    }
+
+    private int indexOf(long value) {
+      int mask = table.length - 1;
+      int idx = MurmurHash.hashLong(value) & mask;
+      while (table[idx] != 0 && table[idx] != value) {
+        idx = (idx + 1) & mask;
+      }
+      return idx;
+    }
+
+    @Override
+    public TajoDataTypes.Type kind() {
+      return kind;
+    }
+
+    public boolean contains(long value) {
+      if (sorted != null) {
+        return Arrays.binarySearch(sorted, value) >= 0;
+      } else if (value == 0) {
+        return hasZero;
+      } else {
+        return table[indexOf(value)] == value;
+      }
+    }
+
+    @Override
+    public boolean contains(Datum value) {
+      return value.kind() == kind && contains(value.asInt8());
+    }
+
+    @Override
+    public boolean contains(Tuple tuple, int fieldId) {
+      switch (kind) {
+      case INT2:
+        return contains(tuple.getInt2(fieldId));
+      case INT4:
+        return contains(tuple.getInt4(fieldId));
+      default:
+        return contains(tuple.getInt8(fieldId));
+      }
+    }
+  }
+
+  /**
+   * The set of TEXT values, which are compared by their UTF-8 bytes.
+   */
+  public static class TextValueSet extends InValueSet {
+    private final byte [][] table;
+    private final int [] hashes;
+
+    TextValueSet(byte [][] values) {
+      this.table = new byte[tableSize(values.length)][];
+      this.hashes = new int[table.length];
+      for (byte [] value : values) {
+        int hash = MurmurHash.hash(value);
+        int idx = indexOf(value, hash);
+        table[idx] = value;
+        hashes[idx] = hash;
+      }
+    }
+
+    private int indexOf(byte [] value, int hash) {
+      int mask = table.length - 1;
+      int idx = hash & mask;
+      while (table[idx] != null && (hashes[idx] != hash || !Arrays.equals(table[idx], value))) {
+        idx = (idx + 1) & mask;
+      }
+      return idx;
+    }
+
+    @Override
+    public TajoDataTypes.Type kind() {
+      return TajoDataTypes.Type.TEXT;
+    }
+
+    public boolean contains(byte [] value) {
+      return table[indexOf(value, MurmurHash.hash(value))] != null;
+    }
+
+    @Override
+    public boolean contains(Datum value) {
+      return value.kind() == TajoDataTypes.Type.TEXT && contains(value.asTextBytes());
+    }
+
+    @Override
+    public boolean contains(Tuple tuple, int fieldId) {
+      return contains(tuple.getTextBytes(fieldId));
+    }
+  }
+
+  /**
+   * The set of any other values.
+   */
+  public static class DatumValueSet extends InValueSet {
+    private final Set<Datum> values;
+
+    DatumValueSet(Datum [] values) {
+      this.values = new HashSet<>(Arrays.asList(values));
+    }
+
+    @Override
+    public TajoDataTypes.Type kind() {
+      return null;
+    }
+
+    @Override
+    public boolean contains(Datum value) {
+      return values.contains(value);
+    }
+
+    @Override
+    public boolean contains(Tuple tuple, int fieldId) {
+      return values.contains(tuple.asDatum(fieldId));
+    }
+  }
+
+  /**
+   * Returns the power of two which is larger than twice the given number of values.
+   */
+  private static int tableSize(int valueNum) {
+    return Integer.highestOneBit(Math.max(valueNum, 1) * 2) << 1;
+  }
+}
@@ -40,7 +40,7 @@ public class LikePredicateEval extends PatternMatchPredicateEval {
     if (caseInsensitive) {
       flags |= Pattern.CASE_INSENSITIVE;
     }
-    this.compiled = Pattern.compile(regex, flags);
+    this.compiled = StringPatternMatcher.compile(regex, flags);
   }
 
   public boolean isLeadingWildCard() {
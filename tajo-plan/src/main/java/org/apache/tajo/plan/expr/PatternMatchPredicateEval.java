@@ -20,13 +20,13 @@ package org.apache.tajo.plan.expr;
 
 import com.google.gson.annotations.Expose;
 import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.type.Type;
 
-import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 public abstract class PatternMatchPredicateEval extends BinaryEval {
@@ -35,7 +35,8 @@ public abstract class PatternMatchPredicateEval extends BinaryEval {
   @Expose protected boolean caseInsensitive;
 
   // transient variables
-  protected Pattern compiled;
+  protected StringPatternMatcher compiled;
+  private int fieldId = -1; // the field id of the predicand if it is a TEXT column
 
   public PatternMatchPredicateEval(EvalType evalType, boolean not, EvalNode predicand, ConstEval pattern,
                                    boolean caseInsensitive) {
@@ -73,6 +74,11 @@ public abstract class PatternMatchPredicateEval extends BinaryEval {
   public EvalNode bind(EvalContext evalContext, Schema schema) {
     super.bind(evalContext, schema);
     compile(pattern);
+
+    fieldId = -1;
+    if (leftExpr.getType() == EvalType.FIELD && leftExpr.getValueType().kind() == TajoDataTypes.Type.TEXT) {
+      fieldId = ((FieldEval) leftExpr).getFieldId();
+    }
     return this;
   }
 
@@ -81,12 +87,27 @@ public abstract class PatternMatchPredicateEval extends BinaryEval {
     if (!isBound) {
       throw new IllegalStateException("bind() must be called before eval()");
     }
-    Datum predicand = leftExpr.eval(tuple);
-    if (predicand.isNull()) {
-      return NullDatum.get();
-    }
 
-    boolean matched = compiled.matcher(predicand.asChars()).matches();
+    // a text is matched on its UTF-8 bytes without being decoded into a String
+    boolean matched;
+    if (fieldId >= 0) {
+      if (tuple.isBlankOrNull(fieldId)) {
+        return NullDatum.get();
+      }
+      matched = compiled.matches(tuple.getTextBytes(fieldId));
+
+    } else {
+      Datum predicand = leftExpr.eval(tuple);
+      if (predicand.isNull()) {
+        return NullDatum.get();
+      }
+
+      if (predicand.kind() == TajoDataTypes.Type.TEXT) {
+        matched = compiled.matches(predicand.asTextBytes());
+      } else {
+        matched = compiled.matches(predicand.asChars());
+      }
+    }
     return DatumFactory.createBool(matched ^ not);
   }
 }
\ No newline at end of file
@@ -43,7 +43,7 @@ public class RegexPredicateEval extends PatternMatchPredicateEval {
     if (caseInsensitive) {
       flags |= Pattern.CASE_INSENSITIVE;
     }
-    this.compiled = Pattern.compile(regex, flags);
+    this.compiled = StringPatternMatcher.compile(regex, flags);
   }
 
   @Override
@@ -38,7 +38,7 @@ public class SimilarToPredicateEval extends PatternMatchPredicateEval {
     String regex = pattern.replaceAll(SIMILARTO_ESCAPE_SPATIAL_CHARACTERS, "\\\\$1");
     regex = regex.replace("_", ".").replace("%", ".*"); // transform some special characters to be 'like'.
 
-    this.compiled = Pattern.compile(regex, Pattern.DOTALL);
+    this.compiled = StringPatternMatcher.compile(regex, Pattern.DOTALL);
   }
   
   @Override
@@ -0,0 +1,255 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.plan.expr;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.util.Pair;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Matches a whole text against the regular expression of a LIKE, SIMILAR TO or regex predicate.
+ *
+ * A regular expression which is a literal optionally surrounded by <code>.*</code>, such as LIKE 'abc%' or
+ * LIKE '%abc%', is matched as an exact, prefix, suffix or contains comparison on the UTF-8 bytes of a text.
+ * Since UTF-8 is self-synchronizing, a byte-level comparison gives the same result as a character-level one.
+ * Any other regular expression is matched by
+ * {@link java.util.regex.Pattern}, which is compiled once per process. An ASCII text is then matched through
+ * a view of its bytes instead of being decoded into a String.
+ *
+ * A matcher is immutable, so it can be shared by the tasks which share a precompiled EvalNode.
+ */
+public abstract class StringPatternMatcher {
+  private static final Cache<Pair<String, Integer>, Pattern> PATTERNS =
+      CacheBuilder.newBuilder().maximumSize(1024).build();
+
+  private static final String REGEX_META_CHARACTERS = "\\.[]{}()*+?^$|";
+
+  /**
+   * Returns a matcher for the given regular expression and {@link Pattern} flags.
+   */
+  public static StringPatternMatcher compile(String regex, int flags) throws PatternSyntaxException {
+    // '.*' matches any text only if '.' matches line terminators
+    if ((flags & Pattern.DOTALL) != 0 && (flags & Pattern.CASE_INSENSITIVE) == 0) {
+      StringPatternMatcher literal = compileLiteral(regex);
+      if (literal != null) {
+        return literal;
+      }
+    }
+
+    Pattern pattern;
+    try {
+      pattern = PATTERNS.get(new Pair<>(regex, flags), () -> Pattern.compile(regex, flags));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof PatternSyntaxException) {
+        throw (PatternSyntaxException) e.getCause();
+      }
+      throw new TajoInternalError(e.getCause());
+    }
+    return new RegexMatcher(pattern);
+  }
+
+  /**
+   * Returns a literal matcher, or null if the regular expression is not a literal surrounded by optional '.*'.
+   */
+  private static StringPatternMatcher compileLiteral(String regex) {
+    int begin = 0;
+    int end = regex.length();
+
+    boolean anyPrefix = regex.startsWith(".*");
+    if (anyPrefix) {
+      begin += 2;
+    }
+    // the trailing '.*' must not be an escaped '.' followed by '*'
+    boolean anySuffix = end - begin >= 2 && regex.startsWith(".*", end - 2) && !isEscaped(regex, begin, end - 2);
+    if (anySuffix) {
+      end -= 2;
+    }
+
+    StringBuilder literal = new StringBuilder();
+    for (int i = begin; i < end; i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        if (i + 1 == end || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          return null; // a character class or a special construct
+        }
+        literal.append(regex.charAt(++i));
+      } else if (REGEX_META_CHARACTERS.indexOf(c) >= 0) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+
+    return new LiteralMatcher(literal.toString(), anyPrefix, anySuffix);
+  }
+
+  /**
+   * Returns true if the character at the given index is escaped by an odd number of backslashes.
+   */
+  private static boolean isEscaped(String regex, int begin, int idx) {
+    int backslashes = 0;
+    for (int i = idx - 1; i >= begin && regex.charAt(i) == '\\'; i--) {
+      backslashes++;
+    }
+    return backslashes % 2 == 1;
+  }
+
+  /**
+   * Returns true if the whole UTF-8 bytes match.
+   */
+  public abstract boolean matches(byte [] text);
+
+  /**
+   * Returns true if the whole text matches.
+   */
+  public abstract boolean matches(String text);
+
+  /**
+   * Matches a literal which may be preceded or followed by any text.
+   */
+  static class LiteralMatcher extends StringPatternMatcher {
+    private final String literal;
+    private final byte [] bytes;
+    private final boolean anyPrefix;
+    private final boolean anySuffix;
+
+    LiteralMatcher(String literal, boolean anyPrefix, boolean anySuffix) {
+      this.literal = literal;
+      this.bytes = literal.getBytes(StandardCharsets.UTF_8);
+      this.anyPrefix = anyPrefix;
+      this.anySuffix = anySuffix;
+    }
+
+    @Override
+    public boolean matches(byte [] text) {
+      if (anyPrefix && anySuffix) {
+        return contains(text);
+      } else if (anyPrefix) {
+        return text.length >= bytes.length && regionMatches(text, text.length - bytes.length);
+      } else if (anySuffix) {
+        return text.length >= bytes.length && regionMatches(text, 0);
+      } else {
+        return Arrays.equals(bytes, text);
+      }
+    }
+
+    @Override
+    public boolean matches(String text) {
+      if (anyPrefix && anySuffix) {
+        return text.contains(literal);
+      } else if (anyPrefix) {
+        return text.endsWith(literal);
+      } else if (anySuffix) {
+        return text.startsWith(literal);
+      } else {
+        return text.equals(literal);
+      }
+    }
+
+    private boolean contains(byte [] text) {
+      if (bytes.length == 0) {
+        return true;
+      }
+
+      byte first = bytes[0];
+      int last = text.length - bytes.length;
+      for (int i = 0; i <= last; i++) {
+        if (text[i] == first && regionMatches(text, i)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    private boolean regionMatches(byte [] text, int offset) {
+      for (int i = 0; i < bytes.length; i++) {
+        if (text[offset + i] != bytes[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static class RegexMatcher extends StringPatternMatcher {
+    private final Pattern pattern;
+
+    RegexMatcher(Pattern pattern) {
+      this.pattern = pattern;
+    }
+
+    @Override
+    public boolean matches(byte [] text) {
+      for (byte b : text) {
+        if (b < 0) { // a multi-byte character
+          return matches(new String(text, StandardCharsets.UTF_8));
+        }
+      }
+      return pattern.matcher(new AsciiSequence(text, 0, text.length)).matches();
+    }
+
+    @Override
+    public boolean matches(String text) {
+      return pattern.matcher(text).matches();
+    }
+  }
+
+  /**
+   * A view of ASCII bytes as characters, which avoids decoding them into a String.
+   */
+  private static class AsciiSequence implements CharSequence {
+    private final byte [] bytes;
+    private final int offset;
+    private final int length;
+
+    AsciiSequence(byte [] bytes, int offset, int length) {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) bytes[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new AsciiSequence(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, offset, length, StandardCharsets.US_ASCII);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.pullserver;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.storage.DiskDeviceInfo;
+import org.apache.tajo.storage.DiskMountInfo;
+import org.apache.tajo.storage.DiskUtil;
+import org.apache.tajo.unit.StorageUnit;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * DiskIOScheduler bounds the number of concurrent shuffle reads of each disk device.
+ * A read request is identified by the file and the offset it starts from. If a device is busy, requests are queued
+ * and dispatched in the order of their files and offsets like an elevator, so that many concurrent fetchers do not make
+ * a spinning disk seek back and forth. Rotational and non-rotational devices have different concurrencies and
+ * read-ahead lengths.
+ */
+public class DiskIOScheduler {
+  private static final Log LOG = LogFactory.getLog(DiskIOScheduler.class);
+
+  /** the device id of files which are not found in any mount path */
+  public static final int UNKNOWN_DEVICE_ID = -1;
+
+  // mount paths sorted in descending order of their lengths for the longest prefix match
+  private final List<DiskMountInfo> mountInfos = new ArrayList<>();
+  private final Map<Integer, DiskQueue> queues = new HashMap<>();
+
+  public DiskIOScheduler(TajoConf conf, int readaheadLength) {
+    this(getDiskDeviceInfos(),
+        conf.getIntVar(ConfVars.PULLSERVER_DISK_IO_ROTATIONAL_CONCURRENCY),
+        conf.getIntVar(ConfVars.PULLSERVER_DISK_IO_NON_ROTATIONAL_CONCURRENCY),
+        readaheadLength,
+        conf.getIntVar(ConfVars.PULLSERVER_DISK_IO_NON_ROTATIONAL_READAHEAD) * StorageUnit.KB);
+  }
+
+  @VisibleForTesting
+  DiskIOScheduler(List<DiskDeviceInfo> devices, int rotationalConcurrency, int nonRotationalConcurrency,
+                  int rotationalReadahead, int nonRotationalReadahead) {
+    for (DiskDeviceInfo device : devices) {
+      boolean rotational = device.isRotational();
+      queues.put(device.getId(), new DiskQueue(device.getName(),
+          rotational ? rotationalConcurrency : nonRotationalConcurrency,
+          rotational ? rotationalReadahead : nonRotationalReadahead));
+      mountInfos.addAll(device.getMountInfos());
+    }
+    queues.put(UNKNOWN_DEVICE_ID, new DiskQueue("unknown", rotationalConcurrency, rotationalReadahead));
+    mountInfos.sort((o1, o2) -> o2.getMountPath().length() - o1.getMountPath().length());
+
+    LOG.info("DiskIOScheduler initialized: " + queues.values());
+  }
+
+  private static List<DiskDeviceInfo> getDiskDeviceInfos() {
+    try {
+      return DiskUtil.getDiskDeviceInfos();
+    } catch (IOException e) {
+      LOG.warn("Cannot get disk device information: " + e.getMessage());
+      return DiskUtil.getDefaultDiskDeviceInfos();
+    }
+  }
+
+  /**
+   * @return the id of the device which has the longest mount path containing the file
+   */
+  public int getDeviceId(File file) {
+    String path = file.getAbsolutePath();
+    for (DiskMountInfo mountInfo : mountInfos) {
+      String mountPath = mountInfo.getMountPath();
+      if (path.startsWith(mountPath) &&
+          (path.length() == mountPath.length() || mountPath.endsWith(File.separator) ||
+              path.charAt(mountPath.length()) == File.separatorChar)) {
+        return mountInfo.getDeviceId();
+      }
+    }
+    return UNKNOWN_DEVICE_ID;
+  }
+
+  public int getReadaheadLength(int deviceId) {
+    return getQueue(deviceId).readaheadLength;
+  }
+
+  /**
+   * Runs the read immediately if the device has a free slot. Otherwise, the read is queued until
+   * {@link #release(int)} is called for the device.
+   *
+   * @param deviceId device id
+   * @param path the file to be read
+   * @param offset the offset to be read from
+   * @param read the read which must call {@link #release(int)} when it is finished
+   */
+  public void submit(int deviceId, String path, long offset, Runnable read) {
+    DiskQueue queue = getQueue(deviceId);
+    synchronized (queue) {
+      if (queue.running >= queue.maxConcurrency) {
+        queue.waiting.add(new ReadRequest(path, offset, queue.seq++, read));
+        return;
+      }
+      queue.running++;
+      queue.lastPath = path;
+      queue.lastOffset = offset;
+    }
+    read.run();
+  }
+
+  /**
+   * Finishes a read of the device, and runs the next queued read if it exists.
+   */
+  public void release(int deviceId) {
+    DiskQueue queue = getQueue(deviceId);
+    ReadRequest next;
+    synchronized (queue) {
+      // the nearest request ahead of the last read, or the first one if there is no request ahead
+      next = queue.waiting.ceiling(new ReadRequest(queue.lastPath, queue.lastOffset, Long.MIN_VALUE, null));
+      if (next == null) {
+        next = queue.waiting.pollFirst();
+      } else {
+        queue.waiting.remove(next);
+      }
+
+      if (next == null) {
+        queue.running--;
+        return;
+      }
+      queue.lastPath = next.path;
+      queue.lastOffset = next.offset;
+    }
+    next.read.run();
+  }
+
+  public int getQueuedNum(int deviceId) {
+    DiskQueue queue = getQueue(deviceId);
+    synchronized (queue) {
+      return queue.waiting.size();
+    }
+  }
+
+  public int getRunningNum(int deviceId) {
+    DiskQueue queue = getQueue(deviceId);
+    synchronized (queue) {
+      return queue.running;
+    }
+  }
+
+  private DiskQueue getQueue(int deviceId) {
+    DiskQueue queue = queues.get(deviceId);
+    return queue != null ? queue : queues.get(UNKNOWN_DEVICE_ID);
+  }
+
+  private static class DiskQueue {
+    private final String name;
+    private final int maxConcurrency;
+    private final int readaheadLength;
+    private final TreeSet<ReadRequest> waiting = new TreeSet<>();
+    private int running;
+    private long seq;
+    // the position of the last dispatched read
+    private String lastPath = "";
+    private long lastOffset;
+
+    DiskQueue(String name, int maxConcurrency, int readaheadLength) {
+      this.name = name;
+      this.maxConcurrency = maxConcurrency;
+      this.readaheadLength = readaheadLength;
+    }
+
+    @Override
+    public String toString() {
+      return name + "(concurrency=" + maxConcurrency + ", readahead=" + readaheadLength + ")";
+    }
+  }
+
+  private static class ReadRequest implements Comparable<ReadRequest> {
+    private final String path;
+    private final long offset;
+    private final long seq;
+    private final Runnable read;
+
+    ReadRequest(String path, long offset, long seq, Runnable read) {
+      this.path = path;
+      this.offset = offset;
+      this.seq = seq;
+      this.read = read;
+    }
+
+    @Override
+    public int compareTo(ReadRequest o) {
+      int cmp = path.compareTo(o.path);
+      if (cmp != 0) {
+        return cmp;
+      }
+      cmp = Long.compare(offset, o.offset);
+      return cmp != 0 ? cmp : Long.compare(seq, o.seq);
+    }
+  }
+}
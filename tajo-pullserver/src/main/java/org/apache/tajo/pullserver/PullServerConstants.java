@@ -25,7 +25,7 @@ public class PullServerConstants {
    */
   public enum Param {
     // Common params
-    REQUEST_TYPE("rtype"),  // can be one of 'm' for meta and 'c' for chunk.
+    REQUEST_TYPE("rtype"),  // can be one of 'm' for meta, 'c' for chunk, and 'p' for push.
     SHUFFLE_TYPE("stype"),  // can be one of 'r', 'h', and 's'.
     QUERY_ID("qid"),
     EB_ID("sid"),
@@ -54,6 +54,7 @@ public class PullServerConstants {
 
   public static final String CHUNK_REQUEST_PARAM_STRING = "c";
   public static final String META_REQUEST_PARAM_STRING = "m";
+  public static final String PUSH_REQUEST_PARAM_STRING = "p";
 
   // Shuffle types ----------------------------------------------------------
 
@@ -19,8 +19,13 @@
 package org.apache.tajo.pullserver;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
 import com.google.gson.Gson;
+import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.logging.Log;
@@ -38,17 +43,21 @@ import org.apache.tajo.pullserver.retriever.FileChunkMeta;
 import org.apache.tajo.pullserver.retriever.IndexCacheKey;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.storage.RowStoreUtil.RowStoreDecoder;
+import org.apache.tajo.storage.index.bst.BSTIndex;
 import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexReader;
+import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.Pair;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -57,6 +66,15 @@ public class PullServerUtil {
 
   private static boolean nativeIOPossible = false;
 
+  // Pushed chunks of the same partition file are appended one by one. The locks are striped by the file path.
+  private static final Object[] PUSH_LOCKS = new Object[64];
+
+  static {
+    for (int i = 0; i < PUSH_LOCKS.length; i++) {
+      PUSH_LOCKS[i] = new Object();
+    }
+  }
+
   static {
     if (NativeIO.isAvailable()) {
       nativeIOPossible = true;
@@ -65,6 +83,47 @@ public class PullServerUtil {
     }
   }
 
+  /**
+   * Create a cache of index readers for range shuffles. The cache is limited by the number of cached readers and,
+   * if it is configured, the total length of the cached index files. The leaf indexes are memory-mapped if it is
+   * enabled.
+   */
+  public static LoadingCache<IndexCacheKey, BSTIndexReader> newIndexReaderCache(
+      final TajoConf conf, final RemovalListener<IndexCacheKey, BSTIndexReader> removalListener) {
+    final boolean mapped = conf.getBoolVar(ConfVars.PULLSERVER_INDEX_MMAP_ENABLED);
+    final int cacheSize = conf.getIntVar(ConfVars.PULLSERVER_CACHE_SIZE);
+    final long maxWeight = (long) conf.getIntVar(ConfVars.PULLSERVER_CACHE_MAX_SIZE) * StorageUnit.MB;
+
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder();
+    if (maxWeight > 0) {
+      // Each reader weighs at least the share of an entry, so the number of readers is still limited by cacheSize.
+      final int minWeight = (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxWeight / cacheSize));
+      builder.maximumWeight(maxWeight)
+          .weigher((Weigher<IndexCacheKey, BSTIndexReader>) (key, reader) ->
+              (int) Math.min(Integer.MAX_VALUE, Math.max(minWeight, reader.getFileLength())));
+    } else {
+      builder.maximumSize(cacheSize);
+    }
+    return builder
+        .expireAfterWrite(conf.getIntVar(ConfVars.PULLSERVER_CACHE_TIMEOUT), TimeUnit.MINUTES)
+        .removalListener(removalListener)
+        .build(
+            new CacheLoader<IndexCacheKey, BSTIndexReader>() {
+              @Override
+              public BSTIndexReader load(IndexCacheKey key) throws Exception {
+                return new BSTIndex(conf).getIndexReader(new Path(key.getPath(), "index"), mapped);
+              }
+            }
+        );
+  }
+
+  /**
+   * Returns the number of cached index readers above which a low cache hit rate is reported.
+   */
+  public static int getLowCacheHitCheckThreshold(TajoConf conf) {
+    return (int) (conf.getIntVar(ConfVars.PULLSERVER_CACHE_SIZE) * 0.1f);
+  }
+
   public static boolean isNativeIOPossible() {
     return nativeIOPossible;
   }
@@ -120,6 +179,10 @@ public class PullServerUtil {
     return requestType.equals(PullServerConstants.META_REQUEST_PARAM_STRING);
   }
 
+  public static boolean isPushRequest(String requestType) {
+    return requestType.equals(PullServerConstants.PUSH_REQUEST_PARAM_STRING);
+  }
+
   public static boolean isRangeShuffle(String shuffleType) {
     return shuffleType.equals(PullServerConstants.RANGE_SHUFFLE_PARAM_STRING);
   }
@@ -258,7 +321,7 @@ public class PullServerUtil {
       }
 
       List<URI> results = new ArrayList<>();
-      if (!includeTasks || isHashShuffle(shuffleType)) {
+      if (!includeTasks || (isHashShuffle(shuffleType) && !hasTaskOutputs())) {
         results.add(URI.create(builder.toString()));
       } else {
         builder.append(Param.TASK_ID.key()).append("=");
@@ -309,6 +372,14 @@ public class PullServerUtil {
       return results;
     }
 
+    /**
+     * The output of a hash shuffle is shared by the tasks of a worker unless each task writes its own output,
+     * which is reported with a valid task id.
+     */
+    private boolean hasTaskOutputs() {
+      return taskIds != null && taskIds.stream().anyMatch(taskId -> taskId >= 0);
+    }
+
     private PullServerRequestURIBuilder append(Param key, Object val) {
       builder.append(key.key())
           .append("=")
@@ -699,6 +770,9 @@ public class PullServerUtil {
       LOG.info("Index lookup time: " + (after - before) + " ms");
 
       // if a stage requires a hash shuffle or a scattered hash shuffle
+    } else if (PullServerUtil.isHashShuffle(shuffleType) && params.contains(Param.TASK_ID)) {
+      chunks.addAll(getSortedHashShuffleChunks(conf, lDirAlloc, localFS, params));
+
     } else if (PullServerUtil.isHashShuffle(shuffleType)) {
 
       final String partId = params.partId();
@@ -725,4 +799,98 @@ public class PullServerUtil {
     }
     return chunks.stream().filter(c -> c.length() > 0).collect(Collectors.toList());
   }
+
+  /**
+   * Retrieve the file chunks of a hash shuffle partition from the data files of the requested tasks, which are
+   * written by {@link SortedHashShuffleWriter}. The range of the partition is found in the index file of each task.
+   * If the offset and the length are given, they indicate the range in the data file of a single task.
+   *
+   * @param conf
+   * @param lDirAlloc
+   * @param localFS
+   * @param params
+   * @return the non-empty file chunks of the partition
+   * @throws IOException
+   */
+  public static List<FileChunk> getSortedHashShuffleChunks(final TajoConf conf,
+                                                           final LocalDirAllocator lDirAlloc,
+                                                           final FileSystem localFS,
+                                                           final PullServerParams params) throws IOException {
+    final List<FileChunk> chunks = new ArrayList<>();
+    final Path queryBaseDir = getBaseOutputDir(params.queryId(), params.ebId());
+    final int partId = Integer.parseInt(params.partId());
+    final long offset = params.offset();
+    final long length = params.length();
+
+    for (String eachTaskId : splitMaps(params.taskAttemptIds())) {
+      Path outputPath = StorageUtil.concatPath(queryBaseDir, eachTaskId, SortedHashShuffleWriter.DIR_NAME);
+      if (!lDirAlloc.ifExists(outputPath.toString(), conf)) {
+        throw new FileNotFoundException(outputPath.toString());
+      }
+      File dir = new File(localFS.makeQualified(lDirAlloc.getLocalPathToRead(outputPath.toString(), conf)).toUri());
+      File data = new File(dir, SortedHashShuffleWriter.DATA_FILE_NAME);
+
+      if (offset >= 0 && length >= 0) {
+        if (offset >= data.length()) {
+          throw new EOFException("Start pos[" + offset + "] great than file length [" + data.length() + "]");
+        }
+        chunks.add(new FileChunk(data, offset, length));
+      } else {
+        Pair<Long, Long> range = SortedHashShuffleWriter.getPartitionRange(
+            new File(dir, SortedHashShuffleWriter.INDEX_FILE_NAME), partId);
+        if (range != null && range.getSecond() > 0) {
+          chunks.add(new FileChunk(data, range.getFirst(), range.getSecond()));
+        }
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * Append a chunk of a hash shuffle output pushed by a remote task to the partition file. The partition file is
+   * located at the same path as a local hash shuffle output, so the merged partition is fetched as usual.
+   *
+   * @param conf
+   * @param lDirAlloc
+   * @param localFS
+   * @param params
+   * @param chunk the pushed chunk, which consists of whole rows
+   * @return the offset of the appended chunk in the partition file
+   * @throws IOException
+   */
+  public static long appendPushedChunk(final TajoConf conf,
+                                       final LocalDirAllocator lDirAlloc,
+                                       final FileSystem localFS,
+                                       final PullServerParams params,
+                                       final ByteBuf chunk) throws IOException {
+    Preconditions.checkArgument(isHashShuffle(params.shuffleType()), "Only hash shuffle outputs can be pushed");
+
+    final String partId = params.partId();
+    int partParentId = HashShuffleAppenderManager.getPartParentId(Integer.parseInt(partId), conf);
+    Path partPath = StorageUtil.concatPath(getBaseOutputDir(params.queryId(), params.ebId()),
+        "hash-shuffle", String.valueOf(partParentId), partId);
+
+    synchronized (PUSH_LOCKS[(partPath.hashCode() & Integer.MAX_VALUE) % PUSH_LOCKS.length]) {
+      Path path;
+      if (lDirAlloc.ifExists(partPath.toString(), conf)) {
+        path = lDirAlloc.getLocalPathToRead(partPath.toString(), conf);
+      } else {
+        path = lDirAlloc.getLocalPathForWrite(partPath.toString(), chunk.readableBytes(), conf);
+      }
+
+      File file = new File(localFS.makeQualified(path).toUri());
+      if (!file.getParentFile().exists() && !file.getParentFile().mkdirs() && !file.getParentFile().exists()) {
+        throw new IOException("Cannot create the directory " + file.getParent());
+      }
+
+      try (FileOutputStream out = new FileOutputStream(file, true)) {
+        FileChannel channel = out.getChannel();
+        long offset = channel.size();
+        while (chunk.isReadable()) {
+          chunk.readBytes(channel, chunk.readableBytes());
+        }
+        return offset;
+      }
+    }
+  }
 }
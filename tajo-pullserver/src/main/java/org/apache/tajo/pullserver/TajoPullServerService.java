@@ -18,10 +18,9 @@
 
 package org.apache.tajo.pullserver;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.Gson;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBuf;
@@ -36,6 +35,7 @@ import io.netty.handler.codec.http.HttpHeaders.Names;
 import io.netty.handler.codec.http.HttpHeaders.Values;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AttributeKey;
 import io.netty.util.CharsetUtil;
 import io.netty.util.concurrent.GenericFutureListener;
 import io.netty.util.concurrent.GlobalEventExecutor;
@@ -46,7 +46,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalDirAllocator;
 import org.apache.hadoop.fs.LocalFileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.ReadaheadPool;
 import org.apache.hadoop.metrics2.MetricsSystem;
@@ -67,18 +66,22 @@ import org.apache.tajo.pullserver.PullServerUtil.PullServerParams;
 import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.pullserver.retriever.IndexCacheKey;
 import org.apache.tajo.rpc.NettyUtils;
-import org.apache.tajo.storage.index.bst.BSTIndex;
 import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexReader;
+import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.TajoIdUtils;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
@@ -103,6 +106,24 @@ public class TajoPullServerService extends AbstractService {
   private int readaheadLength;
   private ReadaheadPool readaheadPool = ReadaheadPool.getInstance();
 
+  // bounds concurrent reads of each disk if enabled
+  private DiskIOScheduler diskIOScheduler = null;
+
+  // appends pushed hash shuffle outputs to files out of the event loops
+  private ExecutorService pushExecutor;
+
+  private static final AttributeKey<DeferredRequests> DEFERRED_REQUESTS = AttributeKey.valueOf("deferredRequests");
+
+  /**
+   * The requests received by a channel while the response of a previous request is deferred.
+   * A client can send requests without waiting for their responses, so they are handled after the deferred response
+   * to keep the responses in the request order. It is only accessed by the event loop of the channel.
+   */
+  private static class DeferredRequests {
+    boolean deferred;
+    final Queue<FullHttpRequest> requests = new ArrayDeque<>();
+  }
+
   private LoadingCache<IndexCacheKey, BSTIndexReader> indexReaderCache = null;
   private int lowCacheHitCheckThreshold;
 
@@ -117,12 +138,20 @@ public class TajoPullServerService extends AbstractService {
   static class ShuffleMetrics implements GenericFutureListener<ChannelFuture> {
     @Metric({"OutputBytes","PullServer output in bytes"})
     MutableCounterLong shuffleOutputBytes;
+    @Metric({"PushedBytes","PullServer pushed input in bytes"})
+    MutableCounterLong shufflePushedBytes;
     @Metric({"Failed","# of failed shuffle outputs"})
     MutableCounterInt shuffleOutputsFailed;
     @Metric({"Succeeded","# of succeeded shuffle outputs"})
     MutableCounterInt shuffleOutputsOK;
     @Metric({"Connections","# of current shuffle connections"})
     MutableGaugeInt shuffleConnections;
+    @Metric({"DiskQueuedRequests","# of chunk requests waiting for disk I/O"})
+    MutableGaugeInt diskQueuedRequests;
+    @Metric({"DiskRunningRequests","# of chunk requests being read from disks"})
+    MutableGaugeInt diskRunningRequests;
+    @Metric({"DiskQueueWaitTime","Total time of chunk requests waiting for disk I/O in milliseconds"})
+    MutableCounterLong diskQueueWaitTime;
 
     @Override
     public void operationComplete(ChannelFuture future) throws Exception {
@@ -173,6 +202,13 @@ public class TajoPullServerService extends AbstractService {
     maxUrlLength = tajoConf.getIntVar(ConfVars.PULLSERVER_FETCH_URL_MAX_LENGTH);
     LOG.info("Tajo PullServer initialized: readaheadLength=" + readaheadLength);
 
+    if (tajoConf.getBoolVar(ConfVars.PULLSERVER_DISK_IO_SCHEDULER_ENABLED)) {
+      diskIOScheduler = new DiskIOScheduler(tajoConf, readaheadLength);
+    }
+
+    pushExecutor = Executors.newFixedThreadPool(tajoConf.getIntVar(ConfVars.PULLSERVER_PUSH_THREAD_NUM),
+        new ThreadFactoryBuilder().setNameFormat("PullServer push writer #%d").setDaemon(true).build());
+
     ServerBootstrap bootstrap = selector.clone();
     try {
       channelInitializer = new HttpChannelInitializer(tajoConf);
@@ -195,22 +231,8 @@ public class TajoPullServerService extends AbstractService {
     sslFileBufferSize = conf.getInt(PullServerConstants.SUFFLE_SSL_FILE_BUFFER_SIZE_KEY,
         PullServerConstants.DEFAULT_SUFFLE_SSL_FILE_BUFFER_SIZE);
 
-    int cacheSize = tajoConf.getIntVar(ConfVars.PULLSERVER_CACHE_SIZE);
-    int cacheTimeout = tajoConf.getIntVar(ConfVars.PULLSERVER_CACHE_TIMEOUT);
-
-    indexReaderCache = CacheBuilder.newBuilder()
-        .maximumSize(cacheSize)
-        .expireAfterWrite(cacheTimeout, TimeUnit.MINUTES)
-        .removalListener(removalListener)
-        .build(
-            new CacheLoader<IndexCacheKey, BSTIndexReader>() {
-              @Override
-              public BSTIndexReader load(IndexCacheKey key) throws Exception {
-                return new BSTIndex(tajoConf).getIndexReader(new Path(key.getPath(), "index"));
-              }
-            }
-        );
-    lowCacheHitCheckThreshold = (int) (cacheSize * 0.1f);
+    indexReaderCache = PullServerUtil.newIndexReaderCache(tajoConf, removalListener);
+    lowCacheHitCheckThreshold = PullServerUtil.getLowCacheHitCheckThreshold(tajoConf);
 
     if (STANDALONE) {
       File pullServerPortFile = getPullServerPortFile();
@@ -287,6 +309,9 @@ public class TajoPullServerService extends AbstractService {
     if (channelInitializer != null) {
       channelInitializer.destroy();
     }
+    if (pushExecutor != null) {
+      pushExecutor.shutdown();
+    }
 
     localFS.close();
     indexReaderCache.invalidateAll();
@@ -329,7 +354,8 @@ public class TajoPullServerService extends AbstractService {
       int maxChunkSize = getConfig().getInt(ConfVars.SHUFFLE_FETCHER_CHUNK_MAX_SIZE.varname,
           ConfVars.SHUFFLE_FETCHER_CHUNK_MAX_SIZE.defaultIntVal);
       pipeline.addLast("codec", new HttpServerCodec(maxUrlLength, 8192, maxChunkSize));
-      pipeline.addLast("aggregator", new HttpObjectAggregator(1 << 16));
+      pipeline.addLast("aggregatorSelector", new AggregatorSelector());
+      pipeline.addLast("aggregator", new HttpObjectAggregator(MAX_CONTENT_LENGTH));
       pipeline.addLast("chunking", new ChunkedWriteHandler());
       pipeline.addLast("shuffle", PullServer);
       // TODO factor security manager into pipeline
@@ -338,6 +364,35 @@ public class TajoPullServerService extends AbstractService {
     }
   }
 
+  private static final int MAX_CONTENT_LENGTH = 1 << 16;
+
+  /**
+   * Only a push request carries a large body, which is the pushed hash shuffle output. So, the aggregator of a channel
+   * is replaced with the one of the push request limit when a push request begins, and vice versa.
+   */
+  class AggregatorSelector extends ChannelInboundHandlerAdapter {
+    private boolean pushRequest = false;
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+      if (msg instanceof HttpRequest) {
+        boolean push = ((HttpRequest) msg).getMethod() == HttpMethod.POST;
+        if (push != pushRequest) {
+          int maxContentLength = MAX_CONTENT_LENGTH;
+          if (push) {
+            maxContentLength = Math.max(MAX_CONTENT_LENGTH,
+                getConfig().getInt(ConfVars.PULLSERVER_PUSH_REQUEST_MAX_SIZE.varname,
+                    ConfVars.PULLSERVER_PUSH_REQUEST_MAX_SIZE.defaultIntVal) * StorageUnit.MB);
+          }
+          // the previous request has been completely aggregated, so the aggregator has no state.
+          ctx.pipeline().replace("aggregator", "aggregator", new HttpObjectAggregator(maxContentLength));
+          pushRequest = push;
+        }
+      }
+      ctx.fireChannelRead(msg);
+    }
+  }
+
   @ChannelHandler.Sharable
   class PullServer extends SimpleChannelInboundHandler<FullHttpRequest> {
 
@@ -363,10 +418,67 @@ public class TajoPullServerService extends AbstractService {
       super.channelRegistered(ctx);
     }
 
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+      DeferredRequests deferred = ctx.channel().attr(DEFERRED_REQUESTS).getAndRemove();
+      if (deferred != null) {
+        for (FullHttpRequest request : deferred.requests) {
+          request.release();
+        }
+        deferred.requests.clear();
+      }
+      super.channelInactive(ctx);
+    }
+
     @Override
     public void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request)
             throws Exception {
+      DeferredRequests deferred = ctx.channel().attr(DEFERRED_REQUESTS).get();
+      if (deferred != null && deferred.deferred) {
+        deferred.requests.add(request.retain());
+        return;
+      }
+      handleRequest(ctx, request);
+    }
 
+    /**
+     * Marks that the response of the current request is written later. The following requests of the channel are
+     * handled after {@link #endDeferredResponse} is called.
+     */
+    private void beginDeferredResponse(ChannelHandlerContext ctx) {
+      DeferredRequests deferred = ctx.channel().attr(DEFERRED_REQUESTS).get();
+      if (deferred == null) {
+        deferred = new DeferredRequests();
+        ctx.channel().attr(DEFERRED_REQUESTS).set(deferred);
+      }
+      deferred.deferred = true;
+    }
+
+    /**
+     * Handles the requests received while a response is deferred. It must be called by the event loop of the channel
+     * after the deferred response is written.
+     */
+    private void endDeferredResponse(ChannelHandlerContext ctx) {
+      DeferredRequests deferred = ctx.channel().attr(DEFERRED_REQUESTS).get();
+      if (deferred == null) { // the channel is closed
+        return;
+      }
+      deferred.deferred = false;
+
+      FullHttpRequest request;
+      while (!deferred.deferred && (request = deferred.requests.poll()) != null) {
+        try {
+          handleRequest(ctx, request);
+        } catch (Throwable e) {
+          LOG.error(e.getMessage(), e);
+          ctx.channel().close();
+        } finally {
+          request.release();
+        }
+      }
+    }
+
+    private void handleRequest(ChannelHandlerContext ctx, FullHttpRequest request) throws Exception {
       if (request.getDecoderResult().isFailure()) {
         LOG.error("Http decoding failed. ", request.getDecoderResult().cause());
         sendError(ctx, request.getDecoderResult().toString(), HttpResponseStatus.BAD_REQUEST);
@@ -379,6 +491,9 @@ public class TajoPullServerService extends AbstractService {
 
         clearIndexCache(request.getUri());
         return;
+      } else if (request.getMethod() == HttpMethod.POST) {
+        handlePushRequest(ctx, request);
+        return;
       } else if (request.getMethod() != HttpMethod.GET) {
         sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
         return;
@@ -443,6 +558,69 @@ public class TajoPullServerService extends AbstractService {
       }
     }
 
+    /**
+     * Upon a push request from TajoWorker, this method appends the pushed hash shuffle output to the partition file
+     * in the push executor, and responds with the offset of the appended output in the file.
+     */
+    private void handlePushRequest(ChannelHandlerContext ctx, FullHttpRequest request) {
+      final PullServerParams params;
+      try {
+        params = new PullServerParams(request.getUri());
+      } catch (Throwable e) {
+        LOG.error("Failed to handle push request " + request.getUri(), e);
+        sendError(ctx, e.getMessage(), HttpResponseStatus.BAD_REQUEST);
+        return;
+      }
+      if (!PullServerUtil.isPushRequest(params.requestType())) {
+        sendError(ctx, HttpResponseStatus.METHOD_NOT_ALLOWED);
+        return;
+      }
+
+      final String uri = request.getUri();
+      final boolean keepAlive = HttpHeaders.isKeepAlive(request);
+      final ByteBuf content = request.content().retain();
+      beginDeferredResponse(ctx);
+      try {
+        pushExecutor.execute(() -> {
+          try {
+            appendPushedChunk(ctx, uri, keepAlive, params, content);
+          } finally {
+            content.release();
+            ctx.executor().execute(() -> endDeferredResponse(ctx));
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        content.release();
+        sendError(ctx, "The pull server is stopped", HttpResponseStatus.SERVICE_UNAVAILABLE);
+        endDeferredResponse(ctx);
+      }
+    }
+
+    private void appendPushedChunk(ChannelHandlerContext ctx, String uri, boolean keepAlive,
+                                   PullServerParams params, ByteBuf content) {
+      final int length = content.readableBytes();
+      final long offset;
+      try {
+        offset = PullServerUtil.appendPushedChunk(conf, lDirAlloc, localFS, params, content);
+      } catch (Throwable e) {
+        LOG.error("Failed to handle push request " + uri, e);
+        sendError(ctx, e.getMessage(), HttpResponseStatus.BAD_REQUEST);
+        return;
+      }
+      metrics.shufflePushedBytes.incr(length);
+
+      FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, HttpResponseStatus.OK,
+          Unpooled.copiedBuffer(Long.toString(offset), CharsetUtil.UTF_8));
+      response.headers().set(Names.CONTENT_TYPE, "text/plain; charset=UTF-8");
+      HttpHeaders.setContentLength(response, response.content().readableBytes());
+      if (keepAlive) {
+        response.headers().set(Names.CONNECTION, Values.KEEP_ALIVE);
+        ctx.writeAndFlush(response);
+      } else {
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+      }
+    }
+
     private void handleMetaRequest(ChannelHandlerContext ctx, FullHttpRequest request, final PullServerParams params)
         throws IOException, ExecutionException {
       final List<String> jsonMetas;
@@ -493,60 +671,106 @@ public class TajoPullServerService extends AbstractService {
         throw new TajoInternalError(e.getCause());
       }
 
+      final boolean keepAlive = HttpHeaders.isKeepAlive(request);
+
       // Write the content.
       if (chunks.size() == 0) {
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.NO_CONTENT);
 
-        if (!HttpHeaders.isKeepAlive(request)) {
+        if (!keepAlive) {
           ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
         } else {
           response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
           ctx.writeAndFlush(response);
         }
+      } else if (diskIOScheduler == null) {
+        sendChunks(ctx, keepAlive, chunks, readaheadLength, null);
       } else {
-        FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
-        ChannelFuture writeFuture = null;
-        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
-        long totalSize = 0;
-        StringBuilder sb = new StringBuilder();
-        for (FileChunk chunk : file) {
-          totalSize += chunk.length();
-          sb.append(Long.toString(chunk.length())).append(",");
-        }
-        sb.deleteCharAt(sb.length() - 1);
-        HttpHeaders.addHeader(response, PullServerConstants.CHUNK_LENGTH_HEADER_NAME, sb.toString());
-        HttpHeaders.setContentLength(response, totalSize);
+        // The chunks are sent when the disk holding the first chunk is available.
+        final File firstFile = chunks.get(0).getFile();
+        final int deviceId = diskIOScheduler.getDeviceId(firstFile);
+        final long queuedTime = System.currentTimeMillis();
+        metrics.diskQueuedRequests.incr();
+        beginDeferredResponse(ctx);
+        diskIOScheduler.submit(deviceId, firstFile.getAbsolutePath(), chunks.get(0).startOffset(),
+            () -> ctx.executor().execute(() -> {
+              metrics.diskQueuedRequests.decr();
+              metrics.diskRunningRequests.incr();
+              metrics.diskQueueWaitTime.incr(System.currentTimeMillis() - queuedTime);
+
+              Runnable release = () -> {
+                metrics.diskRunningRequests.decr();
+                diskIOScheduler.release(deviceId);
+              };
+              try {
+                sendChunks(ctx, keepAlive, chunks, diskIOScheduler.getReadaheadLength(deviceId), release);
+              } catch (Throwable e) {
+                LOG.error("Failed to send chunks of " + firstFile, e);
+                release.run();
+                ctx.channel().close();
+              }
+              // the response is queued in the channel, so the next requests can be handled.
+              endDeferredResponse(ctx);
+            }));
+      }
+    }
 
-        if (HttpHeaders.isKeepAlive(request)) {
-          response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
-        }
-        // Write the initial line and the header.
-        writeFuture = ctx.write(response);
-
-        for (FileChunk chunk : file) {
-          writeFuture = sendFile(ctx, chunk);
-          if (writeFuture == null) {
-            sendError(ctx, HttpResponseStatus.NOT_FOUND);
-            return;
+    /**
+     * Writes the given chunks as a response.
+     *
+     * @param onComplete called when the response is completely written or failed. It can be null.
+     */
+    private void sendChunks(ChannelHandlerContext ctx, boolean keepAlive, List<FileChunk> chunks,
+                            int readaheadLength, Runnable onComplete) throws IOException {
+      FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
+      ChannelFuture writeFuture = null;
+      HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
+      long totalSize = 0;
+      StringBuilder sb = new StringBuilder();
+      for (FileChunk chunk : file) {
+        totalSize += chunk.length();
+        sb.append(Long.toString(chunk.length())).append(",");
+      }
+      sb.deleteCharAt(sb.length() - 1);
+      HttpHeaders.addHeader(response, PullServerConstants.CHUNK_LENGTH_HEADER_NAME, sb.toString());
+      HttpHeaders.setContentLength(response, totalSize);
+
+      if (keepAlive) {
+        response.headers().set(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.KEEP_ALIVE);
+      }
+      // Write the initial line and the header.
+      writeFuture = ctx.write(response);
+
+      for (FileChunk chunk : file) {
+        writeFuture = sendFile(ctx, chunk, readaheadLength);
+        if (writeFuture == null) {
+          sendError(ctx, HttpResponseStatus.NOT_FOUND);
+          if (onComplete != null) {
+            onComplete.run();
           }
+          return;
         }
+      }
 
-        if (ctx.pipeline().get(SslHandler.class) == null) {
-          writeFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
-        } else {
-          ctx.flush();
-        }
+      if (ctx.pipeline().get(SslHandler.class) == null) {
+        writeFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+      } else {
+        ctx.flush();
+      }
 
-        // Decide whether to close the connection or not.
-        if (!HttpHeaders.isKeepAlive(request)) {
-          // Close the connection when the whole content is written out.
-          writeFuture.addListener(ChannelFutureListener.CLOSE);
-        }
+      if (onComplete != null) {
+        writeFuture.addListener(future -> onComplete.run());
+      }
+
+      // Decide whether to close the connection or not.
+      if (!keepAlive) {
+        // Close the connection when the whole content is written out.
+        writeFuture.addListener(ChannelFutureListener.CLOSE);
       }
     }
 
     private ChannelFuture sendFile(ChannelHandlerContext ctx,
-                                   FileChunk file) throws IOException {
+                                   FileChunk file, int readaheadLength) throws IOException {
       RandomAccessFile spill = null;      
       ChannelFuture writeFuture;
       try {
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.storage.vector.ColumnVector;
+
+import java.io.IOException;
+
+/**
+ * BatchScanner is a scanner which decodes a batch of rows directly into column vectors.
+ *
+ * Columns are materialized lazily. {@link #nextBatch(ColumnVector[], int)} decodes only the columns
+ * whose vectors are given, and the other columns of the same batch can be decoded afterwards by
+ * {@link #loadColumn(int, ColumnVector, int[], int)} only for the rows which survive a filter.
+ * Columns which are never loaded are skipped without being decoded.
+ *
+ * If a filter is given by {@link #setFilter(org.apache.tajo.plan.expr.EvalNode)}, a batch scanner may use it
+ * to skip blocks of rows, but the rows returned by nextBatch() are not filtered. nextBatch() and next()
+ * must not be used together before {@link #reset()}.
+ */
+public interface BatchScanner extends Scanner {
+
+  /**
+   * Read the next rows.
+   *
+   * @param vectors The vectors for the output columns of this scanner. A column whose vector is null
+   *                is not decoded, and it can be loaded by loadColumn() until the next call of this method.
+   * @param maxRows The maximum number of rows to be read
+   * @return The number of read rows, which are written from the first row of vectors.
+   *         0 if the scanner has no more rows.
+   */
+  int nextBatch(ColumnVector [] vectors, int maxRows) throws IOException;
+
+  /**
+   * Decode a column which was not decoded by the last nextBatch() for some rows of the batch.
+   * It can be called at most once for each column of a batch.
+   *
+   * @param columnId The index of the column in the output columns
+   * @param vector The vector to be filled
+   * @param selected The rows to be loaded in ascending order. If null, the first <code>size</code> rows are loaded.
+   * @param size The number of rows to be loaded
+   */
+  void loadColumn(int columnId, ColumnVector vector, int [] selected, int size) throws IOException;
+}
@@ -24,6 +24,8 @@ import java.util.List;
 public class DiskDeviceInfo {
 	private int id;
 	private String name;
+	// spinning disks are assumed unless the device reports otherwise
+	private boolean rotational = true;
 	
 	private List<DiskMountInfo> mountInfos = new ArrayList<>();
 
@@ -42,6 +44,14 @@ public class DiskDeviceInfo {
 	public void setName(String name) {
 		this.name = name;
 	}
+
+	public boolean isRotational() {
+		return rotational;
+	}
+
+	public void setRotational(boolean rotational) {
+		this.rotational = rotational;
+	}
 	
 	@Override
 	public String toString() {
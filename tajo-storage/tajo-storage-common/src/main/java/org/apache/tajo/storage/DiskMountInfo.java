@@ -29,6 +29,7 @@ public class DiskMountInfo implements Comparable<DiskMountInfo> {
 	private int deviceId;
 	
 	public DiskMountInfo(int deviceId, String mountPath) {
+		this.deviceId = deviceId;
 		this.mountPath = mountPath;
 	}
 
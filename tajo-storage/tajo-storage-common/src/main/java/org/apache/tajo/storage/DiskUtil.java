@@ -32,6 +32,8 @@ public class DiskUtil {
 
   static String UNIX_DISK_DEVICE_PATH = "/proc/partitions";
 
+  static String UNIX_BLOCK_CLASS_PATH = "/sys/class/block";
+
   public enum OSType {
 		OS_TYPE_UNIX, OS_TYPE_WINXP, OS_TYPE_SOLARIS, OS_TYPE_MAC
 	}
@@ -82,22 +84,26 @@ public class DiskUtil {
 			String line = null;
 			
 			int count = 0;
-			Set<String> deviceNames = new TreeSet<>();
+			// device name -> the first block device of the device name in /proc/partitions
+			Map<String, String> deviceNames = new TreeMap<>();
 			while((line = reader.readLine()) != null) {
 				if(count > 0 && !line.trim().isEmpty()) {
 					String[] tokens = line.trim().split(" +");
 					if(tokens.length == 4) {
 						String deviceName = getDiskDeviceName(tokens[3]);
-						deviceNames.add(deviceName);
+						if(!deviceNames.containsKey(deviceName)) {
+							deviceNames.put(deviceName, tokens[3]);
+						}
 					}
 				}
 				count++;
 			}
 			
 			int id = 0;
-			for(String eachDeviceName: deviceNames) {
+			for(Map.Entry<String, String> eachDevice: deviceNames.entrySet()) {
 				DiskDeviceInfo diskDeviceInfo = new DiskDeviceInfo(id++);
-				diskDeviceInfo.setName(eachDeviceName);
+				diskDeviceInfo.setName(eachDevice.getKey());
+				diskDeviceInfo.setRotational(isRotational(eachDevice.getValue()));
 				
 				//TODO set additional info
 				// /sys/block/sda/queue
@@ -117,6 +123,43 @@ public class DiskUtil {
 		return infos;
 	}
 	
+	/**
+	 * Reads queue/rotational of a block device, such as sda, nvme0n1p1 or dm-0, in /sys/class/block.
+	 * A partition does not have a queue, so the rotational flag is read from its parent disk.
+	 * A device is assumed to be rotational if the file is not available.
+	 */
+	static boolean isRotational(String blockDeviceName) {
+		File file;
+		try {
+			File blockDevice = new File(UNIX_BLOCK_CLASS_PATH, blockDeviceName).getCanonicalFile();
+			if(new File(blockDevice, "partition").exists()) {
+				blockDevice = blockDevice.getParentFile();
+			}
+			file = new File(blockDevice, "queue/rotational");
+		} catch (IOException e) {
+			return true;
+		}
+		if(!file.exists()) {
+			return true;
+		}
+
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)));
+			String line = reader.readLine();
+			return line == null || !"0".equals(line.trim());
+		} catch (IOException e) {
+			return true;
+		} finally {
+			if(reader != null) {
+				try {
+					reader.close();
+				} catch (IOException e) {
+				}
+			}
+		}
+	}
+
 	private static String getDiskDeviceName(String partitionName) {
 		byte[] bytes = partitionName.getBytes();
 		
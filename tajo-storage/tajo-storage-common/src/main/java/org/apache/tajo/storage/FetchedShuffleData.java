@@ -0,0 +1,365 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FetchedShuffleData holds the shuffle data of a remote fetch while it is being received, so that a scanner can read
+ * the data before the fetch is finished.
+ *
+ * Received buffers are kept in memory as long as the memory used by all instances stays below the given limit.
+ * Otherwise, they are written to the spill file. A byte is written at the same offset in the spill file as in the
+ * stream, so the offsets of the fetched chunks are valid for both.
+ *
+ * Instances are registered by their spill file. The RawFile scanner reads a registered file through
+ * {@link #newChannel()} instead of opening it.
+ */
+public class FetchedShuffleData {
+  private static final Log LOG = LogFactory.getLog(FetchedShuffleData.class);
+
+  private static final Map<String, FetchedShuffleData> REGISTERED = new ConcurrentHashMap<>();
+  private static final AtomicLong memoryUsage = new AtomicLong();
+
+  private final File file;
+  private final long memoryLimit;
+  private final List<Segment> segments = new ArrayList<>();
+  private long size;
+  private boolean finished;
+  private boolean released;
+  private boolean consumed;
+  private Throwable failure;
+
+  private RandomAccessFile spillFile;
+  private FileChannel spillChannel;
+
+  /**
+   * @param file the file to which the data is spilled
+   * @param memoryLimit the maximum memory in bytes which can be used by all instances
+   */
+  public FetchedShuffleData(File file, long memoryLimit) {
+    this.file = file;
+    this.memoryLimit = memoryLimit;
+  }
+
+  public static void register(FetchedShuffleData data) {
+    REGISTERED.put(data.file.getAbsolutePath(), data);
+  }
+
+  public static FetchedShuffleData get(File file) {
+    return REGISTERED.get(file.getAbsolutePath());
+  }
+
+  /**
+   * Unregister and release the data of a given file.
+   */
+  public static void unregister(File file) {
+    FetchedShuffleData data = REGISTERED.remove(file.getAbsolutePath());
+    if (data != null) {
+      data.release();
+    }
+  }
+
+  /**
+   * @return the memory in bytes which is used by all instances
+   */
+  public static long getMemoryUsage() {
+    return memoryUsage.get();
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * Append the readable bytes of a buffer. The buffer is retained if it is kept in memory.
+   */
+  public synchronized void append(ByteBuf buf) throws IOException {
+    int length = buf.readableBytes();
+    if (released || length == 0) {
+      return;
+    }
+
+    if (reserveMemory(length)) {
+      segments.add(new Segment(size, length, buf.retain()));
+    } else {
+      if (spillChannel == null) {
+        spillFile = new RandomAccessFile(file, "rw");
+        spillChannel = spillFile.getChannel();
+      }
+
+      ByteBuffer src = buf.nioBuffer(buf.readerIndex(), length);
+      long position = size;
+      while (src.hasRemaining()) {
+        position += spillChannel.write(src, position);
+      }
+
+      Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+      if (last != null && last.buf == null) {
+        last.length += length;
+      } else {
+        segments.add(new Segment(size, length, null));
+      }
+    }
+    size += length;
+    notifyAll();
+  }
+
+  private boolean reserveMemory(long length) {
+    long used;
+    do {
+      used = memoryUsage.get();
+      if (used + length > memoryLimit) {
+        return false;
+      }
+    } while (!memoryUsage.compareAndSet(used, used + length));
+    return true;
+  }
+
+  /**
+   * Mark that all data are received.
+   */
+  public synchronized void finish() {
+    finished = true;
+    closeSpillChannel();
+    notifyAll();
+  }
+
+  /**
+   * Fail the readers which wait for more data.
+   */
+  public synchronized void fail(Throwable cause) {
+    if (!finished) {
+      failure = cause;
+      closeSpillChannel();
+      notifyAll();
+    }
+  }
+
+  public synchronized boolean isFailed() {
+    return failure != null;
+  }
+
+  /**
+   * Discard the received data, so that the data can be fetched again.
+   *
+   * @return false if the data cannot be discarded because a reader already consumed a part of them
+   */
+  public synchronized boolean discard() {
+    if (consumed) {
+      return false;
+    }
+    releaseSegments();
+    size = 0;
+    finished = false;
+    failure = null;
+    return true;
+  }
+
+  /**
+   * @return the number of bytes received so far
+   */
+  public synchronized long size() {
+    return size;
+  }
+
+  public synchronized long getMemorySize() {
+    long memorySize = 0;
+    for (Segment segment : segments) {
+      if (segment.buf != null) {
+        memorySize += segment.length;
+      }
+    }
+    return memorySize;
+  }
+
+  private synchronized void release() {
+    released = true;
+    releaseSegments();
+    closeSpillChannel();
+    notifyAll();
+  }
+
+  private void releaseSegments() {
+    for (Segment segment : segments) {
+      if (segment.buf != null) {
+        segment.buf.release();
+        memoryUsage.addAndGet(-segment.length);
+      }
+    }
+    segments.clear();
+  }
+
+  private void closeSpillChannel() {
+    IOUtils.cleanup(LOG, spillChannel, spillFile);
+    spillChannel = null;
+    spillFile = null;
+  }
+
+  /**
+   * Wait until the byte at a given position is received, and return the segment containing it.
+   *
+   * @return the segment, or null if the position is beyond the end of the data
+   */
+  private synchronized Segment awaitSegment(long position) throws IOException {
+    while (position >= size && !finished && !released && failure == null) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while waiting for the fetch of " + file);
+      }
+    }
+
+    if (failure != null) {
+      throw new IOException("Failed to fetch " + file, failure);
+    } else if (released) {
+      throw new ClosedChannelException();
+    } else if (position >= size) {
+      return null;
+    }
+
+    int low = 0, high = segments.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (segments.get(mid).offset <= position) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    Segment segment = segments.get(low);
+    consumed = true;
+    return new Segment(segment.offset, segment.length, segment.buf);
+  }
+
+  /**
+   * @return a new channel which reads the data from the beginning
+   */
+  public SeekableByteChannel newChannel() {
+    return new DataChannel();
+  }
+
+  private static class Segment {
+    private final long offset;
+    private long length;
+    // null if the segment is spilled
+    private final ByteBuf buf;
+
+    Segment(long offset, long length, ByteBuf buf) {
+      this.offset = offset;
+      this.length = length;
+      this.buf = buf;
+    }
+  }
+
+  private class DataChannel extends InputChannel implements SeekableByteChannel {
+    private long position;
+    private RandomAccessFile readFile;
+    private FileChannel readChannel;
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (!isOpen()) {
+        throw new ClosedChannelException();
+      }
+      if (!dst.hasRemaining()) {
+        return 0;
+      }
+
+      Segment segment = awaitSegment(position);
+      if (segment == null) {
+        return -1;
+      }
+
+      long offsetInSegment = position - segment.offset;
+      int length = (int) Math.min(dst.remaining(), segment.length - offsetInSegment);
+      if (segment.buf != null) {
+        dst.put(segment.buf.nioBuffer(segment.buf.readerIndex() + (int) offsetInSegment, length));
+      } else {
+        if (readChannel == null) {
+          readFile = new RandomAccessFile(file, "r");
+          readChannel = readFile.getChannel();
+        }
+
+        int limit = dst.limit();
+        dst.limit(dst.position() + length);
+        try {
+          length = readChannel.read(dst, position);
+        } finally {
+          dst.limit(limit);
+        }
+        if (length < 0) {
+          throw new EOFException("Unexpected end of " + file);
+        }
+      }
+      position += length;
+      return length;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+      throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() {
+      return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) {
+      this.position = newPosition;
+      return this;
+    }
+
+    @Override
+    public long size() {
+      return FetchedShuffleData.this.size();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+      throw new NonWritableChannelException();
+    }
+
+    @Override
+    protected void implCloseChannel() {
+      IOUtils.cleanup(LOG, readChannel, readFile);
+    }
+  }
+}
@@ -47,6 +47,7 @@ public class MergeScanner implements Scanner {
   private boolean projectable = false;
   private boolean selectable = false;
   private Schema target;
+  private EvalNode filter;
   private float progress;
   protected TableStats tableStats;
 
@@ -137,6 +138,9 @@ public class MergeScanner implements Scanner {
     if (iterator.hasNext()) {
       currentFragment = iterator.next();
       currentScanner = TablespaceManager.getLocalFs().getScanner(meta, schema, currentFragment, target);
+      if (filter != null) {
+        currentScanner.setFilter(filter);
+      }
       currentScanner.init();
       return currentScanner;
     } else {
@@ -176,7 +180,18 @@ public class MergeScanner implements Scanner {
 
   @Override
   public void setFilter(EvalNode filter) {
-    throw new TajoRuntimeException(new UnsupportedException());
+    if (!selectable) {
+      throw new TajoRuntimeException(new UnsupportedException());
+    }
+    this.filter = filter;
+    if (filter != null) {
+      // the first scanner is already initialized without the filter
+      try {
+        this.reset();
+      } catch (IOException e) {
+        throw new RuntimeException(e);
+      }
+    }
   }
 
   @Override
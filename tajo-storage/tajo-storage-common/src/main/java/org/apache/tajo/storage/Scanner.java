@@ -97,7 +97,8 @@ public interface Scanner extends SchemaObject, Closeable {
 
   /**
    * Set a filter condition
-   * @param filter to be searched
+   * @param filter to be searched. It is bound to the output schema of this scanner by the caller
+   *               before the first call of next().
    *
    * TODO - to be changed Object type
    */
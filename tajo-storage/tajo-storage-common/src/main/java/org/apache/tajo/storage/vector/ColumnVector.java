@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+
+import java.util.Arrays;
+
+/**
+ * ColumnVector keeps the values of a single column for all rows of a {@link VectorBatch}.
+ *
+ * Null flags are only meaningful if <code>noNulls</code> is false, and all of them are false while
+ * <code>noNulls</code> is true. Operators writing a vector must either call {@link #reset()} or
+ * set <code>noNulls</code> to false and update the null flag of every row they touch.
+ */
+public abstract class ColumnVector {
+  protected final Type type;
+  public final boolean [] isNull;
+  public boolean noNulls = true;
+
+  public ColumnVector(Type type, int capacity) {
+    this.type = type;
+    this.isNull = new boolean[capacity];
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public int capacity() {
+    return isNull.length;
+  }
+
+  public final boolean isNullAt(int row) {
+    return !noNulls && isNull[row];
+  }
+
+  public final void setNull(int row) {
+    isNull[row] = true;
+    noNulls = false;
+  }
+
+  public void reset() {
+    if (!noNulls) {
+      Arrays.fill(isNull, false);
+      noNulls = true;
+    }
+  }
+
+  /**
+   * Copy the value of <code>srcRow</code> of the given vector into <code>destRow</code> of this vector.
+   * Both vectors must have the same physical representation.
+   */
+  public abstract void copyFrom(ColumnVector src, int srcRow, int destRow);
+}
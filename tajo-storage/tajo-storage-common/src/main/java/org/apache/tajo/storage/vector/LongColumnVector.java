@@ -0,0 +1,44 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.vector;
+
+import org.apache.tajo.common.TajoDataTypes.Type;
+
+/**
+ * A column vector for BOOLEAN, INT1 ~ INT8, DATE and TIMESTAMP values.
+ * Booleans are represented as 0 or 1.
+ */
+public class LongColumnVector extends ColumnVector {
+  public final long [] vector;
+
+  public LongColumnVector(Type type, int capacity) {
+    super(type, capacity);
+    this.vector = new long[capacity];
+  }
+
+  @Override
+  public void copyFrom(ColumnVector src, int srcRow, int destRow) {
+    if (src.isNullAt(srcRow)) {
+      setNull(destRow);
+    } else {
+      isNull[destRow] = false;
+      vector[destRow] = ((LongColumnVector) src).vector[srcRow];
+    }
+  }
+}
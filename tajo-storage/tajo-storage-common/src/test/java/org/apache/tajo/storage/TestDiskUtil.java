@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDiskUtil {
+  private String blockClassPath;
+  private Path sysfs;
+
+  @Before
+  public void setUp() throws IOException {
+    blockClassPath = DiskUtil.UNIX_BLOCK_CLASS_PATH;
+    sysfs = Files.createTempDirectory("sysfs");
+    DiskUtil.UNIX_BLOCK_CLASS_PATH = sysfs.resolve("class/block").toString();
+    Files.createDirectories(sysfs.resolve("class/block"));
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    DiskUtil.UNIX_BLOCK_CLASS_PATH = blockClassPath;
+    Files.walk(sysfs).sorted((p1, p2) -> p2.compareTo(p1)).map(Path::toFile).forEach(File::delete);
+  }
+
+  /**
+   * Adds a block device like /sys/class/block/[name] -> /sys/devices/.../block/[disk]/[name]
+   */
+  private void addBlockDevice(String disk, String partition, boolean rotational) throws IOException {
+    Path diskPath = sysfs.resolve("devices/block").resolve(disk);
+    Files.createDirectories(diskPath.resolve("queue"));
+    Files.write(diskPath.resolve("queue/rotational"), (rotational ? "1\n" : "0\n").getBytes(StandardCharsets.UTF_8));
+    Files.createSymbolicLink(sysfs.resolve("class/block").resolve(disk), diskPath);
+
+    if (partition != null) {
+      Path partitionPath = diskPath.resolve(partition);
+      Files.createDirectories(partitionPath);
+      Files.write(partitionPath.resolve("partition"), "1\n".getBytes(StandardCharsets.UTF_8));
+      Files.createSymbolicLink(sysfs.resolve("class/block").resolve(partition), partitionPath);
+    }
+  }
+
+  @Test
+  public void testRotational() throws IOException {
+    addBlockDevice("sda", "sda1", true);
+    addBlockDevice("nvme0n1", "nvme0n1p1", false);
+    addBlockDevice("dm-0", null, false);
+
+    assertTrue(DiskUtil.isRotational("sda"));
+    assertTrue(DiskUtil.isRotational("sda1"));
+    assertFalse(DiskUtil.isRotational("nvme0n1"));
+    assertFalse(DiskUtil.isRotational("nvme0n1p1"));
+    assertFalse(DiskUtil.isRotational("dm-0"));
+    // unknown devices are assumed to be rotational
+    assertTrue(DiskUtil.isRotational("sdz"));
+  }
+}
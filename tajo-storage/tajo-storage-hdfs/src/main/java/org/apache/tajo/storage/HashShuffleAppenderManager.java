@@ -21,35 +21,51 @@ package org.apache.tajo.storage;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.io.CharStreams;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalDirAllocator;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaUtil;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.common.TajoDataTypes.DataType;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.storage.rawfile.CompressedPages;
+import org.apache.tajo.storage.rawfile.CompressedPages.PageCompressor;
 import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
 import org.apache.tajo.tuple.memory.MemoryRowBlock;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.Pair;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Map;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.concurrent.*;
 
 public class HashShuffleAppenderManager {
   private static final Log LOG = LogFactory.getLog(HashShuffleAppenderManager.class);
 
   private ConcurrentMap<ExecutionBlockId, Map<Integer, PartitionAppenderMeta>> appenderMap = Maps.newConcurrentMap();
+  private ConcurrentMap<ExecutionBlockId, Map<Integer, PushedPartition>> pushedMap = Maps.newConcurrentMap();
+  private ConcurrentMap<ExecutionBlockId, CombinedShuffle> combinedMap = Maps.newConcurrentMap();
+  private ConcurrentMap<ExecutionBlockId, List<HashShuffleIntermediate>> sortedMap = Maps.newConcurrentMap();
   private ConcurrentMap<Integer, ExecutorService> executors = Maps.newConcurrentMap(); // for parallel writing
+  private ExecutorService pushExecutor; // for parallel pushing
   private List<String> temporalPaths = Lists.newArrayList();
 
   private TajoConf systemConf;
@@ -57,6 +73,7 @@ public class HashShuffleAppenderManager {
   private FileSystem localFS;
   private LocalDirAllocator lDirAllocator;
   private int pageSize;
+  private long combinerMaxSize;
 
   public HashShuffleAppenderManager(TajoConf systemConf) throws IOException {
     this.systemConf = systemConf;
@@ -68,6 +85,7 @@ public class HashShuffleAppenderManager {
     defaultFS = TajoConf.getTajoRootDir(systemConf).getFileSystem(systemConf);
     localFS = FileSystem.getLocal(systemConf);
     pageSize = systemConf.getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB;
+    combinerMaxSize = (long) systemConf.getIntVar(ConfVars.SHUFFLE_HASH_COMBINER_MAX_SIZE) * StorageUnit.MB;
 
     Iterable<Path> allLocalPath = lDirAllocator.getAllLocalPathsToRead(".", systemConf);
 
@@ -76,6 +94,7 @@ public class HashShuffleAppenderManager {
       temporalPaths.add(localFS.makeQualified(path).toString());
       executors.put(temporalPaths.size() - 1, Executors.newSingleThreadExecutor());
     }
+    pushExecutor = Executors.newFixedThreadPool(systemConf.getIntVar(ConfVars.SHUFFLE_HASH_PUSH_PARALLEL_NUM));
   }
 
   protected int getVolumeId(Path path) {
@@ -156,15 +175,43 @@ public class HashShuffleAppenderManager {
   }
 
   public List<HashShuffleIntermediate> close(ExecutionBlockId ebId) throws IOException {
+    CombinedShuffle combined = combinedMap.remove(ebId);
+    if (combined != null) {
+      synchronized (combined) {
+        flushCombined(ebId, combined);
+      }
+      LOG.info("Combined hash shuffle:" + ebId + ", input rows=" + combined.inputRows
+          + ", output rows=" + combined.outputRows);
+    }
+
     Map<Integer, PartitionAppenderMeta> partitionAppenderMap = appenderMap.remove(ebId);
+    Map<Integer, PushedPartition> pushedPartitionMap = pushedMap.remove(ebId);
+    List<HashShuffleIntermediate> sortedIntermediates = sortedMap.remove(ebId);
 
-    if (partitionAppenderMap == null) {
+    if (partitionAppenderMap == null && pushedPartitionMap == null && sortedIntermediates == null) {
       LOG.info("Close HashShuffleAppenderWrapper:" + ebId + ", not a hash shuffle");
       return null;
     }
 
     // Send Intermediate data to QueryMaster.
     List<HashShuffleIntermediate> intermediateEntries = new ArrayList<>();
+    if (pushedPartitionMap != null) {
+      for (PushedPartition eachPushed : pushedPartitionMap.values()) {
+        intermediateEntries.add(eachPushed.getIntermediate());
+      }
+    }
+
+    if (sortedIntermediates != null) {
+      synchronized (sortedIntermediates) {
+        intermediateEntries.addAll(sortedIntermediates);
+      }
+    }
+
+    if (partitionAppenderMap == null) {
+      LOG.info("Close pushed or sorted hash shuffle:" + ebId + ", intermediates=" + intermediateEntries.size());
+      return intermediateEntries;
+    }
+
     for (PartitionAppenderMeta eachMeta : partitionAppenderMap.values()) {
       try {
         eachMeta.appender.close();
@@ -185,6 +232,13 @@ public class HashShuffleAppenderManager {
   }
 
   public void finalizeTask(TaskAttemptId taskId) {
+    Map<Integer, PushedPartition> pushedPartitionMap = pushedMap.get(taskId.getTaskId().getExecutionBlockId());
+    if (pushedPartitionMap != null) {
+      for (PushedPartition eachPushed : pushedPartitionMap.values()) {
+        eachPushed.taskFinished(taskId);
+      }
+    }
+
     Map<Integer, PartitionAppenderMeta> partitionAppenderMap =
         appenderMap.get(taskId.getTaskId().getExecutionBlockId());
     if (partitionAppenderMap == null) {
@@ -196,15 +250,40 @@ public class HashShuffleAppenderManager {
     }
   }
 
+  /**
+   * Add the intermediates of a task written by {@link SortedHashShuffleWriter}. Each intermediate is located in the
+   * data file of the task, and they are reported when the execution block is closed.
+   */
+  public void addSortedPartitions(ExecutionBlockId ebId, List<HashShuffleIntermediate> intermediates) {
+    List<HashShuffleIntermediate> sortedIntermediates = sortedMap.get(ebId);
+    if (sortedIntermediates == null) {
+      sortedMap.putIfAbsent(ebId, new ArrayList<>());
+      sortedIntermediates = sortedMap.get(ebId);
+    }
+
+    synchronized (sortedIntermediates) {
+      sortedIntermediates.addAll(intermediates);
+    }
+  }
+
   /**
    * Asynchronously write partitions.
    */
   public Future<MemoryRowBlock> writePartitions(TableMeta meta, Schema schema, final TaskAttemptId taskId, int partId,
                                                 final MemoryRowBlock rowBlock,
                                                 final boolean release) throws IOException {
+    return writePartitions(meta, schema, taskId.getTaskId().getExecutionBlockId(), taskId, partId, rowBlock, release);
+  }
+
+  /**
+   * @param taskId the task which owns the rows, or null if the rows are combined from multiple tasks
+   */
+  private Future<MemoryRowBlock> writePartitions(TableMeta meta, Schema schema, ExecutionBlockId ebId,
+                                                 final TaskAttemptId taskId, int partId,
+                                                 final MemoryRowBlock rowBlock,
+                                                 final boolean release) throws IOException {
 
-    HashShuffleAppenderWrapper appender =
-        getAppender(rowBlock, taskId.getTaskId().getExecutionBlockId(), partId, meta, schema);
+    HashShuffleAppenderWrapper appender = getAppender(rowBlock, ebId, partId, meta, schema);
     ExecutorService executor = executors.get(appender.getVolumeId());
     return executor.submit(new Callable<MemoryRowBlock>() {
       @Override
@@ -219,15 +298,199 @@ public class HashShuffleAppenderManager {
     });
   }
 
+  /**
+   * Combine the output rows of a finished task with the rows of the other tasks of the same execution block.
+   * The combiner of the first task is shared by the execution block. If the estimated size of the combined rows
+   * exceeds the limit, they are written to the partition files. The remaining rows are written when the execution
+   * block is closed.
+   *
+   * @param partIds the partition ids of the rows
+   * @param tuples the output rows of the task
+   */
+  public void combinePartitions(ExecutionBlockId ebId, TableMeta meta, Schema schema, ShuffleCombiner combiner,
+                                int[] partIds, List<? extends Tuple> tuples) throws IOException {
+    CombinedShuffle combined = combinedMap.get(ebId);
+    if (combined == null) {
+      combinedMap.putIfAbsent(ebId, new CombinedShuffle(meta, schema, combiner));
+      combined = combinedMap.get(ebId);
+    }
+
+    synchronized (combined) {
+      for (int i = 0; i < tuples.size(); i++) {
+        combined.estimatedSize += combined.combiner.combine(partIds[i], tuples.get(i));
+      }
+      combined.inputRows += tuples.size();
+
+      if (combined.estimatedSize > combinerMaxSize) {
+        flushCombined(ebId, combined);
+      }
+    }
+  }
+
+  private void flushCombined(ExecutionBlockId ebId, CombinedShuffle combined) throws IOException {
+    List<Future<MemoryRowBlock>> futures = new ArrayList<>();
+    for (Integer partId : new ArrayList<>(combined.combiner.getPartitions())) {
+      MemoryRowBlock rowBlock = new MemoryRowBlock(combined.dataTypes, StorageUnit.MB, true,
+          combined.meta.getDataFormat());
+      Iterator<Tuple> rows = combined.combiner.flush(partId);
+      while (rows.hasNext()) {
+        rowBlock.getWriter().addTuple(rows.next());
+        combined.outputRows++;
+
+        // write a page whenever the rows reach the page size, as HashShuffleAppenderWrapper does for a task
+        if (rowBlock.usedMem() >= pageSize) {
+          futures.add(writePartitions(combined.meta, combined.schema, ebId, null, partId, rowBlock, true));
+          rowBlock = new MemoryRowBlock(combined.dataTypes, StorageUnit.MB, true, combined.meta.getDataFormat());
+        }
+      }
+
+      if (rowBlock.rows() > 0) {
+        futures.add(writePartitions(combined.meta, combined.schema, ebId, null, partId, rowBlock, true));
+      } else {
+        rowBlock.release();
+      }
+    }
+    combined.estimatedSize = 0;
+
+    try {
+      for (Future<MemoryRowBlock> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * Asynchronously push a partition to the pull server of its merger instead of writing it to the local disk.
+   * The merger appends the pushed rows to its partition file, and the offset of them is recorded as a page
+   * of the partition, which is reported with the address of the merger. If the compression codec is given by the
+   * table meta, the rows are compressed before being pushed.
+   *
+   * @param pushUri the push request uri of the partition
+   */
+  public Future<MemoryRowBlock> pushPartitions(final TableMeta meta, final TaskAttemptId taskId, final int partId,
+                                               final URI pushUri, final MemoryRowBlock rowBlock,
+                                               final boolean release) {
+    final PushedPartition pushedPartition =
+        getPushedPartition(taskId.getTaskId().getExecutionBlockId(), partId, pushUri);
+    final CompressionCodec codec = CompressedPages.getCodec(systemConf, meta);
+    return pushExecutor.submit(new Callable<MemoryRowBlock>() {
+      @Override
+      public MemoryRowBlock call() throws Exception {
+        ByteBuf page;
+        if (codec != null) {
+          page = Unpooled.buffer(rowBlock.getMemory().readableBytes());
+          try (PageCompressor compressor = new PageCompressor(codec)) {
+            compressor.compress(rowBlock.getMemory(), new ByteBufOutputStream(page));
+          }
+        } else {
+          page = rowBlock.getMemory().getBuffer();
+        }
+
+        int length = page.readableBytes();
+        long offset = push(pushUri, page);
+        pushedPartition.addPage(taskId, offset, length, rowBlock.rows());
+
+        if (release) rowBlock.release();
+        else rowBlock.clear();
+
+        return rowBlock;
+      }
+    });
+  }
+
+  private PushedPartition getPushedPartition(ExecutionBlockId ebId, int partId, URI pushUri) {
+    Map<Integer, PushedPartition> pushedPartitionMap = pushedMap.get(ebId);
+    if (pushedPartitionMap == null) {
+      pushedMap.putIfAbsent(ebId, new ConcurrentHashMap<>());
+      pushedPartitionMap = pushedMap.get(ebId);
+    }
+
+    PushedPartition pushedPartition = pushedPartitionMap.get(partId);
+    if (pushedPartition == null) {
+      pushedPartitionMap.putIfAbsent(partId,
+          new PushedPartition(partId, pushUri.getHost() + ":" + pushUri.getPort(), pageSize));
+      pushedPartition = pushedPartitionMap.get(partId);
+    }
+    return pushedPartition;
+  }
+
+  /**
+   * @return the offset of the pushed rows in the partition file of the merger
+   */
+  private long push(URI pushUri, ByteBuf page) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) pushUri.toURL().openConnection();
+    try {
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      connection.setConnectTimeout(systemConf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECT_TIMEOUT) * 1000);
+      connection.setReadTimeout(systemConf.getIntVar(ConfVars.SHUFFLE_FETCHER_READ_TIMEOUT) * 1000);
+      connection.setRequestProperty("Content-Type", "application/octet-stream");
+      connection.setFixedLengthStreamingMode(page.readableBytes());
+
+      try (OutputStream out = connection.getOutputStream()) {
+        page.readBytes(out, page.readableBytes());
+      }
+
+      int responseCode = connection.getResponseCode();
+      if (responseCode != HttpURLConnection.HTTP_OK) {
+        String message = "";
+        if (connection.getErrorStream() != null) {
+          try (InputStream in = connection.getErrorStream()) {
+            message = CharStreams.toString(new InputStreamReader(in, StandardCharsets.UTF_8));
+          }
+        }
+        throw new IOException("Failed to push a hash shuffle output to " + pushUri
+            + " (" + responseCode + "): " + message);
+      }
+
+      try (InputStream in = connection.getInputStream()) {
+        return Long.parseLong(CharStreams.toString(new InputStreamReader(in, StandardCharsets.UTF_8)).trim());
+      }
+    } catch (IOException e) {
+      connection.disconnect();
+      throw e;
+    }
+  }
+
   public void shutdown() {
     for (ExecutorService service : executors.values()) {
       service.shutdownNow();
     }
+    pushExecutor.shutdownNow();
+  }
+
+  /**
+   * The combined rows of an execution block which are not written yet
+   */
+  static class CombinedShuffle {
+    private final TableMeta meta;
+    private final Schema schema;
+    private final DataType[] dataTypes;
+    private final ShuffleCombiner combiner;
+    private long estimatedSize;
+    private long inputRows;
+    private long outputRows;
+
+    CombinedShuffle(TableMeta meta, Schema schema, ShuffleCombiner combiner) {
+      this.meta = meta;
+      this.schema = schema;
+      this.dataTypes = SchemaUtil.toDataTypes(schema);
+      this.combiner = combiner;
+    }
   }
 
   public static class HashShuffleIntermediate {
     private int partId;
 
+    // the address of the pull server which stores this intermediate, or null if it is stored in the local disk
+    private String pullHost;
+
+    // the task which has written this intermediate into its own file, or -1 if it is shared by the tasks
+    private int taskId = -1;
+    private int attemptId = -1;
+
     private long volume;
 
     //[<page start offset,<task start, task end>>]
@@ -245,10 +508,36 @@ public class HashShuffleAppenderManager {
       this.pages = pages;
     }
 
+    public HashShuffleIntermediate(int partId, String pullHost, long volume,
+                                   List<Pair<Long, Integer>> pages,
+                                   Collection<Pair<Long, Pair<Integer, Integer>>> failureTskTupleIndexes) {
+      this(partId, volume, pages, failureTskTupleIndexes);
+      this.pullHost = pullHost;
+    }
+
+    public HashShuffleIntermediate(TaskAttemptId taskAttemptId, int partId, long volume,
+                                   List<Pair<Long, Integer>> pages) {
+      this(partId, volume, pages, Collections.<Pair<Long, Pair<Integer, Integer>>>emptyList());
+      this.taskId = taskAttemptId.getTaskId().getId();
+      this.attemptId = taskAttemptId.getId();
+    }
+
     public int getPartId() {
       return partId;
     }
 
+    public String getPullHost() {
+      return pullHost;
+    }
+
+    public int getTaskId() {
+      return taskId;
+    }
+
+    public int getAttemptId() {
+      return attemptId;
+    }
+
     public long getVolume() {
       return volume;
     }
@@ -262,6 +551,64 @@ public class HashShuffleAppenderManager {
     }
   }
 
+  /**
+   * The pages of a partition pushed to a merger. The pushed rows of different workers are interleaved in the
+   * partition file of the merger, so a page is extended only if the next pushed rows of this worker follow it.
+   */
+  static class PushedPartition {
+    private final int partId;
+    private final String pullHost;
+    private final int pageSize;
+
+    //<taskId,<page start offset,<task start, task end>>>
+    private final Map<TaskAttemptId, List<Pair<Long, Pair<Integer, Integer>>>> taskTupleIndexes = new HashMap<>();
+
+    //page start offset, length
+    private final List<Pair<Long, Integer>> pages = new ArrayList<>();
+
+    private Pair<Long, Integer> currentPage;
+    private int rowNumInPage;
+    private long volume;
+
+    PushedPartition(int partId, String pullHost, int pageSize) {
+      this.partId = partId;
+      this.pullHost = pullHost;
+      this.pageSize = pageSize;
+    }
+
+    synchronized void addPage(TaskAttemptId taskId, long offset, int length, int rows) {
+      if (currentPage == null || currentPage.getFirst() + currentPage.getSecond() != offset
+          || currentPage.getSecond() + (long) length > pageSize) {
+        currentPage = new Pair<>(offset, 0);
+        pages.add(currentPage);
+        rowNumInPage = 0;
+      }
+
+      List<Pair<Long, Pair<Integer, Integer>>> taskIndexes = taskTupleIndexes.get(taskId);
+      if (taskIndexes == null) {
+        taskIndexes = new ArrayList<>();
+        taskTupleIndexes.put(taskId, taskIndexes);
+      }
+      taskIndexes.add(new Pair<>(currentPage.getFirst(), new Pair<>(rowNumInPage, rowNumInPage + rows)));
+
+      currentPage.setSecond(currentPage.getSecond() + length);
+      rowNumInPage += rows;
+      volume += length;
+    }
+
+    synchronized void taskFinished(TaskAttemptId taskId) {
+      taskTupleIndexes.remove(taskId);
+    }
+
+    synchronized HashShuffleIntermediate getIntermediate() {
+      List<Pair<Long, Pair<Integer, Integer>>> merged = new ArrayList<>();
+      for (List<Pair<Long, Pair<Integer, Integer>>> eachFailureIndex : taskTupleIndexes.values()) {
+        merged.addAll(eachFailureIndex);
+      }
+      return new HashShuffleIntermediate(partId, pullHost, volume, new ArrayList<>(pages), merged);
+    }
+  }
+
   static class PartitionAppenderMeta {
     int partId;
     HashShuffleAppenderWrapper appender;
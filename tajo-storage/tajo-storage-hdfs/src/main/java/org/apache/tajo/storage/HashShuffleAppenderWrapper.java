@@ -94,13 +94,16 @@ public class HashShuffleAppenderWrapper implements Closeable {
     long posAfterWritten = appender.getOffset();
 
     int nextRowNum = rowNumInPage + rows;
-    List<Pair<Long, Pair<Integer, Integer>>> taskIndexes = taskTupleIndexes.get(taskId);
-    if (taskIndexes == null) {
-      taskIndexes = new ArrayList<>();
-      taskTupleIndexes.put(taskId, taskIndexes);
+    // combined rows are shared by the tasks of the execution block, so they are not owned by any task
+    if (taskId != null) {
+      List<Pair<Long, Pair<Integer, Integer>>> taskIndexes = taskTupleIndexes.get(taskId);
+      if (taskIndexes == null) {
+        taskIndexes = new ArrayList<>();
+        taskTupleIndexes.put(taskId, taskIndexes);
+      }
+      taskIndexes.add(
+          new Pair<>(currentPage.getFirst(), new Pair(rowNumInPage, nextRowNum)));
     }
-    taskIndexes.add(
-        new Pair<>(currentPage.getFirst(), new Pair(rowNumInPage, nextRowNum)));
     rowNumInPage = nextRowNum;
 
     if (posAfterWritten - currentPage.getFirst() > pageSize) {
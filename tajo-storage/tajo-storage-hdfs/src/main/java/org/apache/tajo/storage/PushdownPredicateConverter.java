@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.*;
+
+/**
+ * It converts a search condition into a predicate of a file format, which is evaluated against column statistics
+ * in order to skip row groups (or stripes) which cannot contain any matched row.
+ *
+ * A converted predicate may be weaker than the search condition. For example, an unsupported conjunct of an AND
+ * is just removed. So, scanners should still evaluate the search condition for each row.
+ *
+ * @param <T> the predicate type of a file format
+ */
+public abstract class PushdownPredicateConverter<T> {
+
+  /**
+   * Convert a search condition.
+   *
+   * @param filter search condition
+   * @return a converted predicate, or null if no part of the condition can be converted
+   */
+  public T convert(EvalNode filter) {
+    return filter == null ? null : convert(filter, false);
+  }
+
+  /**
+   * @param node a node to be converted
+   * @param exact if true, the converted predicate must be equivalent to the node. It is required under NOT.
+   */
+  private T convert(EvalNode node, boolean exact) {
+    switch (node.getType()) {
+    case AND: {
+      BinaryEval binaryEval = (BinaryEval) node;
+      T left = convert(binaryEval.getLeftExpr(), exact);
+      T right = convert(binaryEval.getRightExpr(), exact);
+      if (left == null || right == null) {
+        return exact ? null : (left == null ? right : left);
+      }
+      return and(left, right);
+    }
+    case OR: {
+      BinaryEval binaryEval = (BinaryEval) node;
+      T left = convert(binaryEval.getLeftExpr(), exact);
+      T right = convert(binaryEval.getRightExpr(), exact);
+      return left == null || right == null ? null : or(left, right);
+    }
+    case NOT: {
+      T child = convert(((NotEval) node).getChild(), true);
+      return child == null ? null : not(child);
+    }
+    case EQUAL:
+    case NOT_EQUAL:
+    case LTH:
+    case LEQ:
+    case GTH:
+    case GEQ:
+      return convertComparison((BinaryEval) node);
+    case IS_NULL: {
+      IsNullEval isNullEval = (IsNullEval) node;
+      if (isNullEval.getChild().getType() != EvalType.FIELD) {
+        return null;
+      }
+      T isNull = isNull(((FieldEval) isNullEval.getChild()).getColumnRef());
+      return isNull == null || !isNullEval.isNot() ? isNull : not(isNull);
+    }
+    case IN:
+      return convertIn((InEval) node);
+    case BETWEEN:
+      return convertBetween((BetweenPredicateEval) node);
+    default:
+      return null;
+    }
+  }
+
+  private T convertComparison(BinaryEval node) {
+    EvalType type = node.getType();
+    EvalNode columnSide = node.getLeftExpr();
+    EvalNode valueSide = node.getRightExpr();
+    if (columnSide.getType() != EvalType.FIELD) {
+      columnSide = node.getRightExpr();
+      valueSide = node.getLeftExpr();
+      type = commute(type);
+    }
+    if (columnSide.getType() != EvalType.FIELD || !isConstant(valueSide)) {
+      return null;
+    }
+    return compare(((FieldEval) columnSide).getColumnRef(), type, ((ConstEval) valueSide).getValue());
+  }
+
+  private T convertIn(InEval node) {
+    if (node.getLeftExpr().getType() != EvalType.FIELD || node.getRightExpr().getType() != EvalType.ROW_CONSTANT) {
+      return null;
+    }
+    Column column = ((FieldEval) node.getLeftExpr()).getColumnRef();
+    Datum[] values = ((RowConstantEval) node.getRightExpr()).getValues();
+    if (values.length == 0) {
+      return null;
+    }
+
+    T in = null;
+    for (Datum value : values) {
+      if (value.isNull()) {
+        return null;
+      }
+      T equal = compare(column, EvalType.EQUAL, value);
+      if (equal == null) {
+        return null;
+      }
+      in = in == null ? equal : or(in, equal);
+    }
+    return node.isNot() ? not(in) : in;
+  }
+
+  private T convertBetween(BetweenPredicateEval node) {
+    if (node.isSymmetric() || node.getPredicand().getType() != EvalType.FIELD
+        || !isConstant(node.getBegin()) || !isConstant(node.getEnd())) {
+      return null;
+    }
+    Column column = ((FieldEval) node.getPredicand()).getColumnRef();
+    T begin = compare(column, EvalType.GEQ, ((ConstEval) node.getBegin()).getValue());
+    T end = compare(column, EvalType.LEQ, ((ConstEval) node.getEnd()).getValue());
+    if (begin == null || end == null) {
+      return null;
+    }
+    T between = and(begin, end);
+    return node.isNot() ? not(between) : between;
+  }
+
+  private static boolean isConstant(EvalNode node) {
+    return node.getType() == EvalType.CONST && !((ConstEval) node).getValue().isNull();
+  }
+
+  private static EvalType commute(EvalType type) {
+    switch (type) {
+    case LTH:
+      return EvalType.GTH;
+    case LEQ:
+      return EvalType.GEQ;
+    case GTH:
+      return EvalType.LTH;
+    case GEQ:
+      return EvalType.LEQ;
+    default:
+      return type;
+    }
+  }
+
+  /**
+   * Return a predicate comparing a column with a non-null value, or null if it is not supported.
+   *
+   * @param column column
+   * @param type one of EQUAL, NOT_EQUAL, LTH, LEQ, GTH and GEQ
+   * @param value value
+   */
+  protected abstract T compare(Column column, EvalType type, Datum value);
+
+  /**
+   * Return a predicate which is true if a column value is null, or null if it is not supported.
+   */
+  protected abstract T isNull(Column column);
+
+  protected abstract T and(T left, T right);
+
+  protected abstract T or(T left, T right);
+
+  protected abstract T not(T child);
+}
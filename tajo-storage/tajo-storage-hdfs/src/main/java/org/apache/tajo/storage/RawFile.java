@@ -24,6 +24,8 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.tajo.TajoConstants;
 import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableMeta;
@@ -36,6 +38,8 @@ import org.apache.tajo.exception.TajoRuntimeException;
 import org.apache.tajo.exception.UnsupportedException;
 import org.apache.tajo.plan.expr.EvalNode;
 import org.apache.tajo.storage.fragment.Fragment;
+import org.apache.tajo.storage.rawfile.CompressedPages;
+import org.apache.tajo.storage.rawfile.CompressedPages.PageDecompressor;
 import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
 import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.BitArray;
@@ -45,7 +49,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
-import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 
 public class RawFile {
   private static final Log LOG = LogFactory.getLog(RawFile.class);
@@ -54,7 +58,7 @@ public class RawFile {
   public static final int DEFAULT_BUFFER_SIZE = 128 * StorageUnit.KB;
 
   public static class RawFileScanner extends FileScanner implements SeekableScanner {
-    private FileChannel channel;
+    private SeekableByteChannel channel;
     private DataType[] columnTypes;
 
     private ByteBuffer buffer;
@@ -68,10 +72,13 @@ public class RawFile {
     private long startOffset;
     private long endOffset;
     private FileInputStream fis;
+    private FetchedShuffleData fetchedData;
     private long recordCount;
     private long totalReadBytes;
     private long filePosition;
     private boolean forceFillBuffer;
+    // decompresses the frames of compressed pages while they are being read
+    private PageDecompressor pageDecompressor;
 
     public RawFileScanner(Configuration conf, Schema schema, TableMeta meta, Fragment fragment) throws IOException {
       super(conf, schema, meta, fragment);
@@ -89,14 +96,25 @@ public class RawFile {
       } catch (IllegalArgumentException iae) {
         throw new IOException(iae);
       }
-      fis = new FileInputStream(file);
-      channel = fis.getChannel();
+      fetchedData = FetchedShuffleData.get(file);
+      if (fetchedData != null) {
+        // the shuffle data are read while being fetched
+        channel = fetchedData.newChannel();
+      } else {
+        fis = new FileInputStream(file);
+        channel = fis.getChannel();
+      }
       filePosition = startOffset = fragment.getStartKey();
-      endOffset = fragment.getEndKey();
+      endOffset = fragment.getLength() == TajoConstants.UNKNOWN_LENGTH ? Long.MAX_VALUE : fragment.getEndKey();
+
+      CompressionCodec codec = CompressedPages.getCodec(conf, meta);
+      if (codec != null) {
+        pageDecompressor = new PageDecompressor(codec, endOffset - startOffset);
+      }
 
       if (LOG.isDebugEnabled()) {
         LOG.debug("RawFileScanner open:" + fragment + "," + channel.position() + ", file size :" + channel.size()
-            + ", fragment length :" + fragment.getLength());
+            + ", fragment length :" + getFragmentLength());
       }
 
       if(buf == null) {
@@ -124,11 +142,17 @@ public class RawFile {
 
     @Override
     public long getNextOffset() throws IOException {
+      if (pageDecompressor != null) {
+        throw new TajoRuntimeException(new UnsupportedException("offset of compressed pages"));
+      }
       return filePosition - (forceFillBuffer ? 0 : buffer.remaining());
     }
 
     @Override
     public void seek(long offset) throws IOException {
+      if (pageDecompressor != null) {
+        throw new TajoRuntimeException(new UnsupportedException("seek on compressed pages"));
+      }
       eos = false;
       filePosition = channel.position();
 
@@ -136,9 +160,9 @@ public class RawFile {
       if(!forceFillBuffer && filePosition > offset && offset > filePosition - buffer.limit()){
         buffer.position((int)(offset - (filePosition - buffer.limit())));
       } else {
-        if(offset < startOffset || offset > startOffset + fragment.getLength()){
+        if(offset < startOffset || offset > startOffset + getFragmentLength()){
           throw new IndexOutOfBoundsException(String.format("range(%d, %d), offset: %d",
-              startOffset, startOffset + fragment.getLength(), offset));
+              startOffset, startOffset + getFragmentLength(), offset));
         }
         channel.position(offset);
         filePosition = offset;
@@ -151,19 +175,45 @@ public class RawFile {
     private boolean fillBuffer() throws IOException {
       if(!forceFillBuffer) buffer.compact();
 
-      int bytesRead = channel.read(buffer);
+      int bytesRead;
+      long channelBytesRead;
+      if (pageDecompressor != null) {
+        long prevReadBytes = pageDecompressor.getReadBytes();
+        bytesRead = pageDecompressor.read(channel, buffer);
+        channelBytesRead = pageDecompressor.getReadBytes() - prevReadBytes;
+      } else {
+        bytesRead = readFully(buffer);
+        channelBytesRead = bytesRead;
+      }
       forceFillBuffer = false;
       if (bytesRead == -1) {
         eos = true;
         return false;
       } else {
         buffer.flip(); //The limit is set to the current filePosition and then the filePosition is set to zero
-        filePosition += bytesRead;
-        totalReadBytes += bytesRead;
+        filePosition += channelBytesRead;
+        totalReadBytes += channelBytesRead;
         return true;
       }
     }
 
+    /**
+     * Read until the buffer is full. A channel on the data being fetched returns only the received bytes.
+     *
+     * @return the number of bytes read, or -1 if the channel has reached end-of-stream
+     */
+    private int readFully(ByteBuffer buffer) throws IOException {
+      int bytesRead = 0;
+      while (buffer.hasRemaining()) {
+        int read = channel.read(buffer);
+        if (read == -1) {
+          return bytesRead == 0 ? -1 : bytesRead;
+        }
+        bytesRead += read;
+      }
+      return bytesRead;
+    }
+
     /**
      * Decode a ZigZag-encoded 32-bit value.  ZigZag encodes signed integers
      * into values that can be efficiently encoded with varint.  (Otherwise,
@@ -372,7 +422,8 @@ public class RawFile {
 
       recordCount++;
 
-      if(filePosition - buffer.remaining() >= endOffset){
+      // the frames of compressed pages are not read beyond the end offset
+      if(pageDecompressor == null && filePosition - buffer.remaining() >= endOffset){
         eos = true;
       }
       return outTuple;
@@ -397,6 +448,9 @@ public class RawFile {
       filePosition = fragment.getStartKey();
       recordCount = 0;
       channel.position(filePosition);
+      if (pageDecompressor != null) {
+        pageDecompressor.reset();
+      }
       eos = false;
     }
 
@@ -410,7 +464,8 @@ public class RawFile {
         buf = null;
       }
 
-      IOUtils.cleanup(LOG, channel, fis);
+      IOUtils.cleanup(LOG, pageDecompressor, channel, fis);
+      pageDecompressor = null;
     }
 
     @Override
@@ -438,7 +493,7 @@ public class RawFile {
       if(inputStats != null){
         inputStats.setNumRows(recordCount);
         inputStats.setReadBytes(totalReadBytes); // actual read bytes (scan + rescan * n)
-        inputStats.setNumBytes(fragment.getLength());
+        inputStats.setNumBytes(getFragmentLength());
       }
       return inputStats;
     }
@@ -453,8 +508,18 @@ public class RawFile {
       if (readBytes == 0) {
         return 0.0f;
       } else {
-        return Math.min(1.0f, ((float) readBytes / fragment.getLength()));
+        return Math.min(1.0f, ((float) readBytes / getFragmentLength()));
+      }
+    }
+
+    /**
+     * The length of a fragment on the data being fetched is unknown until the fetch is finished.
+     */
+    private long getFragmentLength() {
+      if (fetchedData != null && fragment.getLength() == TajoConstants.UNKNOWN_LENGTH) {
+        return fetchedData.size() - startOffset;
       }
+      return fragment.getLength();
     }
   }
 
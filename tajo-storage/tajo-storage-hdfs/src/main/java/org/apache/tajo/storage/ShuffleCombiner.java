@@ -0,0 +1,50 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * A combiner merges the output rows of the same key in each partition of a hash shuffle. It is shared by all the tasks
+ * of an execution block on a worker, and it is not thread-safe.
+ *
+ * @see HashShuffleAppenderManager#combinePartitions
+ */
+public interface ShuffleCombiner {
+
+  /**
+   * Merge a row into the combined row of the same key in a partition.
+   *
+   * @return the estimated memory size increased by the row
+   */
+  long combine(int partId, Tuple tuple);
+
+  /**
+   * @return the ids of partitions which have combined rows
+   */
+  Collection<Integer> getPartitions();
+
+  /**
+   * Remove the combined rows of a partition from this combiner.
+   *
+   * @return the iterator of the removed rows. The returned tuple may be reused by the next call of the iterator.
+   */
+  Iterator<Tuple> flush(int partId);
+}
@@ -0,0 +1,306 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.TaskAttemptId;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SchemaUtil;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.storage.HashShuffleAppenderManager.HashShuffleIntermediate;
+import org.apache.tajo.storage.rawfile.DirectRawFileWriter;
+import org.apache.tajo.tuple.memory.MemoryRowBlock;
+import org.apache.tajo.unit.StorageUnit;
+import org.apache.tajo.util.Pair;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+
+/**
+ * <code>SortedHashShuffleWriter</code> writes the hash shuffle output of a task into a single data file sorted by
+ * partition ids instead of a file of each partition. The buffered rows are sorted by their partition ids and spilled
+ * into a sorted run, and the runs are merged into the data file when the writer is finished.
+ *
+ * The index file consists of the number of partitions and the start offsets of the partitions followed by the length
+ * of the data file, so the range of a partition is found by reading two offsets.
+ */
+public class SortedHashShuffleWriter implements Closeable {
+  private static final Log LOG = LogFactory.getLog(SortedHashShuffleWriter.class);
+
+  // the directory in the working directory of a task
+  public static final String DIR_NAME = "hash-shuffle";
+  public static final String DATA_FILE_NAME = "output";
+  public static final String INDEX_FILE_NAME = "index";
+  private static final String RUN_FILE_PREFIX = "run_";
+
+  private final TajoConf conf;
+  private final TaskAttemptId taskId;
+  private final TableMeta meta;
+  private final Schema schema;
+  private final File dir;
+  private final int numPartitions;
+  private final int pageSize;
+  private final int blockSize;
+  private final List<SortedRun> runs = new ArrayList<>();
+  private MemoryRowBlock rowBlock;
+
+  /**
+   * @param dir the local directory where the data file and the index file are written
+   * @param blockSize the size of row blocks written at once
+   */
+  public SortedHashShuffleWriter(TajoConf conf, TaskAttemptId taskId, TableMeta meta, Schema schema, Path dir,
+                                 int numPartitions, int blockSize) throws IOException {
+    this.conf = conf;
+    this.taskId = taskId;
+    this.meta = meta;
+    this.schema = schema;
+    this.dir = new File(dir.toUri().getPath());
+    this.numPartitions = numPartitions;
+    this.pageSize = conf.getIntVar(ConfVars.SHUFFLE_HASH_APPENDER_PAGE_VOLUME) * StorageUnit.MB;
+    this.blockSize = blockSize;
+
+    if (!this.dir.exists() && !this.dir.mkdirs() && !this.dir.exists()) {
+      throw new IOException("Cannot create the directory " + this.dir);
+    }
+    this.rowBlock = new MemoryRowBlock(SchemaUtil.toDataTypes(schema), blockSize, true, meta.getDataFormat());
+  }
+
+  /**
+   * Sort the rows by their partition ids, and write them into a new sorted run.
+   *
+   * @param partIds the partition ids of the rows
+   * @param tuples the rows to be written
+   */
+  public void spill(int[] partIds, List<? extends Tuple> tuples) throws IOException {
+    int rows = tuples.size();
+    if (rows == 0) {
+      return;
+    }
+
+    // the upper bits are the partition id and the lower bits are the row index, so the sort is stable
+    long[] sorted = new long[rows];
+    for (int i = 0; i < rows; i++) {
+      sorted[i] = ((long) partIds[i] << 32) | i;
+    }
+    Arrays.sort(sorted);
+
+    File runFile = new File(dir, RUN_FILE_PREFIX + runs.size());
+    SortedRun run = new SortedRun(runFile, numPartitions);
+    DirectRawFileWriter writer =
+        new DirectRawFileWriter(conf, null, schema, meta, new Path(runFile.toURI()), rowBlock);
+    writer.init();
+    try {
+      int i = 0;
+      while (i < rows) {
+        int partId = (int) (sorted[i] >>> 32);
+        List<Pair<Long, Integer>> pages = new ArrayList<>();
+        long start = writer.getOffset();
+
+        for (; i < rows && (int) (sorted[i] >>> 32) == partId; i++) {
+          rowBlock.getWriter().addTuple(tuples.get((int) sorted[i]));
+          if (rowBlock.usedMem() >= blockSize) {
+            writeBlock(writer, pages);
+          }
+        }
+        if (rowBlock.getMemory().isReadable()) {
+          writeBlock(writer, pages);
+        }
+
+        run.lengths[partId] = writer.getOffset() - start;
+        run.pages.put(partId, pages);
+      }
+    } finally {
+      writer.close();
+    }
+
+    run.computeOffsets();
+    runs.add(run);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(taskId + " spilled a sorted run: rows=" + rows + ", partitions=" + run.pages.size()
+          + ", file=" + runFile + ", length=" + runFile.length());
+    }
+  }
+
+  /**
+   * Write a row block as a page of a partition. Consecutive row blocks are merged into a page up to the page size.
+   */
+  private void writeBlock(DirectRawFileWriter writer, List<Pair<Long, Integer>> pages) throws IOException {
+    long pos = writer.getOffset();
+    writer.writeRowBlock(rowBlock);
+    rowBlock.clear();
+    addPage(pages, pos, (int) (writer.getOffset() - pos), pageSize);
+  }
+
+  private static void addPage(List<Pair<Long, Integer>> pages, long pos, int length, int pageSize) {
+    Pair<Long, Integer> last = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+    if (last != null && last.getFirst() + last.getSecond() == pos && last.getSecond() + (long) length <= pageSize) {
+      last.setSecond(last.getSecond() + length);
+    } else {
+      pages.add(new Pair<>(pos, length));
+    }
+  }
+
+  /**
+   * Merge the sorted runs into the data file, and write the index file.
+   *
+   * @return the intermediates of the non-empty partitions, of which pages are located in the data file
+   */
+  public List<HashShuffleIntermediate> finish() throws IOException {
+    File dataFile = new File(dir, DATA_FILE_NAME);
+    long[] offsets = new long[numPartitions + 1];
+    Map<Integer, List<Pair<Long, Integer>>> mergedPages = new TreeMap<>();
+
+    if (runs.size() == 1) {
+      // a single run is already sorted
+      SortedRun run = runs.get(0);
+      if (!run.file.renameTo(dataFile)) {
+        throw new IOException("Cannot rename " + run.file + " to " + dataFile);
+      }
+      System.arraycopy(run.offsets, 0, offsets, 0, offsets.length);
+      mergedPages.putAll(run.pages);
+    } else {
+      try (FileChannel out = new FileOutputStream(dataFile).getChannel()) {
+        List<FileChannel> ins = new ArrayList<>();
+        try {
+          for (SortedRun run : runs) {
+            ins.add(new FileInputStream(run.file).getChannel());
+          }
+
+          long pos = 0;
+          for (int partId = 0; partId < numPartitions; partId++) {
+            offsets[partId] = pos;
+            for (int i = 0; i < runs.size(); i++) {
+              SortedRun run = runs.get(i);
+              if (run.lengths[partId] == 0) {
+                continue;
+              }
+
+              long shift = pos - run.offsets[partId];
+              List<Pair<Long, Integer>> pages = mergedPages.get(partId);
+              if (pages == null) {
+                pages = new ArrayList<>();
+                mergedPages.put(partId, pages);
+              }
+              for (Pair<Long, Integer> page : run.pages.get(partId)) {
+                addPage(pages, page.getFirst() + shift, page.getSecond(), pageSize);
+              }
+
+              transfer(ins.get(i), run.offsets[partId], run.lengths[partId], out);
+              pos += run.lengths[partId];
+            }
+          }
+          offsets[numPartitions] = pos;
+        } finally {
+          for (FileChannel in : ins) {
+            in.close();
+          }
+        }
+      }
+
+      for (SortedRun run : runs) {
+        if (!run.file.delete()) {
+          LOG.warn("Cannot delete the sorted run " + run.file);
+        }
+      }
+    }
+
+    try (DataOutputStream index = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(new File(dir, INDEX_FILE_NAME))))) {
+      index.writeInt(numPartitions);
+      for (long offset : offsets) {
+        index.writeLong(offset);
+      }
+    }
+
+    List<HashShuffleIntermediate> intermediates = new ArrayList<>();
+    for (Map.Entry<Integer, List<Pair<Long, Integer>>> entry : mergedPages.entrySet()) {
+      int partId = entry.getKey();
+      intermediates.add(new HashShuffleIntermediate(taskId, partId, offsets[partId + 1] - offsets[partId],
+          entry.getValue()));
+    }
+
+    LOG.info(taskId + " wrote a sorted hash shuffle: runs=" + runs.size() + ", partitions=" + intermediates.size()
+        + ", length=" + offsets[numPartitions]);
+    runs.clear();
+    return intermediates;
+  }
+
+  private static void transfer(FileChannel in, long position, long count, FileChannel out) throws IOException {
+    long transferred = 0;
+    while (transferred < count) {
+      transferred += in.transferTo(position + transferred, count - transferred, out);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (rowBlock != null) {
+      rowBlock.release();
+      rowBlock = null;
+    }
+  }
+
+  /**
+   * Find the range of a partition in the data file of a sorted hash shuffle.
+   *
+   * @param indexFile the index file written by {@link #finish()}
+   * @return the offset and the length of the partition, or null if the partition does not exist
+   */
+  public static Pair<Long, Long> getPartitionRange(File indexFile, int partId) throws IOException {
+    try (RandomAccessFile index = new RandomAccessFile(indexFile, "r")) {
+      int numPartitions = index.readInt();
+      if (partId < 0 || partId >= numPartitions) {
+        return null;
+      }
+      index.seek(4 + 8L * partId);
+      long start = index.readLong();
+      long end = index.readLong();
+      return new Pair<>(start, end - start);
+    }
+  }
+
+  /**
+   * A file of rows sorted by partition ids
+   */
+  private static class SortedRun {
+    private final File file;
+    private final long[] lengths;
+    // the start offsets of the partitions followed by the length of the file
+    private final long[] offsets;
+    // the pages of the non-empty partitions
+    private final Map<Integer, List<Pair<Long, Integer>>> pages = new HashMap<>();
+
+    SortedRun(File file, int numPartitions) {
+      this.file = file;
+      this.lengths = new long[numPartitions];
+      this.offsets = new long[numPartitions + 1];
+    }
+
+    void computeOffsets() {
+      for (int i = 0; i < lengths.length; i++) {
+        offsets[i + 1] = offsets[i] + lengths[i];
+      }
+    }
+  }
+}
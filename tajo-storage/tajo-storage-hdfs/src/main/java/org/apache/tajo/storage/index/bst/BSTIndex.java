@@ -38,6 +38,7 @@ import org.apache.tajo.unit.StorageUnit;
 import org.apache.tajo.util.FileUtil;
 
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.channels.FileChannel;
 import java.util.LinkedList;
@@ -91,6 +92,13 @@ public class BSTIndex implements IndexMethod {
     return new BSTIndexReader(fileName);
   }
 
+  /**
+   * @param mapped if true, the leaf index of a local index file is memory-mapped and searched without loading keys
+   */
+  public BSTIndexReader getIndexReader(Path fileName, boolean mapped) throws IOException {
+    return new BSTIndexReader(fileName, mapped);
+  }
+
   public class BSTIndexWriter extends IndexWriter implements Closeable {
     private FileChannel outChannel;
     private RandomAccessFile outRandomAccessFile;
@@ -462,6 +470,14 @@ public class BSTIndex implements IndexMethod {
     private int loadNum = -1;
     private Tuple firstKey;
     private Tuple lastKey;
+    private long fileLength;
+
+    // the leaf index mapped into memory. The keys are decoded from the mapped bytes only when they are compared.
+    private final boolean mapped;
+    private ByteBuffer mappedIndex;
+    // the start positions of leaf entries in the mapped index
+    private int[] entryPositions;
+    private int mappedEntryNum;
 
     // the cursors of BST
     private int rootCursor;
@@ -490,11 +506,17 @@ public class BSTIndex implements IndexMethod {
       this.keySchema = keySchema;
       this.comparator = comparator;
       this.rowStoreDecoder = RowStoreUtil.createDecoder(keySchema);
+      this.mapped = false;
       open();
     }
 
     public BSTIndexReader(final Path fileName) throws IOException {
+      this(fileName, false);
+    }
+
+    public BSTIndexReader(final Path fileName, boolean mapped) throws IOException {
       this.fileName = fileName;
+      this.mapped = mapped;
       open();
     }
 
@@ -525,8 +547,19 @@ public class BSTIndex implements IndexMethod {
       return this.comparator;
     }
 
+    /**
+     * @return the length of the index file, which is used to weigh the memory usage of this reader
+     */
+    public long getFileLength() {
+      return fileLength;
+    }
+
+    public boolean isMapped() {
+      return mappedIndex != null;
+    }
+
     private void loadFooter() throws IOException {
-      long fileLength = fs.getFileStatus(this.fileName).getLen();
+      fileLength = fs.getFileStatus(this.fileName).getLen();
 
       //read footer
       indexIn.seek(fileLength - 4);
@@ -591,6 +624,11 @@ public class BSTIndex implements IndexMethod {
     }
 
     private void fillData() throws IOException {
+      if (mapped && fs instanceof LocalFileSystem && dataLength <= Integer.MAX_VALUE) {
+        mapLeafIndex();
+        return;
+      }
+
       indexIn.seek(0);
       /* load on memory */
       if (this.level == TWO_LEVEL_INDEX) {
@@ -616,6 +654,98 @@ public class BSTIndex implements IndexMethod {
       }
     }
 
+    /**
+     * Map the leaf index, and find the start positions of its entries. The root index is not necessary because
+     * all the leaf entries are accessible.
+     */
+    private void mapLeafIndex() throws IOException {
+      File file = new File(fs.makeQualified(fileName).toUri());
+      try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+        // the mapped memory is released when it is garbage-collected, since searches may be still running on it
+        mappedIndex = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, dataLength);
+      }
+
+      entryPositions = new int[entryNum];
+      int pos = 0;
+      int i = 0;
+      for (; i < entryNum && pos < dataLength; i++) {
+        entryPositions[i] = pos;
+        pos += 4 + mappedIndex.getInt(pos);
+        pos += 4 + mappedIndex.getInt(pos) * 8;
+      }
+      mappedEntryNum = i;
+    }
+
+    private Tuple getMappedKey(int entryIdx) {
+      int pos = entryPositions[entryIdx];
+      byte[] buf = new byte[mappedIndex.getInt(pos)];
+      ByteBuffer keyBuffer = mappedIndex.duplicate();
+      keyBuffer.position(pos + 4);
+      keyBuffer.get(buf);
+      return rowStoreDecoder.toTuple(buf);
+    }
+
+    private int getMappedOffsetNum(int entryIdx) {
+      int pos = entryPositions[entryIdx];
+      return mappedIndex.getInt(pos + 4 + mappedIndex.getInt(pos));
+    }
+
+    private long getMappedOffset(int entryIdx, int offsetIdx) {
+      int pos = entryPositions[entryIdx];
+      return mappedIndex.getLong(pos + 8 + mappedIndex.getInt(pos) + offsetIdx * 8);
+    }
+
+    /**
+     * @return the position of the key if it exists, or the position of the greatest key less than the key.
+     * {@link #correctable} is set to true only if the key exists.
+     */
+    private int mappedBS(Tuple key) {
+      int low = 0;
+      int high = mappedEntryNum - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = comparator.compare(getMappedKey(mid), key);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          correctable = true;
+          return mid;
+        }
+      }
+      correctable = false;
+      return high;
+    }
+
+    private long findMapped(Tuple key, boolean nextKey) {
+      int pos = mappedBS(key);
+      if (nextKey) {
+        if (pos + 1 >= mappedEntryNum) {
+          return -1;
+        }
+        keyCursor = pos + 1;
+      } else if (correctable) {
+        keyCursor = pos;
+      } else {
+        return -1;
+      }
+      offsetCursor = 0;
+      return getMappedOffset(keyCursor, offsetCursor);
+    }
+
+    private long nextMapped() {
+      if (getMappedOffsetNum(keyCursor) - 1 > offsetCursor) {
+        offsetCursor++;
+      } else if (mappedEntryNum - 1 > keyCursor) {
+        keyCursor++;
+        offsetCursor = 0;
+      } else {
+        return -1;
+      }
+      return getMappedOffset(keyCursor, offsetCursor);
+    }
+
     /**
      *
      * @return
@@ -628,6 +758,10 @@ public class BSTIndex implements IndexMethod {
     @Override
     public long find(Tuple key, boolean nextKey) throws IOException {
       synchronized (mutex) {
+        if (mappedIndex != null) {
+          return findMapped(key, nextKey);
+        }
+
         int pos = -1;
         if (this.level == ONE_LEVEL_INDEX) {
             pos = oneLevBS(key);
@@ -658,6 +792,10 @@ public class BSTIndex implements IndexMethod {
 
     public long next() throws IOException {
       synchronized (mutex) {
+        if (mappedIndex != null) {
+          return nextMapped();
+        }
+
         if (offsetSubIndex[keyCursor].length - 1 > offsetCursor) {
           offsetCursor++;
         } else {
@@ -681,6 +819,9 @@ public class BSTIndex implements IndexMethod {
     }
     
     public boolean isCurInMemory() {
+      if (mappedIndex != null) {
+        return true;
+      }
       return (offsetSubIndex[keyCursor].length - 1 >= offsetCursor);
     }
 
@@ -0,0 +1,168 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.storage.orc;
+
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument.Builder;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgumentFactory;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.PushdownPredicateConverter;
+import org.apache.tajo.util.datetime.DateTimeConstants;
+
+import java.util.function.Consumer;
+
+/**
+ * It converts a search condition into an ORC SearchArgument, which is used to skip stripes
+ * with the stripe statistics of an ORC file.
+ *
+ * A converted predicate is an action which adds the predicate to a SearchArgument builder.
+ * The literal of a DATE column is given as the number of days since Unix Epoch(Jan 1, 1970) with the LONG type,
+ * because it is the same as the date statistics of ORC.
+ */
+public class OrcPredicateConverter extends PushdownPredicateConverter<Consumer<Builder>> {
+
+  /**
+   * Convert a search condition into a SearchArgument.
+   *
+   * @param filter search condition
+   * @return a SearchArgument, or null if no part of the condition can be converted
+   */
+  public SearchArgument toSearchArgument(EvalNode filter) {
+    Consumer<Builder> predicate = convert(filter);
+    if (predicate == null) {
+      return null;
+    }
+
+    Builder builder = SearchArgumentFactory.newBuilder().startAnd();
+    predicate.accept(builder);
+    return builder.end().build();
+  }
+
+  @Override
+  protected Consumer<Builder> compare(Column column, EvalType type, Datum value) {
+    String name = column.getSimpleName();
+    PredicateLeaf.Type leafType;
+    Object literal;
+
+    switch (column.getDataType().getType()) {
+    case INT2:
+    case INT4:
+    case INT8:
+      if (value.kind() != Type.INT2 && value.kind() != Type.INT4 && value.kind() != Type.INT8) {
+        return null;
+      }
+      leafType = PredicateLeaf.Type.LONG;
+      literal = value.asInt8();
+      break;
+    case FLOAT4:
+    case FLOAT8:
+      if (value.kind() != column.getDataType().getType()) {
+        return null;
+      }
+      leafType = PredicateLeaf.Type.FLOAT;
+      literal = value.asFloat8();
+      break;
+    case TEXT:
+      if (value.kind() != Type.TEXT) {
+        return null;
+      }
+      leafType = PredicateLeaf.Type.STRING;
+      literal = value.asChars();
+      break;
+    case DATE:
+      if (value.kind() != Type.DATE) {
+        return null;
+      }
+      leafType = PredicateLeaf.Type.LONG;
+      literal = (long) (value.asInt4() - DateTimeConstants.UNIX_EPOCH_JDATE);
+      break;
+    default:
+      return null;
+    }
+
+    switch (type) {
+    case EQUAL:
+      return b -> b.equals(name, leafType, literal);
+    case NOT_EQUAL:
+      return b -> b.startNot().equals(name, leafType, literal).end();
+    case LTH:
+      return b -> b.lessThan(name, leafType, literal);
+    case LEQ:
+      return b -> b.lessThanEquals(name, leafType, literal);
+    case GTH:
+      return b -> b.startNot().lessThanEquals(name, leafType, literal).end();
+    case GEQ:
+      return b -> b.startNot().lessThan(name, leafType, literal).end();
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  protected Consumer<Builder> isNull(Column column) {
+    String name = column.getSimpleName();
+    switch (column.getDataType().getType()) {
+    case INT2:
+    case INT4:
+    case INT8:
+    case DATE:
+      return b -> b.isNull(name, PredicateLeaf.Type.LONG);
+    case FLOAT4:
+    case FLOAT8:
+      return b -> b.isNull(name, PredicateLeaf.Type.FLOAT);
+    case TEXT:
+      return b -> b.isNull(name, PredicateLeaf.Type.STRING);
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  protected Consumer<Builder> and(Consumer<Builder> left, Consumer<Builder> right) {
+    return b -> {
+      b.startAnd();
+      left.accept(b);
+      right.accept(b);
+      b.end();
+    };
+  }
+
+  @Override
+  protected Consumer<Builder> or(Consumer<Builder> left, Consumer<Builder> right) {
+    return b -> {
+      b.startOr();
+      left.accept(b);
+      right.accept(b);
+      b.end();
+    };
+  }
+
+  @Override
+  protected Consumer<Builder> not(Consumer<Builder> child) {
+    return b -> {
+      b.startNot();
+      child.accept(b);
+      b.end();
+    };
+  }
+}
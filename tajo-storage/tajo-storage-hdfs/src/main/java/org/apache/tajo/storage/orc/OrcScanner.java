@@ -26,6 +26,9 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.sarg.PredicateLeaf;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument.TruthValue;
 import org.apache.hadoop.io.Text;
 import org.apache.orc.*;
 import org.apache.orc.Reader.Options;
@@ -33,7 +36,10 @@ import org.apache.orc.impl.BufferChunk;
 import org.apache.orc.impl.InStream;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.TextDatum;
 import org.apache.tajo.plan.expr.EvalNode;
+import org.apache.tajo.storage.BatchScanner;
 import org.apache.tajo.storage.FileScanner;
 import org.apache.tajo.storage.StorageConstants;
 import org.apache.tajo.storage.StorageUtil;
@@ -41,6 +47,7 @@ import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.fragment.Fragment;
 import org.apache.tajo.storage.thirdparty.orc.OrcRecordReader;
 import org.apache.tajo.storage.thirdparty.orc.OrcUtils;
+import org.apache.tajo.storage.vector.ColumnVector;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -48,7 +55,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.TimeZone;
 
-public class OrcScanner extends FileScanner {
+public class OrcScanner extends FileScanner implements BatchScanner {
   private static final Log LOG = LogFactory.getLog(OrcScanner.class);
 
   private static final int DIRECTORY_SIZE_GUESS = 16 * 1024;
@@ -83,6 +90,10 @@ public class OrcScanner extends FileScanner {
 
   private long recordCount = 0;
 
+  private EvalNode filter;
+  // whether each stripe may contain rows matched to the filter
+  private boolean[] includedStripes;
+
   /**
    * Ensure this is an ORC file to prevent users from trying to read text
    * files or RC files as ORC files.
@@ -237,7 +248,7 @@ public class OrcScanner extends FileScanner {
   public OrcRecordReader createRecordReader() throws IOException {
     return new OrcRecordReader(this.stripes, fileSystem, schema, targets, fragment, types, codec, bufferSize,
         rowIndexStride, buildReaderOptions(meta), conf,
-        timeZone);
+        timeZone, includedStripes);
   }
 
   private static Options buildReaderOptions(TableMeta meta) {
@@ -272,6 +283,7 @@ public class OrcScanner extends FileScanner {
     this.fileStats = rInfo.footer.getStatisticsList();
     this.versionList = footerMetaData.versionList;
     this.stripes = convertProtoStripesToStripes(rInfo.footer.getStripesList());
+    this.includedStripes = pickStripes(new OrcPredicateConverter().toSearchArgument(filter));
 
     this.timeZone = TimeZone.getTimeZone(meta.getProperty(StorageConstants.TIMEZONE,
         StorageUtil.TAJO_CONF.getSystemTimezone().getID()));
@@ -282,11 +294,160 @@ public class OrcScanner extends FileScanner {
 
   @Override
   public Tuple next() throws IOException {
-    Tuple next = recordReader.next();
-    if (next != null) {
+    Tuple next;
+    while ((next = recordReader.next()) != null) {
       recordCount++;
+      if (filter == null || filter.eval(next).isTrue()) {
+        return next;
+      }
     }
-    return next;
+    return null;
+  }
+
+  /**
+   * Decode the next rows of a stripe straight into column vectors.
+   * The filter is used only to skip stripes, and the returned rows are not filtered.
+   */
+  @Override
+  public int nextBatch(ColumnVector[] vectors, int maxRows) throws IOException {
+    int rows = recordReader.nextBatch(vectors, maxRows);
+    recordCount += rows;
+    return rows;
+  }
+
+  @Override
+  public void loadColumn(int columnId, ColumnVector vector, int[] selected, int size) throws IOException {
+    recordReader.loadColumn(columnId, vector, selected, size);
+  }
+
+  /**
+   * Evaluate a search argument against the statistics of each stripe.
+   *
+   * @return whether each stripe may contain matched rows, or null if all stripes should be read
+   */
+  private boolean[] pickStripes(SearchArgument sarg) {
+    if (sarg == null || stripeStats.size() != stripes.size()) {
+      return null;
+    }
+
+    List<PredicateLeaf> leaves = sarg.getLeaves();
+    int[] columnIds = new int[leaves.size()];
+    for (int i = 0; i < leaves.size(); i++) {
+      // the first column of ORC is the root struct
+      columnIds[i] = schema.getColumnIdByName(leaves.get(i).getColumnName()) + 1;
+    }
+
+    boolean[] included = new boolean[stripes.size()];
+    TruthValue[] leafValues = new TruthValue[leaves.size()];
+    int skipped = 0;
+    for (int i = 0; i < stripes.size(); i++) {
+      OrcProto.StripeStatistics stats = stripeStats.get(i);
+      for (int j = 0; j < leaves.size(); j++) {
+        leafValues[j] = columnIds[j] > 0 && columnIds[j] < stats.getColStatsCount() ?
+            evaluatePredicate(leaves.get(j), stats.getColStats(columnIds[j])) : TruthValue.YES_NO_NULL;
+      }
+      included[i] = sarg.evaluate(leafValues).isNeeded();
+      if (!included[i]) {
+        skipped++;
+      }
+    }
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(skipped + " of " + stripes.size() + " stripes are skipped by " + sarg + " in " + path);
+    }
+    return included;
+  }
+
+  /**
+   * Evaluate a predicate leaf against the statistics of a column.
+   */
+  @SuppressWarnings("unchecked")
+  static TruthValue evaluatePredicate(PredicateLeaf predicate, OrcProto.ColumnStatistics stats) {
+    // the writer of old versions does not record whether a column has null values
+    boolean hasNull = !stats.hasHasNull() || stats.getHasNull();
+    boolean allNull = stats.hasNumberOfValues() && stats.getNumberOfValues() == 0;
+
+    if (predicate.getOperator() == PredicateLeaf.Operator.IS_NULL) {
+      if (allNull) {
+        return hasNull ? TruthValue.YES : TruthValue.NO;
+      }
+      return hasNull ? TruthValue.YES_NO : TruthValue.NO;
+    } else if (allNull) {
+      return hasNull ? TruthValue.NULL : TruthValue.NO;
+    }
+
+    Comparable min;
+    Comparable max;
+    Comparable literal;
+    if (predicate.getType() == PredicateLeaf.Type.LONG && stats.hasIntStatistics()
+        && stats.getIntStatistics().hasMinimum() && stats.getIntStatistics().hasMaximum()) {
+      min = stats.getIntStatistics().getMinimum();
+      max = stats.getIntStatistics().getMaximum();
+      literal = (Long) predicate.getLiteral();
+    } else if (predicate.getType() == PredicateLeaf.Type.LONG && stats.hasDateStatistics()
+        && stats.getDateStatistics().hasMinimum() && stats.getDateStatistics().hasMaximum()) {
+      min = (long) stats.getDateStatistics().getMinimum();
+      max = (long) stats.getDateStatistics().getMaximum();
+      literal = (Long) predicate.getLiteral();
+    } else if (predicate.getType() == PredicateLeaf.Type.FLOAT && stats.hasDoubleStatistics()
+        && stats.getDoubleStatistics().hasMinimum() && stats.getDoubleStatistics().hasMaximum()) {
+      min = stats.getDoubleStatistics().getMinimum();
+      max = stats.getDoubleStatistics().getMaximum();
+      literal = (Double) predicate.getLiteral();
+    } else if (predicate.getType() == PredicateLeaf.Type.STRING && stats.hasStringStatistics()
+        && stats.getStringStatistics().hasMinimum() && stats.getStringStatistics().hasMaximum()) {
+      // strings are compared by their UTF-8 bytes like TextDatum
+      min = new TextDatum(stats.getStringStatistics().getMinimumBytes().toByteArray());
+      max = new TextDatum(stats.getStringStatistics().getMaximumBytes().toByteArray());
+      literal = DatumFactory.createText((String) predicate.getLiteral());
+    } else {
+      return TruthValue.YES_NO_NULL;
+    }
+
+    TruthValue result;
+    switch (predicate.getOperator()) {
+    case EQUALS:
+      if (literal.compareTo(min) < 0 || literal.compareTo(max) > 0) {
+        result = TruthValue.NO;
+      } else if (literal.compareTo(min) == 0 && literal.compareTo(max) == 0) {
+        result = TruthValue.YES;
+      } else {
+        result = TruthValue.YES_NO;
+      }
+      break;
+    case LESS_THAN:
+      if (max.compareTo(literal) < 0) {
+        result = TruthValue.YES;
+      } else if (min.compareTo(literal) >= 0) {
+        result = TruthValue.NO;
+      } else {
+        result = TruthValue.YES_NO;
+      }
+      break;
+    case LESS_THAN_EQUALS:
+      if (max.compareTo(literal) <= 0) {
+        result = TruthValue.YES;
+      } else if (min.compareTo(literal) > 0) {
+        result = TruthValue.NO;
+      } else {
+        result = TruthValue.YES_NO;
+      }
+      break;
+    default:
+      return TruthValue.YES_NO_NULL;
+    }
+
+    if (hasNull) {
+      switch (result) {
+      case YES:
+        return TruthValue.YES_NULL;
+      case NO:
+        return TruthValue.NO_NULL;
+      default:
+        return TruthValue.YES_NO_NULL;
+      }
+    }
+    return result;
   }
 
   @Override
@@ -312,12 +473,19 @@ public class OrcScanner extends FileScanner {
 
   @Override
   public boolean isSelectable() {
-    return false;
+    return true;
   }
 
+  /**
+   * Sets a filter. Stripes which cannot contain any matched row are skipped with their statistics,
+   * and the filter is evaluated for each row of the other stripes.
+   */
   @Override
   public void setFilter(EvalNode filter) {
-    // TODO: implement this
+    if (inited) {
+      throw new IllegalStateException("Should be called before init()");
+    }
+    this.filter = filter;
   }
 
   @Override
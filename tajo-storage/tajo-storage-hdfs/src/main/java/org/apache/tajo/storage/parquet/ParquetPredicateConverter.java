@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tajo.storage.parquet;
+
+import org.apache.parquet.filter2.predicate.FilterApi;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
+import org.apache.parquet.filter2.predicate.Operators;
+import org.apache.parquet.io.api.Binary;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.plan.expr.EvalType;
+import org.apache.tajo.storage.PushdownPredicateConverter;
+import org.apache.tajo.util.datetime.DateTimeConstants;
+
+/**
+ * It converts a search condition into a Parquet filter2 predicate, which is used to skip row groups
+ * with the column statistics of a Parquet footer.
+ *
+ * The statistics of binary columns are ordered by signed bytes in parquet-mr 1.8, whereas Tajo compares texts
+ * by unsigned bytes. So, only equality predicates are pushed down for TEXT columns.
+ */
+public class ParquetPredicateConverter extends PushdownPredicateConverter<FilterPredicate> {
+
+  @Override
+  protected FilterPredicate compare(Column column, EvalType type, Datum value) {
+    String name = column.getSimpleName();
+    switch (column.getDataType().getType()) {
+    case INT2:
+    case INT4:
+      if (!isInteger(value) || value.asInt8() < Integer.MIN_VALUE || value.asInt8() > Integer.MAX_VALUE) {
+        return null;
+      }
+      return compare(FilterApi.intColumn(name), type, value.asInt4());
+    case INT8:
+      return isInteger(value) ? compare(FilterApi.longColumn(name), type, value.asInt8()) : null;
+    case FLOAT4:
+      return value.kind() == Type.FLOAT4 ? compare(FilterApi.floatColumn(name), type, value.asFloat4()) : null;
+    case FLOAT8:
+      return value.kind() == Type.FLOAT8 ? compare(FilterApi.doubleColumn(name), type, value.asFloat8()) : null;
+    case DATE:
+      // Parquet DATE type is based on Unix Epoch(Jan 1, 1970).
+      return value.kind() == Type.DATE ?
+          compare(FilterApi.intColumn(name), type, value.asInt4() - DateTimeConstants.UNIX_EPOCH_JDATE) : null;
+    case TEXT:
+      if (value.kind() != Type.TEXT || (type != EvalType.EQUAL && type != EvalType.NOT_EQUAL)) {
+        return null;
+      }
+      return compare(FilterApi.binaryColumn(name), type, Binary.fromConstantByteArray(value.asByteArray()));
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  protected FilterPredicate isNull(Column column) {
+    String name = column.getSimpleName();
+    switch (column.getDataType().getType()) {
+    case INT2:
+    case INT4:
+    case DATE:
+      return FilterApi.eq(FilterApi.intColumn(name), null);
+    case INT8:
+      return FilterApi.eq(FilterApi.longColumn(name), null);
+    case FLOAT4:
+      return FilterApi.eq(FilterApi.floatColumn(name), null);
+    case FLOAT8:
+      return FilterApi.eq(FilterApi.doubleColumn(name), null);
+    case TEXT:
+      return FilterApi.eq(FilterApi.binaryColumn(name), null);
+    default:
+      return null;
+    }
+  }
+
+  @Override
+  protected FilterPredicate and(FilterPredicate left, FilterPredicate right) {
+    return FilterApi.and(left, right);
+  }
+
+  @Override
+  protected FilterPredicate or(FilterPredicate left, FilterPredicate right) {
+    return FilterApi.or(left, right);
+  }
+
+  @Override
+  protected FilterPredicate not(FilterPredicate child) {
+    return FilterApi.not(child);
+  }
+
+  private static boolean isInteger(Datum value) {
+    switch (value.kind()) {
+    case INT2:
+    case INT4:
+    case INT8:
+      return true;
+    default:
+      return false;
+    }
+  }
+
+  private static <T extends Comparable<T>, C extends Operators.Column<T> & Operators.SupportsLtGt>
+      FilterPredicate compare(C column, EvalType type, T value) {
+    switch (type) {
+    case EQUAL:
+      return FilterApi.eq(column, value);
+    case NOT_EQUAL:
+      return FilterApi.notEq(column, value);
+    case LTH:
+      return FilterApi.lt(column, value);
+    case LEQ:
+      return FilterApi.ltEq(column, value);
+    case GTH:
+      return FilterApi.gt(column, value);
+    case GEQ:
+      return FilterApi.gtEq(column, value);
+    default:
+      return null;
+    }
+  }
+}
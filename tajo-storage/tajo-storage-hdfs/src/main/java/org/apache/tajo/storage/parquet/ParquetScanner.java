@@ -19,6 +19,7 @@
 package org.apache.tajo.storage.parquet;
 
 import org.apache.hadoop.conf.Configuration;
+import org.apache.parquet.filter2.predicate.FilterPredicate;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.SchemaBuilder;
 import org.apache.tajo.catalog.TableMeta;
@@ -37,6 +38,7 @@ import java.io.IOException;
  */
 public class ParquetScanner extends FileScanner {
   private TajoParquetReader reader;
+  private EvalNode filter;
   /** The number of actual read records */
   private long currentRowCount;
   private long totalRowCount;
@@ -64,8 +66,14 @@ public class ParquetScanner extends FileScanner {
     if (targets == null) {
       targets = schema.toArray();
     }
-    reader = new TajoParquetReader(conf, fragment.getPath(), schema,
-        SchemaBuilder.builder().addAll(targets).build());
+    FilterPredicate filterPredicate = new ParquetPredicateConverter().convert(filter);
+    if (filterPredicate == null) {
+      reader = new TajoParquetReader(conf, fragment.getPath(), schema,
+          SchemaBuilder.builder().addAll(targets).build());
+    } else {
+      reader = new TajoParquetReader(conf, fragment.getPath(), schema,
+          SchemaBuilder.builder().addAll(targets).build(), filterPredicate);
+    }
     totalRowCount = reader.getTotalRowCount();
     currentRowCount = 0;
     closed = false;
@@ -82,15 +90,23 @@ public class ParquetScanner extends FileScanner {
   public Tuple next() throws IOException {
     // If there is no required column, we just read footer and then return an empty tuple
     if (targets.length == 0) {
-      if(currentRowCount == totalRowCount) {
-        return null;
-      } else {
+      while (currentRowCount < totalRowCount) {
         currentRowCount++;
-        return EmptyTuple.get();
+        if (filter == null || filter.eval(EmptyTuple.get()).isTrue()) {
+          return EmptyTuple.get();
+        }
       }
+      return null;
     }
 
-    return reader.read();
+    Tuple tuple;
+    while ((tuple = reader.read()) != null) {
+      currentRowCount++;
+      if (filter == null || filter.eval(tuple).isTrue()) {
+        return tuple;
+      }
+    }
+    return null;
   }
 
   /**
@@ -109,6 +125,7 @@ public class ParquetScanner extends FileScanner {
     if (reader != null) {
       reader.close();
     }
+    inputStats.setNumRows(currentRowCount);
     closed = true;
   }
 
@@ -125,16 +142,23 @@ public class ParquetScanner extends FileScanner {
   /**
    * Returns whether this scanner is selectable.
    *
-   * @return false
+   * @return true
    */
   @Override
   public boolean isSelectable() {
-    return false;
+    return true;
   }
 
+  /**
+   * Sets a filter. Row groups which cannot contain any matched row are skipped with their statistics,
+   * and the filter is evaluated for each row of the other row groups.
+   */
   @Override
   public void setFilter(EvalNode filter) {
-    throw new TajoRuntimeException(new NotImplementedException());
+    if (inited) {
+      throw new IllegalStateException("Should be called before init()");
+    }
+    this.filter = filter;
   }
 
   /**
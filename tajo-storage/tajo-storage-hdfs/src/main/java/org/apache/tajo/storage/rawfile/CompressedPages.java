@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.rawfile;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.storage.StorageConstants;
+import org.apache.tajo.storage.compress.CodecPool;
+import org.apache.tajo.tuple.memory.MemoryBlock;
+import org.apache.tajo.unit.StorageUnit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The compressed pages of a raw file. A page is compressed into frames, each of which consists of the raw length,
+ * the compressed length and the compressed bytes of at most {@link #MAX_FRAME_SIZE} raw bytes. Since a page always
+ * ends at a frame boundary, any byte range of pages can be served and fetched as-is, and the frames are decompressed
+ * one by one while the range is being read.
+ */
+public class CompressedPages {
+  public static final int FRAME_HEADER_SIZE = 8;
+  // It keeps a frame within the internal buffers of block-based codecs, such as snappy and lz4.
+  public static final int MAX_FRAME_SIZE = 64 * StorageUnit.KB;
+
+  private static final ConcurrentMap<String, CompressionCodec> codecs = Maps.newConcurrentMap();
+
+  /**
+   * @return the compression codec of the pages, or null if the pages are not compressed
+   */
+  public static CompressionCodec getCodec(Configuration conf, TableMeta meta) {
+    String codecName = meta.getProperty(StorageConstants.COMPRESSION_CODEC, "");
+    if (codecName.isEmpty()) {
+      return null;
+    }
+
+    CompressionCodec codec = codecs.get(codecName);
+    if (codec == null) {
+      codec = new CompressionCodecFactory(conf).getCodecByClassName(codecName);
+      if (codec == null) {
+        throw new IllegalArgumentException("Unknown compression codec: " + codecName);
+      }
+      codecs.putIfAbsent(codecName, codec);
+    }
+    return codec;
+  }
+
+  public static class PageCompressor implements Closeable {
+    private final Compressor compressor;
+    private final byte[] raw = new byte[MAX_FRAME_SIZE];
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+    private byte[] compressed = new byte[MAX_FRAME_SIZE + MAX_FRAME_SIZE / 8];
+    private long rawBytes;
+    private long compressedBytes;
+
+    public PageCompressor(CompressionCodec codec) {
+      this.compressor = CodecPool.getCompressor(codec);
+      Preconditions.checkArgument(compressor != null,
+          "No compressor of " + codec.getClass().getName() + " is available without the native library");
+    }
+
+    /**
+     * Compress the readable bytes of a memory block into frames. The bytes of the memory block are consumed.
+     *
+     * @return the number of written bytes
+     */
+    public int compress(MemoryBlock memory, OutputStream out) throws IOException {
+      int written = 0;
+      while (memory.isReadable()) {
+        int rawLength = memory.getBytes(raw, 0, Math.min(memory.readableBytes(), MAX_FRAME_SIZE));
+
+        compressor.reset();
+        compressor.setInput(raw, 0, rawLength);
+        compressor.finish();
+        int compressedLength = 0;
+        while (!compressor.finished()) {
+          if (compressedLength == compressed.length) {
+            byte[] newCompressed = new byte[compressed.length * 2];
+            System.arraycopy(compressed, 0, newCompressed, 0, compressedLength);
+            compressed = newCompressed;
+          }
+          compressedLength += compressor.compress(compressed, compressedLength, compressed.length - compressedLength);
+        }
+
+        header.clear();
+        header.putInt(rawLength).putInt(compressedLength);
+        out.write(header.array(), 0, FRAME_HEADER_SIZE);
+        out.write(compressed, 0, compressedLength);
+
+        rawBytes += rawLength;
+        compressedBytes += FRAME_HEADER_SIZE + compressedLength;
+        written += FRAME_HEADER_SIZE + compressedLength;
+      }
+      return written;
+    }
+
+    public long getRawBytes() {
+      return rawBytes;
+    }
+
+    public long getCompressedBytes() {
+      return compressedBytes;
+    }
+
+    @Override
+    public void close() {
+      CodecPool.returnCompressor(compressor);
+    }
+  }
+
+  public static class PageDecompressor implements Closeable {
+    private final Decompressor decompressor;
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+    private ByteBuffer compressed = ByteBuffer.allocate(MAX_FRAME_SIZE);
+    private ByteBuffer decompressed = ByteBuffer.allocate(MAX_FRAME_SIZE);
+    private long limit;
+    private long readBytes;
+
+    /**
+     * @param limit the number of compressed bytes to be read from a channel
+     */
+    public PageDecompressor(CompressionCodec codec, long limit) {
+      this.decompressor = CodecPool.getDecompressor(codec);
+      Preconditions.checkArgument(decompressor != null,
+          "No decompressor of " + codec.getClass().getName() + " is available without the native library");
+      this.limit = limit;
+      reset();
+    }
+
+    /**
+     * Discard the decompressed bytes, and read the frames from the current position of a channel again.
+     */
+    public void reset() {
+      decompressed.clear();
+      decompressed.flip();
+      readBytes = 0;
+    }
+
+    /**
+     * Fill a buffer with the decompressed bytes of the next frames.
+     *
+     * @return the number of bytes, or -1 if no frame is left within the limit
+     */
+    public int read(ReadableByteChannel channel, ByteBuffer dst) throws IOException {
+      int bytesRead = 0;
+      while (dst.hasRemaining()) {
+        if (!decompressed.hasRemaining() && !nextFrame(channel)) {
+          return bytesRead == 0 ? -1 : bytesRead;
+        }
+
+        int length = Math.min(dst.remaining(), decompressed.remaining());
+        int decompressedLimit = decompressed.limit();
+        decompressed.limit(decompressed.position() + length);
+        dst.put(decompressed);
+        decompressed.limit(decompressedLimit);
+        bytesRead += length;
+      }
+      return bytesRead;
+    }
+
+    private boolean nextFrame(ReadableByteChannel channel) throws IOException {
+      if (readBytes >= limit) {
+        return false;
+      }
+
+      header.clear();
+      if (!readFully(channel, header)) {
+        return false;
+      }
+      header.flip();
+      int rawLength = header.getInt();
+      int compressedLength = header.getInt();
+      if (rawLength < 0 || compressedLength < 0) {
+        throw new IOException("Invalid frame: raw length=" + rawLength + ", compressed length=" + compressedLength);
+      }
+
+      if (compressed.capacity() < compressedLength) {
+        compressed = ByteBuffer.allocate(compressedLength);
+      }
+      compressed.clear();
+      compressed.limit(compressedLength);
+      if (!readFully(channel, compressed)) {
+        throw new IOException("Unexpected end of a frame: compressed length=" + compressedLength);
+      }
+      readBytes += FRAME_HEADER_SIZE + compressedLength;
+
+      if (decompressed.capacity() < rawLength) {
+        decompressed = ByteBuffer.allocate(rawLength);
+      }
+      decompressor.reset();
+      decompressor.setInput(compressed.array(), 0, compressedLength);
+      int decompressedLength = 0;
+      while (decompressedLength < rawLength) {
+        int n = decompressor.decompress(decompressed.array(), decompressedLength, rawLength - decompressedLength);
+        if (n == 0 && (decompressor.finished() || decompressor.needsInput())) {
+          throw new IOException("Corrupted frame: decompressed " + decompressedLength + " of " + rawLength + " bytes");
+        }
+        decompressedLength += n;
+      }
+      decompressed.clear();
+      decompressed.limit(rawLength);
+      return true;
+    }
+
+    /**
+     * @return false if the channel has reached end-of-stream before any byte is read
+     */
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+      int start = buffer.position();
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer) == -1) {
+          if (buffer.position() == start) {
+            return false;
+          }
+          throw new IOException("Unexpected end of stream: " + buffer.remaining() + " bytes are left");
+        }
+      }
+      return true;
+    }
+
+    /**
+     * @return the number of compressed bytes read from a channel
+     */
+    public long getReadBytes() {
+      return readBytes;
+    }
+
+    @Override
+    public void close() {
+      CodecPool.returnDecompressor(decompressor);
+    }
+  }
+}
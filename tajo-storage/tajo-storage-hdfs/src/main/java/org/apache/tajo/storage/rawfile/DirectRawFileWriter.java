@@ -26,6 +26,7 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.tajo.BuiltinStorages;
 import org.apache.tajo.TaskAttemptId;
 import org.apache.tajo.catalog.Schema;
@@ -40,6 +41,7 @@ import org.apache.tajo.storage.FileAppender;
 import org.apache.tajo.storage.StorageConstants;
 import org.apache.tajo.storage.TableStatistics;
 import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.rawfile.CompressedPages.PageCompressor;
 import org.apache.tajo.tuple.memory.MemoryRowBlock;
 import org.apache.tajo.tuple.memory.OffHeapRowBlockUtils.TupleConverter;
 import org.apache.tajo.tuple.memory.RowWriter;
@@ -48,7 +50,9 @@ import org.apache.tajo.unit.StorageUnit;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 
 public class DirectRawFileWriter extends FileAppender {
@@ -69,6 +73,9 @@ public class DirectRawFileWriter extends FileAppender {
   protected boolean analyzeField;
   protected boolean hasExternalBuf;
   protected boolean isLocal;
+  // compresses the written row blocks if the compression codec is given
+  protected PageCompressor pageCompressor;
+  protected OutputStream compressedOut;
 
   public DirectRawFileWriter(Configuration conf, TaskAttemptId taskAttemptId,
                              final Schema schema, final TableMeta meta, final Path path)
@@ -108,6 +115,12 @@ public class DirectRawFileWriter extends FileAppender {
       isLocal = false;
     }
 
+    CompressionCodec codec = CompressedPages.getCodec(conf, meta);
+    if (codec != null) {
+      pageCompressor = new PageCompressor(codec);
+      compressedOut = isLocal ? Channels.newOutputStream(channel) : fos;
+    }
+
     if (tableStatsEnabled) {
       this.stats = new TableStatistics(this.schema, columnStatsEnabled);
       if (ShuffleType.RANGE_SHUFFLE == PlannerUtil.getShuffleType(
@@ -196,7 +209,9 @@ public class DirectRawFileWriter extends FileAppender {
   }
 
   public void writeRowBlock(MemoryRowBlock rowBlock) throws IOException {
-    if(isLocal) {
+    if (pageCompressor != null) {
+      pos += pageCompressor.compress(rowBlock.getMemory(), compressedOut);
+    } else if(isLocal) {
       pos += rowBlock.getMemory().writeTo(channel);
     } else {
       pos += rowBlock.getMemory().writeTo(fos);
@@ -234,10 +249,11 @@ public class DirectRawFileWriter extends FileAppender {
       stats.setNumBytes(getOffset());
     }
     if (LOG.isDebugEnabled()) {
-      LOG.debug("RawFileAppender written: " + getOffset() + " bytes, path: " + path);
+      LOG.debug("RawFileAppender written: " + getOffset() + " bytes, path: " + path
+          + (pageCompressor != null ? ", raw: " + pageCompressor.getRawBytes() + " bytes" : ""));
     }
 
-    IOUtils.cleanup(LOG, channel, randomAccessFile, fos);
+    IOUtils.cleanup(LOG, pageCompressor, channel, randomAccessFile, fos);
     if(!hasExternalBuf && rowBlock != null) {
       rowBlock.release();
     }
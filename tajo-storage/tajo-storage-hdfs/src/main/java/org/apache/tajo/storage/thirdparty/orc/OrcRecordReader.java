@@ -34,6 +34,7 @@ import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
 import org.apache.tajo.storage.fragment.AbstractFileFragment;
 import org.apache.tajo.storage.thirdparty.orc.TreeReaderFactory.DatumTreeReader;
+import org.apache.tajo.storage.vector.ColumnVector;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -67,6 +68,11 @@ public class OrcRecordReader implements Closeable {
   private final DataReader dataReader;
   private final Tuple result;
 
+  // the number of rows of the current stripe which are not consumed yet by each column reader
+  private final long[] pendingRows;
+  // the number of rows read by the last nextBatch()
+  private int batchRows = 0;
+
   public OrcRecordReader(List<StripeInformation> stripes,
                          FileSystem fileSystem,
                          Schema schema,
@@ -79,6 +85,26 @@ public class OrcRecordReader implements Closeable {
                          Reader.Options options,
                          Configuration conf,
                          TimeZone timeZone) throws IOException {
+    this(stripes, fileSystem, schema, targets, fragment, types, codec, bufferSize, strideRate, options, conf,
+        timeZone, null);
+  }
+
+  /**
+   * @param includedStripes whether each stripe of a file should be read. If null, all stripes are read.
+   */
+  public OrcRecordReader(List<StripeInformation> stripes,
+                         FileSystem fileSystem,
+                         Schema schema,
+                         Column[] targets,
+                         AbstractFileFragment fragment,
+                         List<OrcProto.Type> types,
+                         CompressionCodec codec,
+                         int bufferSize,
+                         long strideRate,
+                         Reader.Options options,
+                         Configuration conf,
+                         TimeZone timeZone,
+                         boolean[] includedStripes) throws IOException {
 
     result = new VTuple(targets.length);
 
@@ -100,11 +126,12 @@ public class OrcRecordReader implements Closeable {
     long skippedRows = 0;
     long offset = fragment.getStartKey();
     long maxOffset = fragment.getEndKey();
-    for(StripeInformation stripe: stripes) {
+    for (int i = 0; i < stripes.size(); i++) {
+      StripeInformation stripe = stripes.get(i);
       long stripeStart = stripe.getOffset();
       if (offset > stripeStart) {
         skippedRows += stripe.getNumberOfRows();
-      } else if (stripeStart < maxOffset) {
+      } else if (stripeStart < maxOffset && (includedStripes == null || includedStripes[i])) {
         this.stripes.add(stripe);
         rows += stripe.getNumberOfRows();
       }
@@ -117,6 +144,7 @@ public class OrcRecordReader implements Closeable {
     firstRow = skippedRows;
     totalRowCount = rows;
 
+    pendingRows = new long[targets.length];
     reader = new DatumTreeReader[targets.length];
     for (int i = 0; i < reader.length; i++) {
       reader[i] = TreeReaderFactory.createTreeReader(timeZone, schema.getColumnId(targets[i].getQualifiedName()), targets[i],
@@ -255,6 +283,92 @@ public class OrcRecordReader implements Closeable {
     }
   }
 
+  /**
+   * Read the next rows of the current stripe into column vectors. A batch does not span stripes.
+   * This method must not be used together with {@link #next()}.
+   *
+   * @param vectors the vectors of the target columns. The columns whose vectors are null are not
+   *                decoded, and they can be loaded by {@link #loadColumn(int, ColumnVector, int[], int)}.
+   * @param maxRows the maximum number of rows to be read
+   * @return the number of read rows, or 0 if there are no more rows
+   */
+  public int nextBatch(ColumnVector[] vectors, int maxRows) throws IOException {
+    try {
+      if (rowInStripe >= rowCountInStripe) {
+        // the stripe is moved lazily, so that the columns of the last batch can be still loaded
+        advanceStripe();
+        Arrays.fill(pendingRows, 0);
+        if (rowInStripe >= rowCountInStripe) {
+          batchRows = 0;
+          return 0;
+        }
+      }
+
+      batchRows = (int) Math.min(maxRows, rowCountInStripe - rowInStripe);
+      for (int i = 0; i < reader.length; i++) {
+        if (vectors[i] == null) {
+          pendingRows[i] += batchRows;
+        } else {
+          skipPendingRows(i);
+          reader[i].nextVector(vectors[i], 0, batchRows);
+        }
+      }
+      rowInStripe += batchRows;
+      return batchRows;
+    } catch (IOException e) {
+      // Rethrow exception with file name in log message
+      throw new IOException("Error reading file: " + path, e);
+    }
+  }
+
+  /**
+   * Decode a column which was not decoded by the last {@link #nextBatch(ColumnVector[], int)} for
+   * some rows of the batch. The other rows are skipped without being decoded.
+   *
+   * @param columnId the index of the target column
+   * @param vector the vector to be filled
+   * @param selected the rows to be loaded in ascending order. If null, the first <code>size</code> rows are loaded.
+   * @param size the number of rows to be loaded
+   */
+  public void loadColumn(int columnId, ColumnVector vector, int[] selected, int size) throws IOException {
+    // rows of the former batches which are not loaded
+    long skip = pendingRows[columnId] - batchRows;
+    if (skip < 0) {
+      throw new IllegalStateException("Column " + columnId + " is already loaded");
+    }
+
+    try {
+      int position = 0;
+      int i = 0;
+      while (i < size) {
+        // find a run of consecutive rows
+        int start = selected == null ? i : selected[i];
+        int end = start + 1;
+        for (i++; i < size && (selected == null ? i : selected[i]) == end; i++) {
+          end++;
+        }
+
+        skip += start - position;
+        if (skip > 0) {
+          reader[columnId].skipRows(skip);
+          skip = 0;
+        }
+        reader[columnId].nextVector(vector, start, end - start);
+        position = end;
+      }
+      pendingRows[columnId] = skip + batchRows - position;
+    } catch (IOException e) {
+      throw new IOException("Error reading file: " + path, e);
+    }
+  }
+
+  private void skipPendingRows(int columnId) throws IOException {
+    if (pendingRows[columnId] > 0) {
+      reader[columnId].skipRows(pendingRows[columnId]);
+      pendingRows[columnId] = 0;
+    }
+  }
+
   /**
    * Read the next stripe until we find a row that we don't skip.
    *
@@ -352,6 +466,9 @@ public class OrcRecordReader implements Closeable {
   }
 
   public float getProgress() {
+    if (totalRowCount == 0) {
+      return 1.0f;
+    }
     return ((float) rowBaseInStripe + rowInStripe) / totalRowCount;
   }
 
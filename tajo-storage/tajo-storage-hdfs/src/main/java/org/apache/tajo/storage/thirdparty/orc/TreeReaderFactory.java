@@ -20,7 +20,6 @@ package org.apache.tajo.storage.thirdparty.orc;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
 import org.apache.hadoop.io.Text;
 import org.apache.orc.OrcProto;
 import org.apache.orc.impl.*;
@@ -31,6 +30,10 @@ import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.exception.TajoRuntimeException;
 import org.apache.tajo.exception.UnsupportedException;
+import org.apache.tajo.storage.vector.BytesColumnVector;
+import org.apache.tajo.storage.vector.ColumnVector;
+import org.apache.tajo.storage.vector.DoubleColumnVector;
+import org.apache.tajo.storage.vector.LongColumnVector;
 import org.apache.tajo.util.datetime.DateTimeConstants;
 import org.apache.tajo.util.datetime.DateTimeUtil;
 
@@ -188,6 +191,21 @@ public class TreeReaderFactory {
 
     abstract void skipRows(long rows) throws IOException;
 
+    /**
+     * Read the present bit of the next row, and set the null flag of the row in a vector.
+     *
+     * @return true if the row has a value
+     */
+    protected final boolean nextPresent(ColumnVector vector, int row) throws IOException {
+      if (present == null || present.next() == 1) {
+        vector.isNull[row] = false;
+        return true;
+      } else {
+        vector.setNull(row);
+        return false;
+      }
+    }
+
     public BitFieldReader getPresent() {
       return present;
     }
@@ -209,6 +227,17 @@ public class TreeReaderFactory {
       }
       return NullDatum.get();
     }
+
+    /**
+     * Read the next rows into a column vector without creating datums.
+     *
+     * @param vector the vector to be filled
+     * @param offset the first row of the vector to be written
+     * @param rows the number of rows to be read
+     */
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      throw new TajoRuntimeException(new UnsupportedException("vectorized read of " + getClass().getSimpleName()));
+    }
   }
 
   public abstract static class RawStringTreeReader extends TreeReader {
@@ -226,6 +255,8 @@ public class TreeReaderFactory {
       }
       return null;
     }
+
+    abstract void nextVector(BytesColumnVector vector, int offset, int rows) throws IOException;
   }
 
   public static class BooleanTreeReader extends DatumTreeReader {
@@ -272,6 +303,16 @@ public class TreeReaderFactory {
       super.next();
       return valuePresent ? DatumFactory.createBool(reader.next() == 1) : NullDatum.get();
     }
+
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next();
+        }
+      }
+    }
   }
 
   public static class ByteTreeReader extends DatumTreeReader {
@@ -312,6 +353,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createBit(reader.next()) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next();
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skip(countNonNulls(items));
@@ -372,6 +423,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createInt2((short) reader.next()) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next();
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skip(countNonNulls(items));
@@ -432,6 +493,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createInt4((int) reader.next()) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next();
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skip(countNonNulls(items));
@@ -493,6 +564,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createInt8(reader.next()) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next();
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skip(countNonNulls(items));
@@ -540,6 +621,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createFloat4(utils.readFloat(stream)) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      double[] values = ((DoubleColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = utils.readFloat(stream);
+        }
+      }
+    }
+
     @Override
     protected void skipRows(long items) throws IOException {
       items = countNonNulls(items);
@@ -591,6 +682,16 @@ public class TreeReaderFactory {
       return valuePresent ? DatumFactory.createFloat8(utils.readDouble(stream)) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      double[] values = ((DoubleColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = utils.readDouble(stream);
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       items = countNonNulls(items);
@@ -604,7 +705,6 @@ public class TreeReaderFactory {
   public static class BinaryTreeReader extends DatumTreeReader {
     protected InStream stream;
     protected IntegerReader lengths = null;
-    protected final LongColumnVector scratchlcv;
 
     BinaryTreeReader(int columnId) throws IOException {
       this(columnId, null, null, null, null);
@@ -613,7 +713,6 @@ public class TreeReaderFactory {
     protected BinaryTreeReader(int columnId, InStream present, InStream data, InStream length,
                                OrcProto.ColumnEncoding encoding) throws IOException {
       super(columnId, present);
-      scratchlcv = new LongColumnVector();
       this.stream = data;
       if (length != null && encoding != null) {
         checkEncoding(encoding);
@@ -798,6 +897,16 @@ public class TreeReaderFactory {
       }
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = DateTimeUtil.javaTimeToJulianTime(decodeTimestamp(data.next(), nanos.next(), base_timestamp));
+        }
+      }
+    }
+
     private static int parseNanos(long serialized) {
       int zeros = 7 & (int) serialized;
       int result = (int) (serialized >>> 3);
@@ -888,6 +997,16 @@ public class TreeReaderFactory {
           DatumFactory.createDate((int) reader.next() + DateTimeConstants.UNIX_EPOCH_JDATE) : NullDatum.get();
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      long[] values = ((LongColumnVector) vector).vector;
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          values[i] = reader.next() + DateTimeConstants.UNIX_EPOCH_JDATE;
+        }
+      }
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skip(countNonNulls(items));
@@ -971,6 +1090,11 @@ public class TreeReaderFactory {
       return bytes == null ? NullDatum.get() : DatumFactory.createText(bytes);
     }
 
+    @Override
+    void nextVector(ColumnVector vector, int offset, int rows) throws IOException {
+      reader.nextVector((BytesColumnVector) vector, offset, rows);
+    }
+
     @Override
     void skipRows(long items) throws IOException {
       reader.skipRows(items);
@@ -1008,7 +1132,6 @@ public class TreeReaderFactory {
     protected InStream stream;
     protected BasicTextReaderShim data;
     protected IntegerReader lengths;
-    private final LongColumnVector scratchlcv;
 
     StringDirectTreeReader(int columnId) throws IOException {
       this(columnId, null, null, null, null);
@@ -1017,7 +1140,6 @@ public class TreeReaderFactory {
     protected StringDirectTreeReader(int columnId, InStream present, InStream data,
                                      InStream length, OrcProto.ColumnEncoding.Kind encoding) throws IOException {
       super(columnId, present);
-      this.scratchlcv = new LongColumnVector();
       this.stream = data;
       if (length != null && encoding != null) {
         this.lengths = createIntegerReader(encoding, length, false, false);
@@ -1064,8 +1186,17 @@ public class TreeReaderFactory {
     @Override
     byte[] next() throws IOException {
       super.next();
-      int len = (int) lengths.next();
-      return valuePresent ? data.read(len) : null;
+      // lengths are written only for non-null values
+      return valuePresent ? data.read((int) lengths.next()) : null;
+    }
+
+    @Override
+    void nextVector(BytesColumnVector vector, int offset, int rows) throws IOException {
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          vector.vector[i] = data.read((int) lengths.next());
+        }
+      }
     }
 
     @Override
@@ -1100,7 +1231,6 @@ public class TreeReaderFactory {
     protected IntegerReader reader;
 
     private byte[] dictionaryBufferInBytesCache = null;
-    private final LongColumnVector scratchlcv;
     private final Text result = new Text();
 
     StringDictionaryTreeReader(int columnId) throws IOException {
@@ -1111,7 +1241,6 @@ public class TreeReaderFactory {
                                          InStream length, InStream dictionary, OrcProto.ColumnEncoding encoding)
         throws IOException {
       super(columnId, present);
-      scratchlcv = new LongColumnVector();
       if (data != null && encoding != null) {
         this.reader = createIntegerReader(encoding.getKind(), data, false, false);
       }
@@ -1223,6 +1352,25 @@ public class TreeReaderFactory {
       }
     }
 
+    @Override
+    void nextVector(BytesColumnVector vector, int offset, int rows) throws IOException {
+      for (int i = offset; i < offset + rows; i++) {
+        if (nextPresent(vector, i)) {
+          int entry = (int) reader.next();
+          int offsetInDictionary = dictionaryOffsets[entry];
+          int length = getDictionaryEntryLength(entry, offsetInDictionary);
+          byte[] bytes = new byte[length];
+          if (dictionaryBuffer != null) {
+            if (dictionaryBufferInBytesCache == null) {
+              dictionaryBufferInBytesCache = dictionaryBuffer.get();
+            }
+            System.arraycopy(dictionaryBufferInBytesCache, offsetInDictionary, bytes, 0, length);
+          }
+          vector.vector[i] = bytes;
+        }
+      }
+    }
+
     int getDictionaryEntryLength(int entry, int offset) {
       final int length;
       // if it isn't the last entry, subtract the offsets otherwise use
@@ -26,7 +26,9 @@ import org.apache.parquet.Preconditions;
 import org.apache.parquet.filter.UnboundRecordFilter;
 import org.apache.parquet.filter2.compat.FilterCompat;
 import org.apache.parquet.filter2.compat.FilterCompat.Filter;
+import org.apache.parquet.filter2.compat.FilterCompat.FilterPredicateCompat;
 import org.apache.parquet.filter2.compat.RowGroupFilter;
+import org.apache.parquet.filter2.predicate.SchemaCompatibilityValidator;
 import org.apache.parquet.hadoop.Footer;
 import org.apache.parquet.hadoop.ParquetFileReader;
 import org.apache.parquet.hadoop.api.ReadSupport;
@@ -53,6 +55,7 @@ public class ParquetReader<T> implements Closeable {
   private final Configuration conf;
   private final Iterator<Footer> footersIterator;
   private final FilterCompat.Filter filter;
+  private final boolean recordFilter;
 
   private InternalParquetRecordReader<T> reader;
   private long totalRowCount;
@@ -65,7 +68,7 @@ public class ParquetReader<T> implements Closeable {
    */
   @Deprecated
   public ParquetReader(Path file, ReadSupport<T> readSupport) throws IOException {
-    this(new Configuration(), file, readSupport, FilterCompat.NOOP);
+    this(new Configuration(), file, readSupport, FilterCompat.NOOP, true);
   }
 
   /**
@@ -77,7 +80,7 @@ public class ParquetReader<T> implements Closeable {
    */
   @Deprecated
   public ParquetReader(Configuration conf, Path file, ReadSupport<T> readSupport) throws IOException {
-    this(conf, file, readSupport, FilterCompat.NOOP);
+    this(conf, file, readSupport, FilterCompat.NOOP, true);
   }
 
   /**
@@ -89,7 +92,7 @@ public class ParquetReader<T> implements Closeable {
    */
   @Deprecated
   public ParquetReader(Path file, ReadSupport<T> readSupport, UnboundRecordFilter unboundRecordFilter) throws IOException {
-    this(new Configuration(), file, readSupport, FilterCompat.get(unboundRecordFilter));
+    this(new Configuration(), file, readSupport, FilterCompat.get(unboundRecordFilter), true);
   }
 
   /**
@@ -102,15 +105,25 @@ public class ParquetReader<T> implements Closeable {
    */
   @Deprecated
   public ParquetReader(Configuration conf, Path file, ReadSupport<T> readSupport, UnboundRecordFilter unboundRecordFilter) throws IOException {
-    this(conf, file, readSupport, FilterCompat.get(unboundRecordFilter));
+    this(conf, file, readSupport, FilterCompat.get(unboundRecordFilter), true);
   }
 
-  private ParquetReader(Configuration conf,
-                        Path file,
-                        ReadSupport<T> readSupport,
-                        Filter filter) throws IOException {
+  /**
+   * @param conf the configuration
+   * @param file the file to read
+   * @param readSupport to materialize records
+   * @param filter the filter to skip row groups
+   * @param recordFilter if true, the filter is also applied to each record
+   * @throws IOException
+   */
+  protected ParquetReader(Configuration conf,
+                          Path file,
+                          ReadSupport<T> readSupport,
+                          Filter filter,
+                          boolean recordFilter) throws IOException {
     this.readSupport = readSupport;
     this.filter = checkNotNull(filter, "filter");
+    this.recordFilter = recordFilter;
     this.conf = conf;
 
     FileSystem fs = file.getFileSystem(conf);
@@ -154,10 +167,20 @@ public class ParquetReader<T> implements Closeable {
 
       MessageType fileSchema = footer.getParquetMetadata().getFileMetaData().getSchema();
 
+      // a filter cannot be applied to a file which does not have the columns of the filter
+      Filter fileFilter = filter;
+      if (filter instanceof FilterPredicateCompat) {
+        try {
+          SchemaCompatibilityValidator.validate(((FilterPredicateCompat) filter).getFilterPredicate(), fileSchema);
+        } catch (IllegalArgumentException e) {
+          fileFilter = FilterCompat.NOOP;
+        }
+      }
+
       List<BlockMetaData> filteredBlocks = RowGroupFilter.filterRowGroups(
-          filter, blocks, fileSchema);
+          fileFilter, blocks, fileSchema);
 
-      reader = new InternalParquetRecordReader<T>(readSupport, filter);
+      reader = new InternalParquetRecordReader<T>(readSupport, recordFilter ? fileFilter : FilterCompat.NOOP);
       reader.initialize(footer.getParquetMetadata().getFileMetaData(),
           footer.getFile(), filteredBlocks, conf);
     }
@@ -228,7 +251,7 @@ public class ParquetReader<T> implements Closeable {
     }
 
     public ParquetReader<T> build() throws IOException {
-      return new ParquetReader<T>(conf, file, getReadSupport(), filter);
+      return new ParquetReader<T>(conf, file, getReadSupport(), filter, true);
     }
   }
 }
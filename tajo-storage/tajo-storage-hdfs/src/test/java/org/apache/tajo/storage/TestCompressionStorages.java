@@ -76,10 +76,17 @@ public class TestCompressionStorages {
         {BuiltinStorages.TEXT},
         {BuiltinStorages.RCFILE},
         {BuiltinStorages.SEQUENCE_FILE},
-        {BuiltinStorages.ORC}
+        {BuiltinStorages.ORC},
+        {BuiltinStorages.RAW}
     });
   }
 
+  @Test
+  public void testDefaultCodecCompressionData() throws IOException {
+    // DefaultCodec does not need the native zlib, so every format is always tested with a compression codec.
+    storageCompressionTest(dataFormat, DefaultCodec.class);
+  }
+
   @Test
   public void testDeflateCodecCompressionData() throws IOException {
     storageCompressionTest(dataFormat, DeflateCodec.class);
@@ -95,6 +102,10 @@ public class TestCompressionStorages {
       if( ZlibFactory.isNativeZlibLoaded(conf)) {
         storageCompressionTest(dataFormat, GzipCodec.class);
       }
+    } else if (dataFormat.equalsIgnoreCase(BuiltinStorages.RAW)) {
+      if( ZlibFactory.isNativeZlibLoaded(conf)) {
+        storageCompressionTest(dataFormat, GzipCodec.class);
+      }
     } else {
       storageCompressionTest(dataFormat, GzipCodec.class);
     }
@@ -26,6 +26,7 @@ import org.apache.hadoop.io.BytesWritable;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Writable;
+import org.apache.parquet.hadoop.ParquetOutputFormat;
 import org.apache.tajo.BuiltinStorages;
 import org.apache.tajo.QueryId;
 import org.apache.tajo.TajoIdProtos;
@@ -41,6 +42,7 @@ import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.datum.ProtobufDatumFactory;
 import org.apache.tajo.exception.ValueTooLongForTypeCharactersException;
+import org.apache.tajo.plan.expr.*;
 import org.apache.tajo.plan.util.PlannerUtil;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.Fragment;
@@ -48,6 +50,7 @@ import org.apache.tajo.storage.rcfile.RCFile;
 import org.apache.tajo.storage.sequencefile.SequenceFileScanner;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.apache.tajo.util.JavaResourceUtil;
+import org.apache.tajo.util.datetime.DateTimeConstants;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -1600,4 +1603,92 @@ public class TestStorages {
     assertEquals(0, tuple.size());
     scanner.close();
   }
-}
\ No newline at end of file
+  @Test
+  public void testFilterPushdown() throws IOException {
+    if (dataFormat.equalsIgnoreCase(BuiltinStorages.AVRO) || !dateTypeSupport()) {
+      return;
+    }
+
+    Schema schema = SchemaBuilder.builder()
+        .add("id", Type.INT4)
+        .add("name", Type.TEXT)
+        .add("d", Type.DATE)
+        .build();
+
+    TableMeta meta = CatalogUtil.newTableMeta(dataFormat, conf);
+    // make small row groups and stripes
+    meta.putProperty(ParquetOutputFormat.BLOCK_SIZE, "65536");
+    meta.putProperty(StorageConstants.ORC_STRIPE_SIZE, "65536");
+
+    Path tablePath = new Path(testDir, "testFilterPushdown.data");
+    FileTablespace sm = TablespaceManager.getLocalFs();
+    Appender appender = sm.getAppender(meta, schema, tablePath);
+    appender.init();
+    int tupleNum = 100000;
+    for (int i = 0; i < tupleNum; i++) {
+      VTuple vTuple = new VTuple(3);
+      vTuple.put(0, DatumFactory.createInt4(i));
+      vTuple.put(1, i % 10 == 0 ? NullDatum.get() : DatumFactory.createText("name_" + (i % 100)));
+      vTuple.put(2, DatumFactory.createDate(DateTimeConstants.UNIX_EPOCH_JDATE + i / 1000));
+      appender.addTuple(vTuple);
+    }
+    appender.close();
+
+    FileStatus status = fs.getFileStatus(tablePath);
+    FileFragment fragment = new FileFragment("testFilterPushdown", tablePath, 0, status.getLen());
+
+    // id >= 30000 and 30100 > id and name is not null
+    EvalNode filter = new BinaryEval(EvalType.AND,
+        new BinaryEval(EvalType.AND,
+            new BinaryEval(EvalType.GEQ, new FieldEval(schema.getColumn(0)),
+                new ConstEval(DatumFactory.createInt4(30000))),
+            new BinaryEval(EvalType.GTH, new ConstEval(DatumFactory.createInt4(30100)),
+                new FieldEval(schema.getColumn(0)))),
+        new IsNullEval(true, new FieldEval(schema.getColumn(1))));
+
+    Scanner scanner = sm.getScanner(meta, schema, fragment, schema);
+    if (!scanner.isSelectable()) {
+      return;
+    }
+    scanner.setFilter(filter);
+    scanner.init();
+    filter.bind(null, schema);
+
+    int tupleCnt = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      assertTrue(tuple.getInt4(0) >= 30000 && tuple.getInt4(0) < 30100);
+      assertFalse(tuple.isBlankOrNull(1));
+      tupleCnt++;
+    }
+    scanner.close();
+
+    assertEquals(90, tupleCnt);
+    // row groups or stripes which do not contain matched rows are skipped
+    assertTrue(scanner.getInputStats().getNumRows() < tupleNum);
+
+    // d in (date '1970-01-11', date '1970-01-21') or name = 'name_1'
+    filter = new BinaryEval(EvalType.OR,
+        new InEval(new FieldEval(schema.getColumn(2)), new RowConstantEval(new Datum[] {
+            DatumFactory.createDate(DateTimeConstants.UNIX_EPOCH_JDATE + 10),
+            DatumFactory.createDate(DateTimeConstants.UNIX_EPOCH_JDATE + 20)}), false),
+        new BinaryEval(EvalType.EQUAL, new FieldEval(schema.getColumn(1)),
+            new ConstEval(DatumFactory.createText("name_1"))));
+
+    scanner = sm.getScanner(meta, schema, fragment, schema);
+    scanner.setFilter(filter);
+    scanner.init();
+    filter.bind(null, schema);
+
+    tupleCnt = 0;
+    while ((tuple = scanner.next()) != null) {
+      int days = tuple.getInt4(2) - DateTimeConstants.UNIX_EPOCH_JDATE;
+      assertTrue(days == 10 || days == 20 || tuple.getText(1).equals("name_1"));
+      tupleCnt++;
+    }
+    scanner.close();
+
+    // 2000 rows of two days and 1000 rows of name_1, of which 20 rows are in the two days
+    assertEquals(2980, tupleCnt);
+  }
+}
@@ -1072,4 +1072,57 @@ public class TestBSTIndex {
     reader.close();
     scanner.close();
   }
+
+  @Test
+  public void testMappedIndexReader() throws IOException {
+    SortSpec[] sortKeys = new SortSpec[2];
+    sortKeys[0] = new SortSpec(schema.getColumn("int"), true, false);
+    sortKeys[1] = new SortSpec(schema.getColumn("string"), true, false);
+
+    Schema keySchema = SchemaBuilder.builder()
+        .add(new Column("int", Type.INT4))
+        .add(new Column("string", Type.TEXT))
+        .build();
+
+    BaseTupleComparator comp = new BaseTupleComparator(keySchema, sortKeys);
+
+    // only even keys are indexed like the index of a range shuffle output
+    BSTIndex bst = new BSTIndex(conf);
+    Path indexPath = new Path(testDir, "testMappedIndexReader_" + dataFormat + ".idx");
+    BSTIndexWriter creater = bst.getIndexWriter(indexPath, BSTIndex.TWO_LEVEL_INDEX, keySchema, comp, true);
+    creater.setLoadNum(LOAD_NUM);
+    creater.init();
+    for (int i = 0; i < TUPLE_NUM; i += 2) {
+      Tuple keyTuple = new VTuple(2);
+      keyTuple.put(0, DatumFactory.createInt4(i));
+      keyTuple.put(1, DatumFactory.createText("field_" + i));
+      creater.write(keyTuple, i * 100L);
+    }
+    creater.flush();
+    creater.close();
+
+    BSTIndexReader heapReader = bst.getIndexReader(indexPath);
+    heapReader.init();
+    BSTIndexReader mappedReader = bst.getIndexReader(indexPath, true);
+    mappedReader.init();
+    assertTrue(mappedReader.isMapped());
+    assertEquals(heapReader.getFirstKey(), mappedReader.getFirstKey());
+    assertEquals(heapReader.getLastKey(), mappedReader.getLastKey());
+
+    Tuple keyTuple = new VTuple(2);
+    for (int i = -1; i <= TUPLE_NUM; i++) {
+      keyTuple.put(0, DatumFactory.createInt4(i));
+      keyTuple.put(1, DatumFactory.createText("field_" + i));
+
+      long offset = mappedReader.find(keyTuple);
+      assertEquals("find " + i, heapReader.find(keyTuple), offset);
+      if (offset != -1) {
+        assertEquals(i * 100L, offset);
+        assertEquals("next of " + i, heapReader.next(), mappedReader.next());
+      }
+      assertEquals("find next key of " + i, heapReader.find(keyTuple, true), mappedReader.find(keyTuple, true));
+    }
+    heapReader.close();
+    mappedReader.close();
+  }
 }
@@ -19,8 +19,6 @@
 package org.apache.tajo.yarn;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.cache.RemovalListener;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
@@ -31,7 +29,6 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.LocalDirAllocator;
 import org.apache.hadoop.fs.LocalFileSystem;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.ReadaheadPool;
 import org.apache.hadoop.metrics2.MetricsSystem;
 import org.apache.hadoop.metrics2.annotation.Metric;
@@ -50,12 +47,12 @@ import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.exception.InvalidURLException;
 import org.apache.tajo.exception.TajoInternalError;
+import org.apache.tajo.pullserver.DiskIOScheduler;
 import org.apache.tajo.pullserver.PullServerConstants;
 import org.apache.tajo.pullserver.PullServerUtil;
 import org.apache.tajo.pullserver.PullServerUtil.PullServerParams;
 import org.apache.tajo.pullserver.retriever.FileChunk;
 import org.apache.tajo.pullserver.retriever.IndexCacheKey;
-import org.apache.tajo.storage.index.bst.BSTIndex;
 import org.apache.tajo.storage.index.bst.BSTIndex.BSTIndexReader;
 import org.apache.tajo.util.SizeOf;
 import org.apache.tajo.util.TajoIdUtils;
@@ -73,15 +70,18 @@ import org.jboss.netty.handler.ssl.SslHandler;
 import org.jboss.netty.handler.stream.ChunkedWriteHandler;
 import org.jboss.netty.util.CharsetUtil;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.concurrent.*;
 
 import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
@@ -110,6 +110,22 @@ public class TajoPullServerService extends AuxiliaryService {
   private int readaheadLength;
   private ReadaheadPool readaheadPool = ReadaheadPool.getInstance();
 
+  // bounds concurrent reads of each disk if enabled
+  private DiskIOScheduler diskIOScheduler = null;
+
+  /**
+   * The requests received by a channel while the response of a previous request is deferred.
+   * A client can send requests without waiting for their responses, so they are handled after the deferred response
+   * to keep the responses in the request order. It is attached to the context of each channel.
+   */
+  private static class DeferredRequests {
+    // true while a response is deferred
+    boolean deferred;
+    // true while a response is deferred or the deferred requests are being handled
+    boolean busy;
+    final Queue<MessageEvent> requests = new ArrayDeque<>();
+  }
+
   private static final Map<String,String> userRsrc =
           new ConcurrentHashMap<>();
   private String userName;
@@ -127,6 +143,12 @@ public class TajoPullServerService extends AuxiliaryService {
     MutableCounterInt shuffleOutputsOK;
     @Metric({"Connections","# of current shuffle connections"})
     MutableGaugeInt shuffleConnections;
+    @Metric({"DiskQueuedRequests","# of chunk requests waiting for disk I/O"})
+    MutableGaugeInt diskQueuedRequests;
+    @Metric({"DiskRunningRequests","# of chunk requests being read from disks"})
+    MutableGaugeInt diskRunningRequests;
+    @Metric({"DiskQueueWaitTime","Total time of chunk requests waiting for disk I/O in milliseconds"})
+    MutableCounterLong diskQueueWaitTime;
 
     @Override
     public void operationComplete(ChannelFuture future) throws Exception {
@@ -196,6 +218,10 @@ public class TajoPullServerService extends AuxiliaryService {
 
     LOG.info("Tajo PullServer initialized: readaheadLength=" + readaheadLength);
 
+    if (tajoConf.getBoolVar(ConfVars.PULLSERVER_DISK_IO_SCHEDULER_ENABLED)) {
+      diskIOScheduler = new DiskIOScheduler(tajoConf, readaheadLength);
+    }
+
     ServerBootstrap bootstrap = new ServerBootstrap(selector);
     try {
       channelInitializer = new HttpChannelInitializer(tajoConf);
@@ -215,22 +241,8 @@ public class TajoPullServerService extends AuxiliaryService {
     sslFileBufferSize = tajoConf.getInt(PullServerConstants.SUFFLE_SSL_FILE_BUFFER_SIZE_KEY,
         PullServerConstants.DEFAULT_SUFFLE_SSL_FILE_BUFFER_SIZE);
 
-    int cacheSize = tajoConf.getIntVar(ConfVars.PULLSERVER_CACHE_SIZE);
-    int cacheTimeout = tajoConf.getIntVar(ConfVars.PULLSERVER_CACHE_TIMEOUT);
-
-    indexReaderCache = CacheBuilder.newBuilder()
-        .maximumSize(cacheSize)
-        .expireAfterWrite(cacheTimeout, TimeUnit.MINUTES)
-        .removalListener(removalListener)
-        .build(
-            new CacheLoader<IndexCacheKey, BSTIndexReader>() {
-              @Override
-              public BSTIndexReader load(IndexCacheKey key) throws Exception {
-                return new BSTIndex(tajoConf).getIndexReader(new Path(key.getPath(), "index"));
-              }
-            }
-        );
-    lowCacheHitCheckThreshold = (int) (cacheSize * 0.1f);
+    indexReaderCache = PullServerUtil.newIndexReaderCache(tajoConf, removalListener);
+    lowCacheHitCheckThreshold = PullServerUtil.getLowCacheHitCheckThreshold(tajoConf);
 
     super.serviceInit(tajoConf);
     LOG.info("TajoPullServerService started: port=" + port);
@@ -337,6 +349,7 @@ public class TajoPullServerService extends AuxiliaryService {
     @Override
     public void channelOpen(ChannelHandlerContext ctx, ChannelStateEvent evt) throws Exception {
       accepted.add(evt.getChannel());
+      ctx.setAttachment(new DeferredRequests());
 
       if(LOG.isDebugEnabled()) {
         LOG.debug(String.format("Current number of shuffle connections (%d)", accepted.size()));
@@ -347,7 +360,61 @@ public class TajoPullServerService extends AuxiliaryService {
     @Override
     public void messageReceived(ChannelHandlerContext ctx, MessageEvent evt)
             throws Exception {
+      DeferredRequests deferred = (DeferredRequests) ctx.getAttachment();
+      synchronized (deferred) {
+        if (deferred.busy) {
+          deferred.requests.add(evt);
+          return;
+        }
+      }
+      handleRequest(ctx, evt);
+    }
+
+    /**
+     * Marks that the response of the current request is written later. The following requests of the channel are
+     * handled after {@link #endDeferredResponse} is called.
+     */
+    private void beginDeferredResponse(ChannelHandlerContext ctx) {
+      DeferredRequests deferred = (DeferredRequests) ctx.getAttachment();
+      synchronized (deferred) {
+        deferred.deferred = true;
+        deferred.busy = true;
+      }
+    }
+
+    /**
+     * Handles the requests received while a response is deferred. It is called after the deferred response is written.
+     */
+    private void endDeferredResponse(ChannelHandlerContext ctx) {
+      DeferredRequests deferred = (DeferredRequests) ctx.getAttachment();
+      synchronized (deferred) {
+        deferred.deferred = false;
+      }
+
+      while (true) {
+        MessageEvent evt;
+        synchronized (deferred) {
+          if (deferred.deferred) {
+            // a request deferred its response again, so the remaining requests are handled after it.
+            return;
+          }
+          evt = deferred.requests.poll();
+          if (evt == null) {
+            deferred.busy = false;
+            return;
+          }
+        }
+
+        try {
+          handleRequest(ctx, evt);
+        } catch (Throwable e) {
+          LOG.error(e.getMessage(), e);
+          ctx.getChannel().close();
+        }
+      }
+    }
 
+    private void handleRequest(ChannelHandlerContext ctx, MessageEvent evt) throws Exception {
       HttpRequest request = (HttpRequest) evt.getMessage();
       Channel ch = evt.getChannel();
 
@@ -471,55 +538,101 @@ public class TajoPullServerService extends AuxiliaryService {
         throw new TajoInternalError(e.getCause());
       }
 
+      final boolean keepAlive = HttpHeaders.isKeepAlive(request);
+
       // Write the content.
       final Channel ch = ctx.getChannel();
       if (chunks.size() == 0) {
         HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.NO_CONTENT);
 
-        if (!HttpHeaders.isKeepAlive(request)) {
+        if (!keepAlive) {
           ch.write(response).addListener(ChannelFutureListener.CLOSE);
         } else {
           response.setHeader(Names.CONNECTION, Values.KEEP_ALIVE);
           ch.write(response);
         }
+      } else if (diskIOScheduler == null) {
+        sendChunks(ctx, keepAlive, chunks, readaheadLength, null);
       } else {
-        FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
-        ChannelFuture writeFuture = null;
-        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
-        long totalSize = 0;
-        StringBuilder sb = new StringBuilder();
-        for (FileChunk chunk : file) {
-          totalSize += chunk.length();
-          sb.append(Long.toString(chunk.length())).append(",");
-        }
-        sb.deleteCharAt(sb.length() - 1);
-        HttpHeaders.addHeader(response, PullServerConstants.CHUNK_LENGTH_HEADER_NAME, sb.toString());
-        HttpHeaders.setContentLength(response, totalSize);
+        // The chunks are sent when the disk holding the first chunk is available.
+        final File firstFile = chunks.get(0).getFile();
+        final int deviceId = diskIOScheduler.getDeviceId(firstFile);
+        final long queuedTime = System.currentTimeMillis();
+        metrics.diskQueuedRequests.incr();
+        beginDeferredResponse(ctx);
+        diskIOScheduler.submit(deviceId, firstFile.getAbsolutePath(), chunks.get(0).startOffset(), () -> {
+          metrics.diskQueuedRequests.decr();
+          metrics.diskRunningRequests.incr();
+          metrics.diskQueueWaitTime.incr(System.currentTimeMillis() - queuedTime);
+
+          Runnable release = () -> {
+            metrics.diskRunningRequests.decr();
+            diskIOScheduler.release(deviceId);
+          };
+          try {
+            sendChunks(ctx, keepAlive, chunks, diskIOScheduler.getReadaheadLength(deviceId), release);
+          } catch (Throwable e) {
+            LOG.error("Failed to send chunks of " + firstFile, e);
+            release.run();
+            ch.close();
+          }
+          // the response is queued in the channel, so the next requests can be handled.
+          endDeferredResponse(ctx);
+        });
+      }
+    }
 
-        if (HttpHeaders.isKeepAlive(request)) {
-          response.setHeader(Names.CONNECTION, Values.KEEP_ALIVE);
-        }
-        // Write the initial line and the header.
-        writeFuture = ch.write(response);
+    /**
+     * Writes the given chunks as a response.
+     *
+     * @param onComplete called when the response is completely written or failed. It can be null.
+     */
+    private void sendChunks(ChannelHandlerContext ctx, boolean keepAlive, List<FileChunk> chunks,
+                            int readaheadLength, Runnable onComplete) throws IOException {
+      final Channel ch = ctx.getChannel();
+      FileChunk[] file = chunks.toArray(new FileChunk[chunks.size()]);
+      ChannelFuture writeFuture = null;
+      HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.OK);
+      long totalSize = 0;
+      StringBuilder sb = new StringBuilder();
+      for (FileChunk chunk : file) {
+        totalSize += chunk.length();
+        sb.append(Long.toString(chunk.length())).append(",");
+      }
+      sb.deleteCharAt(sb.length() - 1);
+      HttpHeaders.addHeader(response, PullServerConstants.CHUNK_LENGTH_HEADER_NAME, sb.toString());
+      HttpHeaders.setContentLength(response, totalSize);
 
-        for (FileChunk chunk : file) {
-          writeFuture = sendFile(ctx, chunk);
-          if (writeFuture == null) {
-            sendError(ctx, HttpResponseStatus.NOT_FOUND);
-            return;
+      if (keepAlive) {
+        response.setHeader(Names.CONNECTION, Values.KEEP_ALIVE);
+      }
+      // Write the initial line and the header.
+      writeFuture = ch.write(response);
+
+      for (FileChunk chunk : file) {
+        writeFuture = sendFile(ctx, chunk, readaheadLength);
+        if (writeFuture == null) {
+          sendError(ctx, HttpResponseStatus.NOT_FOUND);
+          if (onComplete != null) {
+            onComplete.run();
           }
+          return;
         }
+      }
 
-        // Decide whether to close the connection or not.
-        if (!HttpHeaders.isKeepAlive(request)) {
-          // Close the connection when the whole content is written out.
-          writeFuture.addListener(ChannelFutureListener.CLOSE);
-        }
+      if (onComplete != null) {
+        writeFuture.addListener(future -> onComplete.run());
+      }
+
+      // Decide whether to close the connection or not.
+      if (!keepAlive) {
+        // Close the connection when the whole content is written out.
+        writeFuture.addListener(ChannelFutureListener.CLOSE);
       }
     }
 
     private ChannelFuture sendFile(ChannelHandlerContext ctx,
-                                   FileChunk file) throws IOException {
+                                   FileChunk file, int readaheadLength) throws IOException {
       Channel ch = ctx.getChannel();
       RandomAccessFile spill = null;      
       ChannelFuture writeFuture;